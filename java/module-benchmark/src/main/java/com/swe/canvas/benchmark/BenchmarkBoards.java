@@ -0,0 +1,132 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: BenchmarkBoards.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.benchmark;
+
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.EllipseShape;
+import com.swe.canvas.datamodel.shape.FreehandShape;
+import com.swe.canvas.datamodel.shape.LineShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.RectangleShape;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import com.swe.canvas.datamodel.shape.TriangleShape;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates realistic boards for the benchmarks.
+ *
+ * <p>Half of the shapes are freehand strokes of 20 to 400 points drawn as a
+ * random walk; the rest are rectangles, ellipses, lines and triangles. The
+ * same size and seed always give the same board, so results from different
+ * commits are comparable.</p>
+ */
+final class BenchmarkBoards {
+
+    /** Width and height of the board. */
+    static final int BOARD_SIZE = 4000;
+
+    /** Seed used by every benchmark. */
+    static final long SEED = 20_25L;
+
+    /** Fewest points in a freehand stroke. */
+    private static final int MIN_STROKE_POINTS = 20;
+
+    /** Most points in a freehand stroke. */
+    private static final int MAX_STROKE_POINTS = 400;
+
+    /** Largest step of the random walk of a stroke. */
+    private static final int STROKE_STEP = 6;
+
+    /** Largest width or height of a two-point shape. */
+    private static final int MAX_EXTENT = 300;
+
+    /** Colours the generated shapes use. */
+    private static final Color[] COLORS = {Color.BLACK, Color.RED, Color.BLUE, new Color(0x33, 0x99, 0x33)};
+
+    /** Thicknesses the generated shapes use. */
+    private static final double[] THICKNESSES = {1.0, 2.0, 4.0, 8.0};
+
+    private BenchmarkBoards() {
+        // Utility class
+    }
+
+    /**
+     * Generates a board.
+     *
+     * @param size Number of shapes.
+     * @param seed Random seed.
+     * @return The shape states by ID, in creation order.
+     */
+    static Map<ShapeId, ShapeState> board(final int size, final long seed) {
+        final Random random = new Random(seed);
+        final Map<ShapeId, ShapeState> board = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            final Shape shape = shape(random, i);
+            board.put(shape.getShapeId(), new ShapeState(shape, false, 0L, 1L + random.nextInt(5)));
+        }
+        return board;
+    }
+
+    /**
+     * Generates one freehand stroke.
+     *
+     * @param points Number of points.
+     * @param seed   Random seed.
+     * @return The stroke.
+     */
+    static Shape stroke(final int points, final long seed) {
+        return freehand(new Random(seed), new ShapeId("stroke-" + seed), points);
+    }
+
+    private static Shape shape(final Random random, final int index) {
+        final ShapeId id = new ShapeId("shape-" + index);
+        final int kind = random.nextInt(8);
+        if (kind < 4) {
+            return freehand(random, id,
+                    MIN_STROKE_POINTS + random.nextInt(MAX_STROKE_POINTS - MIN_STROKE_POINTS + 1));
+        }
+        final double x = random.nextInt(BOARD_SIZE);
+        final double y = random.nextInt(BOARD_SIZE);
+        final List<Point> corners = List.of(new Point(x, y),
+                new Point(x + random.nextInt(MAX_EXTENT), y + random.nextInt(MAX_EXTENT)));
+        final double thickness = THICKNESSES[random.nextInt(THICKNESSES.length)];
+        final Color color = COLORS[random.nextInt(COLORS.length)];
+        final String user = "user-" + random.nextInt(8);
+        switch (kind) {
+            case 4:
+                return new RectangleShape(id, corners, thickness, color, user, user);
+            case 5:
+                return new EllipseShape(id, corners, thickness, color, user, user);
+            case 6:
+                return new LineShape(id, corners, thickness, color, user, user);
+            default:
+                return new TriangleShape(id, corners, thickness, color, user, user);
+        }
+    }
+
+    private static Shape freehand(final Random random, final ShapeId id, final int count) {
+        final List<Point> points = new ArrayList<>(count);
+        double x = random.nextInt(BOARD_SIZE);
+        double y = random.nextInt(BOARD_SIZE);
+        for (int p = 0; p < count; p++) {
+            points.add(new Point(x, y));
+            x += random.nextDouble() * STROKE_STEP - STROKE_STEP / 2.0;
+            y += random.nextDouble() * STROKE_STEP - STROKE_STEP / 2.0;
+        }
+        final String user = "user-" + random.nextInt(8);
+        return new FreehandShape(id, points, THICKNESSES[random.nextInt(THICKNESSES.length)],
+                COLORS[random.nextInt(COLORS.length)], user, user);
+    }
+}
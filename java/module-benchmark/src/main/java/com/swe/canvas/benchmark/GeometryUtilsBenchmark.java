@@ -0,0 +1,102 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: GeometryUtilsBenchmark.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.benchmark;
+
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.ux.canvas.util.GeometryUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link GeometryUtils} over a whole board, as a click or a redraw sees it.
+ *
+ * <p>Each invocation tests or measures every shape once; the clicks cycle
+ * through a fixed set of random points so some hit and most miss.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryUtilsBenchmark {
+
+    /** Number of click positions to cycle through. */
+    private static final int CLICKS = 64;
+
+    /** Shapes on the board. */
+    @Param({"100", "2000"})
+    private int boardSize;
+
+    /** The shapes. */
+    private List<Shape> shapes;
+
+    /** Click positions: x at even indices, y at odd ones. */
+    private double[] clicks;
+
+    /** Next click to use. */
+    private int nextClick;
+
+    /**
+     * Generates the board and the clicks.
+     */
+    @Setup
+    public void setUp() {
+        shapes = new ArrayList<>(boardSize);
+        for (final ShapeState state : BenchmarkBoards.board(boardSize, BenchmarkBoards.SEED).values()) {
+            shapes.add(state.getShape());
+        }
+        final Random random = new Random(BenchmarkBoards.SEED);
+        clicks = new double[CLICKS * 2];
+        for (int i = 0; i < clicks.length; i++) {
+            clicks[i] = random.nextInt(BenchmarkBoards.BOARD_SIZE);
+        }
+    }
+
+    /**
+     * Hit-tests every shape at one click, like selecting with the mouse.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void hitTestBoard(final Blackhole blackhole) {
+        final int i = nextClick;
+        nextClick = (nextClick + 2) % clicks.length;
+        for (final Shape shape : shapes) {
+            blackhole.consume(GeometryUtils.hitTest(shape, clicks[i], clicks[i + 1]));
+        }
+    }
+
+    /**
+     * Measures every shape, like drawing selection boxes for all of them.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void getBoundsBoard(final Blackhole blackhole) {
+        for (final Shape shape : shapes) {
+            blackhole.consume(GeometryUtils.getBounds(shape));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: JmhResultComparison.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, e.g. from two commits.
+ *
+ * <p>Usage: {@code JmhResultComparison <baseline.json> <current.json> [thresholdPercent]}.
+ * Prints the change of every benchmark present in both files and exits with
+ * status 1 if any got slower by more than the threshold (default
+ * {@value #DEFAULT_THRESHOLD_PERCENT}%). Scores are times per operation, so a
+ * higher score is a regression.</p>
+ */
+public final class JmhResultComparison {
+
+    /** Allowed slow-down before a benchmark counts as a regression, in percent. */
+    static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    /** Factor from a ratio to percent. */
+    private static final double PERCENT = 100.0;
+
+    private JmhResultComparison() {
+        // Utility class
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args Baseline file, current file and an optional threshold in percent.
+     */
+    public static void main(final String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhResultComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        try {
+            final Map<String, Double> baseline = read(new File(args[0]));
+            final Map<String, Double> current = read(new File(args[1]));
+            final int regressions = compare(baseline, current, threshold);
+            System.out.println(regressions == 0
+                    ? "No regressions over " + threshold + "%"
+                    : regressions + " regression(s) over " + threshold + "%");
+            System.exit(regressions == 0 ? 0 : 1);
+        } catch (final IOException e) {
+            System.err.println("[JmhResultComparison] Could not read results: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Reads the scores of a JMH JSON result file.
+     *
+     * @param file The file written with {@code -rf json}.
+     * @return The score per benchmark and parameter set, in file order.
+     * @throws IOException if the file cannot be read or parsed.
+     */
+    static Map<String, Double> read(final File file) throws IOException {
+        final Map<String, Double> scores = new LinkedHashMap<>();
+        for (final JsonNode run : new ObjectMapper().readTree(file)) {
+            scores.put(key(run), run.path("primaryMetric").path("score").asDouble());
+        }
+        return scores;
+    }
+
+    /**
+     * Prints the change of every benchmark in both result sets.
+     *
+     * @param baseline  Scores before.
+     * @param current   Scores after.
+     * @param threshold Allowed slow-down, in percent.
+     * @return The number of benchmarks slower by more than the threshold.
+     */
+    static int compare(final Map<String, Double> baseline, final Map<String, Double> current,
+                       final double threshold) {
+        int regressions = 0;
+        for (final Map.Entry<String, Double> entry : current.entrySet()) {
+            final Double before = baseline.get(entry.getKey());
+            if (before == null || before <= 0) {
+                System.out.printf("%-90s %12.3f   (new)%n", entry.getKey(), entry.getValue());
+                continue;
+            }
+            final double change = (entry.getValue() - before) / before * PERCENT;
+            final boolean regressed = change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %12.3f -> %12.3f %+7.1f%%%s%n", entry.getKey(), before,
+                    entry.getValue(), change, regressed ? "  REGRESSION" : "");
+        }
+        return regressions;
+    }
+
+    private static String key(final JsonNode run) {
+        final StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+        final Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+        while (params.hasNext()) {
+            final Map.Entry<String, JsonNode> param = params.next();
+            key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+        return key.toString();
+    }
+}
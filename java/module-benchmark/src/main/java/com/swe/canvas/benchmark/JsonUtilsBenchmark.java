@@ -0,0 +1,148 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: JsonUtilsBenchmark.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.benchmark;
+
+import com.swe.canvas.datamodel.action.ActionFactory;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.serialization.JsonUtils;
+import com.swe.canvas.datamodel.serialization.NetActionSerializer;
+import com.swe.canvas.datamodel.serialization.ShapeSerializer;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link JsonUtils} extractors on the documents the serializers produce.
+ *
+ * <p>The scalar keys are looked up after the point array, as the
+ * deserializers do, so the cost of scanning past the points is included.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilsBenchmark {
+
+    /** Actions in the compound action read by {@link #extractObjectArray()}. */
+    private static final int BATCH_SIZE = 50;
+
+    /** Points in the stroke. */
+    @Param({"50", "500"})
+    private int strokePoints;
+
+    /** A serialized freehand shape. */
+    private String shapeJson;
+
+    /** A serialized create action. */
+    private String actionJson;
+
+    /** A serialized compound action. */
+    private String batchJson;
+
+    /**
+     * Serializes the documents.
+     */
+    @Setup
+    public void setUp() {
+        final Shape stroke = BenchmarkBoards.stroke(strokePoints, BenchmarkBoards.SEED);
+        final ActionFactory factory = new ActionFactory();
+        shapeJson = ShapeSerializer.serializeShape(new ShapeState(stroke, false, 0L, ShapeState.INITIAL_VERSION));
+        actionJson = NetActionSerializer.serializeAction(factory.createCreateAction(stroke, "user-0"));
+        final List<Shape> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(BenchmarkBoards.stroke(strokePoints / 10 + 2, BenchmarkBoards.SEED + i));
+        }
+        batchJson = NetActionSerializer.serializeAction(factory.createCreateBatch(batch, "user-0"));
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @return The value.
+     */
+    @Benchmark
+    public String extractString() {
+        return JsonUtils.extractString(shapeJson, "LastModifiedBy");
+    }
+
+    /**
+     * Reads a double.
+     *
+     * @return The value.
+     */
+    @Benchmark
+    public double extractDouble() {
+        return JsonUtils.extractDouble(shapeJson, "Thickness");
+    }
+
+    /**
+     * Reads a long.
+     *
+     * @return The value.
+     */
+    @Benchmark
+    public long extractLong() {
+        return JsonUtils.extractLong(shapeJson, "Version");
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return The value.
+     */
+    @Benchmark
+    public boolean extractBoolean() {
+        return JsonUtils.extractBoolean(shapeJson, "IsDeleted");
+    }
+
+    /**
+     * Reads the point array.
+     *
+     * @return The points.
+     */
+    @Benchmark
+    public List<Point> extractPoints() {
+        return JsonUtils.extractPoints(shapeJson);
+    }
+
+    /**
+     * Reads a nested object.
+     *
+     * @return The object as JSON.
+     */
+    @Benchmark
+    public String extractNestedJson() {
+        return JsonUtils.extractNestedJson(actionJson, "Next");
+    }
+
+    /**
+     * Reads an array of objects.
+     *
+     * @return The objects as JSON.
+     */
+    @Benchmark
+    public List<String> extractObjectArray() {
+        return JsonUtils.extractObjectArray(batchJson, "Actions");
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: NetActionSerializerBenchmark.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.benchmark;
+
+import com.swe.canvas.datamodel.action.Action;
+import com.swe.canvas.datamodel.action.ActionFactory;
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.serialization.NetActionSerializer;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link NetActionSerializer}: create, modify and delete actions on a
+ * freehand stroke, in both directions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetActionSerializerBenchmark {
+
+    /** Distance the modified stroke is moved by. */
+    private static final double MOVE = 10.0;
+
+    /** Points in the stroke the actions carry. */
+    @Param({"50", "500"})
+    private int strokePoints;
+
+    /** Create action. */
+    private Action create;
+
+    /** Modify action; carries the shape twice, before and after. */
+    private Action modify;
+
+    /** Delete action. */
+    private Action delete;
+
+    /** {@link #create} as JSON. */
+    private String createJson;
+
+    /** {@link #modify} as JSON. */
+    private String modifyJson;
+
+    /** {@link #delete} as JSON. */
+    private String deleteJson;
+
+    /**
+     * Builds the actions.
+     */
+    @Setup
+    public void setUp() {
+        final ActionFactory factory = new ActionFactory();
+        final Shape stroke = BenchmarkBoards.stroke(strokePoints, BenchmarkBoards.SEED);
+        final CanvasState canvas = new CanvasState();
+        canvas.applyState(stroke.getShapeId(), new ShapeState(stroke, false, 0L, ShapeState.INITIAL_VERSION));
+
+        final Shape moved = stroke.copy();
+        final List<Point> points = new ArrayList<>(stroke.getPoints().size());
+        for (final Point p : stroke.getPoints()) {
+            points.add(new Point(p.getX() + MOVE, p.getY() + MOVE));
+        }
+        moved.setPoints(points);
+
+        create = factory.createCreateAction(stroke, "user-0");
+        modify = factory.createModifyAction(canvas, stroke.getShapeId(), moved, "user-0");
+        delete = factory.createDeleteAction(canvas, stroke.getShapeId(), "user-0");
+        createJson = NetActionSerializer.serializeAction(create);
+        modifyJson = NetActionSerializer.serializeAction(modify);
+        deleteJson = NetActionSerializer.serializeAction(delete);
+    }
+
+    /**
+     * Serializes a create action.
+     *
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serializeCreate() {
+        return NetActionSerializer.serializeAction(create);
+    }
+
+    /**
+     * Serializes a modify action.
+     *
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serializeModify() {
+        return NetActionSerializer.serializeAction(modify);
+    }
+
+    /**
+     * Serializes a delete action.
+     *
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serializeDelete() {
+        return NetActionSerializer.serializeAction(delete);
+    }
+
+    /**
+     * Deserializes a create action.
+     *
+     * @return The action.
+     */
+    @Benchmark
+    public Action deserializeCreate() {
+        return NetActionSerializer.deserializeAction(createJson);
+    }
+
+    /**
+     * Deserializes a modify action.
+     *
+     * @return The action.
+     */
+    @Benchmark
+    public Action deserializeModify() {
+        return NetActionSerializer.deserializeAction(modifyJson);
+    }
+
+    /**
+     * Deserializes a delete action.
+     *
+     * @return The action.
+     */
+    @Benchmark
+    public Action deserializeDelete() {
+        return NetActionSerializer.deserializeAction(deleteJson);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: NetworkMessageBenchmark.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.benchmark;
+
+import com.swe.canvas.datamodel.action.ActionFactory;
+import com.swe.canvas.datamodel.collaboration.MessageType;
+import com.swe.canvas.datamodel.collaboration.NetworkMessage;
+import com.swe.canvas.datamodel.serialization.NetActionSerializer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link NetworkMessage}: the envelope around every action on the wire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkMessageBenchmark {
+
+    /** Points in the stroke of the wrapped create action. */
+    @Param({"50", "500"})
+    private int strokePoints;
+
+    /** The message. */
+    private NetworkMessage message;
+
+    /** {@link #message} as JSON. */
+    private String messageJson;
+
+    /**
+     * Wraps a create action in a message.
+     */
+    @Setup
+    public void setUp() {
+        final String action = NetActionSerializer.serializeAction(new ActionFactory()
+                .createCreateAction(BenchmarkBoards.stroke(strokePoints, BenchmarkBoards.SEED), "user-0"));
+        message = new NetworkMessage(MessageType.NORMAL, action.getBytes(StandardCharsets.UTF_8));
+        messageJson = message.serialize();
+    }
+
+    /**
+     * Serializes the message.
+     *
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serialize() {
+        return message.serialize();
+    }
+
+    /**
+     * Deserializes the message.
+     *
+     * @return The message.
+     */
+    @Benchmark
+    public NetworkMessage deserialize() {
+        return NetworkMessage.deserialize(messageJson);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: ShapeSerializerBenchmark.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.benchmark;
+
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.serialization.ShapeSerializer;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ShapeSerializer}: a single shape and whole boards, in both directions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShapeSerializerBenchmark {
+
+    /** Points in the single freehand shape. */
+    @Param({"50", "500"})
+    private int strokePoints;
+
+    /** Shapes on the board. */
+    @Param({"100", "2000"})
+    private int boardSize;
+
+    /** The single shape. */
+    private ShapeState shape;
+
+    /** The single shape as JSON. */
+    private String shapeJson;
+
+    /** The board. */
+    private Map<ShapeId, ShapeState> board;
+
+    /** The board as JSON. */
+    private String boardJson;
+
+    /**
+     * Generates the inputs.
+     */
+    @Setup
+    public void setUp() {
+        shape = new ShapeState(BenchmarkBoards.stroke(strokePoints, BenchmarkBoards.SEED), false, 0L, 1L);
+        shapeJson = ShapeSerializer.serializeShape(shape);
+        board = BenchmarkBoards.board(boardSize, BenchmarkBoards.SEED);
+        boardJson = ShapeSerializer.serializeShapesMap(board);
+    }
+
+    /**
+     * Serializes one shape.
+     *
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serializeShape() {
+        return ShapeSerializer.serializeShape(shape);
+    }
+
+    /**
+     * Deserializes one shape.
+     *
+     * @return The shape state.
+     */
+    @Benchmark
+    public ShapeState deserializeShape() {
+        return ShapeSerializer.deserializeShape(shapeJson);
+    }
+
+    /**
+     * Serializes the board.
+     *
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serializeShapesMap() {
+        return ShapeSerializer.serializeShapesMap(board);
+    }
+
+    /**
+     * Deserializes the board.
+     *
+     * @return The shape states by ID.
+     */
+    @Benchmark
+    public Map<ShapeId, ShapeState> deserializeShapesMap() {
+        return ShapeSerializer.deserializeShapesMap(boardJson);
+    }
+}
@@ -0,0 +1,116 @@
+package com.swe.chat.benchmark;
+
+import com.swe.chat.ChatMessageSerializer;
+import com.swe.chat.FileMessageSerializer;
+import com.swe.ux.model.ChatMessage;
+import com.swe.ux.model.FileMessage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ChatMessageSerializer} and {@link FileMessageSerializer}: one text
+ * message and one file announcement, in both directions.
+ *
+ * <p>For allocation per message run with the GC profiler, e.g.
+ * {@code -Djmh.args="-prof gc ChatSerializerBenchmark"}, and read
+ * {@code gc.alloc.rate.norm}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatSerializerBenchmark {
+
+    /** Timestamp of the messages, in epoch seconds. */
+    private static final long TIMESTAMP = 1_700_000_000L;
+
+    /** Characters of message text. */
+    @Param({"40", "2000"})
+    private int contentChars;
+
+    /** Mostly ASCII text with some accented and non-Latin characters. */
+    private ChatMessage text;
+
+    /** File announcement sent by path, with a content hash. */
+    private FileMessage file;
+
+    /** {@link #text} serialized. */
+    private byte[] textBytes;
+
+    /** {@link #file} serialized. */
+    private byte[] fileBytes;
+
+    /**
+     * Builds the messages.
+     */
+    @Setup
+    public void setUp() {
+        final String words = "Agenda for the sprint review, décisions et 会議 notes. ";
+        final StringBuilder content = new StringBuilder(contentChars);
+        while (content.length() < contentChars) {
+            content.append(words);
+        }
+        content.setLength(contentChars);
+
+        text = new ChatMessage("3f2a9c1e-7b4d-4e8a-9c2f-1d5e6a7b8c9d", "priya.sharma@example.edu",
+                "Priya Sharma", content.toString(), TIMESTAMP, "0b1c2d3e-4f50-6172-8394-a5b6c7d8e9f0");
+        file = new FileMessage("7c6b5a49-3827-1605-f4e3-d2c1b0a99887", "priya.sharma@example.edu",
+                "Priya Sharma", content.toString(), "Sprint review slides.pdf",
+                "/home/priya/Documents/Sprint review slides.pdf", null);
+        file.setContentHash("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        textBytes = ChatMessageSerializer.serialize(text);
+        fileBytes = FileMessageSerializer.serialize(file);
+    }
+
+    /**
+     * Serializes the text message.
+     *
+     * @return The bytes.
+     */
+    @Benchmark
+    public byte[] serializeText() {
+        return ChatMessageSerializer.serialize(text);
+    }
+
+    /**
+     * Deserializes the text message.
+     *
+     * @return The message.
+     */
+    @Benchmark
+    public ChatMessage deserializeText() {
+        return ChatMessageSerializer.deserialize(textBytes);
+    }
+
+    /**
+     * Serializes the file announcement.
+     *
+     * @return The bytes.
+     */
+    @Benchmark
+    public byte[] serializeFile() {
+        return FileMessageSerializer.serialize(file);
+    }
+
+    /**
+     * Deserializes the file announcement.
+     *
+     * @return The message.
+     */
+    @Benchmark
+    public FileMessage deserializeFile() {
+        return FileMessageSerializer.deserialize(fileBytes);
+    }
+}
@@ -17,13 +17,36 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Function Library for calling Azure Cloud Function APIs asynchronously.
  */
 public class CloudFunctionLibrary {
 
+    /** Upper bound for the delay between retries. */
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /** Lowest status code treated as a failed request. */
+    private static final int HTTP_ERROR_STATUS = 400;
+
+    /** Background thread for debounced tasks and delayed retries. */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "cloud-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Pending debounced tasks by key. */
+    private static final Map<String, ScheduledFuture<?>> DEBOUNCED = new ConcurrentHashMap<>();
+
     /** Base URL of the Cloud Functions. */
     private String baseUrl;
 
@@ -44,6 +67,17 @@ public class CloudFunctionLibrary {
         objectMapper = new ObjectMapper();
     }
 
+    /**
+     * Constructor with an explicit base URL.
+     *
+     * @param cloudBaseUrl Base URL of the Cloud Functions
+     */
+    public CloudFunctionLibrary(final String cloudBaseUrl) {
+        baseUrl = cloudBaseUrl;
+        httpClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+    }
+
     /**
      * Generic function to make HTTP calls.
      *
@@ -172,4 +206,76 @@ public class CloudFunctionLibrary {
         }
     }
 
+    /** Runs a cloud call, retrying with exponential backoff until it succeeds.
+     *
+     * <p>A call fails if it completes exceptionally or returns an error status.
+     * The delay starts at {@code initialBackoffMillis} and doubles after each
+     * failed attempt, up to 30 seconds.</p>
+     *
+     * @param call Starts one attempt, e.g. {@code () -> library.cloudUpdate(request)}
+     * @param maxAttempts Total number of attempts (at least 1)
+     * @param initialBackoffMillis Delay before the first retry
+     * @return response of the first successful attempt, or the last failure
+     * */
+    public CompletableFuture<CloudResponse> withRetry(final Supplier<CompletableFuture<CloudResponse>> call,
+                                                      final int maxAttempts, final long initialBackoffMillis) {
+        final CompletableFuture<CloudResponse> result = new CompletableFuture<>();
+        attempt(call, 1, Math.max(1, maxAttempts), initialBackoffMillis, result);
+        return result;
+    }
+
+    private void attempt(final Supplier<CompletableFuture<CloudResponse>> call, final int attempt,
+                         final int maxAttempts, final long backoffMillis,
+                         final CompletableFuture<CloudResponse> result) {
+        CompletableFuture<CloudResponse> future;
+        try {
+            future = call.get();
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, error) -> {
+            Throwable failure = error;
+            if (failure == null && (response == null || response.status_code() >= HTTP_ERROR_STATUS)) {
+                failure = new IllegalStateException("Cloud call failed: "
+                        + (response == null ? "no response" : response.status_code() + " " + response.message()));
+            }
+            if (failure == null) {
+                result.complete(response);
+            } else if (attempt >= maxAttempts) {
+                result.completeExceptionally(failure);
+            } else {
+                SCHEDULER.schedule(() -> attempt(call, attempt + 1, maxAttempts,
+                        Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS), result),
+                        backoffMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /** Runs a task once no new request with the same key arrived for a while.
+     *
+     * <p>Each call replaces the pending task for {@code key} and restarts the
+     * delay, so a burst of calls results in a single run. Tasks run on a
+     * background thread.</p>
+     *
+     * @param key Identifies the task, e.g. one key per saved document
+     * @param delayMillis Quiet period before the task runs
+     * @param task The task to run
+     * */
+    public void debounce(final String key, final long delayMillis, final Runnable task) {
+        DEBOUNCED.compute(key, (k, pending) -> {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            final ScheduledFuture<?>[] self = new ScheduledFuture<?>[1];
+            self[0] = SCHEDULER.schedule(() -> {
+                DEBOUNCED.remove(k, self[0]);
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    System.err.println("Debounced cloud task '" + k + "' failed: " + e.getMessage());
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            return self[0];
+        });
+    }
 }
@@ -0,0 +1,66 @@
+package com.swe.cloud.functionlibrary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.swe.cloud.datastructures.CloudResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CloudFunctionLibraryTest {
+
+    private final CloudFunctionLibrary library = new CloudFunctionLibrary("http://localhost");
+
+    @Test
+    void withRetrySucceedsAfterFailures() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        CloudResponse response = library.withRetry(() -> {
+            int n = calls.incrementAndGet();
+            if (n == 1) {
+                return CompletableFuture.failedFuture(new RuntimeException("offline"));
+            }
+            if (n == 2) {
+                return CompletableFuture.completedFuture(new CloudResponse(503, "busy", null));
+            }
+            return CompletableFuture.completedFuture(new CloudResponse(200, "ok", null));
+        }, 5, 1).get(5, TimeUnit.SECONDS);
+
+        assertEquals(200, response.status_code());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void withRetryGivesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<CloudResponse> result = library.withRetry(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, 3, 1);
+
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void debounceRunsOnceForBurst() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+
+        for (int i = 0; i < 10; i++) {
+            library.debounce("test-burst", 100, () -> {
+                runs.incrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, runs.get());
+    }
+}
@@ -24,8 +24,9 @@ import java.util.Objects;
  * <p>It also incorporates the <b>Memento Pattern</b> by storing
  * {@link ShapeState} snapshots:</p>
  * <ul>
- * <li>`prevState`: The state of the shape *before* the action. Used by the
- * Host for validation and conflict detection.</li>
+ * <li>`prevState`: The state of the shape *before* the action. Its version is
+ * used by the Host for validation and conflict detection; its snapshot is
+ * used to build the inverse action for undo.</li>
  * <li>`newState`: The state of the shape *after* the action. This is what
  * gets applied to the {@link com.swe.canvas.datamodel.canvas.CanvasState}
  * upon successful validation.</li>
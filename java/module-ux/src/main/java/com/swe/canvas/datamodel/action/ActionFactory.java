@@ -14,6 +14,10 @@ import com.swe.canvas.datamodel.canvas.CanvasState;
 import com.swe.canvas.datamodel.canvas.ShapeState;
 import com.swe.canvas.datamodel.shape.Shape;
 import com.swe.canvas.datamodel.shape.ShapeId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -63,7 +67,8 @@ public class ActionFactory {
         final long timestamp = now();
         newShape.setLastUpdatedBy(userId);
 
-        final ShapeState newState = new ShapeState(newShape.copy(), false, timestamp);
+        final ShapeState newState = new ShapeState(newShape.copy(), false, timestamp,
+                ShapeState.INITIAL_VERSION);
 
         return new CreateShapeAction(
                 newActionId(),
@@ -103,7 +108,8 @@ public class ActionFactory {
         newShape.setThickness(modifiedShape.getThickness());
         newShape.setLastUpdatedBy(userId);
 
-        final ShapeState newState = new ShapeState(newShape, false, timestamp);
+        final ShapeState newState = new ShapeState(newShape, false, timestamp,
+                prevState.getVersion() + 1);
 
         return new ModifyShapeAction(
                 newActionId(),
@@ -111,7 +117,8 @@ public class ActionFactory {
                 timestamp,
                 shapeId,
                 prevState, // The state before modification
-                newState   // The state after modification
+                newState,  // The state after modification
+                ShapeDelta.between(prevState.getShape(), newShape) // Null unless a plain move/recolor/thicken
         );
     }
 
@@ -136,7 +143,8 @@ public class ActionFactory {
         final Shape shapeCopy = prevState.getShape().copy();
         shapeCopy.setLastUpdatedBy(userId);
 
-        final ShapeState newState = new ShapeState(shapeCopy, true, timestamp);
+        final ShapeState newState = new ShapeState(shapeCopy, true, timestamp,
+                prevState.getVersion() + 1);
 
         return new DeleteShapeAction(
                 newActionId(),
@@ -148,15 +156,115 @@ public class ActionFactory {
         );
     }
 
+    /**
+     * Groups actions into one that is applied and undone as a unit.
+     *
+     * @param actions The child actions, in application order.
+     * @param userId  The user performing the action.
+     * @return A new {@link CompoundAction}.
+     * @throws IllegalArgumentException if there are no actions.
+     */
+    public CompoundAction createCompoundAction(final List<Action> actions, final String userId) {
+        return new CompoundAction(newActionId(), userId, now(), actions);
+    }
+
+    /**
+     * Creates one compound action that creates all the given shapes.
+     *
+     * @param newShapes The shapes to create.
+     * @param userId    The user performing the action.
+     * @return A new {@link CompoundAction}.
+     * @throws IllegalArgumentException if there are no shapes.
+     */
+    public CompoundAction createCreateBatch(final Collection<Shape> newShapes, final String userId) {
+        final List<Action> actions = new ArrayList<>(newShapes.size());
+        for (final Shape shape : newShapes) {
+            actions.add(createCreateAction(shape, userId));
+        }
+        return createCompoundAction(actions, userId);
+    }
+
+    /**
+     * Creates one compound action that modifies all the given shapes.
+     *
+     * @param canvasState    The current canvas state (to get prevStates).
+     * @param modifiedShapes The shapes with modified properties, by ID.
+     * @param userId         The user performing the action.
+     * @return A new {@link CompoundAction}.
+     * @throws IllegalStateException    if a shape does not exist or is deleted.
+     * @throws IllegalArgumentException if there are no shapes.
+     */
+    public CompoundAction createModifyBatch(final CanvasState canvasState,
+                                            final Map<ShapeId, Shape> modifiedShapes,
+                                            final String userId) {
+        final List<Action> actions = new ArrayList<>(modifiedShapes.size());
+        for (final Map.Entry<ShapeId, Shape> entry : modifiedShapes.entrySet()) {
+            actions.add(createModifyAction(canvasState, entry.getKey(), entry.getValue(), userId));
+        }
+        return createCompoundAction(actions, userId);
+    }
+
+    /**
+     * Creates one compound action that deletes all the given shapes.
+     *
+     * @param canvasState The current canvas state (to get prevStates).
+     * @param shapeIds    The shapes to delete.
+     * @param userId      The user performing the action.
+     * @return A new {@link CompoundAction}.
+     * @throws IllegalStateException    if a shape does not exist or is already deleted.
+     * @throws IllegalArgumentException if there are no shapes.
+     */
+    public CompoundAction createDeleteBatch(final CanvasState canvasState,
+                                            final Collection<ShapeId> shapeIds,
+                                            final String userId) {
+        final List<Action> actions = new ArrayList<>(shapeIds.size());
+        for (final ShapeId shapeId : shapeIds) {
+            actions.add(createDeleteAction(canvasState, shapeId, userId));
+        }
+        return createCompoundAction(actions, userId);
+    }
+
+    /**
+     * Returns a compound action with the same identity and different children.
+     *
+     * @param source  The compound action.
+     * @param actions The replacement children.
+     * @return A compound action with the given children, or the source if they are the same objects.
+     */
+    public CompoundAction withActions(final CompoundAction source, final List<Action> actions) {
+        final List<Action> current = source.getActions();
+        boolean same = current.size() == actions.size();
+        for (int i = 0; same && i < actions.size(); i++) {
+            same = current.get(i) == actions.get(i);
+        }
+        if (same) {
+            return source;
+        }
+        return new CompoundAction(source.getActionId(), source.getUserId(), source.getTimestamp(), actions);
+    }
+
     /**
      * Creates an inverse action, typically for "undo".
      *
+     * <p>A delta MODIFY is inverted symbolically, so the inverse is also a
+     * delta and is sent without the shape's points.</p>
+     *
      * @param actionToUndo The action to be undone.
      * @param userId       The user performing the undo.
      * @return A new {@link Action} that reverses the effect of the input action.
      * @throws IllegalArgumentException if the action type cannot be undone.
      */
     public Action createInverseAction(final Action actionToUndo, final String userId) {
+        if (actionToUndo instanceof CompoundAction compound) {
+            // Undo the children in reverse order, as one unit
+            final List<Action> children = compound.getActions();
+            final List<Action> inverses = new ArrayList<>(children.size());
+            for (int i = children.size() - 1; i >= 0; i--) {
+                inverses.add(createInverseAction(children.get(i), userId));
+            }
+            return createCompoundAction(inverses, userId);
+        }
+
         final long timestamp = now();
 
         // The inverse action's "prevState" is the original action's "newState"
@@ -165,6 +273,9 @@ public class ActionFactory {
         final ShapeState originalNewState = actionToUndo.getNewState();
         final ShapeState originalPrevState = actionToUndo.getPrevState();
 
+        // The inverse is based on the version produced by the original action
+        final long inverseVersion = originalNewState.getVersion() + 1;
+
         // We must update the lastUpdatedBy field and timestamp in the "new" state
         // of the inverse action.
         final ShapeState inverseNewState;
@@ -176,7 +287,7 @@ public class ActionFactory {
                 // The new state for the delete must have an updated timestamp and user
                 shapeCopy = originalNewState.getShape().copy();
                 shapeCopy.setLastUpdatedBy(userId);
-                inverseNewState = new ShapeState(shapeCopy, true, timestamp);
+                inverseNewState = new ShapeState(shapeCopy, true, timestamp, inverseVersion);
 
                 return new DeleteShapeAction(
                         newActionId(), userId, timestamp,
@@ -190,7 +301,7 @@ public class ActionFactory {
                 // The resurrected shape needs its 'lastUpdatedBy' set back
                 shapeCopy = originalPrevState.getShape().copy();
                 shapeCopy.setLastUpdatedBy(userId); // User who resurrected it
-                inverseNewState = new ShapeState(shapeCopy, false, timestamp);
+                inverseNewState = new ShapeState(shapeCopy, false, timestamp, inverseVersion);
 
                 return new ResurrectShapeAction(
                         newActionId(), userId, timestamp,
@@ -200,10 +311,28 @@ public class ActionFactory {
                 );
 
             case MODIFY:
+                final ShapeDelta delta = ((ModifyShapeAction) actionToUndo).getDelta();
+                if (delta != null) {
+                    // Inverse of a delta Modify applies the inverted delta
+                    final ShapeDelta inverseDelta = delta.invert();
+                    shapeCopy = originalNewState.getShape().copy();
+                    inverseDelta.applyTo(shapeCopy);
+                    shapeCopy.setLastUpdatedBy(userId);
+                    inverseNewState = new ShapeState(shapeCopy, false, timestamp, inverseVersion);
+
+                    return new ModifyShapeAction(
+                            newActionId(), userId, timestamp,
+                            actionToUndo.getShapeId(),
+                            originalNewState,
+                            inverseNewState,
+                            inverseDelta
+                    );
+                }
+
                 // Inverse of Modify is another Modify, swapping prev/new states
                 shapeCopy = originalPrevState.getShape().copy();
                 shapeCopy.setLastUpdatedBy(userId);
-                inverseNewState = new ShapeState(shapeCopy, false, timestamp);
+                inverseNewState = new ShapeState(shapeCopy, false, timestamp, inverseVersion);
 
                 return new ModifyShapeAction(
                         newActionId(), userId, timestamp,
@@ -216,7 +345,7 @@ public class ActionFactory {
                 // Inverse of Resurrect is Delete
                 shapeCopy = originalNewState.getShape().copy();
                 shapeCopy.setLastUpdatedBy(userId);
-                inverseNewState = new ShapeState(shapeCopy, true, timestamp);
+                inverseNewState = new ShapeState(shapeCopy, true, timestamp, inverseVersion);
 
                 return new DeleteShapeAction(
                         newActionId(), userId, timestamp,
@@ -229,4 +358,89 @@ public class ActionFactory {
                 throw new IllegalArgumentException("Unknown action type for undo: " + actionToUndo.getActionType());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Replaces a version-only `prevState` reference with the full state.
+     *
+     * <p>Actions received over the network carry only the version their
+     * previous state had. If the receiver's current state has exactly that
+     * version, it <i>is</i> the previous state, so it can be attached to the
+     * action (needed later for undo).</p>
+     *
+     * <p>For a delta MODIFY received over the network the `newState` is a
+     * reference as well; it is rebuilt here by applying the delta to a copy of
+     * the resolved previous shape.</p>
+     *
+     * @param action       The action to resolve.
+     * @param currentState The receiver's current state of the target shape.
+     * @return The resolved action, or the input action if nothing to resolve.
+     */
+    public Action resolvePrevState(final Action action, final ShapeState currentState) {
+        final ShapeState prevState = action.getPrevState();
+        if (prevState == null || !prevState.isReference() || currentState == null
+                || currentState.isReference() || currentState.getVersion() != prevState.getVersion()) {
+            return action;
+        }
+        return rebuild(action, currentState, materializeNewState(action, currentState));
+    }
+
+    /**
+     * Builds the full `newState` of a delta MODIFY from its resolved previous state.
+     *
+     * @param action    The action whose new state may be a reference.
+     * @param prevState The full previous state.
+     * @return The full new state, or the action's own new state if it is already full.
+     */
+    private ShapeState materializeNewState(final Action action, final ShapeState prevState) {
+        final ShapeState newState = action.getNewState();
+        if (!newState.isReference() || !(action instanceof ModifyShapeAction)) {
+            return newState;
+        }
+        final ShapeDelta delta = ((ModifyShapeAction) action).getDelta();
+        if (delta == null || prevState.getShape() == null) {
+            return newState;
+        }
+        final Shape shape = prevState.getShape().copy();
+        delta.applyTo(shape);
+        shape.setLastUpdatedBy(action.getUserId());
+        return new ShapeState(shape, false, action.getTimestamp(), newState.getVersion());
+    }
+
+    /**
+     * Returns the action with its `newState` stamped with the given version.
+     *
+     * @param action  The action to stamp.
+     * @param version The version the new state must carry.
+     * @return The stamped action, or the input action if already at that version.
+     */
+    public Action withNewVersion(final Action action, final long version) {
+        final ShapeState newState = action.getNewState();
+        if (newState.getVersion() == version) {
+            return action;
+        }
+        final ShapeState stamped = newState.isReference()
+                ? ShapeState.reference(newState.isDeleted(), version)
+                : new ShapeState(newState.getShape(), newState.isDeleted(), newState.getLastModified(), version);
+        return rebuild(action, action.getPrevState(), stamped);
+    }
+
+    private Action rebuild(final Action source, final ShapeState prevState, final ShapeState newState) {
+        switch (source.getActionType()) {
+            case CREATE:
+                return new CreateShapeAction(source.getActionId(), source.getUserId(),
+                        source.getTimestamp(), source.getShapeId(), newState);
+            case MODIFY:
+                return new ModifyShapeAction(source.getActionId(), source.getUserId(),
+                        source.getTimestamp(), source.getShapeId(), prevState, newState,
+                        ((ModifyShapeAction) source).getDelta());
+            case DELETE:
+                return new DeleteShapeAction(source.getActionId(), source.getUserId(),
+                        source.getTimestamp(), source.getShapeId(), prevState, newState);
+            case RESURRECT:
+                return new ResurrectShapeAction(source.getActionId(), source.getUserId(),
+                        source.getTimestamp(), source.getShapeId(), prevState, newState);
+            default:
+                throw new IllegalArgumentException("Unknown action type: " + source.getActionType());
+        }
+    }
+}
@@ -39,6 +39,11 @@ public enum ActionType {
      */
     RESURRECT,
 
+    /**
+     * A group of actions applied, sent and undone as one unit.
+     */
+    COMPOUND,
+
     /**
      * An unknown action type, primarily used for testing unreachable code paths/defaults.
      */
@@ -0,0 +1,103 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: CompoundAction.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.action;
+
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An ordered group of single-shape actions that is applied as one unit.
+ *
+ * <p>The Host accepts either all child actions or none of them, the group is
+ * sent as one network message and the undo history keeps it as one step.</p>
+ *
+ * <p>For this action the base fields (`shapeId`, `prevState`, `newState`)
+ * mirror the first child, so code that only looks at them (e.g. to find who
+ * performed the action) keeps working. Use {@link #getActions()} for
+ * everything else.</p>
+ *
+ * <p><b>Thread Safety:</b> This class is immutable and thread-safe.</p>
+ *
+ * <p><b>Design Pattern:</b> Command, Composite</p>
+ */
+public class CompoundAction extends Action {
+
+    /**
+     * Used for Java serialization.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The child actions, in the order they are applied. Declared as an
+     * ArrayList so the field is known to be serializable; never modified.
+     */
+    private final ArrayList<Action> actions;
+
+    /**
+     * Constructs a CompoundAction.
+     *
+     * @param actionIdVal  A unique ID for this action.
+     * @param userIdVal    The user performing the action.
+     * @param timestampVal The time of action creation.
+     * @param actionsVal   The child actions, in application order.
+     * @throws IllegalArgumentException if there are no children or a child is itself compound.
+     */
+    public CompoundAction(final String actionIdVal,
+                          final String userIdVal,
+                          final long timestampVal,
+                          final List<Action> actionsVal) {
+        super(actionIdVal, userIdVal, timestampVal, ActionType.COMPOUND,
+                first(actionsVal).getShapeId(), first(actionsVal).getPrevState(),
+                first(actionsVal).getNewState());
+
+        for (final Action action : actionsVal) {
+            if (Objects.requireNonNull(action, "child action cannot be null") instanceof CompoundAction) {
+                throw new IllegalArgumentException("CompoundAction cannot contain another CompoundAction.");
+            }
+        }
+        this.actions = new ArrayList<>(actionsVal);
+    }
+
+    private static Action first(final List<Action> actionsVal) {
+        if (actionsVal == null || actionsVal.isEmpty()) {
+            throw new IllegalArgumentException("CompoundAction needs at least one action.");
+        }
+        return actionsVal.get(0);
+    }
+
+    /**
+     * Gets the child actions.
+     *
+     * @return The child actions, in application order (unmodifiable).
+     */
+    public List<Action> getActions() {
+        return Collections.unmodifiableList(actions);
+    }
+
+    /**
+     * Gets the IDs of all shapes touched by this action.
+     *
+     * @return The shape IDs, in application order (may repeat).
+     */
+    public List<ShapeId> getShapeIds() {
+        final List<ShapeId> ids = new ArrayList<>(actions.size());
+        for (final Action action : actions) {
+            ids.add(action.getShapeId());
+        }
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "{" + actions.size() + " actions}";
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: DeltaType.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.action;
+
+/**
+ * Enumerates the operations a {@link ShapeDelta} can describe.
+ *
+ * <p>Used for serialization of delta-based {@link ModifyShapeAction}s.</p>
+ */
+public enum DeltaType {
+    /**
+     * Moves every point of the shape by (dx, dy).
+     */
+    TRANSLATE,
+
+    /**
+     * Changes the stroke color of the shape.
+     */
+    SET_COLOR,
+
+    /**
+     * Changes the stroke thickness of the shape.
+     */
+    SET_THICKNESS
+}
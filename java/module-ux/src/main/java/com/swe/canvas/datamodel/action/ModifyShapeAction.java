@@ -23,6 +23,11 @@ import com.swe.canvas.datamodel.shape.ShapeId;
  * <li>Both states must have `isDeleted=false`.</li>
  * </ul>
  *
+ * <p>When the change is a plain move, recolor or thickness change, the action
+ * also carries a {@link ShapeDelta}. Such actions are sent over the network as
+ * the operation alone, and `newState` is rebuilt by the receiver by applying
+ * the delta to its own copy of `prevState`.</p>
+ *
  * <p><b>Thread Safety:</b> This class is immutable and thread-safe.</p>
  *
  * <p><b>Design Pattern:</b> Command</p>
@@ -37,7 +42,12 @@ public class ModifyShapeAction extends Action {
     private static final long serialVersionUID = 1L;
 
     /**
-     * Constructs a ModifyShapeAction.
+     * The symbolic change from `prevState` to `newState`, or null for a full modify.
+     */
+    private final ShapeDelta delta;
+
+    /**
+     * Constructs a ModifyShapeAction without a delta (full state modify).
      *
      * @param actionIdVal  A unique ID for this action.
      * @param userIdVal    The user performing the action.
@@ -52,10 +62,41 @@ public class ModifyShapeAction extends Action {
                              final ShapeId shapeIdVal,
                              final ShapeState prevStateVal,
                              final ShapeState newStateVal) {
+        this(actionIdVal, userIdVal, timestampVal, shapeIdVal, prevStateVal, newStateVal, null);
+    }
+
+    /**
+     * Constructs a ModifyShapeAction described by a delta.
+     *
+     * @param actionIdVal  A unique ID for this action.
+     * @param userIdVal    The user performing the action.
+     * @param timestampVal The time of action creation.
+     * @param shapeIdVal   The target shape's ID.
+     * @param prevStateVal The state before the action.
+     * @param newStateVal  The state after the action.
+     * @param deltaVal     The symbolic change, or null for a full modify.
+     */
+    public ModifyShapeAction(final String actionIdVal,
+                             final String userIdVal,
+                             final long timestampVal,
+                             final ShapeId shapeIdVal,
+                             final ShapeState prevStateVal,
+                             final ShapeState newStateVal,
+                             final ShapeDelta deltaVal) {
         super(actionIdVal, userIdVal, timestampVal, ActionType.MODIFY, shapeIdVal, prevStateVal, newStateVal);
 
         if (prevStateVal.isDeleted() || newStateVal.isDeleted()) {
             throw new IllegalArgumentException("ModifyShapeAction cannot be performed on a deleted shape.");
         }
+        this.delta = deltaVal;
+    }
+
+    /**
+     * Gets the symbolic change carried by this action.
+     *
+     * @return The {@link ShapeDelta}, or null if this is a full state modify.
+     */
+    public ShapeDelta getDelta() {
+        return delta;
     }
 }
\ No newline at end of file
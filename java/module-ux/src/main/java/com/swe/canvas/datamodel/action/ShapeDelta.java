@@ -0,0 +1,328 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: ShapeDelta.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.action;
+
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import java.awt.Color;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A symbolic description of a single change to a shape.
+ *
+ * <p>A {@link ModifyShapeAction} that carries a delta only needs to send the
+ * operation and its parameters over the network, not the shape's points, so
+ * the wire size of a move, recolor or thickness change does not depend on the
+ * number of points in the shape. Deltas are inverted symbolically for undo
+ * (e.g. TRANSLATE(dx, dy) becomes TRANSLATE(-dx, -dy)).</p>
+ *
+ * <p><b>Thread Safety:</b> This class is immutable and therefore thread-safe.</p>
+ *
+ * <p><b>Design Pattern:</b> Command</p>
+ */
+public final class ShapeDelta implements Serializable {
+
+    /**
+     * Used for Java serialization.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum per-point difference tolerated when detecting a translation.
+     */
+    private static final double TRANSLATE_EPSILON = 1e-6;
+
+    /**
+     * The operation described by this delta.
+     */
+    private final DeltaType type;
+
+    /**
+     * Horizontal displacement (TRANSLATE only).
+     */
+    private final double dx;
+
+    /**
+     * Vertical displacement (TRANSLATE only).
+     */
+    private final double dy;
+
+    /**
+     * Color before the change (SET_COLOR only).
+     */
+    private final Color fromColor;
+
+    /**
+     * Color after the change (SET_COLOR only).
+     */
+    private final Color toColor;
+
+    /**
+     * Thickness before the change (SET_THICKNESS only).
+     */
+    private final double fromThickness;
+
+    /**
+     * Thickness after the change (SET_THICKNESS only).
+     */
+    private final double toThickness;
+
+    private ShapeDelta(final DeltaType typeVal,
+                       final double dxVal, final double dyVal,
+                       final Color fromColorVal, final Color toColorVal,
+                       final double fromThicknessVal, final double toThicknessVal) {
+        this.type = Objects.requireNonNull(typeVal, "type cannot be null");
+        this.dx = dxVal;
+        this.dy = dyVal;
+        this.fromColor = fromColorVal;
+        this.toColor = toColorVal;
+        this.fromThickness = fromThicknessVal;
+        this.toThickness = toThicknessVal;
+    }
+
+    /**
+     * Creates a TRANSLATE delta.
+     *
+     * @param dxVal The horizontal displacement.
+     * @param dyVal The vertical displacement.
+     * @return A new delta.
+     */
+    public static ShapeDelta translate(final double dxVal, final double dyVal) {
+        return new ShapeDelta(DeltaType.TRANSLATE, dxVal, dyVal, null, null, 0, 0);
+    }
+
+    /**
+     * Creates a SET_COLOR delta.
+     *
+     * @param from The color before the change.
+     * @param to   The color after the change.
+     * @return A new delta.
+     */
+    public static ShapeDelta setColor(final Color from, final Color to) {
+        return new ShapeDelta(DeltaType.SET_COLOR, 0, 0,
+                Objects.requireNonNull(from, "from cannot be null"),
+                Objects.requireNonNull(to, "to cannot be null"), 0, 0);
+    }
+
+    /**
+     * Creates a SET_THICKNESS delta.
+     *
+     * @param from The thickness before the change.
+     * @param to   The thickness after the change.
+     * @return A new delta.
+     */
+    public static ShapeDelta setThickness(final double from, final double to) {
+        return new ShapeDelta(DeltaType.SET_THICKNESS, 0, 0, null, null, from, to);
+    }
+
+    /**
+     * Describes the change from one shape to another as a single delta, if possible.
+     *
+     * <p>Returns {@code null} when the change is not exactly one of the supported
+     * operations (e.g. a reshape, or a move combined with a recolor).</p>
+     *
+     * @param before The shape before the change.
+     * @param after  The shape after the change.
+     * @return The matching delta, or {@code null}.
+     */
+    public static ShapeDelta between(final Shape before, final Shape after) {
+        final boolean sameColor = before.getColor().equals(after.getColor());
+        final boolean sameThickness = Double.compare(before.getThickness(), after.getThickness()) == 0;
+        final List<Point> beforePoints = before.getPoints();
+        final List<Point> afterPoints = after.getPoints();
+
+        if (beforePoints.equals(afterPoints)) {
+            if (!sameColor && sameThickness) {
+                return setColor(before.getColor(), after.getColor());
+            }
+            if (sameColor && !sameThickness) {
+                return setThickness(before.getThickness(), after.getThickness());
+            }
+            return null;
+        }
+
+        if (!sameColor || !sameThickness || beforePoints.isEmpty()
+                || beforePoints.size() != afterPoints.size()) {
+            return null;
+        }
+
+        final double offsetX = afterPoints.get(0).getX() - beforePoints.get(0).getX();
+        final double offsetY = afterPoints.get(0).getY() - beforePoints.get(0).getY();
+        for (int i = 1; i < beforePoints.size(); i++) {
+            final Point b = beforePoints.get(i);
+            final Point a = afterPoints.get(i);
+            if (Math.abs(a.getX() - b.getX() - offsetX) > TRANSLATE_EPSILON
+                    || Math.abs(a.getY() - b.getY() - offsetY) > TRANSLATE_EPSILON) {
+                return null;
+            }
+        }
+        return translate(offsetX, offsetY);
+    }
+
+    /**
+     * Applies this delta to the given shape in place.
+     *
+     * @param shape The shape to change (should be a copy owned by the caller).
+     */
+    public void applyTo(final Shape shape) {
+        switch (type) {
+            case TRANSLATE:
+                shape.translate(dx, dy);
+                break;
+            case SET_COLOR:
+                shape.setColor(toColor);
+                break;
+            case SET_THICKNESS:
+                shape.setThickness(toThickness);
+                break;
+            default:
+                throw new IllegalStateException("Unknown delta type: " + type);
+        }
+    }
+
+    /**
+     * Returns the delta that reverses this one.
+     *
+     * @return The inverse delta.
+     */
+    public ShapeDelta invert() {
+        switch (type) {
+            case TRANSLATE:
+                return translate(-dx, -dy);
+            case SET_COLOR:
+                return setColor(toColor, fromColor);
+            case SET_THICKNESS:
+                return setThickness(toThickness, fromThickness);
+            default:
+                throw new IllegalStateException("Unknown delta type: " + type);
+        }
+    }
+
+    /**
+     * Combines this delta with one applied right after it, if they are of the same kind.
+     *
+     * @param next The delta applied after this one.
+     * @return A single delta with the same effect, or {@code null} if the kinds differ.
+     */
+    public ShapeDelta then(final ShapeDelta next) {
+        if (next == null || next.type != type) {
+            return null;
+        }
+        switch (type) {
+            case TRANSLATE:
+                return translate(dx + next.dx, dy + next.dy);
+            case SET_COLOR:
+                return setColor(fromColor, next.toColor);
+            case SET_THICKNESS:
+                return setThickness(fromThickness, next.toThickness);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the operation type.
+     *
+     * @return The {@link DeltaType}.
+     */
+    public DeltaType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the horizontal displacement.
+     *
+     * @return dx (TRANSLATE only, otherwise 0).
+     */
+    public double getDx() {
+        return dx;
+    }
+
+    /**
+     * Gets the vertical displacement.
+     *
+     * @return dy (TRANSLATE only, otherwise 0).
+     */
+    public double getDy() {
+        return dy;
+    }
+
+    /**
+     * Gets the color before the change.
+     *
+     * @return The previous color (SET_COLOR only, otherwise null).
+     */
+    public Color getFromColor() {
+        return fromColor;
+    }
+
+    /**
+     * Gets the color after the change.
+     *
+     * @return The new color (SET_COLOR only, otherwise null).
+     */
+    public Color getToColor() {
+        return toColor;
+    }
+
+    /**
+     * Gets the thickness before the change.
+     *
+     * @return The previous thickness (SET_THICKNESS only, otherwise 0).
+     */
+    public double getFromThickness() {
+        return fromThickness;
+    }
+
+    /**
+     * Gets the thickness after the change.
+     *
+     * @return The new thickness (SET_THICKNESS only, otherwise 0).
+     */
+    public double getToThickness() {
+        return toThickness;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case TRANSLATE:
+                return String.format("TRANSLATE(%s, %s)", dx, dy);
+            case SET_COLOR:
+                return String.format("SET_COLOR(%s -> %s)", fromColor, toColor);
+            default:
+                return String.format("SET_THICKNESS(%s -> %s)", fromThickness, toThickness);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ShapeDelta that = (ShapeDelta) obj;
+        return type == that.type
+                && Double.compare(dx, that.dx) == 0
+                && Double.compare(dy, that.dy) == 0
+                && Objects.equals(fromColor, that.fromColor)
+                && Objects.equals(toColor, that.toColor)
+                && Double.compare(fromThickness, that.fromThickness) == 0
+                && Double.compare(toThickness, that.toThickness) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, dx, dy, fromColor, toColor, fromThickness, toThickness);
+    }
+}
@@ -7,6 +7,8 @@
  * for all commands.</li>
  * <li>Concrete action classes ({@link com.swe.canvas.datamodel.action.CreateShapeAction},
  * {@link com.swe.canvas.datamodel.action.DeleteShapeAction}, etc.).</li>
+ * <li>{@link com.swe.canvas.datamodel.action.CompoundAction}: A group of actions
+ * applied and undone as one unit.</li>
  * <li>{@link com.swe.canvas.datamodel.action.ActionFactory}: A factory for
  * creating new action objects.</li>
  * </ul>
@@ -14,7 +16,8 @@
  *
  * <p>Each action encapsulates the full <b>Memento</b> ({@link com.swe.canvas.datamodel.canvas.ShapeState})
  * of the shape both before (`prevState`) and after (`newState`) the operation.
- * This is critical for conflict detection and undo/redo.
+ * This is critical for undo/redo. Conflict detection only compares the
+ * per-shape version carried by each state.
  * </p>
  *
  * @author Gajula Sri Siva Sai Shashank
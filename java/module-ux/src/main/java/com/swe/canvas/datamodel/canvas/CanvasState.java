@@ -14,10 +14,12 @@ import com.swe.canvas.datamodel.shape.Shape;
 import com.swe.canvas.datamodel.shape.ShapeId;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +43,17 @@ public class CanvasState {
      */
     private final ConcurrentMap<ShapeId, ShapeState> state;
 
+    /**
+     * Incremented after every change, so derived data (e.g. rendered
+     * snapshots) can be cached per board version.
+     */
+    private final AtomicLong boardVersion = new AtomicLong();
+
+    /**
+     * Spatial index of the visible shapes, for rectangle queries.
+     */
+    private final ShapeGridIndex index = new ShapeGridIndex();
+
     /**
      * Callback to invoke when the state changes.
      */
@@ -97,6 +110,42 @@ public class CanvasState {
         Objects.requireNonNull(shapeId, "shapeId cannot be null");
         Objects.requireNonNull(newState, "newState cannot be null");
         state.put(shapeId, newState);
+        index.update(shapeId, newState);
+        boardVersion.incrementAndGet();
+    }
+
+    /**
+     * Applies new states for several shapes at once, e.g. the children of a
+     * compound action. The board version changes once for the whole batch.
+     *
+     * @param newStates The new states, by shape ID.
+     * @throws NullPointerException if the map or any key or value is null.
+     */
+    public void applyStates(final Map<ShapeId, ShapeState> newStates) {
+        Objects.requireNonNull(newStates, "newStates cannot be null");
+        if (newStates.isEmpty()) {
+            return;
+        }
+        state.putAll(newStates);
+        for (final Map.Entry<ShapeId, ShapeState> entry : newStates.entrySet()) {
+            index.update(entry.getKey(), entry.getValue());
+        }
+        boardVersion.incrementAndGet();
+    }
+
+    /**
+     * Removes a shape from the canvas entirely.
+     *
+     * <p>Used to roll back a shape that only exists locally (e.g. an
+     * unconfirmed create).</p>
+     *
+     * @param shapeId The ID of the shape to remove.
+     */
+    public void removeState(final ShapeId shapeId) {
+        Objects.requireNonNull(shapeId, "shapeId cannot be null");
+        state.remove(shapeId);
+        index.remove(shapeId);
+        boardVersion.incrementAndGet();
     }
 
     /**
@@ -120,6 +169,31 @@ public class CanvasState {
         return Collections.unmodifiableCollection(state.values());
     }
 
+    /**
+     * Finds the visible shapes whose bounding box intersects a rectangle,
+     * using a spatial index rather than scanning every shape.
+     *
+     * @param minX Left edge, in canvas coordinates.
+     * @param minY Top edge, in canvas coordinates.
+     * @param maxX Right edge, in canvas coordinates.
+     * @param maxY Bottom edge, in canvas coordinates.
+     * @return The IDs of the matching shapes (empty if none).
+     */
+    public List<ShapeId> findShapesInRect(final double minX, final double minY,
+                                          final double maxX, final double maxY) {
+        return index.query(Math.min(minX, maxX), Math.min(minY, maxY),
+                Math.max(minX, maxX), Math.max(minY, maxY));
+    }
+
+    /**
+     * Gets the board version, which changes whenever any shape changes.
+     *
+     * @return The current board version.
+     */
+    public long getBoardVersion() {
+        return boardVersion.get();
+    }
+
     // --- NEW METHODS FOR SAVE/RESTORE ---
 
     /**
@@ -139,9 +213,14 @@ public class CanvasState {
      */
     public void setAllStates(final Map<ShapeId, ShapeState> newStates) {
         state.clear();
+        index.clear();
         if (newStates != null) {
             state.putAll(newStates);
+            for (final Map.Entry<ShapeId, ShapeState> entry : newStates.entrySet()) {
+                index.update(entry.getKey(), entry.getValue());
+            }
         }
+        boardVersion.incrementAndGet();
         notifyUpdate();
     }
 
@@ -150,6 +229,8 @@ public class CanvasState {
      */
     public void clear() {
         state.clear();
+        index.clear();
+        boardVersion.incrementAndGet();
         notifyUpdate();
     }
 }
\ No newline at end of file
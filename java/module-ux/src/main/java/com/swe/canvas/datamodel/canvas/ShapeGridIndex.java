@@ -0,0 +1,205 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: ShapeGridIndex.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.canvas;
+
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uniform-grid spatial index over the bounding boxes of visible shapes.
+ *
+ * <p>Each shape is registered in every grid cell its bounding box touches, so
+ * a rectangle query only looks at the shapes in the cells it covers instead
+ * of the whole board. Shapes covering more than {@link #MAX_CELLS_PER_SHAPE}
+ * cells are kept in a separate list that every query checks.</p>
+ *
+ * <p><b>Thread Safety:</b> All methods are synchronized.</p>
+ */
+final class ShapeGridIndex {
+
+    /** Side of a grid cell, in canvas units. */
+    static final double CELL_SIZE = 256.0;
+
+    /** Above this many cells a shape is not registered per cell. */
+    private static final int MAX_CELLS_PER_SHAPE = 64;
+
+    /** Bits used for each cell coordinate in a cell key. */
+    private static final int KEY_SHIFT = 32;
+
+    /** Mask for the low cell coordinate in a cell key. */
+    private static final long KEY_MASK = 0xFFFFFFFFL;
+
+    /** Shapes registered in each cell. */
+    private final Map<Long, Set<ShapeId>> cells = new HashMap<>();
+
+    /** Bounding box of each indexed shape: minX, minY, maxX, maxY. */
+    private final Map<ShapeId, double[]> bounds = new HashMap<>();
+
+    /** Shapes too large to register per cell. */
+    private final Set<ShapeId> oversized = new HashSet<>();
+
+    /**
+     * Adds, moves or removes a shape according to its new state.
+     *
+     * @param shapeId The shape ID.
+     * @param state   The new state; null or deleted removes the shape.
+     */
+    synchronized void update(final ShapeId shapeId, final ShapeState state) {
+        remove(shapeId);
+        if (state == null || state.isDeleted() || state.getShape() == null) {
+            return;
+        }
+        final double[] box = boundsOf(state.getShape());
+        if (box == null) {
+            return;
+        }
+        bounds.put(shapeId, box);
+
+        final int x0 = cell(box[0]);
+        final int y0 = cell(box[1]);
+        final int x1 = cell(box[2]);
+        final int y1 = cell(box[3]);
+        if (((long) x1 - x0 + 1) * ((long) y1 - y0 + 1) > MAX_CELLS_PER_SHAPE) {
+            oversized.add(shapeId);
+            return;
+        }
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                cells.computeIfAbsent(key(x, y), k -> new HashSet<>()).add(shapeId);
+            }
+        }
+    }
+
+    /**
+     * Removes a shape from the index.
+     *
+     * @param shapeId The shape ID.
+     */
+    synchronized void remove(final ShapeId shapeId) {
+        final double[] box = bounds.remove(shapeId);
+        if (box == null || oversized.remove(shapeId)) {
+            return;
+        }
+        for (int x = cell(box[0]); x <= cell(box[2]); x++) {
+            for (int y = cell(box[1]); y <= cell(box[3]); y++) {
+                final Long key = key(x, y);
+                final Set<ShapeId> ids = cells.get(key);
+                if (ids != null && ids.remove(shapeId) && ids.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every shape.
+     */
+    synchronized void clear() {
+        cells.clear();
+        bounds.clear();
+        oversized.clear();
+    }
+
+    /**
+     * Finds the shapes whose bounding box intersects a rectangle.
+     *
+     * @param minX Left edge.
+     * @param minY Top edge.
+     * @param maxX Right edge.
+     * @param maxY Bottom edge.
+     * @return The matching shape IDs, without duplicates.
+     */
+    synchronized List<ShapeId> query(final double minX, final double minY,
+                                     final double maxX, final double maxY) {
+        final Set<ShapeId> found = new LinkedHashSet<>();
+        final int x0 = cell(minX);
+        final int y0 = cell(minY);
+        final int x1 = cell(maxX);
+        final int y1 = cell(maxY);
+        if (((long) x1 - x0 + 1) * ((long) y1 - y0 + 1) > cells.size()) {
+            // The query covers more cells than are occupied: scan the shapes instead
+            for (final Map.Entry<ShapeId, double[]> entry : bounds.entrySet()) {
+                addIfIntersects(found, entry.getKey(), minX, minY, maxX, maxY);
+            }
+            return new ArrayList<>(found);
+        }
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                final Set<ShapeId> ids = cells.get(key(x, y));
+                if (ids != null) {
+                    for (final ShapeId id : ids) {
+                        addIfIntersects(found, id, minX, minY, maxX, maxY);
+                    }
+                }
+            }
+        }
+        for (final ShapeId id : oversized) {
+            addIfIntersects(found, id, minX, minY, maxX, maxY);
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Gets the number of indexed shapes.
+     *
+     * @return The number of shapes.
+     */
+    synchronized int size() {
+        return bounds.size();
+    }
+
+    private void addIfIntersects(final Set<ShapeId> found, final ShapeId id,
+                                 final double minX, final double minY,
+                                 final double maxX, final double maxY) {
+        final double[] box = bounds.get(id);
+        if (box[0] <= maxX && box[2] >= minX && box[1] <= maxY && box[3] >= minY) {
+            found.add(id);
+        }
+    }
+
+    /**
+     * Computes the bounding box of a shape's points.
+     *
+     * @param shape The shape.
+     * @return minX, minY, maxX, maxY, or null if the shape has no points.
+     */
+    static double[] boundsOf(final Shape shape) {
+        final List<Point> points = shape.getPoints();
+        if (points == null || points.isEmpty()) {
+            return null;
+        }
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (final Point p : points) {
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+        }
+        return new double[] {minX, minY, maxX, maxY};
+    }
+
+    private static int cell(final double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static Long key(final int x, final int y) {
+        return ((long) x << KEY_SHIFT) | (y & KEY_MASK);
+    }
+}
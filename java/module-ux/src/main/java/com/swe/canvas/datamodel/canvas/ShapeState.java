@@ -26,6 +26,12 @@ import java.util.Objects;
  * {@link com.swe.canvas.datamodel.action.Action} objects, allowing for
  * validation, conflict detection, and undo/redo operations.</p>
  *
+ * <p>Every state carries a per-shape <b>version</b> that increases by one with
+ * each accepted change. The Host detects conflicts by comparing versions
+ * (optimistic concurrency) instead of deep-comparing shapes, so an action only
+ * needs to reference the version it was based on. Such a reference is a state
+ * without a shape snapshot (see {@link #reference(boolean, long)}).</p>
+ *
  * <p><b>Thread Safety:</b> This class is immutable (or effectively immutable
  * as it's intended to be used as a snapshot) and therefore thread-safe.
  * The internal {@link Shape} is a deep copy.</p>
@@ -41,6 +47,16 @@ public final class ShapeState implements Serializable {
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Version of states created before versioning existed (e.g. old saves).
+     */
+    public static final long UNVERSIONED = 0L;
+
+    /**
+     * Version assigned to a freshly created shape.
+     */
+    public static final long INITIAL_VERSION = 1L;
+
     /**
      * A deep-copy snapshot of the shape's geometry and metadata.
      */
@@ -57,17 +73,51 @@ public final class ShapeState implements Serializable {
     private final long lastModified;
 
     /**
-     * Constructs a new ShapeState.
+     * The per-shape version. Monotonically increasing for a given shape.
+     */
+    private final long version;
+
+    /**
+     * Constructs a new, unversioned ShapeState.
      *
      * @param shapeVal        The shape snapshot. A deep copy MUST be provided.
      * @param isDeletedVal    The deletion status.
      * @param lastModifiedVal The modification timestamp.
      */
     public ShapeState(final Shape shapeVal, final boolean isDeletedVal, final long lastModifiedVal) {
+        this(shapeVal, isDeletedVal, lastModifiedVal, UNVERSIONED);
+    }
+
+    /**
+     * Constructs a new ShapeState with an explicit version.
+     *
+     * @param shapeVal        The shape snapshot. A deep copy MUST be provided.
+     * @param isDeletedVal    The deletion status.
+     * @param lastModifiedVal The modification timestamp.
+     * @param versionVal      The per-shape version of this state.
+     */
+    public ShapeState(final Shape shapeVal, final boolean isDeletedVal,
+                      final long lastModifiedVal, final long versionVal) {
         // We trust the shape is a deep copy, which Shape.copy() ensures.
         this.shape = shapeVal;
         this.isDeleted = isDeletedVal;
         this.lastModified = lastModifiedVal;
+        this.version = versionVal;
+    }
+
+    /**
+     * Creates a lightweight reference to a shape version without a snapshot.
+     *
+     * <p>Used for the `prevState` of actions received over the network, where
+     * the full previous shape is omitted. The receiver resolves the reference
+     * against its own {@link CanvasState} when the versions match.</p>
+     *
+     * @param isDeletedVal The deletion status of the referenced state.
+     * @param versionVal   The referenced version.
+     * @return A ShapeState with no shape snapshot.
+     */
+    public static ShapeState reference(final boolean isDeletedVal, final long versionVal) {
+        return new ShapeState(null, isDeletedVal, 0L, versionVal);
     }
 
     /**
@@ -109,20 +159,41 @@ public final class ShapeState implements Serializable {
         return lastModified;
     }
 
+    /**
+     * Gets the per-shape version of this state.
+     *
+     * @return The version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks if this state is only a version reference (no shape snapshot).
+     *
+     * @return True if the shape snapshot is absent.
+     */
+    public boolean isReference() {
+        return shape == null;
+    }
+
     /**
      * Creates a deep copy of this state.
      *
      * @return A new ShapeState instance with the same data.
      */
     public ShapeState copy() {
+        if (isReference()) {
+            return this;
+        }
         // Shape.copy() creates a new Shape instance
-        return new ShapeState(this.shape.copy(), this.isDeleted, this.lastModified);
+        return new ShapeState(this.shape.copy(), this.isDeleted, this.lastModified, this.version);
     }
 
     @Override
     public String toString() {
-        return String.format("ShapeState[shape=%s, deleted=%b, modified=%d]",
-                shape, isDeleted, lastModified);
+        return String.format("ShapeState[shape=%s, deleted=%b, modified=%d, version=%d]",
+                shape, isDeleted, lastModified, version);
     }
 
     @Override
@@ -140,11 +211,12 @@ public final class ShapeState implements Serializable {
         // the null case (e.g., in a CreateAction's prevState).
         return isDeleted == that.isDeleted
                 && lastModified == that.lastModified
+                && version == that.version
                 && Objects.equals(shape, that.shape);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(shape, isDeleted, lastModified);
+        return Objects.hash(shape, isDeleted, lastModified, version);
     }
 }
\ No newline at end of file
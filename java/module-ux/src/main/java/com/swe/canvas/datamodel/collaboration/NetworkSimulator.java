@@ -15,6 +15,10 @@ import java.util.List;
 
 /**
  * A network stub that simulates the Host-Client connection in memory.
+ *
+ * <p>Messages are delivered synchronously on the sending thread. Subclasses
+ * can change how a message reaches its target (e.g. to add latency) by
+ * overriding {@link #deliver(ActionManager, NetworkMessage, boolean)}.</p>
  */
 public class NetworkSimulator implements NetworkService {
 
@@ -47,14 +51,14 @@ public class NetworkSimulator implements NetworkService {
     @Override
     public void sendMessageToHost(final NetworkMessage message) {
         if (hostManager != null) {
-            hostManager.processIncomingMessage(message);
+            deliver(hostManager, message, true);
         }
     }
 
     @Override
     public void broadcastMessage(final NetworkMessage message) {
         for (final ActionManager client : clientManagers) {
-            client.processIncomingMessage(message);
+            deliver(client, message, false);
         }
     }
 
@@ -63,7 +67,19 @@ public class NetworkSimulator implements NetworkService {
         // Simple simulation: broadcast to all for now in tests, or ignore.
         // In a real simulation we'd map IDs to managers.
         for (final ActionManager client : clientManagers) {
-            client.processIncomingMessage(message);
+            deliver(client, message, false);
         }
     }
+
+    /**
+     * Hands a message to its target manager.
+     *
+     * @param target  The manager receiving the message.
+     * @param message The message.
+     * @param toHost  True if the message travels from a client to the host.
+     */
+    protected void deliver(final ActionManager target, final NetworkMessage message,
+                           final boolean toHost) {
+        target.processIncomingMessage(message);
+    }
 }
@@ -14,6 +14,9 @@ import com.swe.canvas.datamodel.canvas.CanvasState;
 import com.swe.canvas.datamodel.canvas.ShapeState;
 import com.swe.canvas.datamodel.collaboration.NetworkMessage;
 import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Interface defining the contract for managing canvas actions.
@@ -69,6 +72,15 @@ public interface ActionManager {
      */
     void requestModify(ShapeState prevState, Shape modifiedShape);
 
+    /**
+     * Requests the modification of several shapes as one compound action:
+     * it is sent as one message, accepted or rejected as a whole and undone
+     * in one step.
+     *
+     * @param modifiedShapes The shapes with modified properties, by ID.
+     */
+    void requestModifyBatch(Map<ShapeId, Shape> modifiedShapes);
+
     /**
      * Requests the deletion of a shape.
      *
@@ -76,6 +88,21 @@ public interface ActionManager {
      */
     void requestDelete(ShapeState shapeToDelete);
 
+    /**
+     * Requests the creation of several shapes as one compound action.
+     *
+     * @param newShapes The shapes to create.
+     */
+    void requestCreateBatch(Collection<Shape> newShapes);
+
+    /**
+     * Requests the deletion of several shapes as one compound action, e.g.
+     * clearing the board. Undoing it restores all of them in one step.
+     *
+     * @param shapeIds The shapes to delete.
+     */
+    void requestDeleteBatch(Collection<ShapeId> shapeIds);
+
     /**
      * Requests the undoing of the last action.
      */
@@ -100,6 +127,21 @@ public interface ActionManager {
      */
     void restoreMap(String json);
 
+    /**
+     * Serializes the current canvas map (state) to the compact binary format.
+     *
+     * @return The encoded canvas map.
+     */
+    byte[] saveMapBinary();
+
+    /**
+     * Restores the canvas map (state) from a saved board. Both the binary
+     * format and JSON are accepted.
+     *
+     * @param data The saved board.
+     */
+    void restoreMapBinary(byte[] data);
+
     /**
      * Processes a network message received from the communication layer.
      *
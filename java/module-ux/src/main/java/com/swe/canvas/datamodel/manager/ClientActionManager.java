@@ -11,11 +11,14 @@ package com.swe.canvas.datamodel.manager;
 
 import com.swe.canvas.datamodel.action.Action;
 import com.swe.canvas.datamodel.action.ActionFactory;
+import com.swe.canvas.datamodel.action.ActionType;
+import com.swe.canvas.datamodel.action.CompoundAction;
 import com.swe.canvas.datamodel.canvas.CanvasState;
 import com.swe.canvas.datamodel.canvas.ShapeState;
 import com.swe.canvas.datamodel.collaboration.MessageType;
 import com.swe.canvas.datamodel.collaboration.NetworkMessage;
 import com.swe.canvas.datamodel.collaboration.NetworkService;
+import com.swe.canvas.datamodel.serialization.BoardBinarySerializer;
 import com.swe.canvas.datamodel.serialization.NetActionSerializer;
 import com.swe.canvas.datamodel.serialization.ShapeSerializer;
 import com.swe.canvas.datamodel.shape.Shape;
@@ -25,14 +28,52 @@ import com.swe.controller.RPC;
 import com.swe.controller.RPCinterface.AbstractRPC;
 import com.swe.controller.serialize.DataSerializer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The ActionManager implementation for the Client role.
+ *
+ * <p>Actions are applied to the local canvas optimistically, as soon as they
+ * are requested, and kept in a queue of pending actions until the host echoes
+ * them back. The host is still authoritative:</p>
+ * <ul>
+ * <li>An echo of a pending action confirms it (the host's version wins).</li>
+ * <li>An update from someone else on a shape with pending actions means the
+ * host will reject them (their base version is stale), so they are rolled
+ * back to the host's state. Pending actions on other shapes are kept.</li>
+ * <li>A pending action that is not echoed within {@link #PENDING_TIMEOUT_MS}
+ * is rolled back, together with the pending actions built on top of it.</li>
+ * </ul>
+ *
+ * <p>A {@link CompoundAction} is pending as a whole: it is applied only if
+ * all of its children can be predicted, and a conflict on any of its shapes
+ * rolls back all of them.</p>
  */
 public class ClientActionManager implements ActionManager {
 
+    /** How long a sent action may stay unconfirmed before it is rolled back. */
+    static final long PENDING_TIMEOUT_MS = 5000;
+
+    /** Single scheduler shared by all client managers for pending-action timeouts. */
+    private static final ScheduledExecutorService PENDING_TIMEOUTS =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "canvas-pending-timeouts");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     /** The ID of the user (client). */
     private final String userId;
 
@@ -55,6 +96,25 @@ public class ClientActionManager implements ActionManager {
     /** RPC interface for communication. */
     private final AbstractRPC rpc;
 
+    /** Actions applied locally but not yet confirmed by the host, in send order. Guards itself. */
+    private final Map<String, PendingAction> pendingActions = new LinkedHashMap<>();
+
+    /**
+     * Last host-confirmed state of each shape that has pending actions
+     * (a null value means the shape does not exist on the host yet).
+     * Guarded by {@link #pendingActions}.
+     */
+    private final Map<ShapeId, ShapeState> confirmedStates = new HashMap<>();
+
+    /**
+     * An action applied locally and sent to the host.
+     *
+     * @param action The action.
+     * @param type   The message type it was sent with.
+     */
+    private record PendingAction(Action action, MessageType type) {
+    }
+
     /**
      * Constructs a new ClientActionManager with default RPC.
      *
@@ -168,21 +228,229 @@ public class ClientActionManager implements ActionManager {
         }
     }
 
-    private void sendActionToHost(final Action action, final MessageType type) {
+    /**
+     * Returns the number of actions still waiting for host confirmation.
+     *
+     * @return pending action count.
+     */
+    public int getPendingActionCount() {
+        synchronized (pendingActions) {
+            return pendingActions.size();
+        }
+    }
+
+    private boolean sendActionToHost(final Action action, final MessageType type) {
         try {
             final String serializedAction = NetActionSerializer.serializeAction(action);
             final NetworkMessage message = new NetworkMessage(type, serializedAction.getBytes());
             networkService.sendMessageToHost(message);
+            return true;
         } catch (final Exception e) {
             System.err.println("Client failed to send message: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Applies the action locally, then sends it to the host.
+     *
+     * <p>Actions whose base version does not match the local view (e.g. a
+     * redo of an old modify) cannot be predicted and are only sent.</p>
+     *
+     * @param action The action to submit.
+     * @param type   The message type to send it with.
+     */
+    private void submitAction(final Action action, final MessageType type) {
+        boolean applied = false;
+
+        synchronized (pendingActions) {
+            final List<Action> children = childrenOf(action);
+            if (isPredictable(children)) {
+                final Map<ShapeId, ShapeState> states = new LinkedHashMap<>();
+                for (final Action child : children) {
+                    final ShapeId shapeId = child.getShapeId();
+                    if (!confirmedStates.containsKey(shapeId)) {
+                        confirmedStates.put(shapeId, canvasState.getShapeState(shapeId));
+                    }
+                    states.put(shapeId, child.getNewState());
+                }
+                canvasState.applyStates(states);
+                pendingActions.put(action.getActionId(), new PendingAction(action, type));
+                applied = true;
+            }
+        }
+
+        if (applied) {
+            onUpdateCallback.run();
+        }
+
+        if (!sendActionToHost(action, type)) {
+            if (applied) {
+                rollback(action.getActionId());
+            }
+            return;
+        }
+
+        if (applied) {
+            PENDING_TIMEOUTS.schedule(() -> rollback(action.getActionId()),
+                    PENDING_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Checks that every action is based on the local view left by the ones
+     * before it. Caller must hold {@link #pendingActions}.
+     *
+     * @param actions The actions, in application order.
+     * @return True if all of them can be applied locally.
+     */
+    private boolean isPredictable(final List<Action> actions) {
+        final Map<ShapeId, ShapeState> working = new HashMap<>();
+        for (final Action action : actions) {
+            final ShapeId shapeId = action.getShapeId();
+            final ShapeState current = working.containsKey(shapeId)
+                    ? working.get(shapeId) : canvasState.getShapeState(shapeId);
+            final ShapeState prev = action.getPrevState();
+            if (action.getActionType() != ActionType.CREATE
+                    && (prev == null || current == null || prev.getVersion() != current.getVersion())) {
+                return false;
+            }
+            working.put(shapeId, action.getNewState());
+        }
+        return true;
+    }
+
+    /**
+     * Rolls back a pending action and every later pending action on the same
+     * shapes (they were built on top of it). No-op if it was already confirmed.
+     *
+     * @param actionId The ID of the pending action.
+     */
+    private void rollback(final String actionId) {
+        synchronized (pendingActions) {
+            final PendingAction pending = pendingActions.get(actionId);
+            if (pending == null) {
+                return;
+            }
+            final Set<ShapeId> shapeIds = new HashSet<>();
+            boolean reached = false;
+            int dropped = 0;
+            final Iterator<PendingAction> it = pendingActions.values().iterator();
+            while (it.hasNext()) {
+                final PendingAction next = it.next();
+                if (next == pending) {
+                    reached = true;
+                    shapeIds.addAll(shapesOf(next.action()));
+                }
+                if (reached && touchesAny(next.action(), shapeIds)) {
+                    shapeIds.addAll(shapesOf(next.action()));
+                    it.remove();
+                    dropped++;
+                }
+            }
+            System.err.println("[Client] Rolled back " + dropped
+                    + " unconfirmed action(s) on shape(s) " + shapeIds);
+            for (final ShapeId shapeId : shapeIds) {
+                restoreView(shapeId);
+            }
+        }
+        onUpdateCallback.run();
+    }
+
+    /**
+     * Recomputes the local view of a shape from its confirmed state and the
+     * pending actions that remain for it. Caller must hold {@link #pendingActions}.
+     *
+     * @param shapeId The shape to restore.
+     */
+    private void restoreView(final ShapeId shapeId) {
+        ShapeState view = confirmedStates.get(shapeId);
+        boolean stillPending = false;
+        for (final PendingAction pending : pendingActions.values()) {
+            for (final Action child : childrenOf(pending.action())) {
+                if (child.getShapeId().equals(shapeId)) {
+                    view = child.getNewState();
+                    stillPending = true;
+                }
+            }
+        }
+        if (!stillPending) {
+            confirmedStates.remove(shapeId);
+        }
+        if (view != null) {
+            canvasState.applyState(shapeId, view);
+        } else {
+            canvasState.removeState(shapeId);
         }
     }
 
+    /**
+     * Applies a host-confirmed state. Caller must hold {@link #pendingActions}.
+     *
+     * @param shapeId   The shape the state belongs to.
+     * @param state     The authoritative state.
+     * @param confirmed True if this confirms one of our own pending actions.
+     */
+    private void applyAuthoritative(final ShapeId shapeId, final ShapeState state,
+                                    final boolean confirmed) {
+        if (!confirmedStates.containsKey(shapeId)) {
+            // Nothing pending on this shape
+            canvasState.applyState(shapeId, state);
+            return;
+        }
+
+        confirmedStates.put(shapeId, state);
+        if (!confirmed) {
+            // Someone else changed the shape first: the host rejects our pending actions
+            final List<String> rejected = new ArrayList<>();
+            final Set<ShapeId> affected = new HashSet<>();
+            for (final PendingAction pending : pendingActions.values()) {
+                if (touchesAny(pending.action(), Set.of(shapeId))) {
+                    rejected.add(pending.action().getActionId());
+                    affected.addAll(shapesOf(pending.action()));
+                }
+            }
+            pendingActions.keySet().removeAll(rejected);
+            System.err.println("[Client] Conflicting update on shape " + shapeId
+                    + ", rolled back " + rejected.size() + " pending action(s).");
+            // A rejected compound action also covered other shapes
+            affected.remove(shapeId);
+            for (final ShapeId other : affected) {
+                restoreView(other);
+            }
+        }
+        restoreView(shapeId);
+    }
+
+    private static List<Action> childrenOf(final Action action) {
+        if (action instanceof CompoundAction compound) {
+            return compound.getActions();
+        }
+        return List.of(action);
+    }
+
+    private static Set<ShapeId> shapesOf(final Action action) {
+        final Set<ShapeId> ids = new HashSet<>();
+        for (final Action child : childrenOf(action)) {
+            ids.add(child.getShapeId());
+        }
+        return ids;
+    }
+
+    private static boolean touchesAny(final Action action, final Set<ShapeId> shapeIds) {
+        for (final Action child : childrenOf(action)) {
+            if (shapeIds.contains(child.getShapeId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void requestCreate(final Shape newShape) {
         try {
             final Action action = actionFactory.createCreateAction(newShape, userId);
-            sendActionToHost(action, MessageType.NORMAL);
+            submitAction(action, MessageType.NORMAL);
         } catch (final Exception e) {
             System.err.println("Client create request failed: " + e.getMessage());
         }
@@ -193,30 +461,59 @@ public class ClientActionManager implements ActionManager {
         try {
             final Action action = actionFactory.createModifyAction(
                     canvasState, prevState.getShapeId(), modifiedShape, userId);
-            sendActionToHost(action, MessageType.NORMAL);
+            submitAction(action, MessageType.NORMAL);
         } catch (final Exception e) {
             System.err.println("Client modify request failed: " + e.getMessage());
         }
     }
 
+    @Override
+    public void requestModifyBatch(final Map<ShapeId, Shape> modifiedShapes) {
+        try {
+            submitAction(actionFactory.createModifyBatch(canvasState, modifiedShapes, userId),
+                    MessageType.NORMAL);
+        } catch (final Exception e) {
+            System.err.println("Client batch modify request failed: " + e.getMessage());
+        }
+    }
+
     @Override
     public void requestDelete(final ShapeState shapeToDelete) {
         try {
             final Action action = actionFactory.createDeleteAction(
                     canvasState, shapeToDelete.getShapeId(), userId);
-            sendActionToHost(action, MessageType.NORMAL);
+            submitAction(action, MessageType.NORMAL);
         } catch (final Exception e) {
             System.err.println("Client delete request failed: " + e.getMessage());
         }
     }
 
+    @Override
+    public void requestCreateBatch(final Collection<Shape> newShapes) {
+        try {
+            submitAction(actionFactory.createCreateBatch(newShapes, userId), MessageType.NORMAL);
+        } catch (final Exception e) {
+            System.err.println("Client batch create request failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void requestDeleteBatch(final Collection<ShapeId> shapeIds) {
+        try {
+            submitAction(actionFactory.createDeleteBatch(canvasState, shapeIds, userId),
+                    MessageType.NORMAL);
+        } catch (final Exception e) {
+            System.err.println("Client batch delete request failed: " + e.getMessage());
+        }
+    }
+
     @Override
     public void requestUndo() {
         try {
             final Action action = undoRedoManager.getActionToUndo();
             if (action != null) {
                 final Action inverse = actionFactory.createInverseAction(action, userId);
-                sendActionToHost(inverse, MessageType.UNDO);
+                submitAction(inverse, MessageType.UNDO);
             }
         } catch (final Exception e) {
             System.err.println("Client undo request failed: " + e.getMessage());
@@ -228,7 +525,7 @@ public class ClientActionManager implements ActionManager {
         try {
             final Action action = undoRedoManager.getActionToRedo();
             if (action != null) {
-                sendActionToHost(action, MessageType.REDO);
+                submitAction(action, MessageType.REDO);
             }
         } catch (final Exception e) {
             System.err.println("Client redo request failed: " + e.getMessage());
@@ -245,6 +542,16 @@ public class ClientActionManager implements ActionManager {
         System.out.println("[Client] Local restore requested. (No-op in typical flow)");
     }
 
+    @Override
+    public byte[] saveMapBinary() {
+        return BoardBinarySerializer.serializeBoard(canvasState.getAllStates());
+    }
+
+    @Override
+    public void restoreMapBinary(final byte[] data) {
+        System.out.println("[Client] Local restore requested. (No-op in typical flow)");
+    }
+
     @Override
     public byte[] handleUpdate(final byte[] data) {
         final String dataString = new String(data, StandardCharsets.UTF_8);
@@ -277,7 +584,12 @@ public class ClientActionManager implements ActionManager {
                 System.out.println("[Client] Received RESTORE/SYNC from Host.");
                 final Map<ShapeId, ShapeState> newMap = ShapeSerializer
                         .deserializeShapesMap(message.getPayload());
-                canvasState.setAllStates(newMap);
+                synchronized (pendingActions) {
+                    // The snapshot is authoritative; anything unconfirmed is dropped
+                    pendingActions.clear();
+                    confirmedStates.clear();
+                    canvasState.setAllStates(newMap);
+                }
                 undoRedoManager.clear();
                 onUpdateCallback.run();
             } catch (final Exception e) {
@@ -289,17 +601,45 @@ public class ClientActionManager implements ActionManager {
     private void handleActionMessage(final NetworkMessage message) {
         try {
             final String json = new String(message.getSerializedAction(), StandardCharsets.UTF_8);
-            final Action action = NetActionSerializer.deserializeAction(json);
+            final Action received = NetActionSerializer.deserializeAction(json);
 
-            if (action == null) {
+            if (received == null) {
                 return;
             }
 
+            if (received instanceof CompoundAction compound) {
+                handleCompoundMessage(compound, message.getMessageType());
+                return;
+            }
+
+            final ShapeId shapeId = received.getShapeId();
+            final Action action;
+            synchronized (pendingActions) {
+                final PendingAction pending = pendingActions.remove(received.getActionId());
+                if (pending != null) {
+                    // Our own action confirmed; keep the host's version
+                    action = actionFactory.withNewVersion(pending.action(),
+                            received.getNewState().getVersion());
+                } else {
+                    // Attach the full previous state (last confirmed) so undo can invert it
+                    final ShapeState base = confirmedStates.containsKey(shapeId)
+                            ? confirmedStates.get(shapeId) : canvasState.getShapeState(shapeId);
+                    action = actionFactory.resolvePrevState(received, base);
+
+                    if (action.getNewState().isReference()) {
+                        // A delta we cannot apply: our copy of the shape is out of sync
+                        System.err.println("[Client] Out of sync on shape " + shapeId
+                                + ", requesting full state from Host.");
+                        initialize();
+                        return;
+                    }
+                }
+                applyAuthoritative(shapeId, action.getNewState(), pending != null);
+            }
+
             final boolean isMyAction = action.getNewState()
                     .getShape().getLastUpdatedBy().equals(userId);
 
-            canvasState.applyState(action.getShapeId(), action.getNewState());
-
             if (isMyAction) {
                 updateUndoRedoStack(message.getMessageType(), action);
             }
@@ -309,6 +649,54 @@ public class ClientActionManager implements ActionManager {
         }
     }
 
+    private void handleCompoundMessage(final CompoundAction received, final MessageType type) {
+        final CompoundAction action;
+        synchronized (pendingActions) {
+            final PendingAction pending = pendingActions.remove(received.getActionId());
+            final List<Action> children = new ArrayList<>(received.getActions().size());
+            if (pending != null) {
+                // Our own action confirmed; keep the host's versions
+                final CompoundAction mine = (CompoundAction) pending.action();
+                for (int i = 0; i < mine.getActions().size(); i++) {
+                    children.add(actionFactory.withNewVersion(mine.getActions().get(i),
+                            received.getActions().get(i).getNewState().getVersion()));
+                }
+                action = actionFactory.withActions(mine, children);
+            } else {
+                final Map<ShapeId, ShapeState> working = new HashMap<>();
+                for (final Action child : received.getActions()) {
+                    final ShapeId shapeId = child.getShapeId();
+                    final ShapeState base;
+                    if (working.containsKey(shapeId)) {
+                        base = working.get(shapeId);
+                    } else if (confirmedStates.containsKey(shapeId)) {
+                        base = confirmedStates.get(shapeId);
+                    } else {
+                        base = canvasState.getShapeState(shapeId);
+                    }
+                    final Action resolved = actionFactory.resolvePrevState(child, base);
+                    if (resolved.getNewState().isReference()) {
+                        System.err.println("[Client] Out of sync on shape " + shapeId
+                                + ", requesting full state from Host.");
+                        initialize();
+                        return;
+                    }
+                    working.put(shapeId, resolved.getNewState());
+                    children.add(resolved);
+                }
+                action = actionFactory.withActions(received, children);
+            }
+            for (final Action child : action.getActions()) {
+                applyAuthoritative(child.getShapeId(), child.getNewState(), pending != null);
+            }
+        }
+
+        if (action.getNewState().getShape().getLastUpdatedBy().equals(userId)) {
+            updateUndoRedoStack(type, action);
+        }
+        onUpdateCallback.run();
+    }
+
     private void updateUndoRedoStack(final MessageType type, final Action action) {
         switch (type) {
             case NORMAL -> undoRedoManager.push(action);
@@ -12,11 +12,15 @@ package com.swe.canvas.datamodel.manager;
 import com.swe.canvas.datamodel.action.Action;
 import com.swe.canvas.datamodel.action.ActionFactory;
 import com.swe.canvas.datamodel.action.ActionType;
+import com.swe.canvas.datamodel.action.CompoundAction;
 import com.swe.canvas.datamodel.canvas.CanvasState;
 import com.swe.canvas.datamodel.canvas.ShapeState;
 import com.swe.canvas.datamodel.collaboration.MessageType;
 import com.swe.canvas.datamodel.collaboration.NetworkMessage;
 import com.swe.canvas.datamodel.collaboration.NetworkService;
+import com.swe.canvas.datamodel.persistence.CanvasAutosave;
+import com.swe.canvas.datamodel.persistence.CanvasOpLog;
+import com.swe.canvas.datamodel.serialization.BoardBinarySerializer;
 import com.swe.canvas.datamodel.serialization.NetActionSerializer;
 import com.swe.canvas.datamodel.serialization.ShapeSerializer;
 import com.swe.canvas.datamodel.shape.Shape;
@@ -25,11 +29,21 @@ import com.swe.controller.ClientNode;
 import com.swe.controller.RPC;
 import com.swe.controller.RPCinterface.AbstractRPC;
 import com.swe.controller.serialize.DataSerializer;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The ActionManager implementation for the Host role.
@@ -37,6 +51,12 @@ import java.util.Set;
  */
 public class HostActionManager implements ActionManager {
 
+    /** How often the operation log tail is flushed to disk. */
+    static final long OP_LOG_FLUSH_INTERVAL_MS = 1000;
+
+    /** How long closing the operation log waits for a running snapshot. */
+    private static final long OP_LOG_CLOSE_TIMEOUT_MS = 5000;
+
     /** The ID of the user (host). */
     private final String userId;
 
@@ -62,6 +82,21 @@ public class HostActionManager implements ActionManager {
     /** Track which clients have already been synced to avoid redundant updates. */
     private final Set<String> syncedClients = new HashSet<>();
 
+    /** Local log of accepted actions for crash recovery, or null if disabled. */
+    private volatile CanvasOpLog opLog;
+
+    /** Flushes the operation log and writes its snapshots; null without a log. */
+    private ScheduledExecutorService opLogWorker;
+
+    /** Closes the operation log if the JVM exits before the meeting ends. */
+    private Thread opLogShutdownHook;
+
+    /** Set while a snapshot is queued or being written. */
+    private final AtomicBoolean snapshotPending = new AtomicBoolean(false);
+
+    /** Background cloud autosave, or null if disabled. */
+    private CanvasAutosave autosave;
+
     /**
      * Constructs a new HostActionManager with default RPC.
      *
@@ -141,23 +176,184 @@ public class HostActionManager implements ActionManager {
         }
     }
 
+    /**
+     * Attaches an operation log. Every accepted action is appended to it, and
+     * a non-empty log (from a previous run) is recovered into the canvas.
+     * The log is flushed every {@link #OP_LOG_FLUSH_INTERVAL_MS} and when the
+     * JVM exits; call {@link #closeOpLog()} when the meeting ends.
+     *
+     * @param log The operation log to use.
+     */
+    public synchronized void attachOpLog(final CanvasOpLog log) {
+        if (log == null) {
+            return;
+        }
+        if (!log.getRecoveredStates().isEmpty()) {
+            System.out.println("[HostActionManager] Recovered " + log.getRecoveredStates().size()
+                    + " shapes from " + log.getLogFile());
+            canvasState.setAllStates(log.getRecoveredStates());
+            onUpdateCallback.run();
+        }
+        opLogWorker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "canvas-oplog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        opLogWorker.scheduleWithFixedDelay(this::flushOpLog, OP_LOG_FLUSH_INTERVAL_MS,
+                OP_LOG_FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        opLogShutdownHook = new Thread(this::closeOpLog, "canvas-oplog-shutdown");
+        Runtime.getRuntime().addShutdownHook(opLogShutdownHook);
+        // Published last, so whoever sees the log also sees its worker
+        this.opLog = log;
+    }
+
+    /**
+     * Flushes the operation log tail to disk, if a log is attached.
+     */
+    public void flushOpLog() {
+        final CanvasOpLog log = opLog;
+        if (log != null) {
+            log.flush();
+        }
+    }
+
+    /**
+     * Waits for a running snapshot, then flushes and closes the operation
+     * log, if one is attached. Later actions are no longer logged.
+     */
+    public synchronized void closeOpLog() {
+        final CanvasOpLog log = opLog;
+        if (log == null) {
+            return;
+        }
+        opLog = null;
+        opLogWorker.shutdown();
+        try {
+            if (!opLogWorker.awaitTermination(OP_LOG_CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                System.err.println("[HostActionManager] Operation log snapshot still running at close");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            log.close();
+        } catch (final IOException e) {
+            System.err.println("[HostActionManager] Failed to close operation log: " + e.getMessage());
+        }
+        if (Thread.currentThread() != opLogShutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(opLogShutdownHook);
+            } catch (final IllegalStateException e) {
+                // Already shutting down; the hook finds the log closed
+            }
+        }
+    }
+
+    /**
+     * Attaches a cloud autosave. The current board is saved in full, and every
+     * accepted action afterwards marks its shape for the next incremental save.
+     *
+     * @param save The autosave to use.
+     */
+    public void attachAutosave(final CanvasAutosave save) {
+        this.autosave = save;
+        if (save != null) {
+            save.markAllDirty();
+        }
+    }
+
+    private void logAction(final Action action) {
+        if (action instanceof CompoundAction compound) {
+            for (final Action child : compound.getActions()) {
+                logAction(child);
+            }
+            return;
+        }
+        if (autosave != null) {
+            autosave.markDirty(action.getShapeId());
+        }
+        final CanvasOpLog log = opLog;
+        if (log == null) {
+            return;
+        }
+        try {
+            log.append(action);
+            if (log.isSnapshotDue() && snapshotPending.compareAndSet(false, true)) {
+                scheduleSnapshot(log);
+            }
+        } catch (final IOException e) {
+            System.err.println("[HostActionManager] Failed to write operation log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Snapshots a copy of the board on the log's worker thread, so the action
+     * that made the snapshot due is not held up by serializing the board.
+     *
+     * @param log The operation log.
+     */
+    private void scheduleSnapshot(final CanvasOpLog log) {
+        // Actions are applied before they are logged, so the copy has every record before the mark
+        final CanvasOpLog.Checkpoint mark = log.checkpoint();
+        final Map<ShapeId, ShapeState> states = new HashMap<>(canvasState.getAllStates());
+        try {
+            opLogWorker.execute(() -> {
+                try {
+                    log.snapshot(states, mark);
+                } catch (final IOException e) {
+                    System.err.println("[HostActionManager] Failed to snapshot operation log: " + e.getMessage());
+                } finally {
+                    snapshotPending.set(false);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            // The log was closed meanwhile
+            snapshotPending.set(false);
+        }
+    }
+
     @Override
     public void handleUserJoined(final String clientId) {
         // Optional: Can still support push-based sync here if needed,
         // but REQUEST_SHAPES logic below handles the pull-based request.
     }
 
-    private boolean validate(final Action action) {
+    /**
+     * Optimistic concurrency check: an action is valid if it was based on the
+     * version the host currently holds for the shape. A delta action whose
+     * new state could not be rebuilt (stale base) is rejected as well.
+     *
+     * @param action       The incoming action.
+     * @param currentState The host's current state of the target shape.
+     * @return True if the action may be applied.
+     */
+    private boolean validate(final Action action, final ShapeState currentState) {
         if (action.getActionType() == ActionType.CREATE) {
             return true;
         }
-        final ShapeState currentState = canvasState.getShapeState(action.getShapeId());
         final ShapeState actionPrevState = action.getPrevState();
-        return Objects.equals(currentState, actionPrevState);
+        return currentState != null && actionPrevState != null
+                && currentState.getVersion() == actionPrevState.getVersion()
+                && !action.getNewState().isReference();
+    }
+
+    private static long nextVersion(final ShapeState currentState) {
+        if (currentState == null) {
+            return ShapeState.INITIAL_VERSION;
+        }
+        return currentState.getVersion() + 1;
     }
 
     private void applyAndBroadcast(final Action action, final NetworkMessage originalMessage) {
-        canvasState.applyState(action.getShapeId(), action.getNewState());
+        if (action instanceof CompoundAction compound) {
+            final Map<ShapeId, ShapeState> states = new LinkedHashMap<>();
+            for (final Action child : compound.getActions()) {
+                states.put(child.getShapeId(), child.getNewState());
+            }
+            canvasState.applyStates(states);
+        } else {
+            canvasState.applyState(action.getShapeId(), action.getNewState());
+        }
         networkService.broadcastMessage(originalMessage);
     }
 
@@ -184,6 +380,17 @@ public class HostActionManager implements ActionManager {
         }
     }
 
+    @Override
+    public void requestModifyBatch(final Map<ShapeId, Shape> modifiedShapes) {
+        try {
+            final Action action = actionFactory.createModifyBatch(canvasState, modifiedShapes, userId);
+            final String sa = NetActionSerializer.serializeAction(action);
+            processIncomingMessage(new NetworkMessage(MessageType.NORMAL, sa.getBytes()));
+        } catch (final Exception e) {
+            System.err.println("Host failed to modify shapes: " + e.getMessage());
+        }
+    }
+
     @Override
     public void requestDelete(final ShapeState shapeToDelete) {
         try {
@@ -196,6 +403,28 @@ public class HostActionManager implements ActionManager {
         }
     }
 
+    @Override
+    public void requestCreateBatch(final Collection<Shape> newShapes) {
+        try {
+            final Action action = actionFactory.createCreateBatch(newShapes, userId);
+            final String sa = NetActionSerializer.serializeAction(action);
+            processIncomingMessage(new NetworkMessage(MessageType.NORMAL, sa.getBytes()));
+        } catch (final Exception e) {
+            System.err.println("Host failed to create shapes: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void requestDeleteBatch(final Collection<ShapeId> shapeIds) {
+        try {
+            final Action action = actionFactory.createDeleteBatch(canvasState, shapeIds, userId);
+            final String sa = NetActionSerializer.serializeAction(action);
+            processIncomingMessage(new NetworkMessage(MessageType.NORMAL, sa.getBytes()));
+        } catch (final Exception e) {
+            System.err.println("Host failed to delete shapes: " + e.getMessage());
+        }
+    }
+
     @Override
     public void requestUndo() {
         try {
@@ -228,20 +457,47 @@ public class HostActionManager implements ActionManager {
         return ShapeSerializer.serializeShapesMap(canvasState.getAllStates());
     }
 
+    @Override
+    public byte[] saveMapBinary() {
+        return BoardBinarySerializer.serializeBoard(canvasState.getAllStates());
+    }
+
     @Override
     public void restoreMap(final String json) {
         try {
-            final Map<ShapeId, ShapeState> newMap = ShapeSerializer.deserializeShapesMap(json);
-            canvasState.setAllStates(newMap);
-            undoRedoManager.clear();
-            final NetworkMessage restoreMsg = new NetworkMessage(MessageType.RESTORE, null, json);
-            networkService.broadcastMessage(restoreMsg);
-            onUpdateCallback.run();
+            applyRestoredMap(ShapeSerializer.deserializeShapesMap(json), json);
         } catch (final Exception e) {
             System.err.println("[Host] Failed to restore map: " + e.getMessage());
         }
     }
 
+    @Override
+    public void restoreMapBinary(final byte[] data) {
+        try {
+            final Map<ShapeId, ShapeState> newMap = BoardBinarySerializer.readBoard(data);
+            // Peers still receive the RESTORE snapshot as JSON
+            applyRestoredMap(newMap, ShapeSerializer.serializeShapesMap(newMap));
+        } catch (final Exception e) {
+            System.err.println("[Host] Failed to restore map: " + e.getMessage());
+        }
+    }
+
+    private void applyRestoredMap(final Map<ShapeId, ShapeState> newMap, final String json)
+            throws IOException {
+        canvasState.setAllStates(newMap);
+        undoRedoManager.clear();
+        final CanvasOpLog log = opLog;
+        if (log != null) {
+            log.snapshot(canvasState.getAllStates());
+        }
+        if (autosave != null) {
+            autosave.markAllDirty();
+        }
+        final NetworkMessage restoreMsg = new NetworkMessage(MessageType.RESTORE, null, json);
+        networkService.broadcastMessage(restoreMsg);
+        onUpdateCallback.run();
+    }
+
     @Override
     public byte[] handleUpdate(final byte[] data) {
         final String dataString = new String(data, StandardCharsets.UTF_8);
@@ -292,14 +548,32 @@ public class HostActionManager implements ActionManager {
     private void handleActionMessage(final NetworkMessage message) {
         try {
             final String json = new String(message.getSerializedAction(), StandardCharsets.UTF_8);
-            final Action action = NetActionSerializer.deserializeAction(json);
+            final Action received = NetActionSerializer.deserializeAction(json);
+
+            if (received == null) {
+                return;
+            }
 
-            if (action == null) {
+            if (received instanceof CompoundAction compound) {
+                handleCompoundAction(compound, message);
+                onUpdateCallback.run();
                 return;
             }
 
-            if (validate(action)) {
-                processValidAction(action, message);
+            final ShapeState currentState = canvasState.getShapeState(received.getShapeId());
+            final Action action = actionFactory.resolvePrevState(received, currentState);
+
+            if (validate(action, currentState)) {
+                // The host is authoritative for versions (e.g. a redone CREATE
+                // re-targets a shape that already has a history).
+                final Action stamped = actionFactory.withNewVersion(action, nextVersion(currentState));
+                if (stamped == action) {
+                    processValidAction(action, message);
+                } else {
+                    final String sa = NetActionSerializer.serializeAction(stamped);
+                    processValidAction(stamped, new NetworkMessage(
+                            message.getMessageType(), sa.getBytes(StandardCharsets.UTF_8)));
+                }
             } else {
                 System.err.println("[Host] Conflict detected. Action rejected.");
             }
@@ -309,6 +583,44 @@ public class HostActionManager implements ActionManager {
         }
     }
 
+    /**
+     * Validates every child of a compound action against the state left by
+     * the children before it, and applies the action only if all are valid.
+     *
+     * @param received The compound action as received.
+     * @param message  The message it arrived in.
+     */
+    private void handleCompoundAction(final CompoundAction received, final NetworkMessage message) {
+        final Map<ShapeId, ShapeState> working = new HashMap<>();
+        final List<Action> accepted = new ArrayList<>(received.getActions().size());
+        boolean restamped = false;
+
+        for (final Action child : received.getActions()) {
+            final ShapeId shapeId = child.getShapeId();
+            final ShapeState currentState = working.containsKey(shapeId)
+                    ? working.get(shapeId) : canvasState.getShapeState(shapeId);
+            final Action resolved = actionFactory.resolvePrevState(child, currentState);
+            if (!validate(resolved, currentState)) {
+                System.err.println("[Host] Conflict detected on shape " + shapeId
+                        + ". Compound action rejected.");
+                return;
+            }
+            final Action stamped = actionFactory.withNewVersion(resolved, nextVersion(currentState));
+            restamped |= stamped != resolved;
+            working.put(shapeId, stamped.getNewState());
+            accepted.add(stamped);
+        }
+
+        final CompoundAction action = actionFactory.withActions(received, accepted);
+        if (restamped) {
+            final String sa = NetActionSerializer.serializeAction(action);
+            processValidAction(action, new NetworkMessage(
+                    message.getMessageType(), sa.getBytes(StandardCharsets.UTF_8)));
+        } else {
+            processValidAction(action, message);
+        }
+    }
+
     private void processValidAction(final Action action, final NetworkMessage message) {
         final boolean isHostSelfAction = action.getNewState()
                 .getShape().getLastUpdatedBy().equals(userId);
@@ -323,5 +635,6 @@ public class HostActionManager implements ActionManager {
             }
         }
         applyAndBroadcast(action, message);
+        logAction(action);
     }
 }
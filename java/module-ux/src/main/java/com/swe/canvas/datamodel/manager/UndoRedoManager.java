@@ -10,8 +10,19 @@
 package com.swe.canvas.datamodel.manager;
 
 import com.swe.canvas.datamodel.action.Action;
+import com.swe.canvas.datamodel.action.CompoundAction;
+import com.swe.canvas.datamodel.action.ModifyShapeAction;
+import com.swe.canvas.datamodel.action.ShapeDelta;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Manages the history of actions for Undo/Redo functionality.
@@ -19,34 +30,132 @@ import java.util.List;
  * <p>This class implements a linear history stack using a list and a pointer.
  * It supports standard push, undo, and redo operations, as well as specific
  * adjustments for network synchronization (Host-driven consistency).</p>
+ *
+ * <p>The history is bounded: it keeps at most {@code maxEntries} actions and
+ * an estimated {@code maxBytes} of action data, dropping the oldest entries
+ * first. Consecutive modifies of the same shape by the same user within
+ * {@link #COALESCE_WINDOW_MS} are merged into a single undo step. Entries
+ * older than the {@code hotEntries} most recent ones are kept in a compressed
+ * serialized form and inflated only when undo/redo reaches them.</p>
+ *
+ * <p>A {@link CompoundAction} is one entry, so it is undone and redone as a
+ * whole.</p>
  */
 public class UndoRedoManager {
 
+    /** Default maximum number of history entries. */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /** Default memory budget for the history, in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    /** Default number of most recent entries kept as live objects. */
+    public static final int DEFAULT_HOT_ENTRIES = 32;
+
+    /** Maximum gap between two modifies of a shape for them to be merged. */
+    static final long COALESCE_WINDOW_MS = 1000;
+
+    /** Estimated fixed cost of an action object (ids, timestamps, headers). */
+    private static final long ACTION_OVERHEAD_BYTES = 128;
+
+    /** Estimated fixed cost of a shape state and its shape. */
+    private static final long STATE_OVERHEAD_BYTES = 192;
+
+    /** Estimated cost of one point (object plus list slot). */
+    private static final long POINT_BYTES = 40;
+
+    /** Estimated fixed cost of a compressed entry. */
+    private static final long SPILLED_OVERHEAD_BYTES = 48;
+
     /**
      * The list storing the history of actions.
      */
-    private final List<Action> history = new ArrayList<>();
+    private final List<Entry> history = new ArrayList<>();
 
     /**
      * The index of the last applied action. -1 indicates an empty effective state.
      */
     private int currentIndex = -1;
 
+    /** Maximum number of entries kept. */
+    private final int maxEntries;
+
+    /** Memory budget for all entries, in estimated bytes. */
+    private final long maxBytes;
+
+    /** Number of most recent entries kept as live objects. */
+    private final int hotEntries;
+
+    /** Estimated bytes held by all entries. */
+    private long estimatedBytes;
+
+    /** Number of actions merged into a previous entry. */
+    private long coalescedCount;
+
+    /** Number of entries dropped to stay within the bounds. */
+    private long evictedCount;
+
+    /**
+     * Creates a manager with the default bounds.
+     */
+    public UndoRedoManager() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, DEFAULT_HOT_ENTRIES);
+    }
+
+    /**
+     * Creates a manager with the given bounds.
+     *
+     * @param maxEntriesVal Maximum number of history entries.
+     * @param maxBytesVal   Memory budget for the history, in estimated bytes.
+     * @param hotEntriesVal Number of most recent entries kept uncompressed.
+     * @throws IllegalArgumentException if any bound is not positive.
+     */
+    public UndoRedoManager(final int maxEntriesVal, final long maxBytesVal, final int hotEntriesVal) {
+        if (maxEntriesVal <= 0 || maxBytesVal <= 0 || hotEntriesVal <= 0) {
+            throw new IllegalArgumentException("History bounds must be positive.");
+        }
+        this.maxEntries = maxEntriesVal;
+        this.maxBytes = maxBytesVal;
+        this.hotEntries = hotEntriesVal;
+    }
+
     /**
      * Pushes a new action onto the history stack.
      *
      * <p>This operation invalidates any redo history (actions ahead of the
-     * current pointer).</p>
+     * current pointer). A modify that directly follows a modify of the same
+     * shape is merged into it.</p>
      *
      * @param action The action to add to the history.
      */
     public synchronized void push(final Action action) {
         // Clear the "redo" future if we diverge
-        while (history.size() - 1 > currentIndex) {
-            history.remove(history.size() - 1);
+        if (currentIndex < history.size() - 1) {
+            final List<Entry> future = history.subList(currentIndex + 1, history.size());
+            for (final Entry entry : future) {
+                estimatedBytes -= entry.bytes;
+            }
+            future.clear();
+        }
+
+        final Action merged = currentIndex >= 0 ? coalesce(history.get(currentIndex), action) : null;
+        if (merged != null) {
+            replace(currentIndex, Entry.hot(merged));
+            coalescedCount++;
+        } else {
+            final Entry entry = Entry.hot(action);
+            history.add(entry);
+            estimatedBytes += entry.bytes;
+            currentIndex++;
+            spill(currentIndex - hotEntries);
+        }
+
+        // Drop the oldest entries, always keeping the one just pushed
+        while (history.size() > 1 && (history.size() > maxEntries || estimatedBytes > maxBytes)) {
+            estimatedBytes -= history.remove(0).bytes;
+            currentIndex--;
+            evictedCount++;
         }
-        history.add(action);
-        currentIndex++;
     }
 
     /**
@@ -56,11 +165,12 @@ public class UndoRedoManager {
      * it merely returns the action that <i>would</i> be undone so the caller
      * can request an inverse operation.</p>
      *
-     * @return The action at the current index, or null if history is empty.
+     * @return The action at the current index, or null if history is empty
+     *         or the entry could not be restored.
      */
     public synchronized Action getActionToUndo() {
         if (canUndo()) {
-            return history.get(currentIndex);
+            return load(currentIndex);
         }
         return null;
     }
@@ -71,11 +181,12 @@ public class UndoRedoManager {
      * <p>This method returns the next action in the history list (ahead of the
      * pointer) without moving the pointer.</p>
      *
-     * @return The next action, or null if at the end of history.
+     * @return The next action, or null if at the end of history or the
+     *         entry could not be restored.
      */
     public synchronized Action getActionToRedo() {
         if (canRedo()) {
-            return history.get(currentIndex + 1);
+            return load(currentIndex + 1);
         }
         return null;
     }
@@ -126,5 +237,220 @@ public class UndoRedoManager {
     public synchronized void clear() {
         history.clear();
         currentIndex = -1;
+        estimatedBytes = 0;
+    }
+
+    // =========================================================================
+    // Metrics
+    // =========================================================================
+
+    /**
+     * Gets the number of entries in the history (undo and redo).
+     *
+     * @return The history size.
+     */
+    public synchronized int getHistorySize() {
+        return history.size();
+    }
+
+    /**
+     * Gets the estimated memory held by the history.
+     *
+     * @return Estimated bytes.
+     */
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Gets the number of entries currently held in compressed form.
+     *
+     * @return The spilled entry count.
+     */
+    public synchronized int getSpilledEntryCount() {
+        int count = 0;
+        for (final Entry entry : history) {
+            if (entry.spilled != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of actions merged into a previous entry since creation.
+     *
+     * @return The coalesced action count.
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Gets the number of entries dropped to stay within the bounds since creation.
+     *
+     * @return The evicted entry count.
+     */
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    // =========================================================================
+    // Internals
+    // =========================================================================
+
+    private void replace(final int index, final Entry entry) {
+        estimatedBytes += entry.bytes - history.get(index).bytes;
+        history.set(index, entry);
+    }
+
+    /**
+     * Restores the action of an entry. An entry that cannot be restored is
+     * dropped together with every entry behind it in the direction it was
+     * reached from, since those steps were recorded on top of it and cannot
+     * be applied without it.
+     *
+     * @param index The entry index; the current one for undo, the next one for redo.
+     * @return The action, or null if the entry was dropped.
+     */
+    private Action load(final int index) {
+        final Action action = history.get(index).action();
+        if (action != null) {
+            return action;
+        }
+        final List<Entry> dropped = index <= currentIndex
+                ? history.subList(0, index + 1)
+                : history.subList(index, history.size());
+        System.err.println("[UndoRedoManager] Dropping " + dropped.size()
+                + " history entries behind an unreadable one");
+        for (final Entry entry : dropped) {
+            estimatedBytes -= entry.bytes;
+        }
+        if (index <= currentIndex) {
+            currentIndex -= dropped.size();
+        }
+        evictedCount += dropped.size();
+        dropped.clear();
+        return null;
+    }
+
+    private void spill(final int index) {
+        if (index < 0 || history.get(index).spilled != null) {
+            return;
+        }
+        final Entry spilled = Entry.spilled(history.get(index).action);
+        if (spilled != null) {
+            replace(index, spilled);
+        }
+    }
+
+    /**
+     * Merges two consecutive modifies of the same shape into one.
+     *
+     * @param top  The entry currently at the top of the history.
+     * @param next The action being pushed.
+     * @return The merged action, or null if they cannot be merged.
+     */
+    private static Action coalesce(final Entry top, final Action next) {
+        if (top.action == null || !(top.action instanceof ModifyShapeAction)
+                || !(next instanceof ModifyShapeAction)) {
+            return null;
+        }
+        final ModifyShapeAction first = (ModifyShapeAction) top.action;
+        final ModifyShapeAction second = (ModifyShapeAction) next;
+        if (!first.getShapeId().equals(second.getShapeId())
+                || !first.getUserId().equals(second.getUserId())
+                || second.getTimestamp() - first.getTimestamp() > COALESCE_WINDOW_MS
+                || second.getPrevState() == null
+                || second.getPrevState().getVersion() != first.getNewState().getVersion()) {
+            return null;
+        }
+
+        final ShapeDelta delta = first.getDelta() == null ? null : first.getDelta().then(second.getDelta());
+        return new ModifyShapeAction(second.getActionId(), second.getUserId(), second.getTimestamp(),
+                second.getShapeId(), first.getPrevState(), second.getNewState(), delta);
+    }
+
+    /**
+     * Estimates the memory held by an action.
+     *
+     * @param action The action.
+     * @return Estimated bytes.
+     */
+    static long estimateBytes(final Action action) {
+        long bytes = ACTION_OVERHEAD_BYTES + stringBytes(action.getActionId()) + stringBytes(action.getUserId());
+        if (action instanceof CompoundAction compound) {
+            for (final Action child : compound.getActions()) {
+                bytes += estimateBytes(child);
+            }
+            return bytes;
+        }
+        bytes += estimateBytes(action.getPrevState());
+        bytes += estimateBytes(action.getNewState());
+        return bytes;
+    }
+
+    private static long estimateBytes(final ShapeState state) {
+        if (state == null || state.getShape() == null) {
+            return 0;
+        }
+        return STATE_OVERHEAD_BYTES
+                + state.getShape().getPoints().size() * POINT_BYTES
+                + stringBytes(state.getShape().getCreatedBy())
+                + stringBytes(state.getShape().getLastUpdatedBy());
+    }
+
+    private static long stringBytes(final String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    /**
+     * A history slot holding either a live action or its compressed form.
+     */
+    private static final class Entry {
+
+        /** The live action, or null if spilled. */
+        private final Action action;
+
+        /** The compressed serialized action, or null if live. */
+        private final byte[] spilled;
+
+        /** Estimated bytes held by this entry. */
+        private final long bytes;
+
+        private Entry(final Action actionVal, final byte[] spilledVal, final long bytesVal) {
+            this.action = actionVal;
+            this.spilled = spilledVal;
+            this.bytes = bytesVal;
+        }
+
+        static Entry hot(final Action action) {
+            return new Entry(action, null, estimateBytes(action));
+        }
+
+        static Entry spilled(final Action action) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(new DeflaterOutputStream(out))) {
+                oos.writeObject(action);
+            } catch (final IOException e) {
+                System.err.println("[UndoRedoManager] Failed to compact history entry: " + e.getMessage());
+                return null;
+            }
+            final byte[] data = out.toByteArray();
+            return new Entry(null, data, SPILLED_OVERHEAD_BYTES + data.length);
+        }
+
+        Action action() {
+            if (action != null) {
+                return action;
+            }
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new InflaterInputStream(new ByteArrayInputStream(spilled)))) {
+                return (Action) ois.readObject();
+            } catch (final IOException | ClassNotFoundException | ClassCastException e) {
+                System.err.println("[UndoRedoManager] Failed to restore history entry: " + e);
+                return null;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,343 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: CanvasAutosave.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.serialization.BoardBinarySerializer;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import com.swe.cloud.datastructures.CloudResponse;
+import com.swe.cloud.datastructures.Entity;
+import com.swe.cloud.functionlibrary.CloudFunctionLibrary;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Saves a board to the cloud in the background, uploading only the shapes
+ * that changed since the previous save.
+ *
+ * <p>The board is one cloud document whose data holds a {@code Base} board
+ * and a number of {@code Delta-n} fields, each a
+ * {@link BoardBinarySerializer} board with just the shapes changed by one
+ * save. Because every shape state carries a version, restoring merges the
+ * base and the deltas by keeping the highest version of each shape, so the
+ * order of the deltas does not matter. After {@link #COMPACT_AFTER_DELTAS}
+ * deltas the whole board is written as a new base, which drops the deltas.</p>
+ *
+ * <p>Edits are debounced, and uploads are retried with exponential backoff,
+ * through {@link CloudFunctionLibrary}. All work happens on the library's
+ * background thread; at most one upload is in flight per board.</p>
+ */
+public class CanvasAutosave {
+
+    /** Quiet period after the last edit before a save starts. */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 2_000;
+
+    /** Number of delta uploads after which the whole board is rewritten. */
+    static final int COMPACT_AFTER_DELTAS = 20;
+
+    /** Value of the format marker of an autosave document. */
+    static final String FORMAT = "autosave";
+
+    /** Key of the format marker. */
+    static final String FORMAT_KEY = "Format";
+
+    /** Key of the base board. */
+    static final String BASE_KEY = "Base";
+
+    /** Prefix of the delta keys. */
+    static final String DELTA_PREFIX = "Delta-";
+
+    /** Attempts per upload. */
+    private static final int MAX_ATTEMPTS = 5;
+
+    /** Delay before the first retry of a failed upload. */
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+
+    /** Cloud module of canvas saves (shared with manual saves). */
+    private static final String CLOUD_MODULE = "CANVAS";
+
+    /** Cloud table of canvas saves. */
+    private static final String CLOUD_TABLE = "saves";
+
+    /** Entity ID used for Cloud requests. */
+    private static final int CLOUD_ENTITY_ID = -1;
+
+    /** Minimum status code of a failed cloud response. */
+    private static final int HTTP_ERROR_STATUS = 400;
+
+    /** Builds the JSON wrappers of uploads. */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** The cloud library used for uploads, debouncing and retries. */
+    private final CloudFunctionLibrary cloud;
+
+    /** ID of the cloud document. */
+    private final String boardId;
+
+    /** The board being saved. */
+    private final CanvasState canvasState;
+
+    /** Quiet period before a save. */
+    private final long debounceMillis;
+
+    /** Shapes changed since the last successful upload. */
+    private final Set<ShapeId> dirty = ConcurrentHashMap.newKeySet();
+
+    /** Set while an upload is running. */
+    private final AtomicBoolean inFlight = new AtomicBoolean(false);
+
+    /** Set when a save was requested while an upload was running. */
+    private volatile boolean rerun;
+
+    /** Set when the next upload must write the whole board. */
+    private volatile boolean fullSaveNeeded = true;
+
+    /** Deltas written since the last base. Only used by the uploading thread. */
+    private int deltaCount;
+
+    /** Number of successful uploads. */
+    private final AtomicLong uploads = new AtomicLong();
+
+    /** Number of shapes uploaded in total. */
+    private final AtomicLong uploadedShapes = new AtomicLong();
+
+    /** Size of the last upload's board, in bytes. */
+    private volatile int lastUploadBytes;
+
+    /**
+     * Creates an autosave with the default debounce delay.
+     *
+     * @param cloudLib The cloud library.
+     * @param board    ID of the cloud document.
+     * @param state    The board to save.
+     */
+    public CanvasAutosave(final CloudFunctionLibrary cloudLib, final String board, final CanvasState state) {
+        this(cloudLib, board, state, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Creates an autosave.
+     *
+     * @param cloudLib The cloud library.
+     * @param board    ID of the cloud document.
+     * @param state    The board to save.
+     * @param debounce Quiet period after the last edit before a save starts.
+     */
+    public CanvasAutosave(final CloudFunctionLibrary cloudLib, final String board,
+                          final CanvasState state, final long debounce) {
+        this.cloud = cloudLib;
+        this.boardId = board;
+        this.canvasState = state;
+        this.debounceMillis = debounce;
+    }
+
+    /**
+     * Records that a shape changed and schedules a save.
+     *
+     * @param shapeId The changed shape.
+     */
+    public void markDirty(final ShapeId shapeId) {
+        dirty.add(shapeId);
+        schedule();
+    }
+
+    /**
+     * Records that the whole board changed (e.g. after a restore) and
+     * schedules a save of the whole board.
+     */
+    public void markAllDirty() {
+        fullSaveNeeded = true;
+        schedule();
+    }
+
+    private void schedule() {
+        cloud.debounce("canvas-autosave:" + boardId, debounceMillis, this::save);
+    }
+
+    /**
+     * Uploads the pending changes. Runs on the cloud library's background thread.
+     */
+    void save() {
+        if (!inFlight.compareAndSet(false, true)) {
+            rerun = true;
+            return;
+        }
+        rerun = false;
+
+        final boolean full = fullSaveNeeded || deltaCount >= COMPACT_AFTER_DELTAS;
+        final Set<ShapeId> batch = drainDirty();
+        if (!full && batch.isEmpty()) {
+            inFlight.set(false);
+            return;
+        }
+        fullSaveNeeded = false;
+
+        final Map<ShapeId, ShapeState> states;
+        if (full) {
+            states = canvasState.getAllStates();
+        } else {
+            states = new HashMap<>();
+            for (final ShapeId id : batch) {
+                final ShapeState state = canvasState.getShapeState(id);
+                if (state != null) {
+                    states.put(id, state);
+                }
+            }
+        }
+        final byte[] board = BoardBinarySerializer.serializeBoard(states);
+        final String encoded = Base64.getEncoder().encodeToString(board);
+
+        final CompletableFuture<CloudResponse> upload;
+        if (full) {
+            final ObjectNode data = MAPPER.createObjectNode();
+            data.put(FORMAT_KEY, FORMAT);
+            data.put(BASE_KEY, encoded);
+            final Entity req = new Entity(CLOUD_MODULE, CLOUD_TABLE, boardId, null, CLOUD_ENTITY_ID, null, data);
+            upload = cloud.withRetry(upsert(req), MAX_ATTEMPTS, INITIAL_BACKOFF_MILLIS);
+        } else {
+            final String key = DELTA_PREFIX + (deltaCount + 1);
+            final ObjectNode data = MAPPER.createObjectNode();
+            data.put(key, encoded);
+            final Entity req = new Entity(CLOUD_MODULE, CLOUD_TABLE, boardId, key, CLOUD_ENTITY_ID, null, data);
+            upload = cloud.withRetry(() -> cloud.cloudUpdate(req), MAX_ATTEMPTS, INITIAL_BACKOFF_MILLIS);
+        }
+
+        upload.whenComplete((response, error) -> {
+            if (error == null) {
+                deltaCount = full ? 0 : deltaCount + 1;
+                uploads.incrementAndGet();
+                uploadedShapes.addAndGet(states.size());
+                lastUploadBytes = board.length;
+            } else {
+                System.err.println("[CanvasAutosave] Saving board " + boardId + " failed: " + error.getMessage());
+                dirty.addAll(batch);
+                if (full) {
+                    fullSaveNeeded = true;
+                }
+            }
+            inFlight.set(false);
+            if (rerun || (error == null && !dirty.isEmpty())) {
+                schedule();
+            }
+        });
+    }
+
+    /**
+     * Updates the document, creating it if it does not exist yet.
+     */
+    private Supplier<CompletableFuture<CloudResponse>> upsert(final Entity req) {
+        return () -> cloud.cloudUpdate(req)
+                .exceptionally(ex -> null)
+                .thenCompose(res -> res != null && res.status_code() < HTTP_ERROR_STATUS
+                        ? CompletableFuture.completedFuture(res)
+                        : cloud.cloudPost(req));
+    }
+
+    private Set<ShapeId> drainDirty() {
+        final Set<ShapeId> batch = new HashSet<>();
+        final Iterator<ShapeId> it = dirty.iterator();
+        while (it.hasNext()) {
+            batch.add(it.next());
+            it.remove();
+        }
+        return batch;
+    }
+
+    /**
+     * Checks whether saved cloud data was written by an autosave.
+     *
+     * @param data The {@code data} of a cloud document.
+     * @return True if it is an autosave document.
+     */
+    public static boolean isAutosaveDocument(final JsonNode data) {
+        return data != null && FORMAT.equals(data.path(FORMAT_KEY).asText(null));
+    }
+
+    /**
+     * Rebuilds the board from an autosave document by merging the base and
+     * all deltas, keeping the highest version of each shape.
+     *
+     * @param data The {@code data} of a cloud document.
+     * @return The saved board.
+     */
+    public static Map<ShapeId, ShapeState> readDocument(final JsonNode data) {
+        final Map<ShapeId, ShapeState> board = new HashMap<>();
+        final Iterator<Map.Entry<String, JsonNode>> fields = data.fields();
+        while (fields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            if (!BASE_KEY.equals(field.getKey()) && !field.getKey().startsWith(DELTA_PREFIX)) {
+                continue;
+            }
+            final byte[] bytes = Base64.getDecoder().decode(field.getValue().asText());
+            for (final ShapeState state : BoardBinarySerializer.deserializeBoard(bytes).values()) {
+                board.merge(state.getShapeId(), state,
+                        (current, next) -> next.getVersion() > current.getVersion() ? next : current);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Gets the ID of the cloud document.
+     *
+     * @return The board ID.
+     */
+    public String getBoardId() {
+        return boardId;
+    }
+
+    /**
+     * Gets the number of shapes waiting to be uploaded.
+     *
+     * @return The dirty shape count.
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Gets the number of successful uploads.
+     *
+     * @return The upload count.
+     */
+    public long getUploadCount() {
+        return uploads.get();
+    }
+
+    /**
+     * Gets the number of shapes uploaded so far, over all uploads.
+     *
+     * @return The uploaded shape count.
+     */
+    public long getUploadedShapeCount() {
+        return uploadedShapes.get();
+    }
+
+    /**
+     * Gets the size of the last uploaded board, before base64 encoding.
+     *
+     * @return Bytes of the last upload.
+     */
+    public int getLastUploadBytes() {
+        return lastUploadBytes;
+    }
+}
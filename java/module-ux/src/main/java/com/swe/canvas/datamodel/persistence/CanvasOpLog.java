@@ -0,0 +1,407 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: CanvasOpLog.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.persistence;
+
+import com.swe.canvas.datamodel.action.Action;
+import com.swe.canvas.datamodel.action.ActionFactory;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.serialization.NetActionSerializer;
+import com.swe.canvas.datamodel.serialization.ShapeSerializer;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the actions accepted by the host, backed by a
+ * memory-mapped file, with periodic snapshots.
+ *
+ * <p>Every accepted action is appended as one record. After
+ * {@code snapshotInterval} records the host writes a snapshot of the whole
+ * board to a sidecar {@code .snapshot} file and the log starts over, so
+ * recovery only loads one snapshot and replays at most
+ * {@code snapshotInterval} actions, however long the session was.</p>
+ *
+ * <p>A snapshot can be written while actions keep being appended: take a
+ * {@link #checkpoint()} together with a copy of the board, and pass both to
+ * {@link #snapshot(Map, Checkpoint)} on another thread. Only the records up
+ * to the checkpoint are dropped; the ones appended meanwhile are kept.</p>
+ *
+ * <p><b>File layout:</b> an 8-byte header ({@link #MAGIC}, {@link #FORMAT_VERSION})
+ * followed by records of {@code [int length][int crc32][payload]}, where the
+ * payload is the action as produced by {@link NetActionSerializer}. A zero
+ * length marks the end of the log; a record with a bad checksum (torn write)
+ * is treated as the end as well.</p>
+ *
+ * <p>Replay is idempotent: an action is skipped if the shape already has its
+ * version, so records that survive a crash during compaction are harmless.</p>
+ *
+ * <p><b>Thread Safety:</b> All public methods are synchronized.</p>
+ */
+public class CanvasOpLog implements AutoCloseable {
+
+    /** Number of appended actions after which a snapshot is due. */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 500;
+
+    /** File magic ("CVOL"). */
+    static final int MAGIC = 0x43564F4C;
+
+    /** Version of the on-disk format. */
+    static final int FORMAT_VERSION = 1;
+
+    /** Size of the file header. */
+    static final int HEADER_BYTES = 8;
+
+    /** Size of a record header (length + checksum). */
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    /** Initial size of the mapped region. */
+    private static final int INITIAL_CAPACITY = 1 << 20;
+
+    /** Path of the log file. */
+    private final Path logFile;
+
+    /** Path of the snapshot file. */
+    private final Path snapshotFile;
+
+    /** Number of actions between snapshots. */
+    private final int snapshotInterval;
+
+    /** Used to resolve delta actions during replay. */
+    private final ActionFactory actionFactory = new ActionFactory();
+
+    /** Channel of the log file. */
+    private final FileChannel channel;
+
+    /** The mapped region of the log file. */
+    private MappedByteBuffer buffer;
+
+    /** Offset at which the next record is written. */
+    private int writePosition;
+
+    /** Records appended since the last snapshot. */
+    private int opsSinceSnapshot;
+
+    /** The board state recovered when the log was opened. */
+    private final Map<ShapeId, ShapeState> recoveredStates;
+
+    /** Number of log records replayed when the log was opened. */
+    private int replayedOps;
+
+    /** Incremented whenever the log starts over, to detect stale checkpoints. */
+    private long generation;
+
+    /**
+     * A point in the log that a copy of the board was taken at.
+     *
+     * @param position   Offset of the first record not in the copy.
+     * @param ops        Records before that offset since the last snapshot.
+     * @param generation The log generation the offset belongs to.
+     */
+    public record Checkpoint(int position, int ops, long generation) {
+    }
+
+    /**
+     * Opens (or creates) a log with the default snapshot interval.
+     *
+     * @param file The log file.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public CanvasOpLog(final Path file) throws IOException {
+        this(file, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens (or creates) a log and recovers the board it describes.
+     *
+     * @param file             The log file.
+     * @param snapshotInterval Number of actions between snapshots.
+     * @throws IOException if the file cannot be opened or mapped, or is not a log.
+     */
+    public CanvasOpLog(final Path file, final int snapshotInterval) throws IOException {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("snapshotInterval must be positive.");
+        }
+        this.logFile = file;
+        this.snapshotFile = file.resolveSibling(file.getFileName() + ".snapshot");
+        this.snapshotInterval = snapshotInterval;
+
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(INITIAL_CAPACITY, channel.size()));
+
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(Integer.BYTES, FORMAT_VERSION);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException("Not a canvas operation log (or unsupported version): " + file);
+        }
+        this.recoveredStates = recover();
+    }
+
+    /**
+     * Loads the snapshot and replays the log records after it.
+     *
+     * @return The recovered board.
+     * @throws IOException if the snapshot cannot be read.
+     */
+    private Map<ShapeId, ShapeState> recover() throws IOException {
+        final Map<ShapeId, ShapeState> states = new HashMap<>();
+        if (Files.exists(snapshotFile)) {
+            states.putAll(ShapeSerializer.deserializeShapesMap(
+                    Files.readString(snapshotFile, StandardCharsets.UTF_8)));
+        }
+
+        int position = HEADER_BYTES;
+        while (position + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            final int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            final byte[] payload = new byte[length];
+            buffer.get(position + RECORD_HEADER_BYTES, payload);
+            if (checksum(payload) != buffer.getInt(position + Integer.BYTES)) {
+                System.err.println("[CanvasOpLog] Ignoring torn record at offset " + position);
+                break;
+            }
+            replay(states, new String(payload, StandardCharsets.UTF_8));
+            replayedOps++;
+            position += RECORD_HEADER_BYTES + length;
+        }
+        writePosition = position;
+        opsSinceSnapshot = replayedOps;
+
+        // Anything after the end is garbage from a torn write or an old generation
+        zero(writePosition, buffer.capacity());
+        return states;
+    }
+
+    private void replay(final Map<ShapeId, ShapeState> states, final String json) {
+        try {
+            final Action received = NetActionSerializer.deserializeAction(json);
+            if (received == null) {
+                return;
+            }
+            final ShapeState current = states.get(received.getShapeId());
+            if (current != null && received.getNewState().getVersion() <= current.getVersion()) {
+                return; // Already part of the snapshot
+            }
+            final Action action = actionFactory.resolvePrevState(received, current);
+            if (action.getNewState().isReference()) {
+                System.err.println("[CanvasOpLog] Cannot replay delta on shape " + action.getShapeId());
+                return;
+            }
+            states.put(action.getShapeId(), action.getNewState());
+        } catch (final Exception e) {
+            System.err.println("[CanvasOpLog] Skipping unreadable record: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends an accepted action to the log.
+     *
+     * @param action The action, as applied by the host.
+     * @throws IOException if the log cannot grow.
+     */
+    public synchronized void append(final Action action) throws IOException {
+        final byte[] payload = NetActionSerializer.serializeAction(action).getBytes(StandardCharsets.UTF_8);
+        final int recordBytes = RECORD_HEADER_BYTES + payload.length;
+        ensureCapacity(writePosition + recordBytes + RECORD_HEADER_BYTES);
+
+        // Payload first, length last: a torn record never looks complete
+        buffer.putInt(writePosition + Integer.BYTES, checksum(payload));
+        buffer.put(writePosition + RECORD_HEADER_BYTES, payload);
+        buffer.putInt(writePosition, payload.length);
+        writePosition += recordBytes;
+        opsSinceSnapshot++;
+    }
+
+    /**
+     * Checks whether enough actions were appended to warrant a snapshot.
+     *
+     * @return True if {@link #snapshot(Map)} should be called.
+     */
+    public synchronized boolean isSnapshotDue() {
+        return opsSinceSnapshot >= snapshotInterval;
+    }
+
+    /**
+     * Marks the current end of the log. Take it together with the copy of the
+     * board to be passed to {@link #snapshot(Map, Checkpoint)}.
+     *
+     * @return The checkpoint.
+     */
+    public synchronized Checkpoint checkpoint() {
+        return new Checkpoint(writePosition, opsSinceSnapshot, generation);
+    }
+
+    /**
+     * Writes a snapshot of the whole board and starts the log over.
+     *
+     * @param states The current board.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public void snapshot(final Map<ShapeId, ShapeState> states) throws IOException {
+        // Retry if a background snapshot compacted the log in between
+        while (!snapshot(states, checkpoint())) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Writes a snapshot of a copy of the board and drops the log records up
+     * to the checkpoint the copy was taken at.
+     *
+     * <p>The board is serialized and written to a temporary file without
+     * holding the log's lock, so appends are not blocked; the file is then
+     * moved into place atomically before the log is compacted. A snapshot
+     * whose checkpoint is older than the last snapshot is discarded.</p>
+     *
+     * @param states A copy of the board, taken at the checkpoint.
+     * @param mark   The checkpoint the copy was taken at.
+     * @return False if the checkpoint was stale and nothing was written.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public boolean snapshot(final Map<ShapeId, ShapeState> states, final Checkpoint mark) throws IOException {
+        final Path tmp = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(),
+                snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tmp, ShapeSerializer.serializeShapesMap(states), StandardCharsets.UTF_8);
+            synchronized (this) {
+                if (mark.generation() != generation) {
+                    return false;
+                }
+                Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                compact(mark);
+                return true;
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Moves the records after a checkpoint to the start of the log.
+     *
+     * @param mark The checkpoint; the records before it are in the snapshot.
+     */
+    private void compact(final Checkpoint mark) {
+        final byte[] kept = new byte[writePosition - mark.position()];
+        buffer.get(mark.position(), kept);
+        buffer.put(HEADER_BYTES, kept);
+        zero(HEADER_BYTES + kept.length, writePosition);
+        buffer.force();
+        writePosition = HEADER_BYTES + kept.length;
+        opsSinceSnapshot -= mark.ops();
+        generation++;
+    }
+
+    /**
+     * Flushes the log tail to disk. This is the cheap "save": only the
+     * records written since the last flush reach the disk.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Gets the board state recovered when the log was opened.
+     *
+     * @return An unmodifiable map of the recovered states (empty for a new log).
+     */
+    public Map<ShapeId, ShapeState> getRecoveredStates() {
+        return Collections.unmodifiableMap(recoveredStates);
+    }
+
+    /**
+     * Gets the number of records replayed when the log was opened.
+     *
+     * @return The replayed record count.
+     */
+    public int getReplayedOps() {
+        return replayedOps;
+    }
+
+    /**
+     * Gets the number of records appended since the last snapshot.
+     *
+     * @return The record count.
+     */
+    public synchronized int getOpsSinceSnapshot() {
+        return opsSinceSnapshot;
+    }
+
+    /**
+     * Gets the size of the log contents (header and records).
+     *
+     * @return Bytes in use.
+     */
+    public synchronized int getLogBytes() {
+        return writePosition;
+    }
+
+    /**
+     * Gets the path of the log file.
+     *
+     * @return The log file.
+     */
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void ensureCapacity(final int required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long capacity = buffer.capacity();
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Operation log is full: " + logFile);
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void zero(final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private static int checksum(final byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * Persistence of the host's canvas.
+ *
+ * <p>{@link com.swe.canvas.datamodel.persistence.CanvasOpLog} keeps an
+ * append-only, memory-mapped log of accepted actions with periodic snapshots,
+ * used for crash recovery. The test sources have an {@code OpLogReplay} tool
+ * that replays such a log to measure recovery time.</p>
+ *
+ * <p>{@link com.swe.canvas.datamodel.persistence.CanvasAutosave} saves the
+ * board to the cloud in the background, uploading only changed shapes.</p>
+ */
+package com.swe.canvas.datamodel.persistence;
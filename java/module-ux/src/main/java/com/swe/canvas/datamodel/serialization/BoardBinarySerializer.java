@@ -0,0 +1,341 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: BoardBinarySerializer.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.serialization;
+
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import com.swe.canvas.datamodel.shape.ShapeType;
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary format for saving a whole board to a file or the cloud.
+ *
+ * <p>The JSON produced by {@link ShapeSerializer#serializeShapesMap(Map)}
+ * spends most of its bytes on repeated keys, user IDs and point objects. This
+ * format stores the same information as:</p>
+ * <ul>
+ * <li><b>Header</b> (uncompressed): {@link #MAGIC}, format version, shape count.</li>
+ * <li><b>String table</b>: every distinct user ID, once.</li>
+ * <li><b>Shape table</b>: one fixed record per shape (type, flags, ID, color,
+ *     thickness, string-table indices, timestamp, version, point count).</li>
+ * <li><b>Point blocks</b>: all points, delta-encoded as zig-zag varints.</li>
+ * </ul>
+ * <p>Everything after the header is deflate-compressed. Points keep the
+ * integer precision of the JSON format.</p>
+ *
+ * <p>{@link #readBoard(byte[])} accepts either format, so older JSON saves
+ * can still be restored.</p>
+ */
+public final class BoardBinarySerializer {
+
+    /** File magic ("CVB1"). */
+    static final int MAGIC = 0x43564231;
+
+    /** Version of the binary format. */
+    static final int FORMAT_VERSION = 2;
+
+    /** First version, which stored the thickness as a float; still readable. */
+    static final int FLOAT_THICKNESS_VERSION = 1;
+
+    /** Flag bit: the shape is deleted. */
+    private static final int FLAG_DELETED = 1;
+
+    /** Flag bit: the shape ID is a UUID stored as 16 bytes. */
+    private static final int FLAG_UUID_ID = 2;
+
+    /** Buffer between the data streams and the (de)compressor. */
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    /** Bits of payload per varint byte. */
+    private static final int VARINT_SHIFT = 7;
+
+    /** Payload mask of a varint byte. */
+    private static final int VARINT_MASK = 0x7F;
+
+    /** Continuation bit of a varint byte. */
+    private static final int VARINT_MORE = 0x80;
+
+    private BoardBinarySerializer() {
+        // Utility class
+    }
+
+    /**
+     * Serializes a board to the binary format.
+     *
+     * @param shapes The board to serialize.
+     * @return The encoded board.
+     */
+    public static byte[] serializeBoard(final Map<ShapeId, ShapeState> shapes) {
+        final List<ShapeState> states = new ArrayList<>();
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+        if (shapes != null) {
+            for (final ShapeState state : shapes.values()) {
+                if (state == null || state.getShape() == null) {
+                    continue;
+                }
+                states.add(state);
+                strings.putIfAbsent(state.getShape().getCreatedBy(), strings.size());
+                strings.putIfAbsent(state.getShape().getLastUpdatedBy(), strings.size());
+            }
+        }
+
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream header = new DataOutputStream(bytes);
+            header.writeInt(MAGIC);
+            header.writeShort(FORMAT_VERSION);
+            header.writeInt(states.size());
+            header.flush();
+
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(bytes, deflater), STREAM_BUFFER_BYTES))) {
+                writeVarLong(out, strings.size());
+                for (final String s : strings.keySet()) {
+                    out.writeUTF(s);
+                }
+                for (final ShapeState state : states) {
+                    writeShapeRecord(out, state, strings);
+                }
+                for (final ShapeState state : states) {
+                    writePoints(out, state.getShape().getPoints());
+                }
+            } finally {
+                deflater.end();
+            }
+            return bytes.toByteArray();
+        } catch (final IOException e) {
+            throw new SerializationException("Failed to serialize board: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeShapeRecord(final DataOutputStream out, final ShapeState state,
+                                         final Map<String, Integer> strings) throws IOException {
+        final Shape shape = state.getShape();
+        final UUID uuid = asUuid(shape.getShapeId().getValue());
+
+        out.writeByte(shape.getShapeType().ordinal());
+        out.writeByte((state.isDeleted() ? FLAG_DELETED : 0) | (uuid != null ? FLAG_UUID_ID : 0));
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            out.writeUTF(shape.getShapeId().getValue());
+        }
+        out.writeInt(shape.getColor().getRGB());
+        out.writeDouble(shape.getThickness());
+        writeVarLong(out, strings.get(shape.getCreatedBy()));
+        writeVarLong(out, strings.get(shape.getLastUpdatedBy()));
+        writeVarLong(out, state.getLastModified());
+        writeVarLong(out, state.getVersion());
+        writeVarLong(out, shape.getPoints().size());
+    }
+
+    private static void writePoints(final DataOutputStream out, final List<Point> points) throws IOException {
+        int lastX = 0;
+        int lastY = 0;
+        for (final Point p : points) {
+            final int x = (int) p.getX();
+            final int y = (int) p.getY();
+            writeVarLong(out, zigZag(x - lastX));
+            writeVarLong(out, zigZag(y - lastY));
+            lastX = x;
+            lastY = y;
+        }
+    }
+
+    /**
+     * Deserializes a board from the binary format.
+     *
+     * @param data The encoded board.
+     * @return The map of ShapeIds to ShapeStates.
+     */
+    public static Map<ShapeId, ShapeState> deserializeBoard(final byte[] data) {
+        if (!isBinaryBoard(data)) {
+            throw new SerializationException("Not a binary board.");
+        }
+        try {
+            final ByteBuffer header = ByteBuffer.wrap(data);
+            header.getInt();
+            final int version = header.getShort();
+            if (version != FORMAT_VERSION && version != FLOAT_THICKNESS_VERSION) {
+                throw new SerializationException("Unsupported board format version: " + version);
+            }
+            final int count = header.getInt();
+
+            final ByteArrayInputStream body = new ByteArrayInputStream(
+                    data, header.position(), data.length - header.position());
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(body), STREAM_BUFFER_BYTES))) {
+                final int stringCount = (int) readVarLong(in);
+                final String[] strings = new String[stringCount];
+                for (int i = 0; i < stringCount; i++) {
+                    strings[i] = in.readUTF();
+                }
+
+                final ShapeRecord[] records = new ShapeRecord[count];
+                for (int i = 0; i < count; i++) {
+                    records[i] = readShapeRecord(in, strings, version);
+                }
+
+                final Map<ShapeId, ShapeState> map = new HashMap<>(count * 2);
+                for (final ShapeRecord record : records) {
+                    final List<Point> points = readPoints(in, record.pointCount);
+                    final Shape shape = ShapeSerializer.buildShape(record.type, record.id, points,
+                            record.thickness, record.color, record.createdBy, record.lastModBy);
+                    map.put(record.id, new ShapeState(shape, record.deleted,
+                            record.lastModified, record.version));
+                }
+                return map;
+            }
+        } catch (final IOException | RuntimeException e) {
+            if (e instanceof SerializationException) {
+                throw (SerializationException) e;
+            }
+            throw new SerializationException("Failed to deserialize board: " + e.getMessage(), e);
+        }
+    }
+
+    private static ShapeRecord readShapeRecord(final DataInputStream in, final String[] strings,
+                                               final int version) throws IOException {
+        final ShapeRecord record = new ShapeRecord();
+        record.type = ShapeType.values()[in.readUnsignedByte()];
+        final int flags = in.readUnsignedByte();
+        record.deleted = (flags & FLAG_DELETED) != 0;
+        if ((flags & FLAG_UUID_ID) != 0) {
+            record.id = new ShapeId(new UUID(in.readLong(), in.readLong()).toString());
+        } else {
+            record.id = new ShapeId(in.readUTF());
+        }
+        record.color = new Color(in.readInt(), true);
+        record.thickness = version == FLOAT_THICKNESS_VERSION ? in.readFloat() : in.readDouble();
+        record.createdBy = strings[(int) readVarLong(in)];
+        record.lastModBy = strings[(int) readVarLong(in)];
+        record.lastModified = readVarLong(in);
+        record.version = readVarLong(in);
+        record.pointCount = (int) readVarLong(in);
+        return record;
+    }
+
+    private static List<Point> readPoints(final DataInputStream in, final int count) throws IOException {
+        final List<Point> points = new ArrayList<>(count);
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            // Deltas were taken between ints, so they wrap back the same way
+            x += (int) unZigZag(readVarLong(in));
+            y += (int) unZigZag(readVarLong(in));
+            points.add(new Point(x, y));
+        }
+        return points;
+    }
+
+    /**
+     * Checks whether the data starts with the binary board header.
+     *
+     * @param data The saved board.
+     * @return True for the binary format, false otherwise (e.g. JSON).
+     */
+    public static boolean isBinaryBoard(final byte[] data) {
+        return data != null && data.length >= Integer.BYTES
+                && ByteBuffer.wrap(data).getInt() == MAGIC;
+    }
+
+    /**
+     * Reads a saved board in either the binary or the JSON format.
+     *
+     * @param data The saved board.
+     * @return The map of ShapeIds to ShapeStates.
+     */
+    public static Map<ShapeId, ShapeState> readBoard(final byte[] data) {
+        if (isBinaryBoard(data)) {
+            return deserializeBoard(data);
+        }
+        return ShapeSerializer.deserializeShapesMap(
+                data == null ? null : new String(data, StandardCharsets.UTF_8));
+    }
+
+    private static UUID asUuid(final String value) {
+        try {
+            final UUID uuid = UUID.fromString(value);
+            // Only use the compact form if it round-trips exactly
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(final DataOutputStream out, final long value) throws IOException {
+        long v = value;
+        while ((v & ~VARINT_MASK) != 0) {
+            out.writeByte((int) ((v & VARINT_MASK) | VARINT_MORE));
+            v >>>= VARINT_SHIFT;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(final DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= Long.SIZE) {
+                throw new IOException("Malformed varint.");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & VARINT_MASK) << shift;
+            shift += VARINT_SHIFT;
+        } while ((b & VARINT_MORE) != 0);
+        return value;
+    }
+
+    /**
+     * Fields of one shape table record, held until its points are read.
+     */
+    private static final class ShapeRecord {
+        private ShapeType type;
+        private boolean deleted;
+        private ShapeId id;
+        private Color color;
+        private double thickness;
+        private String createdBy;
+        private String lastModBy;
+        private long lastModified;
+        private long version;
+        private int pointCount;
+    }
+}
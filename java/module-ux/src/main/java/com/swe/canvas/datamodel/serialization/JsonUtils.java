@@ -121,7 +121,7 @@ public final class JsonUtils {
     public static double extractDouble(final String content, final String key) {
         // Pattern: "key" \s* : \s* number
         final Pattern pattern = Pattern.compile(Pattern.quote("\"" + key + "\"")
-                + "\\s*:\\s*([\\-0-9\\.]+)");
+                + "\\s*:\\s*([\\-0-9\\.eE]+)");
         final Matcher matcher = pattern.matcher(content);
 
         if (matcher.find()) {
@@ -225,6 +225,40 @@ public final class JsonUtils {
         return extractObjectString(content, valueStart);
     }
 
+    /**
+     * Extracts the objects of a JSON array for a specific key.
+     *
+     * @param content The JSON content string.
+     * @param key     The key of the array.
+     * @return The JSON string of each element (including braces), or null if the key is missing.
+     */
+    public static List<String> extractObjectArray(final String content, final String key) {
+        final int valueStart = findValueStart(content, key);
+        if (valueStart == -1 || content.charAt(valueStart) != '[') {
+            return null;
+        }
+
+        final List<String> objects = new ArrayList<>();
+        int i = valueStart + 1;
+        while (i < content.length()) {
+            final char c = content.charAt(i);
+            if (c == ']') {
+                return objects;
+            }
+            if (c == '{') {
+                final String object = extractObjectString(content, i);
+                if (object == null) {
+                    return null;
+                }
+                objects.add(object);
+                i += object.length();
+            } else {
+                i++;
+            }
+        }
+        return null;
+    }
+
     /**
      * Finds the start index of the value associated with the key.
      *
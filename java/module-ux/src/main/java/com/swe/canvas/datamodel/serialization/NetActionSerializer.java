@@ -12,15 +12,33 @@ package com.swe.canvas.datamodel.serialization;
 
 import com.swe.canvas.datamodel.action.Action;
 import com.swe.canvas.datamodel.action.ActionType;
+import com.swe.canvas.datamodel.action.CompoundAction;
 import com.swe.canvas.datamodel.action.CreateShapeAction;
 import com.swe.canvas.datamodel.action.DeleteShapeAction;
+import com.swe.canvas.datamodel.action.DeltaType;
 import com.swe.canvas.datamodel.action.ModifyShapeAction;
 import com.swe.canvas.datamodel.action.ResurrectShapeAction;
+import com.swe.canvas.datamodel.action.ShapeDelta;
 import com.swe.canvas.datamodel.canvas.ShapeState;
 import com.swe.canvas.datamodel.shape.ShapeId;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Serializes and deserializes Action objects for network transmission.
+ *
+ * <p>Only the `newState` is sent in full. For actions that target an existing
+ * shape (MODIFY, DELETE, RESURRECT) the `prevState` is reduced to the version
+ * it had ({@code PrevVersion}); the receiver resolves it against its own
+ * canvas state via
+ * {@link com.swe.canvas.datamodel.action.ActionFactory#resolvePrevState}.</p>
+ *
+ * <p>A MODIFY that carries a {@link ShapeDelta} omits `newState` as well and
+ * sends only the operation (e.g. {@code "Delta":{"Op":"TRANSLATE","Dx":5.0,"Dy":0.0}}),
+ * so its size does not depend on the number of points in the shape.</p>
+ *
+ * <p>A {@link CompoundAction} is sent as one message holding its children
+ * under {@code "Actions"}, each serialized as above.</p>
  */
 public final class NetActionSerializer {
 
@@ -34,8 +52,8 @@ public final class NetActionSerializer {
 
     /**
      * Manually serializes an Action object, including nested ShapeState objects.
-     * Fields included: actionId, actionType, prevState, newState (and others from
-     * the base class).
+     * Fields included: actionId, actionType, prevState version, newState (and
+     * others from the base class).
      *
      * @param action The action to serialize.
      * @return A JSON string.
@@ -45,6 +63,10 @@ public final class NetActionSerializer {
             return "null";
         }
 
+        if (action instanceof CompoundAction compound) {
+            return serializeCompound(compound);
+        }
+
         final StringBuilder sb = new StringBuilder();
         sb.append("{");
 
@@ -54,17 +76,52 @@ public final class NetActionSerializer {
         sb.append(JsonUtils.jsonEscape("ActionType")).append(":")
                 .append(JsonUtils.jsonEscape(action.getActionType().toString())).append(",");
 
-        // 2. PrevState (nested ShapeState JSON)
-        appendState(sb, "Prev", action.getPrevState());
-        sb.append(",");
+        // 2. PrevState: only its version, the receiver already holds the shape
+        final ShapeState prevState = action.getPrevState();
+        if (prevState != null) {
+            sb.append(JsonUtils.jsonEscape("PrevVersion")).append(":")
+                    .append(prevState.getVersion()).append(",");
+        } else {
+            appendState(sb, "Prev", null);
+            sb.append(",");
+        }
 
-        // 3. NewState (nested ShapeState JSON)
-        appendState(sb, "Next", action.getNewState());
+        // 3. NewState: the delta alone if there is one, otherwise the full state
+        final ShapeDelta delta = action instanceof ModifyShapeAction
+                ? ((ModifyShapeAction) action).getDelta() : null;
+        if (delta != null && prevState != null) {
+            appendDelta(sb, action, delta);
+        } else {
+            appendState(sb, "Next", action.getNewState());
+        }
 
         sb.append("}");
         return sb.toString();
     }
 
+    private static String serializeCompound(final CompoundAction compound) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        sb.append(JsonUtils.jsonEscape("ActionId")).append(":")
+                .append(JsonUtils.jsonEscape(compound.getActionId())).append(",");
+        sb.append(JsonUtils.jsonEscape("ActionType")).append(":")
+                .append(JsonUtils.jsonEscape(compound.getActionType().toString())).append(",");
+        sb.append(JsonUtils.jsonEscape("UserId")).append(":")
+                .append(JsonUtils.jsonEscape(compound.getUserId())).append(",");
+        sb.append(JsonUtils.jsonEscape("Timestamp")).append(":")
+                .append(compound.getTimestamp()).append(",");
+        sb.append(JsonUtils.jsonEscape("Actions")).append(":[");
+        final List<Action> children = compound.getActions();
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append(serializeAction(children.get(i)));
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
     /**
      * Helper to append a state object to the string builder.
      *
@@ -83,6 +140,48 @@ public final class NetActionSerializer {
         }
     }
 
+    /**
+     * Helper to append the target metadata and the delta of a delta MODIFY.
+     *
+     * @param sb     The StringBuilder to append to.
+     * @param action The action being serialized.
+     * @param delta  The action's delta.
+     */
+    private static void appendDelta(final StringBuilder sb, final Action action,
+                                    final ShapeDelta delta) {
+        sb.append(JsonUtils.jsonEscape("ShapeId")).append(":")
+                .append(JsonUtils.jsonEscape(action.getShapeId().getValue())).append(",");
+        sb.append(JsonUtils.jsonEscape("UserId")).append(":")
+                .append(JsonUtils.jsonEscape(action.getUserId())).append(",");
+        sb.append(JsonUtils.jsonEscape("Timestamp")).append(":")
+                .append(action.getTimestamp()).append(",");
+        sb.append(JsonUtils.jsonEscape("Version")).append(":")
+                .append(action.getNewState().getVersion()).append(",");
+
+        sb.append(JsonUtils.jsonEscape("Delta")).append(":{");
+        sb.append(JsonUtils.jsonEscape("Op")).append(":")
+                .append(JsonUtils.jsonEscape(delta.getType().toString())).append(",");
+        switch (delta.getType()) {
+            case TRANSLATE:
+                sb.append(JsonUtils.jsonEscape("Dx")).append(":").append(delta.getDx()).append(",");
+                sb.append(JsonUtils.jsonEscape("Dy")).append(":").append(delta.getDy());
+                break;
+            case SET_COLOR:
+                sb.append(JsonUtils.jsonEscape("From")).append(":")
+                        .append(JsonUtils.jsonEscape(JsonUtils.colorToHex(delta.getFromColor()))).append(",");
+                sb.append(JsonUtils.jsonEscape("To")).append(":")
+                        .append(JsonUtils.jsonEscape(JsonUtils.colorToHex(delta.getToColor())));
+                break;
+            case SET_THICKNESS:
+                sb.append(JsonUtils.jsonEscape("From")).append(":").append(delta.getFromThickness()).append(",");
+                sb.append(JsonUtils.jsonEscape("To")).append(":").append(delta.getToThickness());
+                break;
+            default:
+                throw new SerializationException("Unknown delta type: " + delta.getType());
+        }
+        sb.append("}");
+    }
+
     /**
      * Manually deserializes a JSON string back into a concrete Action object.
      *
@@ -106,9 +205,18 @@ public final class NetActionSerializer {
             validateMetadata(actionId, typeStr);
 
             final ActionType actionType = ActionType.valueOf(typeStr);
+            if (actionType == ActionType.COMPOUND) {
+                return buildCompoundAction(content, actionId);
+            }
 
             // 2. Extract nested ShapeState objects
-            final ShapeState prevState = extractState(content, "Prev");
+            final ShapeState prevState = extractPrevState(content, actionType);
+
+            final String deltaJson = JsonUtils.extractNestedJson(content, "Delta");
+            if (actionType == ActionType.MODIFY && deltaJson != null) {
+                return buildDeltaAction(content, actionId, prevState, deltaJson);
+            }
+
             final ShapeState newState = extractState(content, "Next");
 
             if (newState == null) {
@@ -124,12 +232,70 @@ public final class NetActionSerializer {
         }
     }
 
+    private static Action buildCompoundAction(final String content, final String id) {
+        final List<String> childJson = JsonUtils.extractObjectArray(content, "Actions");
+        if (childJson == null || childJson.isEmpty()) {
+            throw new SerializationException("Missing child actions for compound action.");
+        }
+        final List<Action> children = new ArrayList<>(childJson.size());
+        for (final String json : childJson) {
+            children.add(deserializeAction(json));
+        }
+        return new CompoundAction(id, JsonUtils.extractString(content, "UserId"),
+                JsonUtils.extractLong(content, "Timestamp"), children);
+    }
+
     private static void validateMetadata(final String id, final String type) {
         if (id == null || type == null) {
             throw new SerializationException("Missing ActionId or ActionType during deserialization.");
         }
     }
 
+    private static ShapeState extractPrevState(final String content, final ActionType type) {
+        final String prevJson = JsonUtils.extractNestedJson(content, "Prev");
+        if (prevJson != null) {
+            // Full (legacy) prevState or an explicit null
+            return ShapeSerializer.deserializeShape(prevJson);
+        }
+        final long prevVersion = JsonUtils.extractLong(content, "PrevVersion");
+        return ShapeState.reference(type == ActionType.RESURRECT, prevVersion);
+    }
+
+    private static Action buildDeltaAction(final String content, final String id,
+                                           final ShapeState prev, final String deltaJson) {
+        final String shapeId = JsonUtils.extractString(content, "ShapeId");
+        if (shapeId == null) {
+            throw new SerializationException("Missing ShapeId for delta action.");
+        }
+        final String userId = JsonUtils.extractString(content, "UserId");
+        final long timestamp = JsonUtils.extractLong(content, "Timestamp");
+        final long version = JsonUtils.extractLong(content, "Version");
+
+        // The receiver rebuilds the full newState from its own prevState
+        return new ModifyShapeAction(id, userId, timestamp, new ShapeId(shapeId), prev,
+                ShapeState.reference(false, version), extractDelta(deltaJson));
+    }
+
+    private static ShapeDelta extractDelta(final String deltaJson) {
+        final String op = JsonUtils.extractString(deltaJson, "Op");
+        if (op == null) {
+            throw new SerializationException("Missing delta operation.");
+        }
+        switch (DeltaType.valueOf(op)) {
+            case TRANSLATE:
+                return ShapeDelta.translate(JsonUtils.extractDouble(deltaJson, "Dx"),
+                        JsonUtils.extractDouble(deltaJson, "Dy"));
+            case SET_COLOR:
+                return ShapeDelta.setColor(JsonUtils.hexToColor(JsonUtils.extractString(deltaJson, "From")),
+                        JsonUtils.hexToColor(JsonUtils.extractString(deltaJson, "To")));
+            case SET_THICKNESS:
+                return ShapeDelta.setThickness(JsonUtils.extractDouble(deltaJson, "From"),
+                        JsonUtils.extractDouble(deltaJson, "To"));
+            default:
+                throw new SerializationException("Unknown delta type: " + op);
+        }
+    }
+
     private static ShapeState extractState(final String content, final String key) {
         final String nestedJson = JsonUtils.extractNestedJson(content, key);
         return ShapeSerializer.deserializeShape(nestedJson);
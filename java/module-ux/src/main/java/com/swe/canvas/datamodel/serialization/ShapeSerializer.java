@@ -21,6 +21,7 @@ import com.swe.canvas.datamodel.shape.ShapeId;
 import com.swe.canvas.datamodel.shape.ShapeType;
 import com.swe.canvas.datamodel.shape.TriangleShape;
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -85,6 +86,8 @@ public final class ShapeSerializer {
 
         sb.append(JsonUtils.jsonEscape("LastModified")).append(COLON)
                 .append(shapeState.getLastModified()).append(COMMA);
+        sb.append(JsonUtils.jsonEscape("Version")).append(COLON)
+                .append(shapeState.getVersion()).append(COMMA);
 
         sb.append(JsonUtils.jsonEscape("IsDeleted")).append(COLON)
                 .append(shapeState.isDeleted());
@@ -133,6 +136,7 @@ public final class ShapeSerializer {
             final String lastModBy = JsonUtils.extractString(content, "LastModifiedBy");
             final boolean isDeleted = JsonUtils.extractBoolean(content, "IsDeleted");
             final long lastModified = JsonUtils.extractLong(content, "LastModified");
+            final long version = JsonUtils.extractLong(content, "Version");
             final List<Point> points = JsonUtils.extractPoints(content);
 
             if (shapeId == null || typeName == null || createdBy == null
@@ -147,7 +151,7 @@ public final class ShapeSerializer {
             final Shape newShape = buildShape(shapeType, id, points, thickness,
                     color, createdBy, lastModBy);
 
-            return new ShapeState(newShape, isDeleted, lastModified);
+            return new ShapeState(newShape, isDeleted, lastModified, version);
 
         } catch (final Exception e) {
             throw new SerializationException("Failed to deserialize ShapeState: "
@@ -155,7 +159,19 @@ public final class ShapeSerializer {
         }
     }
 
-    private static Shape buildShape(final ShapeType type, final ShapeId id,
+    /**
+     * Builds a shape of the given type. Shared with {@link BoardBinarySerializer}.
+     *
+     * @param type      The shape type.
+     * @param id        The shape ID.
+     * @param points    The defining points.
+     * @param thickness The stroke thickness.
+     * @param color     The stroke color.
+     * @param createdBy The creator's user ID.
+     * @param lastModBy The last modifier's user ID.
+     * @return The new shape.
+     */
+    static Shape buildShape(final ShapeType type, final ShapeId id,
                                     final List<Point> points, final double thickness,
                                     final Color color, final String createdBy,
                                     final String lastModBy) {
@@ -209,6 +225,53 @@ public final class ShapeSerializer {
         return sb.toString();
     }
 
+    /**
+     * Serializes a list of ShapeStates as a JSON array.
+     *
+     * @param states The states to serialize.
+     * @return The JSON string.
+     */
+    public static String serializeShapeList(final List<ShapeState> states) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (int i = 0; i < states.size(); i++) {
+            if (i > 0) {
+                sb.append(COMMA);
+            }
+            final String shapeJson = serializeShape(states.get(i));
+            sb.append(shapeJson != null ? shapeJson : "null");
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Deserializes a JSON array of ShapeStates. A single object is accepted
+     * as a list of one.
+     *
+     * @param json The JSON string.
+     * @return The states, skipping entries that could not be read.
+     */
+    public static List<ShapeState> deserializeShapeList(final String json) {
+        final List<ShapeState> states = new ArrayList<>();
+        if (json == null) {
+            return states;
+        }
+        int index = json.indexOf(OPEN_BRACE);
+        while (index != -1) {
+            final String shapeJson = extractJsonValue(json, index);
+            if (shapeJson == null) {
+                break;
+            }
+            final ShapeState state = deserializeShape(shapeJson);
+            if (state != null && state.getShape() != null) {
+                states.add(state);
+            }
+            index = json.indexOf(OPEN_BRACE, index + shapeJson.length());
+        }
+        return states;
+    }
+
     /**
      * Deserializes a JSON string into a map of ShapeStates.
      *
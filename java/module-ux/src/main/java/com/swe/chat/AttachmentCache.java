@@ -0,0 +1,368 @@
+package com.swe.chat;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of chat attachments on local disk.
+ *
+ * <p>Each file is stored once under the SHA-256 of its content, so the same
+ * deck posted five times takes the space of one and any message carrying
+ * that hash can be served from here without a transfer. The cache is kept
+ * under a size budget by evicting the least recently used files. Use is
+ * recorded in each file's modification time, so the order survives
+ * restarts.</p>
+ */
+public final class AttachmentCache {
+
+    /** Default size budget. */
+    public static final long DEFAULT_BUDGET_BYTES = 512L * 1024 * 1024;
+
+    /** Bytes hashed per mapping. */
+    private static final long HASH_WINDOW = 16L * 1024 * 1024;
+
+    /** Length of a SHA-256 hex digest. */
+    private static final int HASH_LENGTH = 64;
+
+    /** Directory holding the cached files. */
+    private final Path directory;
+
+    /** Size budget in bytes. */
+    private final long budgetBytes;
+
+    /** Cached hashes and sizes, least recently used first. */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Sum of cached sizes. */
+    private long totalBytes;
+
+    /**
+     * Opens the cache in the default location under the user's home directory.
+     *
+     * @return the cache
+     * @throws IOException if the directory cannot be created or read
+     */
+    public static AttachmentCache openDefault() throws IOException {
+        return new AttachmentCache(Path.of(System.getProperty("user.home"), ".vartal", "attachments"),
+                DEFAULT_BUDGET_BYTES);
+    }
+
+    /**
+     * Opens a cache, indexing the files already in the directory.
+     *
+     * @param directoryParam the cache directory; created if missing
+     * @param budget         the size budget in bytes
+     * @throws IOException if the directory cannot be created or read
+     */
+    public AttachmentCache(final Path directoryParam, final long budget) throws IOException {
+        this.directory = directoryParam;
+        this.budgetBytes = budget;
+        Files.createDirectories(directory);
+
+        final List<Path> files = new ArrayList<>();
+        final List<Path> partials = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.forEach(path -> {
+                final String name = path.getFileName().toString();
+                if (isHash(name)) {
+                    files.add(path);
+                } else if (name.endsWith(".part")) {
+                    partials.add(path);
+                }
+            });
+        }
+        // Copies interrupted by a crash
+        for (Path partial : partials) {
+            Files.deleteIfExists(partial);
+        }
+        files.sort(Comparator.comparing(AttachmentCache::lastUsed));
+        for (Path file : files) {
+            final long size = Files.size(file);
+            entries.put(file.getFileName().toString(), size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    /**
+     * Computes the SHA-256 of a file, reading it through memory mappings.
+     *
+     * @param file the file
+     * @return the lowercase hex digest
+     * @throws IOException if the file cannot be read
+     */
+    public static String hash(final Path file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            for (long offset = 0; offset < size; offset += HASH_WINDOW) {
+                final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(HASH_WINDOW, size - offset));
+                digest.update(window);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Checks whether content is cached, without counting as a use.
+     *
+     * @param contentHash the SHA-256 hex digest
+     * @return true if cached
+     */
+    public synchronized boolean contains(final String contentHash) {
+        return contentHash != null && entries.containsKey(contentHash);
+    }
+
+    /**
+     * Gets the cached file for some content and marks it recently used.
+     *
+     * @param contentHash the SHA-256 hex digest
+     * @return the cached file, or null if not cached
+     */
+    public synchronized Path get(final String contentHash) {
+        if (!contains(contentHash)) {
+            return null;
+        }
+        entries.get(contentHash);
+        final Path file = directory.resolve(contentHash);
+        if (!Files.isRegularFile(file)) {
+            // Deleted behind our back
+            totalBytes -= entries.remove(contentHash);
+            return null;
+        }
+        touch(file);
+        return file;
+    }
+
+    /**
+     * Adds a file's content to the cache. Content larger than the whole
+     * budget is not cached. The entry is filed under the hash of the copy,
+     * so a file that changes while it is being added is never cached under
+     * the hash of other bytes.
+     *
+     * @param source the file
+     * @return the SHA-256 hex digest of the content cached, or of the file
+     *         if it is too large to cache
+     * @throws IOException if the file cannot be read or copied
+     */
+    public String put(final Path source) throws IOException {
+        if (Files.size(source) > budgetBytes) {
+            return hash(source);
+        }
+        return store(source, null);
+    }
+
+    /**
+     * Adds a file whose hash is claimed by someone else, such as the sender
+     * of a message. The copy is hashed again before it is filed, so content
+     * that does not match the claim never reaches other messages.
+     *
+     * @param source      the file
+     * @param contentHash the SHA-256 hex digest of its content
+     * @return true if the content is now cached
+     * @throws IOException if the file cannot be copied or does not match the hash
+     */
+    public boolean put(final Path source, final String contentHash) throws IOException {
+        if (!isHash(contentHash)) {
+            throw new IllegalArgumentException("Not a SHA-256 hex digest: " + contentHash);
+        }
+        if (get(contentHash) != null) {
+            return true;
+        }
+        if (Files.size(source) > budgetBytes) {
+            return false;
+        }
+        store(source, contentHash);
+        return contains(contentHash);
+    }
+
+    /**
+     * Copies a file into the cache under the hash of the copy.
+     *
+     * @param source  the file
+     * @param claimed the hash the content must have, or null to take any
+     * @return the hash the copy was filed under
+     * @throws IOException if the file cannot be copied or does not match the claim
+     */
+    private String store(final Path source, final String claimed) throws IOException {
+        // Copy outside the lock; the rename makes the entry appear whole.
+        // Not createTempFile: its owner-only permissions would follow every copy out of the cache
+        final Path partial = directory.resolve((claimed != null ? claimed : "new") + "."
+                + System.nanoTime() + ".part");
+        try {
+            Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING);
+            // Hash the copy rather than the source, which may change under us
+            final String contentHash = hash(partial);
+            if (claimed != null && !claimed.equals(contentHash)) {
+                throw new IOException("Content of " + source.getFileName() + " does not match " + claimed);
+            }
+            final long size = Files.size(partial);
+            final Path target = directory.resolve(contentHash);
+            try {
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException | FileAlreadyExistsException e) {
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            synchronized (this) {
+                final Long previous = entries.put(contentHash, size);
+                if (previous == null) {
+                    totalBytes += size;
+                }
+                evict();
+            }
+            return contentHash;
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Copies cached content to a new file, picking a free name next to
+     * {@code target} if it already exists.
+     *
+     * @param contentHash the SHA-256 hex digest
+     * @param target      where to put the copy
+     * @return the file written, or null if the content is not cached
+     * @throws IOException if the copy fails
+     */
+    public Path copyTo(final String contentHash, final Path target) throws IOException {
+        final Path cached = get(contentHash);
+        if (cached == null) {
+            return null;
+        }
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        final Path free = freeName(target);
+        Files.copy(cached, free);
+        return free;
+    }
+
+    /**
+     * Gets the bytes currently cached.
+     *
+     * @return the total size
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Gets the number of cached files.
+     *
+     * @return the entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Deletes least recently used files until the cache fits its budget.
+     */
+    private synchronized void evict() {
+        final Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > budgetBytes && it.hasNext()) {
+            final Map.Entry<String, Long> eldest = it.next();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                System.err.println("[AttachmentCache] Could not evict " + eldest.getKey() + ": " + e.getMessage());
+                continue;
+            }
+            totalBytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    /**
+     * Marks a cached file as just used.
+     *
+     * @param file the file
+     */
+    private static void touch(final Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            System.err.println("[AttachmentCache] Could not touch " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets when a cached file was last used.
+     *
+     * @param file the file
+     * @return its modification time, or 0 if unreadable
+     */
+    private static long lastUsed(final Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Finds a name that does not exist yet: {@code name.ext}, then
+     * {@code name (1).ext}, {@code name (2).ext} and so on.
+     *
+     * @param target the preferred path
+     * @return a free path
+     */
+    private static Path freeName(final Path target) {
+        if (!Files.exists(target)) {
+            return target;
+        }
+        final String name = target.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        final String base = dot > 0 ? name.substring(0, dot) : name;
+        final String ext = dot > 0 ? name.substring(dot) : "";
+        for (int i = 1; ; i++) {
+            final Path candidate = target.resolveSibling(base + " (" + i + ")" + ext);
+            if (!Files.exists(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a string is a lowercase SHA-256 hex digest.
+     *
+     * @param value the string
+     * @return true if it is
+     */
+    private static boolean isHash(final String value) {
+        if (value == null || value.length() != HASH_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,466 @@
+package com.swe.chat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Ordered, indexed store of the chat history.
+ *
+ * <p>Messages keep their arrival order and can be looked up by ID, by
+ * position, by ranges of positions (for the virtualized chat view) and by
+ * the message they reply to. Only the newest {@code capacity} messages stay
+ * in memory; older ones are appended to a local spill file and read back a
+ * page at a time when asked for, e.g. when the user scrolls up.</p>
+ *
+ * <p>The spill file is append-only: replacing a spilled message (e.g. when it
+ * is deleted) appends a new record and moves the index to it.</p>
+ *
+ * <p><b>Thread Safety:</b> All methods are synchronized; messages arrive on
+ * RPC threads and are read on the EDT.</p>
+ */
+public class ChatMessageStore implements Closeable {
+
+    /** Default number of messages kept in memory. */
+    public static final int DEFAULT_CAPACITY = 500;
+
+    /** Number of consecutive spilled messages read back at once. */
+    static final int PAGE_SIZE = 50;
+
+    /** Number of pages of spilled messages kept in memory. */
+    private static final int CACHED_PAGES = 4;
+
+    /** Initial size of the spill offset table. */
+    private static final int INITIAL_OFFSETS = 256;
+
+    /** Number of messages kept in memory. */
+    private final int capacity;
+
+    /** Spill file given by the caller, or null for a temporary file. */
+    private final Path requestedSpillPath;
+
+    /** Message IDs in arrival order. */
+    private final List<String> order = new ArrayList<>();
+
+    /** Position in {@link #order} by message ID. */
+    private final Map<String, Integer> positionById = new HashMap<>();
+
+    /** Messages at positions {@code >= windowStart}. */
+    private final Map<String, MessageVM> resident = new HashMap<>();
+
+    /** IDs of the replies to each message, in arrival order. */
+    private final Map<String, List<String>> repliesByParent = new HashMap<>();
+
+    /** Recently read spilled messages. */
+    private final Map<String, MessageVM> pageCache =
+            new LinkedHashMap<>(PAGE_SIZE * CACHED_PAGES, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, MessageVM> eldest) {
+                    return size() > PAGE_SIZE * CACHED_PAGES;
+                }
+            };
+
+    /** File offset of the record of each spilled position. */
+    private long[] offsets = new long[INITIAL_OFFSETS];
+
+    /** First position still in memory; everything before it is spilled. */
+    private int windowStart;
+
+    /** The open spill file, created on first spill. */
+    private RandomAccessFile spill;
+
+    /** Path of the open spill file. */
+    private Path spillPath;
+
+    /** Set once spilling failed; messages then simply stay in memory. */
+    private boolean spillDisabled;
+
+    /** Told the ID of each message moved out of memory; may be null. */
+    private Consumer<String> onSpilled;
+
+    /**
+     * Creates a store keeping {@link #DEFAULT_CAPACITY} messages in memory
+     * and spilling to a temporary file.
+     */
+    public ChatMessageStore() {
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param capacityParam number of messages kept in memory
+     * @param spillFile     spill file, or null for a temporary file deleted on close
+     */
+    public ChatMessageStore(final int capacityParam, final Path spillFile) {
+        if (capacityParam < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacityParam);
+        }
+        this.capacity = capacityParam;
+        this.requestedSpillPath = spillFile;
+    }
+
+    /**
+     * Sets a listener told the ID of each message as it is moved out of
+     * memory, so state kept elsewhere for that message can be dropped too.
+     * It is called while the store is locked.
+     *
+     * @param listener the listener, or null
+     */
+    public synchronized void setOnSpilled(final Consumer<String> listener) {
+        this.onSpilled = listener;
+    }
+
+    /**
+     * Checks whether a message has been moved out of memory.
+     *
+     * @param messageId the message ID
+     * @return true if the message is stored and spilled
+     */
+    public synchronized boolean isSpilled(final String messageId) {
+        final Integer position = positionById.get(messageId);
+        return position != null && position < windowStart;
+    }
+
+    /**
+     * Appends a new message.
+     *
+     * @param message the message
+     * @return false if a message with the same ID is already stored
+     */
+    public synchronized boolean add(final MessageVM message) {
+        final String id = message.getMessageId();
+        if (positionById.containsKey(id)) {
+            return false;
+        }
+        positionById.put(id, order.size());
+        order.add(id);
+        resident.put(id, message);
+        if (message.getReplyToId() != null) {
+            repliesByParent.computeIfAbsent(message.getReplyToId(), k -> new ArrayList<>()).add(id);
+        }
+        spillOverflow();
+        return true;
+    }
+
+    /**
+     * Replaces a stored message in place, keeping its position.
+     *
+     * @param message the new version, with the ID of the old one
+     * @return false if no message with that ID is stored
+     */
+    public synchronized boolean replace(final MessageVM message) {
+        final String id = message.getMessageId();
+        final Integer position = positionById.get(id);
+        if (position == null) {
+            return false;
+        }
+        final MessageVM previous = get(id);
+        if (previous != null && previous.getReplyToId() != null
+                && !previous.getReplyToId().equals(message.getReplyToId())) {
+            final List<String> siblings = repliesByParent.get(previous.getReplyToId());
+            if (siblings != null) {
+                siblings.remove(id);
+            }
+        }
+        if (position >= windowStart || !writeSpilled(position, message)) {
+            resident.put(id, message);
+        }
+        pageCache.computeIfPresent(id, (k, v) -> message);
+        return true;
+    }
+
+    /**
+     * Gets a message by ID, reading its page back from the spill file if needed.
+     *
+     * @param messageId the message ID
+     * @return the message, or null if unknown
+     */
+    public synchronized MessageVM get(final String messageId) {
+        final MessageVM inMemory = resident.get(messageId);
+        if (inMemory != null) {
+            return inMemory;
+        }
+        final Integer position = positionById.get(messageId);
+        if (position == null) {
+            return null;
+        }
+        final MessageVM cached = pageCache.get(messageId);
+        if (cached != null) {
+            return cached;
+        }
+        loadPage(position);
+        return pageCache.get(messageId);
+    }
+
+    /**
+     * Checks whether a message is stored.
+     *
+     * @param messageId the message ID
+     * @return true if known
+     */
+    public synchronized boolean contains(final String messageId) {
+        return positionById.containsKey(messageId);
+    }
+
+    /**
+     * Gets the number of stored messages.
+     *
+     * @return the message count
+     */
+    public synchronized int size() {
+        return order.size();
+    }
+
+    /**
+     * Checks whether the store is empty.
+     *
+     * @return true if no message was added
+     */
+    public synchronized boolean isEmpty() {
+        return order.isEmpty();
+    }
+
+    /**
+     * Gets the number of messages held in memory, excluding paged-in ones.
+     *
+     * @return the resident message count
+     */
+    public synchronized int residentCount() {
+        return resident.size();
+    }
+
+    /**
+     * Gets the position of a message in arrival order.
+     *
+     * @param messageId the message ID
+     * @return its position, or -1 if unknown
+     */
+    public synchronized int positionOf(final String messageId) {
+        final Integer position = positionById.get(messageId);
+        return position != null ? position : -1;
+    }
+
+    /**
+     * Gets consecutive messages in arrival order.
+     *
+     * @param from  first position
+     * @param count maximum number of messages
+     * @return the messages, oldest first
+     */
+    public synchronized List<MessageVM> range(final int from, final int count) {
+        final int start = Math.max(0, from);
+        final int end = Math.min(order.size(), start + Math.max(0, count));
+        final List<MessageVM> result = new ArrayList<>(Math.max(0, end - start));
+        for (int position = start; position < end; position++) {
+            final MessageVM message = get(order.get(position));
+            if (message != null) {
+                result.add(message);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the newest messages.
+     *
+     * @param count maximum number of messages
+     * @return the messages, oldest first
+     */
+    public synchronized List<MessageVM> latest(final int count) {
+        return range(order.size() - count, count);
+    }
+
+    /**
+     * Gets the messages just before a message, e.g. to page in on scroll-up.
+     *
+     * @param messageId the message ID
+     * @param count     maximum number of messages
+     * @return the messages, oldest first; empty if the ID is unknown
+     */
+    public synchronized List<MessageVM> before(final String messageId, final int count) {
+        final Integer position = positionById.get(messageId);
+        if (position == null) {
+            return Collections.emptyList();
+        }
+        final int from = Math.max(0, position - count);
+        return range(from, position - from);
+    }
+
+    /**
+     * Gets the IDs of the replies to a message.
+     *
+     * @param messageId the replied-to message ID
+     * @return the reply IDs in arrival order
+     */
+    public synchronized List<String> getReplies(final String messageId) {
+        final List<String> replies = repliesByParent.get(messageId);
+        return replies != null ? new ArrayList<>(replies) : Collections.emptyList();
+    }
+
+    /**
+     * Closes the spill file, deleting it if it was temporary.
+     */
+    @Override
+    public synchronized void close() {
+        if (spill == null) {
+            return;
+        }
+        try {
+            spill.close();
+            if (requestedSpillPath == null) {
+                Files.deleteIfExists(spillPath);
+            }
+        } catch (IOException e) {
+            System.err.println("[Chat] Failed to close history spill file: " + e.getMessage());
+        }
+        spill = null;
+    }
+
+    private void spillOverflow() {
+        while (!spillDisabled && resident.size() > capacity) {
+            final String id = order.get(windowStart);
+            if (!writeSpilled(windowStart, resident.get(id))) {
+                return;
+            }
+            resident.remove(id);
+            windowStart++;
+            if (onSpilled != null) {
+                onSpilled.accept(id);
+            }
+        }
+    }
+
+    private boolean writeSpilled(final int position, final MessageVM message) {
+        try {
+            openSpill();
+            final byte[] record = encode(message);
+            final long offset = spill.length();
+            spill.seek(offset);
+            spill.writeInt(record.length);
+            spill.write(record);
+            if (position >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, position + 1));
+            }
+            offsets[position] = offset;
+            return true;
+        } catch (IOException e) {
+            System.err.println("[Chat] History spill failed, keeping messages in memory: " + e.getMessage());
+            spillDisabled = true;
+            return false;
+        }
+    }
+
+    private void loadPage(final int position) {
+        final int start = position - position % PAGE_SIZE;
+        final int end = Math.min(start + PAGE_SIZE, windowStart);
+        try {
+            for (int p = start; p < end; p++) {
+                spill.seek(offsets[p]);
+                final byte[] record = new byte[spill.readInt()];
+                spill.readFully(record);
+                final MessageVM message = decode(record);
+                pageCache.put(message.getMessageId(), message);
+            }
+        } catch (IOException e) {
+            System.err.println("[Chat] Failed to read history page at " + start + ": " + e.getMessage());
+        }
+    }
+
+    private void openSpill() throws IOException {
+        if (spill != null) {
+            return;
+        }
+        if (requestedSpillPath != null) {
+            spillPath = requestedSpillPath;
+            Files.deleteIfExists(spillPath);
+        } else {
+            spillPath = Files.createTempFile("chat-history-", ".bin");
+            spillPath.toFile().deleteOnExit();
+        }
+        spill = new RandomAccessFile(spillPath.toFile(), "rw");
+    }
+
+    private static byte[] encode(final MessageVM message) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, message.getMessageId());
+        writeString(out, message.getUsername());
+        writeString(out, message.getContent());
+        writeString(out, message.getTimestamp());
+        writeString(out, message.getQuotedContent());
+        writeString(out, message.getReplyToId());
+        writeString(out, message.getFileName());
+        out.writeLong(message.getCompressedFileSize());
+        out.writeBoolean(message.isSentByMe());
+        final byte[] fileContent = message.getFileContent();
+        out.writeInt(fileContent != null ? fileContent.length : -1);
+        if (fileContent != null) {
+            out.write(fileContent);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static MessageVM decode(final byte[] record) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        final String id = readString(in);
+        final String username = readString(in);
+        final String content = readString(in);
+        final String timestamp = readString(in);
+        final String quoted = readString(in);
+        final String replyTo = readString(in);
+        final String fileName = readString(in);
+        final long size = in.readLong();
+        final boolean sentByMe = in.readBoolean();
+        final int contentLength = in.readInt();
+        byte[] fileContent = null;
+        if (contentLength >= 0) {
+            fileContent = new byte[contentLength];
+            in.readFully(fileContent);
+        }
+        MessageVM.FileAttachment attachment = null;
+        if (fileName != null) {
+            attachment = new MessageVM.FileAttachment(fileName, size, fileContent);
+        }
+        return new MessageVM(id, username, content, attachment, timestamp,
+                new MessageVM.ReplyContext(sentByMe, quoted, replyTo));
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
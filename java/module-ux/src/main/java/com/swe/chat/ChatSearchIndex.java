@@ -0,0 +1,250 @@
+package com.swe.chat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Incremental inverted index over the chat history.
+ *
+ * <p>Each message is tokenized once, when it arrives, into lowercase runs of
+ * letters and digits; a link such as {@code https://wiki.example.com/Q3}
+ * is found by {@code wiki}, {@code example} or {@code q3}. Every term maps
+ * to the list of messages containing it. Messages are numbered in arrival
+ * order, so adding one only appends to the end of its terms' lists and the
+ * cost is proportional to the message's length.</p>
+ *
+ * <p>Queries are a list of words, all of which must match; each word matches
+ * any term it is a prefix of, so results narrow as the user types. A word
+ * {@code from:name} restricts results to messages whose sender matches
+ * {@code name} the same way. Terms are kept sorted, so a prefix is one range
+ * of the term map, and the lists of a word are merged into a bit set the size
+ * of the history; a query over 100k messages takes a few milliseconds.</p>
+ *
+ * <p>Removed messages are only marked as such; their entries stay in the
+ * lists and are filtered out of results.</p>
+ *
+ * <p><b>Thread Safety:</b> All methods are synchronized; messages are indexed
+ * on RPC threads and searched on the EDT.</p>
+ */
+public class ChatSearchIndex {
+
+    /** Query prefix that filters by sender. */
+    public static final String SENDER_FILTER = "from:";
+
+    /** Longer runs of letters and digits are cut to this length. */
+    static final int MAX_TERM_LENGTH = 64;
+
+    /** Initial size of a posting list. */
+    private static final int INITIAL_POSTINGS = 4;
+
+    /** Message lists of the text terms, sorted by term. */
+    private final TreeMap<String, Postings> textTerms = new TreeMap<>();
+
+    /** Message lists of the sender terms, sorted by term. */
+    private final TreeMap<String, Postings> senderTerms = new TreeMap<>();
+
+    /** Message IDs by document number. */
+    private final List<String> ids = new ArrayList<>();
+
+    /** Document number by message ID. */
+    private final Map<String, Integer> docById = new HashMap<>();
+
+    /** Document numbers of messages still indexed. */
+    private final BitSet live = new BitSet();
+
+    /**
+     * Sorted list of the documents containing a term. Documents are added in
+     * increasing order, so adding is an append.
+     */
+    private static final class Postings {
+        /** Document numbers; the first {@link #size} are in use. */
+        private int[] docs = new int[INITIAL_POSTINGS];
+        /** Number of documents. */
+        private int size;
+
+        /**
+         * Appends a document unless it is already the last one.
+         *
+         * @param doc the document number
+         */
+        void add(final int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        /**
+         * Sets the bit of every document in the list.
+         *
+         * @param target the bit set
+         */
+        void addTo(final BitSet target) {
+            for (int i = 0; i < size; i++) {
+                target.set(docs[i]);
+            }
+        }
+    }
+
+    /**
+     * Indexes a message.
+     *
+     * @param messageId the message ID
+     * @param sender    text identifying the sender, e.g. display name and email
+     * @param text      the searchable text, e.g. content and file name
+     * @return false if the message is already indexed
+     */
+    public synchronized boolean add(final String messageId, final String sender, final String text) {
+        if (messageId == null || docById.containsKey(messageId)) {
+            return false;
+        }
+        final int doc = ids.size();
+        ids.add(messageId);
+        docById.put(messageId, doc);
+        live.set(doc);
+        tokenize(text, term -> textTerms.computeIfAbsent(term, t -> new Postings()).add(doc));
+        tokenize(sender, term -> senderTerms.computeIfAbsent(term, t -> new Postings()).add(doc));
+        return true;
+    }
+
+    /**
+     * Removes a message from the results, e.g. once it has been deleted.
+     *
+     * @param messageId the message ID
+     * @return true if the message was indexed
+     */
+    public synchronized boolean remove(final String messageId) {
+        final Integer doc = docById.get(messageId);
+        if (doc == null || !live.get(doc)) {
+            return false;
+        }
+        live.clear(doc);
+        return true;
+    }
+
+    /**
+     * Checks whether a message is indexed and not removed.
+     *
+     * @param messageId the message ID
+     * @return true if it can appear in results
+     */
+    public synchronized boolean contains(final String messageId) {
+        final Integer doc = docById.get(messageId);
+        return doc != null && live.get(doc);
+    }
+
+    /**
+     * Gets the number of messages that can appear in results.
+     *
+     * @return the live message count
+     */
+    public synchronized int size() {
+        return live.cardinality();
+    }
+
+    /**
+     * Finds the messages matching every word of a query, newest first.
+     *
+     * @param query words to match as prefixes, and optional {@code from:} filters
+     * @param limit the maximum number of results
+     * @return the matching message IDs, newest first; empty for a blank query
+     */
+    public synchronized List<String> search(final String query, final int limit) {
+        final List<String> textWords = new ArrayList<>();
+        final List<String> senderWords = new ArrayList<>();
+        if (query != null) {
+            for (String word : query.trim().split("\\s+")) {
+                if (word.regionMatches(true, 0, SENDER_FILTER, 0, SENDER_FILTER.length())) {
+                    tokenize(word.substring(SENDER_FILTER.length()), senderWords::add);
+                } else {
+                    tokenize(word, textWords::add);
+                }
+            }
+        }
+        final List<String> results = new ArrayList<>();
+        if (limit <= 0 || textWords.isEmpty() && senderWords.isEmpty()) {
+            return results;
+        }
+
+        final BitSet matches = (BitSet) live.clone();
+        for (String word : textWords) {
+            if (!narrow(matches, textTerms, word)) {
+                return results;
+            }
+        }
+        for (String word : senderWords) {
+            if (!narrow(matches, senderTerms, word)) {
+                return results;
+            }
+        }
+
+        for (int doc = matches.previousSetBit(ids.size() - 1);
+             doc >= 0 && results.size() < limit;
+             doc = matches.previousSetBit(doc - 1)) {
+            results.add(ids.get(doc));
+        }
+        return results;
+    }
+
+    /**
+     * Keeps only the documents containing a term that starts with a prefix.
+     *
+     * @param matches the documents matched so far; narrowed in place
+     * @param terms   the terms to look in
+     * @param prefix  the prefix
+     * @return false if nothing matches any more
+     */
+    private static boolean narrow(final BitSet matches, final TreeMap<String, Postings> terms,
+                                  final String prefix) {
+        final NavigableMap<String, Postings> range =
+                terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        final Collection<Postings> lists = range.values();
+        if (lists.isEmpty()) {
+            matches.clear();
+            return false;
+        }
+        final BitSet union = new BitSet(matches.length());
+        for (Postings postings : lists) {
+            postings.addTo(union);
+        }
+        matches.and(union);
+        return !matches.isEmpty();
+    }
+
+    /**
+     * Splits text into lowercase runs of letters and digits, in one pass.
+     *
+     * @param text     the text; null is treated as empty
+     * @param consumer receives each term in order
+     */
+    static void tokenize(final String text, final Consumer<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        final StringBuilder term = new StringBuilder();
+        int i = 0;
+        while (i <= text.length()) {
+            final int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.appendCodePoint(Character.toLowerCase(codePoint));
+                }
+            } else if (term.length() > 0) {
+                consumer.accept(term.toString());
+                term.setLength(0);
+            }
+            i += Character.charCount(codePoint);
+        }
+    }
+}
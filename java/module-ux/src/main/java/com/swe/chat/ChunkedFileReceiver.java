@@ -0,0 +1,131 @@
+package com.swe.chat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Receiving end of a {@link ChunkedFileSender} transfer.
+ *
+ * <p>Chunks are verified against their CRC32 and written in place with
+ * positional writes, so nothing beyond the chunk being handled is held in
+ * memory. Only the chunk at the next expected offset is accepted; anything
+ * else, or anything that fails its checksum, is answered with the offset the
+ * receiver still needs. Because only verified bytes are ever written, a
+ * partially written target can be reopened and the transfer resumed from
+ * its current length.</p>
+ */
+public final class ChunkedFileReceiver implements Closeable {
+
+    /** Transfer this receiver accepts chunks for. */
+    private final String transferId;
+
+    /** Target file. */
+    private final FileChannel channel;
+
+    /** Reused checksum. */
+    private final CRC32 crc = new CRC32();
+
+    /** Size of the whole file, known after the first chunk. */
+    private long totalSize = -1;
+
+    /** Next offset to accept. */
+    private long nextOffset;
+
+    /**
+     * Opens a receiver, resuming after whatever the target already holds.
+     *
+     * @param target          the file to write
+     * @param transferIdParam the transfer to accept chunks for
+     * @throws IOException if the target cannot be opened
+     */
+    public ChunkedFileReceiver(final Path target, final String transferIdParam) throws IOException {
+        this.transferId = transferIdParam;
+        this.channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.nextOffset = channel.size();
+    }
+
+    /**
+     * Gets the next offset the receiver expects; the sender resumes from here.
+     *
+     * @return the next offset
+     */
+    public synchronized long getNextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * Checks whether every byte of the file has been received.
+     *
+     * @return true once the transfer is complete
+     */
+    public synchronized boolean isComplete() {
+        return totalSize >= 0 && nextOffset == totalSize;
+    }
+
+    /**
+     * Handles one chunk.
+     *
+     * @param chunk the chunk
+     * @return the next offset the receiver expects
+     * @throws IOException if the chunk cannot be written
+     */
+    public synchronized long accept(final FileChunk chunk) throws IOException {
+        if (!transferId.equals(chunk.getTransferId())) {
+            System.err.println("[ChunkedFileReceiver] Chunk for " + chunk.getTransferId()
+                    + " sent to transfer " + transferId);
+            return nextOffset;
+        }
+        if (chunk.getOffset() != nextOffset) {
+            return nextOffset;
+        }
+        if (totalSize < 0) {
+            totalSize = chunk.getTotalSize();
+            if (nextOffset > totalSize) {
+                // Left over from a different, larger file
+                channel.truncate(0);
+                nextOffset = 0;
+                return nextOffset;
+            }
+        }
+
+        final ByteBuffer payload = chunk.getPayload();
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != chunk.getChecksum()) {
+            System.err.println("[ChunkedFileReceiver] Checksum mismatch for " + transferId
+                    + " at " + chunk.getOffset());
+            return nextOffset;
+        }
+
+        long position = nextOffset;
+        while (payload.hasRemaining()) {
+            position += channel.write(payload, position);
+        }
+        nextOffset = position;
+        if (nextOffset == totalSize) {
+            channel.force(true);
+        }
+        return nextOffset;
+    }
+
+    /**
+     * Handles one serialized chunk; suitable as an RPC handler.
+     *
+     * @param frame the chunk frame
+     * @return the serialized acknowledgement
+     * @throws IOException if the chunk cannot be written
+     */
+    public byte[] handle(final byte[] frame) throws IOException {
+        return FileChunkSerializer.serializeAck(accept(FileChunkSerializer.deserialize(frame)));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,222 @@
+package com.swe.chat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Streams a file to a receiver in fixed-size, checksummed chunks.
+ *
+ * <p>The source is memory-mapped a window at a time and each chunk is copied
+ * once, straight from the mapping into its frame, so only one chunk's worth
+ * of bytes is ever on the heap. Chunks go out one at a time; each reply is
+ * the receiver's next expected offset, and the sender continues from there.
+ * A corrupt chunk is therefore simply sent again, and a transfer that failed
+ * part way can be resumed from {@link #getAckedOffset()} or from whatever
+ * offset the receiver reports.</p>
+ */
+public final class ChunkedFileSender {
+
+    /** Default chunk size. */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    /** Chunks mapped at once. */
+    private static final int CHUNKS_PER_MAPPING = 64;
+
+    /** Times the receiver may reject the same offset before giving up. */
+    private static final int MAX_RETRIES = 3;
+
+    /** How long to wait for a chunk to be acknowledged. */
+    private static final long ACK_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Progress of a transfer.
+     *
+     * @param transferId the transfer ID
+     * @param sentBytes  bytes acknowledged by the receiver
+     * @param totalBytes size of the file
+     */
+    public record Progress(String transferId, long sentBytes, long totalBytes) {
+
+        /**
+         * Gets the progress as a whole percentage.
+         *
+         * @return 0 to 100
+         */
+        public int percent() {
+            if (totalBytes <= 0) {
+                return 100;
+            }
+            return (int) (sentBytes * 100 / totalBytes);
+        }
+    }
+
+    /** The file to send. */
+    private final Path source;
+
+    /** Transfer ID carried by every chunk. */
+    private final String transferId;
+
+    /** Chunk size. */
+    private final int chunkSize;
+
+    /** Sends one frame and completes with the receiver's acknowledgement. */
+    private final Function<byte[], CompletableFuture<byte[]>> transport;
+
+    /** Notified after every acknowledged chunk; may be null. */
+    private final Consumer<Progress> progressListener;
+
+    /** Highest offset the receiver has confirmed. */
+    private volatile long ackedOffset;
+
+    /**
+     * Creates a sender.
+     *
+     * @param sourceParam     the file to send
+     * @param transferIdParam the transfer ID
+     * @param chunkSizeParam  the chunk size in bytes
+     * @param transportParam  sends one frame and completes with the acknowledgement
+     * @param listener        progress listener, or null
+     */
+    public ChunkedFileSender(final Path sourceParam, final String transferIdParam, final int chunkSizeParam,
+                             final Function<byte[], CompletableFuture<byte[]>> transportParam,
+                             final Consumer<Progress> listener) {
+        if (chunkSizeParam <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSizeParam);
+        }
+        this.source = sourceParam;
+        this.transferId = transferIdParam;
+        this.chunkSize = chunkSizeParam;
+        this.transport = transportParam;
+        this.progressListener = listener;
+    }
+
+    /**
+     * Gets the transfer ID.
+     *
+     * @return the transfer ID
+     */
+    public String getTransferId() {
+        return transferId;
+    }
+
+    /**
+     * Gets the highest offset the receiver has confirmed; a failed transfer
+     * can be resumed from here.
+     *
+     * @return the acknowledged offset
+     */
+    public long getAckedOffset() {
+        return ackedOffset;
+    }
+
+    /**
+     * Sends the file from an offset on a background thread.
+     *
+     * @param fromOffset the offset to start at, e.g. the receiver's resume point
+     * @return completes with the file size once every byte is acknowledged
+     */
+    public CompletableFuture<Long> sendAsync(final long fromOffset) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(fromOffset);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Sends the file from an offset, blocking until every byte is acknowledged.
+     *
+     * @param fromOffset the offset to start at
+     * @return the file size
+     * @throws IOException if the file cannot be read, a chunk is not
+     *                     acknowledged or the receiver keeps rejecting it
+     */
+    public long send(final long fromOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            final long total = channel.size();
+            if (fromOffset < 0 || fromOffset > total) {
+                throw new IOException("Resume offset " + fromOffset + " outside file of " + total + " bytes");
+            }
+            ackedOffset = fromOffset;
+            final CRC32 crc = new CRC32();
+            final long mappingSize = (long) chunkSize * CHUNKS_PER_MAPPING;
+
+            MappedByteBuffer mapping = null;
+            long mappingStart = 0;
+            long offset = fromOffset;
+            int rejections = 0;
+            // An empty file still sends one empty chunk so the receiver completes
+            boolean first = true;
+            while (offset < total || first) {
+                first = false;
+                final int length = (int) Math.min(chunkSize, total - offset);
+                if (length > 0 && (mapping == null || offset < mappingStart
+                        || offset + length > mappingStart + mapping.capacity())) {
+                    mappingStart = offset;
+                    mapping = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                            Math.min(mappingSize, total - offset));
+                }
+                final ByteBuffer payload = length > 0
+                        ? mapping.slice((int) (offset - mappingStart), length)
+                        : ByteBuffer.allocate(0);
+
+                crc.reset();
+                crc.update(payload.duplicate());
+                final byte[] frame = FileChunkSerializer.serialize(
+                        transferId, offset, total, (int) crc.getValue(), payload);
+
+                final long next = FileChunkSerializer.deserializeAck(await(transport.apply(frame)));
+                if (next < 0 || next > total) {
+                    throw new IOException("Bad acknowledgement for " + transferId + " at " + offset);
+                }
+                if (next <= offset && length > 0) {
+                    rejections++;
+                    if (rejections > MAX_RETRIES) {
+                        throw new IOException("Chunk at " + offset + " of " + transferId
+                                + " rejected " + rejections + " times");
+                    }
+                } else {
+                    rejections = 0;
+                }
+                offset = next;
+                ackedOffset = next;
+                if (progressListener != null) {
+                    progressListener.accept(new Progress(transferId, next, total));
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Waits for an acknowledgement.
+     *
+     * @param ack the pending acknowledgement
+     * @return its bytes
+     * @throws IOException if it fails or times out
+     */
+    private static byte[] await(final CompletableFuture<byte[]> ack) throws IOException {
+        try {
+            return ack.get(ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for chunk acknowledgement", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Chunk not acknowledged: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.swe.chat;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One fixed-size piece of a chunked file transfer.
+ *
+ * <p>The payload is a read-only view, usually into the received frame or a
+ * mapped region of the source file, so a chunk never copies its bytes.</p>
+ */
+public final class FileChunk {
+
+    /** Transfer this chunk belongs to (the file message ID). */
+    private final String transferId;
+
+    /** Byte offset of the payload in the file. */
+    private final long offset;
+
+    /** Size of the whole file. */
+    private final long totalSize;
+
+    /** CRC32 of the payload. */
+    private final int checksum;
+
+    /** The chunk bytes. */
+    private final ByteBuffer payload;
+
+    /**
+     * Creates a chunk.
+     *
+     * @param transferIdParam the transfer ID
+     * @param offsetParam     the payload offset in the file
+     * @param totalSizeParam  the size of the whole file
+     * @param checksumParam   the CRC32 of the payload
+     * @param payloadParam    the payload, from position to limit
+     */
+    public FileChunk(final String transferIdParam, final long offsetParam, final long totalSizeParam,
+                     final int checksumParam, final ByteBuffer payloadParam) {
+        this.transferId = transferIdParam;
+        this.offset = offsetParam;
+        this.totalSize = totalSizeParam;
+        this.checksum = checksumParam;
+        this.payload = payloadParam.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the transfer ID.
+     *
+     * @return the transfer ID
+     */
+    public String getTransferId() {
+        return transferId;
+    }
+
+    /**
+     * Gets the payload offset in the file.
+     *
+     * @return the offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the size of the whole file.
+     *
+     * @return the total size
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Gets the CRC32 the sender computed for the payload.
+     *
+     * @return the checksum
+     */
+    public int getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Gets the payload length.
+     *
+     * @return the length in bytes
+     */
+    public int getLength() {
+        return payload.remaining();
+    }
+
+    /**
+     * Gets a fresh read-only view of the payload.
+     *
+     * @return the payload
+     */
+    public ByteBuffer getPayload() {
+        return payload.duplicate();
+    }
+}
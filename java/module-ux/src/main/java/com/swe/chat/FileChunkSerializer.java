@@ -0,0 +1,119 @@
+package com.swe.chat;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializer for {@link FileChunk} frames and transfer acknowledgements.
+ *
+ * <p>Frame layout: length-prefixed transfer ID, offset, total size, CRC32,
+ * payload length, payload. An acknowledgement is the receiver's next
+ * expected offset as a single long; the sender always continues from it,
+ * which is what makes a transfer resumable.</p>
+ */
+public final class FileChunkSerializer {
+
+    /** Size of an integer in bytes. */
+    private static final int INT_SIZE = 4;
+
+    /** Size of a long in bytes. */
+    private static final int LONG_SIZE = 8;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private FileChunkSerializer() {
+        // Utility class
+    }
+
+    /**
+     * Serializes a chunk header and payload into one frame.
+     *
+     * @param transferId the transfer ID
+     * @param offset     the payload offset in the file
+     * @param totalSize  the size of the whole file
+     * @param checksum   the CRC32 of the payload
+     * @param payload    the payload, from position to limit; not consumed
+     * @return the frame
+     */
+    public static byte[] serialize(final String transferId, final long offset, final long totalSize,
+                                   final int checksum, final ByteBuffer payload) {
+        final byte[] idBytes = transferId.getBytes(StandardCharsets.UTF_8);
+        final int length = payload.remaining();
+        final ByteBuffer buffer = ByteBuffer.allocate(
+                INT_SIZE + idBytes.length + LONG_SIZE + LONG_SIZE + INT_SIZE + INT_SIZE + length);
+        buffer.putInt(idBytes.length);
+        buffer.put(idBytes);
+        buffer.putLong(offset);
+        buffer.putLong(totalSize);
+        buffer.putInt(checksum);
+        buffer.putInt(length);
+        buffer.put(payload.duplicate());
+        return buffer.array();
+    }
+
+    /**
+     * Serializes a chunk into a frame.
+     *
+     * @param chunk the chunk
+     * @return the frame
+     */
+    public static byte[] serialize(final FileChunk chunk) {
+        return serialize(chunk.getTransferId(), chunk.getOffset(), chunk.getTotalSize(),
+                chunk.getChecksum(), chunk.getPayload());
+    }
+
+    /**
+     * Deserializes a frame. The chunk's payload is a view into {@code data}.
+     *
+     * @param data the frame
+     * @return the chunk
+     * @throws IllegalArgumentException if the frame is truncated or malformed
+     */
+    public static FileChunk deserialize(final byte[] data) {
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            final int idLength = buffer.getInt();
+            if (idLength < 0 || idLength > buffer.remaining()) {
+                throw new IllegalArgumentException("Bad transfer ID length " + idLength);
+            }
+            final String transferId = new String(data, buffer.position(), idLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + idLength);
+            final long offset = buffer.getLong();
+            final long totalSize = buffer.getLong();
+            final int checksum = buffer.getInt();
+            final int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Bad payload length " + length);
+            }
+            final ByteBuffer payload = buffer.slice(buffer.position(), length);
+            return new FileChunk(transferId, offset, totalSize, checksum, payload);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated chunk frame", e);
+        }
+    }
+
+    /**
+     * Serializes an acknowledgement.
+     *
+     * @param nextOffset the next offset the receiver expects
+     * @return the acknowledgement bytes
+     */
+    public static byte[] serializeAck(final long nextOffset) {
+        return ByteBuffer.allocate(LONG_SIZE).putLong(nextOffset).array();
+    }
+
+    /**
+     * Deserializes an acknowledgement.
+     *
+     * @param data the acknowledgement bytes
+     * @return the next offset the receiver expects, or -1 if {@code data} is not an acknowledgement
+     */
+    public static long deserializeAck(final byte[] data) {
+        if (data == null || data.length != LONG_SIZE) {
+            return -1;
+        }
+        return ByteBuffer.wrap(data).getLong();
+    }
+}
@@ -0,0 +1,388 @@
+package com.swe.chat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * Ordered, bounded queue of outgoing chat RPCs with retries.
+ *
+ * <p>One sender thread takes requests in the order they were queued and sends
+ * each one only after the previous one was acknowledged or timed out, so
+ * messages are first sent in the order they were typed. A request that fails
+ * or is not acknowledged in time goes to the back of the queue and is sent
+ * again after an exponentially growing pause, so one bad request does not
+ * hold up the messages behind it. After a fixed number of attempts it is
+ * marked {@link DeliveryState#FAILED} and kept so it can be
+ * {@link #retry retried}; only the most recent failures are kept. The queue
+ * is bounded: a request that does not fit fails straight away instead of
+ * blocking the caller.</p>
+ *
+ * <p>Requests are identified by a key, normally the message ID. A key is
+ * accepted once; queuing it again while it is pending or after it was sent
+ * does nothing, until the key is {@link #forget forgotten}. Retries carry the
+ * same payload, so a receiver that saw a send whose acknowledgement was lost
+ * can drop the repeat by message ID.</p>
+ *
+ * <p>The listener is told whenever a key changes state, on whichever thread
+ * changed it; {@link #getState} has the current state.</p>
+ */
+public final class OutboundQueue implements AutoCloseable {
+
+    /** Default number of requests waiting to be sent. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** Default attempts per request. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /** Default pause before the first retry. */
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 250;
+
+    /** Default longest pause between retries. */
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 8_000;
+
+    /** Default time to wait for an acknowledgement; the queue waits this long behind a silent backend. */
+    public static final long DEFAULT_ACK_TIMEOUT_MILLIS = 3_000;
+
+    /**
+     * Where a request is in its delivery.
+     */
+    public enum DeliveryState {
+        /** Queued or being sent. */
+        SENDING,
+        /** Acknowledged by the backend. */
+        SENT,
+        /** Given up on; can be retried. */
+        FAILED
+    }
+
+    /**
+     * Sends one request.
+     */
+    @FunctionalInterface
+    public interface Transport {
+        /**
+         * Sends a payload to an endpoint.
+         *
+         * @param endpoint the RPC endpoint
+         * @param payload  the payload
+         * @return completes when the backend acknowledges the request
+         */
+        CompletableFuture<byte[]> send(String endpoint, byte[] payload);
+    }
+
+    /**
+     * A queued request.
+     *
+     * @param key      identifies the request, e.g. the message ID
+     * @param endpoint the RPC endpoint
+     * @param payload  the payload
+     */
+    private record Outbound(String key, String endpoint, byte[] payload) {
+    }
+
+    /**
+     * A request waiting for its next attempt. Requests become due in the
+     * order they were queued or pushed back.
+     *
+     * @param request  the request
+     * @param attempts attempts made so far
+     * @param backoff  pause before the attempt after this one, in milliseconds
+     * @param dueAt    {@link System#nanoTime} at which it may be sent
+     * @param sequence breaks ties between requests due at the same time
+     */
+    private record Pending(Outbound request, int attempts, long backoff, long dueAt, long sequence)
+            implements Delayed {
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            final Pending that = (Pending) other;
+            final int byTime = Long.compare(dueAt - that.dueAt, 0);
+            return byTime != 0 ? byTime : Long.compare(sequence, that.sequence);
+        }
+    }
+
+    /** Requests waiting to be sent, in the order they become due. */
+    private final DelayQueue<Pending> pending = new DelayQueue<>();
+
+    /** Number of requests that may wait to be sent; ones pushed back for a retry always fit. */
+    private final int capacity;
+
+    /** Orders requests due at the same time. */
+    private long sequence;
+
+    /** State of every key queued and not {@link #forget forgotten}. */
+    private final Map<String, DeliveryState> states = new ConcurrentHashMap<>();
+
+    /** Most recent requests given up on, by key, kept for {@link #retry}. */
+    private final Map<String, Outbound> failed;
+
+    /** Attempts per request. */
+    private final int maxAttempts;
+
+    /** Pause before the first retry, in milliseconds. */
+    private final long initialBackoffMillis;
+
+    /** Longest pause between retries, in milliseconds. */
+    private final long maxBackoffMillis;
+
+    /** Time to wait for an acknowledgement, in milliseconds. */
+    private final long ackTimeoutMillis;
+
+    /** Sends the requests. */
+    private final Transport transport;
+
+    /** Told when a key changes state; may be null. */
+    private final BiConsumer<String, DeliveryState> listener;
+
+    /** The sender thread. */
+    private final Thread sender;
+
+    /** Set once the queue is closed. */
+    private volatile boolean closed;
+
+    /**
+     * Creates a queue with the default limits and starts its sender thread.
+     *
+     * @param transportParam sends one request
+     * @param listenerParam  told when a key changes state, or null
+     */
+    public OutboundQueue(final Transport transportParam, final BiConsumer<String, DeliveryState> listenerParam) {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS,
+                DEFAULT_ACK_TIMEOUT_MILLIS, transportParam, listenerParam);
+    }
+
+    /**
+     * Creates a queue and starts its sender thread.
+     *
+     * @param capacity          requests that may wait to be sent, and failed
+     *                          requests kept for retrying
+     * @param attempts          attempts per request
+     * @param initialBackoff    pause before the first retry, in milliseconds
+     * @param maxBackoff        longest pause between retries, in milliseconds
+     * @param ackTimeout        time to wait for an acknowledgement, in milliseconds
+     * @param transportParam    sends one request
+     * @param listenerParam     told when a key changes state, or null
+     */
+    public OutboundQueue(final int capacity, final int attempts, final long initialBackoff, final long maxBackoff,
+                         final long ackTimeout, final Transport transportParam,
+                         final BiConsumer<String, DeliveryState> listenerParam) {
+        if (capacity <= 0 || attempts <= 0) {
+            throw new IllegalArgumentException("Capacity and attempts must be positive");
+        }
+        this.capacity = capacity;
+        this.failed = Collections.synchronizedMap(new LinkedHashMap<>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Outbound> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                System.err.println("[FRONT][Chat] Too many failed sends, no longer keeping " + eldest.getKey());
+                return true;
+            }
+        });
+        this.maxAttempts = attempts;
+        this.initialBackoffMillis = initialBackoff;
+        this.maxBackoffMillis = maxBackoff;
+        this.ackTimeoutMillis = ackTimeout;
+        this.transport = transportParam;
+        this.listener = listenerParam;
+        this.sender = new Thread(this::run, "chat-outbound");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Queues a request behind every request queued before it.
+     *
+     * @param key      identifies the request, e.g. the message ID
+     * @param endpoint the RPC endpoint
+     * @param payload  the payload
+     * @return false if the key was queued before, or the queue is full or
+     *         closed; a full or closed queue marks the key failed
+     */
+    public boolean enqueue(final String key, final String endpoint, final byte[] payload) {
+        if (states.putIfAbsent(key, DeliveryState.SENDING) != null) {
+            return false;
+        }
+        return offer(new Outbound(key, endpoint, payload));
+    }
+
+    /**
+     * Queues a failed request again, behind everything already queued.
+     *
+     * @param key the key
+     * @return false if the key has not failed, or the queue is full or closed
+     */
+    public boolean retry(final String key) {
+        final Outbound request = failed.remove(key);
+        if (request == null) {
+            return false;
+        }
+        states.put(key, DeliveryState.SENDING);
+        return offer(request);
+    }
+
+    /**
+     * Drops what is kept about a key that was sent or failed, so long-lived
+     * queues do not hold on to every key and payload. A failed key can no
+     * longer be retried. Keys still sending are kept.
+     *
+     * @param key the key
+     * @return true if the key was sent or failed and is now forgotten
+     */
+    public boolean forget(final String key) {
+        final DeliveryState state = states.get(key);
+        if (state == DeliveryState.FAILED) {
+            failed.remove(key);
+        }
+        return state != DeliveryState.SENDING && state != null && states.remove(key, state);
+    }
+
+    /**
+     * Gets the state of a key.
+     *
+     * @param key the key
+     * @return the state, or null if the key was never queued
+     */
+    public DeliveryState getState(final String key) {
+        return states.get(key);
+    }
+
+    /**
+     * Gets the number of requests waiting behind the one being sent,
+     * including those pausing before another attempt.
+     *
+     * @return the queue length
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops the sender thread. Requests not yet acknowledged are marked failed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        sender.interrupt();
+    }
+
+    /**
+     * Adds a request marked as sending to the back of the queue, failing it
+     * if it does not fit.
+     *
+     * @param request the request
+     * @return true if it was queued
+     */
+    private boolean offer(final Outbound request) {
+        notifyState(request.key(), DeliveryState.SENDING);
+        synchronized (this) {
+            // Checked under the lock the sender drains the queue with on close
+            if (!closed && pending.size() < capacity) {
+                pending.add(new Pending(request, 0, initialBackoffMillis, System.nanoTime(), sequence++));
+                return true;
+            }
+        }
+        System.err.println("[FRONT][Chat] Outbound queue full or closed, not sending " + request.key());
+        fail(request);
+        return false;
+    }
+
+    /**
+     * Sends queued requests one at a time until closed.
+     */
+    private void run() {
+        try {
+            while (!closed) {
+                attempt(pending.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final List<Pending> left;
+        synchronized (this) {
+            left = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (Pending request : left) {
+            fail(request.request());
+        }
+    }
+
+    /**
+     * Sends a request once. If it is not acknowledged it goes to the back of
+     * the queue for another attempt after a pause, or fails once out of
+     * attempts.
+     *
+     * @param next the request and its attempts so far
+     * @throws InterruptedException if the queue is closed meanwhile; the
+     *                              request is marked failed first
+     */
+    private void attempt(final Pending next) throws InterruptedException {
+        final Outbound request = next.request();
+        final int attempt = next.attempts() + 1;
+        try {
+            transport.send(request.endpoint(), request.payload())
+                    .get(ackTimeoutMillis, TimeUnit.MILLISECONDS);
+            states.put(request.key(), DeliveryState.SENT);
+            notifyState(request.key(), DeliveryState.SENT);
+            return;
+        } catch (InterruptedException e) {
+            fail(request);
+            throw e;
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            System.err.println("[FRONT][Chat] " + request.endpoint() + " attempt " + attempt + "/"
+                    + maxAttempts + " failed for " + request.key() + ": " + cause);
+        }
+        if (attempt < maxAttempts) {
+            synchronized (this) {
+                pending.add(new Pending(request, attempt, Math.min(next.backoff() * 2, maxBackoffMillis),
+                        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(next.backoff()), sequence++));
+            }
+        } else {
+            fail(request);
+        }
+    }
+
+    /**
+     * Marks a request failed and keeps it for {@link #retry}.
+     *
+     * @param request the request
+     */
+    private void fail(final Outbound request) {
+        failed.put(request.key(), request);
+        states.put(request.key(), DeliveryState.FAILED);
+        notifyState(request.key(), DeliveryState.FAILED);
+    }
+
+    /**
+     * Tells the listener a key changed state.
+     *
+     * @param key   the key
+     * @param state the new state
+     */
+    private void notifyState(final String key, final DeliveryState state) {
+        if (listener != null) {
+            listener.accept(key, state);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.swe.chat;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Length-prefixed UTF-8 strings of the chat wire format.
+ *
+ * <p>A field is a 4-byte length followed by that many bytes of UTF-8; null
+ * and empty strings are both written as length 0 and read back as null.
+ * Writers encode each string once with {@link #encode(String)}, add up
+ * {@link #fieldSize(byte[])} and copy the fields into one exactly sized
+ * array. {@link String#getBytes} is used for the encoding because the JDK
+ * vectorizes it; a hand-written encoder, or a {@code CharsetEncoder} into a
+ * pooled buffer, avoids the per-field arrays but was measured two to six
+ * times slower on the ASCII and Latin-1 text most messages are.</p>
+ *
+ * <p>Readers build each string straight from its range of the input array.
+ * Sender IDs and display names repeat in almost every message, so
+ * {@link #readInternedString(ByteBuffer)} looks them up by their bytes in a
+ * small fixed table and returns the same {@link String} each time without
+ * decoding.</p>
+ */
+final class Utf8Codec {
+
+    /** Size of the length prefix in bytes. */
+    static final int LENGTH_SIZE = 4;
+
+    /** Slots in the intern table; a power of two. */
+    private static final int INTERN_SLOTS = 1024;
+
+    /** Longer strings are not interned. */
+    private static final int MAX_INTERN_LENGTH = 256;
+
+    /** Hash multiplier for intern lookups. */
+    private static final int HASH_MULTIPLIER = 31;
+
+    /** Bits folded down when picking an intern slot. */
+    private static final int HASH_SPREAD = 16;
+
+    /**
+     * An interned string and the bytes it was decoded from.
+     *
+     * @param bytes the UTF-8 bytes
+     * @param value the string
+     */
+    private record Interned(byte[] bytes, String value) {
+    }
+
+    /**
+     * Direct-mapped intern table; a slot holds the last string that hashed to
+     * it. Racy by design: entries are immutable, so a reader sees either a
+     * whole entry or a miss.
+     */
+    private static final Interned[] INTERNED = new Interned[INTERN_SLOTS];
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Utf8Codec() {
+        // Utility class
+    }
+
+    /**
+     * Encodes a string for a field.
+     *
+     * @param s the string, or null
+     * @return its UTF-8 bytes, or null for null
+     */
+    static byte[] encode(final String s) {
+        if (s == null) {
+            return null;
+        }
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the size of a field holding some bytes, prefix included.
+     *
+     * @param bytes the bytes, or null
+     * @return the field size
+     */
+    static int fieldSize(final byte[] bytes) {
+        return LENGTH_SIZE + (bytes != null ? bytes.length : 0);
+    }
+
+    /**
+     * Writes a length-prefixed field at the buffer's position.
+     *
+     * @param buffer the buffer, with room for the field
+     * @param bytes  the bytes, or null
+     */
+    static void writeField(final ByteBuffer buffer, final byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(0);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    /**
+     * Reads a length-prefixed string, decoding it from the buffer's array.
+     *
+     * @param buffer a heap buffer positioned at the field
+     * @return the string, or null for length 0
+     * @throws BufferUnderflowException if the field is truncated
+     */
+    static String readString(final ByteBuffer buffer) {
+        final int length = readLength(buffer);
+        if (length == 0) {
+            return null;
+        }
+        final String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+    /**
+     * Reads a length-prefixed string that is likely to repeat, such as a
+     * sender ID, returning a shared instance when the bytes were seen before.
+     *
+     * @param buffer a heap buffer positioned at the field
+     * @return the string, or null for length 0
+     * @throws BufferUnderflowException if the field is truncated
+     */
+    static String readInternedString(final ByteBuffer buffer) {
+        final int length = readLength(buffer);
+        if (length == 0) {
+            return null;
+        }
+        final byte[] data = buffer.array();
+        final int from = buffer.arrayOffset() + buffer.position();
+        final int to = from + length;
+        buffer.position(buffer.position() + length);
+        if (length > MAX_INTERN_LENGTH) {
+            return new String(data, from, length, StandardCharsets.UTF_8);
+        }
+
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = HASH_MULTIPLIER * hash + data[i];
+        }
+        final int slot = (hash ^ hash >>> HASH_SPREAD) & (INTERN_SLOTS - 1);
+        final Interned hit = INTERNED[slot];
+        if (hit != null && Arrays.equals(hit.bytes(), 0, hit.bytes().length, data, from, to)) {
+            return hit.value();
+        }
+        final String value = new String(data, from, length, StandardCharsets.UTF_8);
+        INTERNED[slot] = new Interned(Arrays.copyOfRange(data, from, to), value);
+        return value;
+    }
+
+    /**
+     * Reads a length prefix and checks that the field fits in the buffer.
+     *
+     * @param buffer the buffer
+     * @return the length; 0 for null
+     * @throws BufferUnderflowException if the field is truncated
+     */
+    private static int readLength(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length <= 0) {
+            return 0;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+}
@@ -12,11 +12,16 @@ package com.swe.ux.canvas;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.swe.canvas.datamodel.canvas.ShapeState;
 import com.swe.canvas.datamodel.manager.ActionManager;
 import com.swe.canvas.datamodel.manager.ClientActionManager;
 import com.swe.canvas.datamodel.manager.HostActionManager;
+import com.swe.canvas.datamodel.persistence.CanvasAutosave;
+import com.swe.canvas.datamodel.serialization.BoardBinarySerializer;
 import com.swe.canvas.datamodel.serialization.ShapeSerializer;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
 import com.swe.cloud.datastructures.Entity;
 import com.swe.cloud.functionlibrary.CloudFunctionLibrary;
 import com.swe.controller.RPCinterface.AbstractRPC;
@@ -24,14 +29,24 @@ import com.swe.controller.serialize.DataSerializer;
 import com.swe.ux.canvas.util.ColorConverter;
 import com.swe.ux.viewmodels.CanvasViewModel;
 import com.swe.ux.viewmodels.ToolType;
-import java.awt.image.BufferedImage;
+import java.awt.geom.AffineTransform;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Point2D;
@@ -44,7 +59,6 @@ import javafx.scene.control.Slider;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.control.ToggleButton;
-import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
@@ -54,7 +68,6 @@ import javafx.scene.shape.Rectangle;
 import javafx.scene.transform.Scale;
 import javafx.scene.transform.Translate;
 import javafx.stage.FileChooser;
-import javax.imageio.ImageIO;
 
 /**
  * Controller for the main Canvas View.
@@ -78,9 +91,21 @@ public class CanvasController {
     /** Default snapshot height if canvas dimensions are invalid. */
     private static final int DEFAULT_SNAPSHOT_HEIGHT = 600;
 
-    /** Snapshots folder. */
-    private static final String TEMP_DIR_NAME = "temp_snapshots";
+    /** Regularize requests that may wait for a worker before new ones are refused. */
+    private static final int REGULARIZE_QUEUE_SIZE = 4;
 
+    /**
+     * Encodes regularize requests and decodes their results. Bounded, so a
+     * burst of clicks cannot pile up work; the RPC itself is awaited without
+     * blocking any thread.
+     */
+    private static final ExecutorService REGULARIZE_EXECUTOR = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(REGULARIZE_QUEUE_SIZE), r -> {
+                final Thread t = new Thread(r, "canvas-regularize");
+                t.setDaemon(true);
+                return t;
+            });
 
     /** Zoom factor per scroll tick. */
     private static final double ZOOM_FACTOR = 1.1;
@@ -121,6 +146,9 @@ public class CanvasController {
     /** Button to delete selected shapes. */
     @FXML private Button deleteBtn;
 
+    /** Button to clear the whole board. */
+    @FXML private Button clearBtn;
+
     /** Button to trigger shape regularization. */
     @FXML private Button regularizeBtn;
 
@@ -166,6 +194,15 @@ public class CanvasController {
     /** Renderer responsible for drawing shapes. */
     private CanvasRenderer renderer;
 
+    /** Off-thread PNG renderer for describe and capture. */
+    private CanvasRasterizer rasterizer;
+
+    /** Board version the last AI description was produced for, or -1. */
+    private long describedVersion = -1;
+
+    /** The last AI description, valid for {@link #describedVersion}. */
+    private String lastDescription;
+
     /** Flag to prevent cyclic updates during UI refresh. */
     private boolean isUpdatingUI = false;
 
@@ -252,6 +289,7 @@ public class CanvasController {
 
     private void initializeControls() {
         renderer = new CanvasRenderer(canvas);
+        rasterizer = new CanvasRasterizer(viewModel.getCanvasState());
         canvas.widthProperty().bind(canvasHolder.widthProperty());
         canvas.heightProperty().bind(canvasHolder.heightProperty());
         canvas.widthProperty().addListener(o -> redraw());
@@ -337,6 +375,14 @@ public class CanvasController {
         canvasScale.setPivotY(mouseLogicalCoords.getY());
         canvasScale.setX(newScale);
         canvasScale.setY(newScale);
+        if (viewModel != null) {
+            viewModel.zoomLevel.set(newScale);
+        }
+        // Redraw so strokes use the level of detail of the new zoom
+        if (renderer != null) {
+            renderer.setScale(newScale);
+            redraw();
+        }
     }
 
     @FXML
@@ -374,7 +420,7 @@ public class CanvasController {
     private void onCanvasMousePressed(final MouseEvent e) {
         if (e.isPrimaryButtonDown()) {
             final Point2D p = canvas.sceneToLocal(e.getSceneX(), e.getSceneY());
-            viewModel.onMousePressed(p.getX(), p.getY());
+            viewModel.onMousePressed(p.getX(), p.getY(), e.isShiftDown());
             redraw();
         }
     }
@@ -425,6 +471,11 @@ public class CanvasController {
         viewModel.deleteSelectedShape();
     }
 
+    @FXML
+    private void onClearBoard() {
+        viewModel.clearBoard();
+    }
+
     @FXML
     private void onUndo() {
         viewModel.undo();
@@ -442,27 +493,58 @@ public class CanvasController {
         final File file = fileChooser.showSaveDialog(canvas.getScene().getWindow());
 
         if (file != null) {
-            try {
-                final WritableImage writableImage = GeometryFactory
-                        .createWritableImage((int) canvas.getWidth(), (int) canvas.getHeight());
-                canvas.snapshot(null, writableImage);
-                final BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
-                ImageIO.write(bufferedImage, "png", file);
-                System.out.println("Canvas captured and saved to: " + file.getAbsolutePath());
-            } catch (final Exception ex) {
-                System.err.println("Error capturing or saving canvas: " + ex.getMessage());
-            }
+            final int width = snapshotWidth();
+            final int height = snapshotHeight();
+            rasterizer.renderPngAsync(viewTransform(), width, height).thenAccept(png -> {
+                try {
+                    Files.write(file.toPath(), png);
+                    System.out.println("Canvas captured and saved to: " + file.getAbsolutePath());
+                } catch (final IOException ex) {
+                    System.err.println("Error saving canvas capture: " + ex.getMessage());
+                }
+            }).exceptionally(ex -> {
+                System.err.println("Error capturing canvas: " + ex.getMessage());
+                return null;
+            });
         }
     }
 
+    /**
+     * Gets the current zoom and pan as one transform from canvas coordinates
+     * to viewport pixels, so a rendered image shows what the user sees.
+     *
+     * @return The view transform.
+     */
+    private AffineTransform viewTransform() {
+        // Same order as the holder's transforms: translate, then scale about the pivot
+        final AffineTransform view = AffineTransform.getTranslateInstance(
+                canvasTranslate.getX(), canvasTranslate.getY());
+        view.translate(canvasScale.getPivotX(), canvasScale.getPivotY());
+        view.scale(canvasScale.getX(), canvasScale.getY());
+        view.translate(-canvasScale.getPivotX(), -canvasScale.getPivotY());
+        return view;
+    }
+
+    private int snapshotWidth() {
+        final int width = (int) canvas.getWidth();
+        return width > 0 ? width : DEFAULT_SNAPSHOT_WIDTH;
+    }
+
+    private int snapshotHeight() {
+        final int height = (int) canvas.getHeight();
+        return height > 0 ? height : DEFAULT_SNAPSHOT_HEIGHT;
+    }
+
     private void redraw() {
         Platform.runLater(() -> {
             if (renderer != null && viewModel != null) {
                 renderer.render(
                         viewModel.getCanvasState(),
                         viewModel.getTransientShape(),
-                        viewModel.selectedShapeId.get(),
-                        viewModel.isDraggingSelection
+                        viewModel.getSelection(),
+                        viewModel.getDragOffsetX(),
+                        viewModel.getDragOffsetY(),
+                        viewModel.getMarquee()
                 );
             }
         });
@@ -484,25 +566,25 @@ public class CanvasController {
 
     private void handleSaveSelection(final String result) {
         try {
-            final String jsonState = actionManager.saveMap();
+            final byte[] board = actionManager.saveMapBinary();
             if ("Local File".equals(result)) {
-                final FileChooser fileChooser = UiFactory.createFileChooser(null, "canvas.json");
+                final FileChooser fileChooser = UiFactory.createFileChooser(null, "canvas.board");
                 final File file = fileChooser.showSaveDialog(canvas.getScene().getWindow());
                 if (file != null) {
-                    Files.writeString(file.toPath(), jsonState);
+                    Files.write(file.toPath(), board);
                 }
             } else {
-                saveToCloud(jsonState);
+                saveToCloud(board);
             }
         } catch (final Exception ex) {
             ex.printStackTrace();
         }
     }
 
-    private void saveToCloud(final String jsonState) {
+    private void saveToCloud(final byte[] board) {
         try {
             final String boardId = UUID.randomUUID().toString();
-            final JsonNode dataNode = JsonFactory.readJsonTree(jsonState);
+            final JsonNode dataNode = JsonFactory.wrapBoard(board);
 
             final Entity req = new Entity(
                     "CANVAS", "saves", boardId, "state", CLOUD_ENTITY_ID, null, dataNode
@@ -545,8 +627,8 @@ public class CanvasController {
                 final FileChooser fileChooser = UiFactory.createFileChooser(null, null);
                 final File file = fileChooser.showOpenDialog(canvas.getScene().getWindow());
                 if (file != null) {
-                    final String json = Files.readString(file.toPath());
-                    actionManager.restoreMap(json);
+                    // Binary and legacy JSON saves are told apart by their header
+                    restoreBoard(Files.readAllBytes(file.toPath()));
                 }
             } else {
                 restoreFromCloudPrompt();
@@ -577,17 +659,18 @@ public class CanvasController {
 
         cloudLib.cloudGet(req).thenAccept(res -> {
             if (res.data() != null) {
-                String jsonState = null;
+                JsonNode saved = null;
                 if (res.data().isArray() && !res.data().isEmpty()) {
-                    jsonState = res.data().get(0).get("data").toString();
+                    saved = res.data().get(0).get("data");
                 } else if (res.data().isObject() && res.data().has("data")) {
-                    jsonState = res.data().get("data").toString();
+                    saved = res.data().get("data");
                 }
 
-                if (jsonState != null) {
-                    final String finalState = jsonState;
+                if (saved != null) {
+                    // Autosaves merge base and deltas; older saves hold the JSON board itself
+                    final byte[] board = JsonFactory.unwrapBoard(saved);
                     Platform.runLater(() -> {
-                        actionManager.restoreMap(finalState);
+                        restoreBoard(board);
                         UiFactory.createAlert(Alert.AlertType.INFORMATION,
                                 "Restored successfully!").show();
                     });
@@ -602,43 +685,105 @@ public class CanvasController {
         });
     }
 
+    private void restoreBoard(final byte[] board) {
+        actionManager.restoreMapBinary(board);
+    }
+
     @FXML
     private void onRegularize() {
-        if (viewModel.selectedShapeId.get() == null || rpc == null) {
-            System.err.println("Regularize skipped: No selection or RPC missing.");
+        if (rpc == null) {
+            System.err.println("Regularize skipped: RPC missing.");
             return;
         }
 
-        final ShapeState state = viewModel.getCanvasState()
-                .getShapeState(viewModel.selectedShapeId.get());
-        if (state == null || state.isDeleted()) {
+        final List<ShapeState> targets = new ArrayList<>();
+        for (final ShapeId id : viewModel.getSelectedShapeIds()) {
+            targets.add(viewModel.getCanvasState().getShapeState(id));
+        }
+        if (targets.isEmpty()) {
+            System.err.println("Regularize skipped: No selection.");
             return;
         }
 
-        final String shapeJson = ShapeSerializer.serializeShape(state);
+        try {
+            CompletableFuture
+                    .supplyAsync(() -> encodeRegularizeRequest(targets), REGULARIZE_EXECUTOR)
+                    .thenCompose(data -> rpc.call("canvas:regularize", data))
+                    .thenApplyAsync(response -> decodeRegularizeResponse(response, targets),
+                            REGULARIZE_EXECUTOR)
+                    .thenAccept(regularized -> {
+                        if (!regularized.isEmpty()) {
+                            Platform.runLater(() -> applyRegularized(regularized));
+                        }
+                    })
+                    .exceptionally(e -> {
+                        e.printStackTrace();
+                        return null;
+                    });
+        } catch (final RejectedExecutionException e) {
+            System.err.println("Regularize skipped: too many requests in flight.");
+        }
+    }
 
-        CompletableFuture.runAsync(() -> {
-            try {
-                final byte[] data = DataSerializer.serialize(shapeJson);
-                final byte[] response = rpc.call("canvas:regularize", data).get();
+    /**
+     * Builds the {@code canvas:regularize} payload: a single shape as before,
+     * or a JSON array when several shapes are selected.
+     */
+    private static byte[] encodeRegularizeRequest(final List<ShapeState> targets) {
+        final String json = targets.size() == 1
+                ? ShapeSerializer.serializeShape(targets.get(0))
+                : ShapeSerializer.serializeShapeList(targets);
+        try {
+            return DataSerializer.serialize(json);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to encode regularize request", e);
+        }
+    }
 
-                if (response != null && response.length > 0) {
-                    final String updatedShapeJson = DataSerializer
-                            .deserialize(response, String.class);
-                    final ShapeState validatedState = ShapeSerializer
-                            .deserializeShape(updatedShapeJson);
+    /**
+     * Reads the regularized shapes, keeping only those that were requested.
+     */
+    private static Map<ShapeId, Shape> decodeRegularizeResponse(final byte[] response,
+                                                                final List<ShapeState> targets) {
+        final Map<ShapeId, Shape> regularized = new LinkedHashMap<>();
+        if (response == null || response.length == 0) {
+            return regularized;
+        }
+        final String json;
+        try {
+            json = DataSerializer.deserialize(response, String.class);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to decode regularize response", e);
+        }
+        final Map<ShapeId, Shape> byId = new LinkedHashMap<>();
+        for (final ShapeState state : ShapeSerializer.deserializeShapeList(json)) {
+            byId.put(state.getShapeId(), state.getShape());
+        }
+        for (final ShapeState target : targets) {
+            final Shape shape = byId.get(target.getShapeId());
+            if (shape != null) {
+                regularized.put(target.getShapeId(), shape);
+            }
+        }
+        return regularized;
+    }
 
-                    if (validatedState != null && validatedState.getShape() != null) {
-                        Platform.runLater(() -> {
-                            actionManager.requestModify(state, validatedState.getShape());
-                            viewModel.selectedShapeId.set(state.getShapeId());
-                        });
-                    }
-                }
-            } catch (final Exception e) {
-                e.printStackTrace();
+    /**
+     * Applies regularized shapes; several shapes become one compound action,
+     * so a single undo reverts all of them.
+     */
+    private void applyRegularized(final Map<ShapeId, Shape> regularized) {
+        final ShapeId first = regularized.keySet().iterator().next();
+        if (regularized.size() == 1) {
+            final ShapeState current = viewModel.getCanvasState().getShapeState(first);
+            if (current == null || current.isDeleted()) {
+                return;
             }
-        });
+            actionManager.requestModify(current, regularized.get(first));
+        } else {
+            actionManager.requestModifyBatch(regularized);
+        }
+        viewModel.setSelection(regularized.keySet());
     }
 
     @FXML
@@ -656,50 +801,35 @@ public class CanvasController {
     }
 
     private void performAnalysis() {
-        try {
-            final File relativeDir = new File(TEMP_DIR_NAME);
-            if (!relativeDir.exists()) {
-                if (!relativeDir.mkdirs()) {
-                    throw new IOException("Could not create directory: " + relativeDir.getAbsolutePath());
-                }
-            }
-
-            // final File tempFile = File.createTempFile("canvas_snapshot_", ".png");
-            final String fileName = "canvas_snapshot_" + System.currentTimeMillis() + ".png";
-            final File tempFile = new File(relativeDir, fileName);
-            
-            int width = (int) canvas.getWidth();
-            int height = (int) canvas.getHeight();
-            if (width <= 0) {
-                width = DEFAULT_SNAPSHOT_WIDTH;
-            }
-            if (height <= 0) {
-                height = DEFAULT_SNAPSHOT_HEIGHT;
-            }
-
-            final WritableImage writableImage = GeometryFactory.createWritableImage(width, height);
-            canvas.snapshot(null, writableImage);
-
-            final BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
-            ImageIO.write(bufferedImage, "png", tempFile);
-
-            CompletableFuture.runAsync(() -> sendAnalyzeRequest(tempFile));
-
-        } catch (final IOException e) {
-            e.printStackTrace();
-            aiDescriptionArea.setText("Failed to capture canvas: " + e.getMessage());
+        // An unchanged board gets the same answer; skip rendering and the RPC
+        final long version = viewModel.getCanvasState().getBoardVersion();
+        if (version == describedVersion && lastDescription != null) {
+            aiDescriptionArea.setText(lastDescription);
+            return;
         }
+
+        final int width = snapshotWidth();
+        final int height = snapshotHeight();
+        rasterizer.renderPngAsync(viewTransform(), width, height)
+                .thenAccept(png -> sendAnalyzeRequest(png, version))
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    Platform.runLater(() -> aiDescriptionArea
+                            .setText("Failed to capture canvas: " + e.getMessage()));
+                    return null;
+                });
     }
 
-    private void sendAnalyzeRequest(final File tempFile) {
+    private void sendAnalyzeRequest(final byte[] png, final long version) {
         try {
-            final byte[] data = DataSerializer.serialize(tempFile.getAbsolutePath());
+            final byte[] data = DataSerializer.serialize(png);
             final byte[] response = rpc.call("canvas:describe", data).get();
             final String finalDescription = DataSerializer.deserialize(response, String.class);
 
             Platform.runLater(() -> {
+                describedVersion = version;
+                lastDescription = finalDescription;
                 aiDescriptionArea.setText(finalDescription);
-                tempFile.deleteOnExit();
             });
         } catch (final Exception e) {
             e.printStackTrace();
@@ -716,7 +846,7 @@ public class CanvasController {
     }
 
     /**
-     * Factory for geometry and image objects to reduce coupling.
+     * Factory for geometry objects to reduce coupling.
      */
     private static class GeometryFactory {
         static Translate createTranslate() {
@@ -730,10 +860,6 @@ public class CanvasController {
         static Rectangle createRectangle() {
             return new Rectangle();
         }
-
-        static WritableImage createWritableImage(final int width, final int height) {
-            return new WritableImage(width, height);
-        }
     }
 
     /**
@@ -773,8 +899,24 @@ public class CanvasController {
      * Factory for JSON operations to reduce coupling.
      */
     private static class JsonFactory {
-        static JsonNode readJsonTree(final String json) throws Exception {
-            return new ObjectMapper().readTree(json);
+        /** Key of the encoded board in a cloud save. */
+        static final String BOARD_KEY = "Board";
+
+        static JsonNode wrapBoard(final byte[] board) {
+            final ObjectNode node = new ObjectMapper().createObjectNode();
+            node.put("Format", "binary");
+            node.put(BOARD_KEY, Base64.getEncoder().encodeToString(board));
+            return node;
+        }
+
+        static byte[] unwrapBoard(final JsonNode saved) {
+            if (CanvasAutosave.isAutosaveDocument(saved)) {
+                return BoardBinarySerializer.serializeBoard(CanvasAutosave.readDocument(saved));
+            }
+            if (saved.hasNonNull(BOARD_KEY)) {
+                return Base64.getDecoder().decode(saved.get(BOARD_KEY).asText());
+            }
+            return saved.toString().getBytes(StandardCharsets.UTF_8);
         }
     }
 }
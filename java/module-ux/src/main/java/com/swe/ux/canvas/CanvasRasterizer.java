@@ -0,0 +1,309 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: CanvasRasterizer.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.ux.canvas;
+
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders a {@link CanvasState} straight into a {@link BufferedImage}.
+ *
+ * <p>Unlike a JavaFX {@code Canvas.snapshot}, this needs no FX thread and no
+ * {@code SwingFXUtils} conversion, so it can run on a background thread at
+ * any output resolution. Geometry matches {@link CanvasRenderer}. A view
+ * transform places the board in the image, so the output can match the
+ * zoom and pan the user sees.</p>
+ *
+ * <p>The last encoded PNG is cached together with the board version it was
+ * rendered from, so asking again for an unchanged board returns the same
+ * bytes without rendering.</p>
+ */
+public class CanvasRasterizer {
+
+    /** Background colour of rendered images. */
+    private static final Color BACKGROUND = Color.WHITE;
+
+    /** Minimum points required to draw a line or shape. */
+    private static final int MIN_POINTS_DRAW = 2;
+
+    /** Divisor for the triangle apex. */
+    private static final double MIDPOINT_DIVISOR = 2.0;
+
+    /** Worker shared by all rasterizers; daemon so it never blocks exit. */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "canvas-rasterizer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** The state to render. */
+    private final CanvasState state;
+
+    /** The most recently encoded PNG, or null. */
+    private volatile CachedPng cached;
+
+    /**
+     * A PNG together with what it was rendered from.
+     *
+     * @param version Board version at render time.
+     * @param view    Transform from canvas coordinates to output pixels.
+     * @param width   Output width in pixels.
+     * @param height  Output height in pixels.
+     * @param png     The encoded image.
+     */
+    private record CachedPng(long version, AffineTransform view, int width, int height, byte[] png) {
+        boolean matches(final long v, final AffineTransform t, final int w, final int h) {
+            return version == v && view.equals(t) && width == w && height == h;
+        }
+    }
+
+    /**
+     * Creates a rasterizer for a canvas state.
+     *
+     * @param canvasState The state to render.
+     */
+    public CanvasRasterizer(final CanvasState canvasState) {
+        this.state = canvasState;
+    }
+
+    /**
+     * Renders the visible shapes into a new image.
+     *
+     * @param sourceWidth  Width of the canvas area in canvas coordinates.
+     * @param sourceHeight Height of the canvas area in canvas coordinates.
+     * @param width        Output width in pixels.
+     * @param height       Output height in pixels.
+     * @return The rendered image.
+     */
+    public BufferedImage render(final double sourceWidth, final double sourceHeight,
+                                final int width, final int height) {
+        return render(fit(sourceWidth, sourceHeight, width, height), width, height);
+    }
+
+    /**
+     * Renders the visible shapes into a new image through a view transform.
+     *
+     * @param view   Transform from canvas coordinates to output pixels, e.g.
+     *               the current zoom and pan.
+     * @param width  Output width in pixels.
+     * @param height Output height in pixels.
+     * @return The rendered image.
+     */
+    public BufferedImage render(final AffineTransform view, final int width, final int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, width, height);
+            g.transform(view);
+            for (final Shape shape : state.getVisibleShapes()) {
+                drawShape(g, shape);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Renders and PNG-encodes the board, reusing the previous result if the
+     * board has not changed since.
+     *
+     * @param sourceWidth  Width of the canvas area in canvas coordinates.
+     * @param sourceHeight Height of the canvas area in canvas coordinates.
+     * @param width        Output width in pixels.
+     * @param height       Output height in pixels.
+     * @return The PNG bytes.
+     * @throws IOException If encoding fails.
+     */
+    public byte[] renderPng(final double sourceWidth, final double sourceHeight,
+                            final int width, final int height) throws IOException {
+        return renderPng(fit(sourceWidth, sourceHeight, width, height), width, height);
+    }
+
+    /**
+     * Renders and PNG-encodes the board through a view transform, reusing the
+     * previous result if neither the board nor the view changed since.
+     *
+     * @param view   Transform from canvas coordinates to output pixels.
+     * @param width  Output width in pixels.
+     * @param height Output height in pixels.
+     * @return The PNG bytes.
+     * @throws IOException If encoding fails.
+     */
+    public byte[] renderPng(final AffineTransform view, final int width, final int height) throws IOException {
+        // Read the version first: a change made while rendering only makes the
+        // cached image newer than its key, never older.
+        final long version = state.getBoardVersion();
+        final CachedPng hit = cached;
+        if (hit != null && hit.matches(version, view, width, height)) {
+            return hit.png;
+        }
+
+        final BufferedImage image = render(view, width, height);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", out)) {
+            throw new IOException("No PNG writer available");
+        }
+        final byte[] png = out.toByteArray();
+        cached = new CachedPng(version, new AffineTransform(view), width, height, png);
+        return png;
+    }
+
+    /**
+     * Runs {@link #renderPng} on the rasterizer thread.
+     *
+     * @param sourceWidth  Width of the canvas area in canvas coordinates.
+     * @param sourceHeight Height of the canvas area in canvas coordinates.
+     * @param width        Output width in pixels.
+     * @param height       Output height in pixels.
+     * @return A future completing with the PNG bytes.
+     */
+    public CompletableFuture<byte[]> renderPngAsync(final double sourceWidth, final double sourceHeight,
+                                                    final int width, final int height) {
+        return renderPngAsync(fit(sourceWidth, sourceHeight, width, height), width, height);
+    }
+
+    /**
+     * Runs {@link #renderPng(AffineTransform, int, int)} on the rasterizer thread.
+     *
+     * @param view   Transform from canvas coordinates to output pixels; copied,
+     *               so the caller may keep changing it.
+     * @param width  Output width in pixels.
+     * @param height Output height in pixels.
+     * @return A future completing with the PNG bytes.
+     */
+    public CompletableFuture<byte[]> renderPngAsync(final AffineTransform view, final int width, final int height) {
+        final AffineTransform snapshot = new AffineTransform(view);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return renderPng(snapshot, width, height);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Gets the board version of the cached PNG.
+     *
+     * @return The version, or -1 if nothing is cached.
+     */
+    public long getCachedVersion() {
+        final CachedPng hit = cached;
+        return hit == null ? -1 : hit.version;
+    }
+
+    /**
+     * Builds the transform that stretches a canvas area over the output.
+     *
+     * @param sourceWidth  Width of the canvas area in canvas coordinates.
+     * @param sourceHeight Height of the canvas area in canvas coordinates.
+     * @param width        Output width in pixels.
+     * @param height       Output height in pixels.
+     * @return The transform; identity if the area is empty.
+     */
+    private static AffineTransform fit(final double sourceWidth, final double sourceHeight,
+                                       final int width, final int height) {
+        if (sourceWidth > 0 && sourceHeight > 0) {
+            return AffineTransform.getScaleInstance(width / sourceWidth, height / sourceHeight);
+        }
+        return new AffineTransform();
+    }
+
+    private static void drawShape(final Graphics2D g, final Shape shape) {
+        final List<Point> p = shape.getPoints();
+        if (p.isEmpty()) {
+            return;
+        }
+        g.setColor(shape.getColor());
+        g.setStroke(new BasicStroke((float) shape.getThickness(),
+                BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+
+        switch (shape.getShapeType()) {
+            case FREEHAND:
+                final Path2D.Double path = new Path2D.Double();
+                path.moveTo(p.get(0).getX(), p.get(0).getY());
+                for (int i = 1; i < p.size(); i++) {
+                    path.lineTo(p.get(i).getX(), p.get(i).getY());
+                }
+                g.draw(path);
+                break;
+            case LINE:
+                if (p.size() >= MIN_POINTS_DRAW) {
+                    g.draw(new Line2D.Double(p.get(0).getX(), p.get(0).getY(),
+                            p.get(1).getX(), p.get(1).getY()));
+                }
+                break;
+            case RECTANGLE:
+                if (p.size() >= MIN_POINTS_DRAW) {
+                    g.draw(new Rectangle2D.Double(minX(p), minY(p), width(p), height(p)));
+                }
+                break;
+            case ELLIPSE:
+                if (p.size() >= MIN_POINTS_DRAW) {
+                    g.draw(new Ellipse2D.Double(minX(p), minY(p), width(p), height(p)));
+                }
+                break;
+            case TRIANGLE:
+                if (p.size() >= MIN_POINTS_DRAW) {
+                    final double left = minX(p);
+                    final double top = minY(p);
+                    final double right = left + width(p);
+                    final double bottom = top + height(p);
+                    final Path2D.Double triangle = new Path2D.Double();
+                    triangle.moveTo(left + (right - left) / MIDPOINT_DIVISOR, top);
+                    triangle.lineTo(left, bottom);
+                    triangle.lineTo(right, bottom);
+                    triangle.closePath();
+                    g.draw(triangle);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static double minX(final List<Point> p) {
+        return Math.min(p.get(0).getX(), p.get(1).getX());
+    }
+
+    private static double minY(final List<Point> p) {
+        return Math.min(p.get(0).getY(), p.get(1).getY());
+    }
+
+    private static double width(final List<Point> p) {
+        return Math.abs(p.get(0).getX() - p.get(1).getX());
+    }
+
+    private static double height(final List<Point> p) {
+        return Math.abs(p.get(0).getY() - p.get(1).getY());
+    }
+}
@@ -18,7 +18,10 @@ import com.swe.canvas.datamodel.shape.ShapeId;
 import com.swe.canvas.datamodel.shape.ShapeType;
 import com.swe.ux.canvas.util.ColorConverter;
 import com.swe.ux.canvas.util.GeometryUtils;
+import com.swe.ux.canvas.util.LodCache;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import javafx.geometry.Bounds;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
@@ -33,6 +36,10 @@ import javafx.scene.shape.StrokeLineJoin;
  * It handles the drawing of committed shapes, transient (ghost) shapes during interactions,
  * and selection highlights.</p>
  *
+ * <p>Committed shapes are drawn with level of detail: freehand strokes use a
+ * simplified polyline chosen by the zoom level, and shapes smaller than a
+ * screen pixel are drawn as a dot (see {@link LodCache}).</p>
+ *
  * @author Gajula Sri Siva Sai Shashank
  */
 public class CanvasRenderer {
@@ -77,6 +84,11 @@ public class CanvasRenderer {
      */
     private static final int MIN_POINTS_DRAW = 2;
 
+    /**
+     * Fill opacity of the marquee rectangle.
+     */
+    private static final double MARQUEE_FILL_ALPHA = 0.1;
+
     /**
      * The target JavaFX Canvas.
      */
@@ -87,6 +99,16 @@ public class CanvasRenderer {
      */
     private final GraphicsContext gc;
 
+    /**
+     * Simplified strokes and bounds of the shapes drawn.
+     */
+    private final LodCache lodCache = new LodCache();
+
+    /**
+     * Current zoom level, used to pick the level of detail.
+     */
+    private double scale = 1.0;
+
     /**
      * Constructor for renderer.
      *
@@ -97,6 +119,17 @@ public class CanvasRenderer {
         this.gc = canvas.getGraphicsContext2D();
     }
 
+    /**
+     * Sets the zoom level the canvas is shown at.
+     *
+     * @param zoom The scale factor; values not above zero are ignored.
+     */
+    public void setScale(final double zoom) {
+        if (zoom > 0) {
+            this.scale = zoom;
+        }
+    }
+
     /**
      * Main Rendering logic.
      *
@@ -114,37 +147,99 @@ public class CanvasRenderer {
                        final Shape transientShape,
                        final ShapeId selectedShapeId,
                        final boolean isDraggingSelection) {
+        final Set<ShapeId> selection = selectedShapeId == null
+                ? Collections.emptySet() : Collections.singleton(selectedShapeId);
+        render(state, transientShape, selection, 0, 0, null);
+    }
+
+    /**
+     * Rendering with multi-selection.
+     *
+     * <p>While the selection is dragged, the selected shapes are drawn once,
+     * as ghosts, under a single translation of the graphics context instead
+     * of as moved copies.</p>
+     *
+     * @param state          The current authoritative canvas state.
+     * @param transientShape The shape currently being drawn (if any).
+     * @param selection      The selected shape IDs.
+     * @param dragX          Horizontal offset of the selection being dragged.
+     * @param dragY          Vertical offset of the selection being dragged.
+     * @param marquee        The marquee being drawn, or null.
+     */
+    public void render(final CanvasState state,
+                       final Shape transientShape,
+                       final Set<ShapeId> selection,
+                       final double dragX,
+                       final double dragY,
+                       final Bounds marquee) {
         // We must use the canvas's fixed width/height, not the container's
         gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        final boolean dragging = dragX != 0 || dragY != 0;
 
         // 1. Draw all committed shapes
         for (final Shape shape : state.getVisibleShapes()) {
+            // Shapes being moved are drawn at their new position below.
+            if (dragging && selection.contains(shape.getShapeId())) {
+                continue;
+            }
             // If we are ghosting this shape (e.g., dragging it), don't draw the original.
             if (transientShape != null && shape.getShapeId().equals(transientShape.getShapeId())) {
                 continue;
             }
-            drawShape(shape, ALPHA_OPAQUE); // Draw fully opaque
+            drawShapeLod(shape, ALPHA_OPAQUE); // Draw fully opaque
         }
 
-        // 2. Draw ghost shape (either new drawing OR shape being moved)
+        // 2. Draw ghost shape (a new drawing)
         if (transientShape != null) {
             // Draw ghost with 50% opacity
             drawShape(transientShape, ALPHA_GHOST);
         }
 
-        // 3. Draw selection box
-        if (selectedShapeId != null) {
-            final ShapeState selectedState = state.getShapeState(selectedShapeId);
-            if (selectedState != null && !selectedState.isDeleted()) {
-                // If we are dragging the selected shape, draw box around the ghost
-                if (transientShape != null && transientShape.getShapeId().equals(selectedShapeId)) {
-                    drawBoundingBox(transientShape);
-                } else {
-                    // Otherwise draw around the shape in the main state
+        // 3. Draw the selection, moved by the drag offset if any
+        if (!selection.isEmpty()) {
+            gc.save();
+            gc.translate(dragX, dragY);
+            for (final ShapeId id : selection) {
+                final ShapeState selectedState = state.getShapeState(id);
+                if (selectedState != null && !selectedState.isDeleted()) {
+                    if (dragging) {
+                        drawShapeLod(selectedState.getShape(), ALPHA_GHOST);
+                    }
                     drawBoundingBox(selectedState.getShape());
                 }
             }
+            gc.restore();
         }
+
+        // 4. Draw the marquee
+        if (marquee != null) {
+            drawMarquee(marquee);
+        }
+        lodCache.evictUntouched();
+    }
+
+    /**
+     * Draws a committed shape at the level of detail for the current zoom.
+     * A shape smaller than a screen pixel is drawn as a single dot.
+     *
+     * @param shape The shape object to be drawn.
+     * @param alpha The opacity level to draw the shape with (0.0 to 1.0).
+     */
+    private void drawShapeLod(final Shape shape, final double alpha) {
+        if (shape.getPoints().isEmpty()) {
+            return;
+        }
+        if (lodCache.isSubPixel(shape, scale)) {
+            final double[] b = lodCache.boundsOf(shape);
+            final double size = Math.max(shape.getThickness(), LodCache.SUB_PIXEL_SIZE / scale);
+            gc.setFill(ColorConverter.toFx(shape.getColor()));
+            gc.setGlobalAlpha(alpha);
+            gc.fillOval((b[0] + b[2] - size) / MIDPOINT_DIVISOR, (b[1] + b[3] - size) / MIDPOINT_DIVISOR,
+                    size, size);
+            gc.setGlobalAlpha(ALPHA_OPAQUE);
+            return;
+        }
+        drawShape(shape, lodCache.pointsFor(shape, scale), alpha);
     }
 
     /**
@@ -155,13 +250,24 @@ public class CanvasRenderer {
      * @param alpha The opacity level to draw the shape with (0.0 to 1.0).
      */
     private void drawShape(final Shape shape, final double alpha) {
+        drawShape(shape, shape.getPoints(), alpha);
+    }
+
+    /**
+     * Draws a shape using the given points instead of its own, e.g. a
+     * simplified version of a freehand stroke.
+     *
+     * @param shape The shape object to be drawn.
+     * @param p     The points to draw.
+     * @param alpha The opacity level to draw the shape with (0.0 to 1.0).
+     */
+    private void drawShape(final Shape shape, final List<Point> p, final double alpha) {
         gc.setStroke(ColorConverter.toFx(shape.getColor()));
         gc.setLineWidth(shape.getThickness());
         gc.setLineCap(StrokeLineCap.ROUND);
         gc.setLineJoin(StrokeLineJoin.ROUND);
         gc.setGlobalAlpha(alpha);
 
-        final List<Point> p = shape.getPoints();
         if (p.isEmpty()) {
             return;
         }
@@ -230,6 +336,18 @@ public class CanvasRenderer {
         gc.setLineDashes((double[]) null);
     }
 
+    private void drawMarquee(final Bounds b) {
+        gc.setFill(Color.CORNFLOWERBLUE);
+        gc.setGlobalAlpha(MARQUEE_FILL_ALPHA);
+        gc.fillRect(b.getMinX(), b.getMinY(), b.getWidth(), b.getHeight());
+        gc.setGlobalAlpha(ALPHA_OPAQUE);
+        gc.setStroke(Color.CORNFLOWERBLUE);
+        gc.setLineWidth(1);
+        gc.setLineDashes(SELECTION_DASH_SIZE);
+        gc.strokeRect(b.getMinX(), b.getMinY(), b.getWidth(), b.getHeight());
+        gc.setLineDashes((double[]) null);
+    }
+
     private void drawRect(final Point p1, final Point p2) {
         gc.strokeRect(Math.min(p1.getX(), p2.getX()), Math.min(p1.getY(), p2.getY()),
                 Math.abs(p1.getX() - p2.getX()), Math.abs(p1.getY() - p2.getY()));
@@ -30,7 +30,7 @@ public final class GeometryUtils {
     /**
      * The pixel distance threshold for detecting a "hit" on a line or curve.
      */
-    private static final double HIT_THRESHOLD = 5.0;
+    public static final double HIT_THRESHOLD = 5.0;
 
     /**
      * Private constructor to prevent instantiation of utility class.
@@ -0,0 +1,188 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: LodCache.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.ux.canvas.util;
+
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import com.swe.canvas.datamodel.shape.ShapeType;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Level-of-detail data for rendering shapes at the current zoom.
+ *
+ * <p>For every shape drawn, the cache keeps its bounding box and, for freehand
+ * strokes, simplified copies of the polyline at the tolerances in
+ * {@link #LEVEL_TOLERANCES}. Each level is built once, the first time the
+ * zoom asks for it, and reused until the shape's points change. The level
+ * drawn is the coarsest one whose error stays under
+ * {@link #SCREEN_TOLERANCE} screen pixels, so the number of segments stroked
+ * shrinks as the board is zoomed out.</p>
+ *
+ * <p>Shapes whose bounding box is smaller than a screen pixel are reported as
+ * sub-pixel so the renderer can draw them as a dot.</p>
+ *
+ * <p><b>Thread Safety:</b> Not thread-safe; use from the rendering thread.</p>
+ */
+public final class LodCache {
+
+    /** Simplification tolerance of each level, in canvas units, finest first. */
+    public static final double[] LEVEL_TOLERANCES = {0.5, 1, 2, 4, 8, 16};
+
+    /** Largest acceptable deviation from the full stroke, in screen pixels. */
+    public static final double SCREEN_TOLERANCE = 0.5;
+
+    /** Shapes smaller than this on screen, in pixels, are sub-pixel. */
+    public static final double SUB_PIXEL_SIZE = 1.0;
+
+    /** Cached data per shape. */
+    private final Map<ShapeId, Entry> entries = new HashMap<>();
+
+    /**
+     * Picks the level to draw at a zoom level.
+     *
+     * @param scale The zoom level (scale factor).
+     * @return The index into {@link #LEVEL_TOLERANCES}, or -1 for the full stroke.
+     */
+    public static int levelFor(final double scale) {
+        final double allowed = StrokeSimplifier.toCanvasUnits(SCREEN_TOLERANCE, scale);
+        int level = -1;
+        for (int i = 0; i < LEVEL_TOLERANCES.length && LEVEL_TOLERANCES[i] <= allowed; i++) {
+            level = i;
+        }
+        return level;
+    }
+
+    /**
+     * Gets the points to draw for a shape at a zoom level.
+     * Only freehand strokes are simplified; other shapes keep their points.
+     *
+     * @param shape The shape.
+     * @param scale The zoom level.
+     * @return The points to draw; must not be modified.
+     */
+    public List<Point> pointsFor(final Shape shape, final double scale) {
+        final int level = levelFor(scale);
+        if (level < 0 || shape.getShapeType() != ShapeType.FREEHAND || shape.getPoints().size() < 3) {
+            return shape.getPoints();
+        }
+        final Entry entry = entryFor(shape);
+        if (entry.levels[level] == null) {
+            entry.levels[level] = StrokeSimplifier.simplify(entry.points, LEVEL_TOLERANCES[level]);
+        }
+        return entry.levels[level];
+    }
+
+    /**
+     * Checks whether a shape is smaller than a screen pixel at a zoom level.
+     *
+     * @param shape The shape.
+     * @param scale The zoom level.
+     * @return True if the shape's bounding box is under a pixel in both directions.
+     */
+    public boolean isSubPixel(final Shape shape, final double scale) {
+        final double[] b = boundsOf(shape);
+        return b != null && Math.max(b[2] - b[0], b[3] - b[1]) * scale < SUB_PIXEL_SIZE;
+    }
+
+    /**
+     * Gets the cached bounding box of a shape's points.
+     *
+     * @param shape The shape.
+     * @return minX, minY, maxX, maxY, or null if the shape has no points.
+     */
+    public double[] boundsOf(final Shape shape) {
+        return entryFor(shape).bounds;
+    }
+
+    /**
+     * Drops the entries of shapes not used since the previous call, e.g.
+     * shapes deleted since the last frame. Called once per frame.
+     */
+    public void evictUntouched() {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            final Entry entry = it.next();
+            if (!entry.touched) {
+                it.remove();
+            } else {
+                entry.touched = false;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of cached shapes.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry entryFor(final Shape shape) {
+        Entry entry = entries.get(shape.getShapeId());
+        final List<Point> points = shape.getPoints();
+        if (entry == null || entry.points != points || entry.pointCount != points.size()) {
+            entry = new Entry(points);
+            entries.put(shape.getShapeId(), entry);
+        }
+        entry.touched = true;
+        return entry;
+    }
+
+    /**
+     * Level-of-detail data for one version of a shape's points.
+     */
+    private static final class Entry {
+
+        /** The points the entry was built from, compared by identity. */
+        private final List<Point> points;
+
+        /** Number of points when built, in case the list was changed in place. */
+        private final int pointCount;
+
+        /** Bounding box: minX, minY, maxX, maxY; null if there are no points. */
+        private final double[] bounds;
+
+        /** Simplified polylines per level, built on first use. */
+        private final List<Point>[] levels;
+
+        /** Whether the entry was used since the last eviction. */
+        private boolean touched;
+
+        @SuppressWarnings("unchecked")
+        Entry(final List<Point> shapePoints) {
+            this.points = shapePoints;
+            this.pointCount = shapePoints.size();
+            this.bounds = computeBounds(shapePoints);
+            this.levels = new List[LEVEL_TOLERANCES.length];
+        }
+
+        private static double[] computeBounds(final List<Point> points) {
+            if (points.isEmpty()) {
+                return null;
+            }
+            double minX = Double.MAX_VALUE;
+            double minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+            for (final Point p : points) {
+                minX = Math.min(minX, p.getX());
+                minY = Math.min(minY, p.getY());
+                maxX = Math.max(maxX, p.getX());
+                maxY = Math.max(maxY, p.getY());
+            }
+            return new double[] {minX, minY, maxX, maxY};
+        }
+    }
+}
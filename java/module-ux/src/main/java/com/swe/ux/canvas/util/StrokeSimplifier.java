@@ -0,0 +1,145 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: StrokeSimplifier.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.ux.canvas.util;
+
+import com.swe.canvas.datamodel.shape.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Reduces the number of points in freehand strokes.
+ *
+ * <p>Two stages are applied:</p>
+ * <ul>
+ * <li><b>Decimation</b> while drawing: a mouse position is only recorded if
+ *     it is at least a minimum distance away from the last recorded one, so
+ *     sub-pixel jitter does not add points.</li>
+ * <li><b>Ramer–Douglas–Peucker</b> when the stroke is committed: points that
+ *     lie within a tolerance of the simplified polyline are dropped.</li>
+ * </ul>
+ *
+ * <p>Both thresholds are given in screen pixels and divided by the zoom
+ * level, so a stroke drawn while zoomed in keeps proportionally more detail.</p>
+ */
+public final class StrokeSimplifier {
+
+    /** Default minimum distance between recorded points, in screen pixels. */
+    public static final double DEFAULT_MIN_DISTANCE = 1.5;
+
+    /** Default simplification tolerance, in screen pixels. */
+    public static final double DEFAULT_TOLERANCE = 0.75;
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private StrokeSimplifier() {
+        // Utility class
+    }
+
+    /**
+     * Converts a threshold in screen pixels to canvas units.
+     *
+     * @param screenPixels The threshold on screen.
+     * @param zoom         The current zoom level (scale factor).
+     * @return The threshold in canvas coordinates.
+     */
+    public static double toCanvasUnits(final double screenPixels, final double zoom) {
+        return zoom > 0 ? screenPixels / zoom : screenPixels;
+    }
+
+    /**
+     * Decides whether a new mouse position should be recorded.
+     *
+     * @param last        The last recorded point (may be null).
+     * @param x           The new X coordinate.
+     * @param y           The new Y coordinate.
+     * @param minDistance The minimum distance, in canvas units.
+     * @return True if the point is far enough from the last one.
+     */
+    public static boolean shouldRecord(final Point last, final double x, final double y,
+                                       final double minDistance) {
+        if (last == null) {
+            return true;
+        }
+        final double dx = x - last.getX();
+        final double dy = y - last.getY();
+        return dx * dx + dy * dy >= minDistance * minDistance;
+    }
+
+    /**
+     * Simplifies a polyline with the Ramer–Douglas–Peucker algorithm.
+     * The first and last points are always kept.
+     *
+     * @param points    The polyline.
+     * @param tolerance The maximum distance of a dropped point from the result, in canvas units.
+     * @return The simplified polyline (a new list).
+     */
+    public static List<Point> simplify(final List<Point> points, final double tolerance) {
+        final int n = points.size();
+        if (n < 3 || tolerance <= 0) {
+            return new ArrayList<>(points);
+        }
+
+        final boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        final double toleranceSq = tolerance * tolerance;
+
+        // Iterative to avoid deep recursion on long strokes
+        final Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[] {0, n - 1});
+        while (!ranges.isEmpty()) {
+            final int[] range = ranges.pop();
+            final int first = range[0];
+            final int last = range[1];
+
+            double maxDistSq = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                final double d = segmentDistanceSq(points.get(i), points.get(first), points.get(last));
+                if (d > maxDistSq) {
+                    maxDistSq = d;
+                    farthest = i;
+                }
+            }
+            if (farthest != -1 && maxDistSq > toleranceSq) {
+                keep[farthest] = true;
+                ranges.push(new int[] {first, farthest});
+                ranges.push(new int[] {farthest, last});
+            }
+        }
+
+        final List<Point> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                result.add(points.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Squared distance from a point to the segment between two points.
+     */
+    private static double segmentDistanceSq(final Point p, final Point a, final Point b) {
+        final double dx = b.getX() - a.getX();
+        final double dy = b.getY() - a.getY();
+        final double lengthSq = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSq > 0) {
+            t = ((p.getX() - a.getX()) * dx + (p.getY() - a.getY()) * dy) / lengthSq;
+            t = Math.max(0, Math.min(1, t));
+        }
+        final double ex = p.getX() - (a.getX() + t * dx);
+        final double ey = p.getY() - (a.getY() + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
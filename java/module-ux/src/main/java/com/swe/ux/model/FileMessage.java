@@ -22,6 +22,9 @@ public class FileMessage {
     private final String filePath;      // Path from frontend
     private final byte[] fileContent;   // Compressed content for network
 
+    // Optional SHA-256 of the file, so receivers can serve it from their attachment cache
+    private String contentHash;
+
     // Constructor for Path-Mode (Frontend → Core)
     public FileMessage(String messageId, String userId, String senderDisplayName,
                        String caption, String fileName, String filePath, String replyToId) {
@@ -61,4 +64,7 @@ public class FileMessage {
     public byte[] getFileContent() { return fileContent; }
     public String getReplyToMessageId() { return replyToMessageId; }
     public LocalDateTime getTimestamp() { return timestamp; }
+    public String getContentHash() { return contentHash; }
+
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
 }
\ No newline at end of file
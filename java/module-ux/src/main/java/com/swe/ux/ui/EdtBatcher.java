@@ -0,0 +1,212 @@
+package com.swe.ux.ui;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects items submitted from any thread and hands them to the EDT in batches.
+ *
+ * <p>With a window of 0 every item submitted before the EDT gets round to the
+ * batch lands in it, so a burst costs one {@code invokeLater} and one layout
+ * instead of one per item. A positive window holds the batch open for that
+ * many milliseconds after its first item, trading a little latency for larger
+ * batches.</p>
+ *
+ * <p>Ingest rate and EDT time per batch are tracked and can be read with
+ * {@link #getStats()}.</p>
+ *
+ * @param <T> the item type
+ */
+public final class EdtBatcher<T> {
+
+    /** Nanoseconds per second. */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** Applies a batch on the EDT. */
+    private final Consumer<List<T>> sink;
+
+    /** Holds a windowed batch open; null when batching per EDT tick. */
+    private final Timer windowTimer;
+
+    /** Items waiting for the EDT. Guarded by this. */
+    private List<T> pending = new ArrayList<>();
+
+    /** Whether a flush is already scheduled. Guarded by this. */
+    private boolean scheduled;
+
+    /** Start of the current one-second ingest window. Guarded by this. */
+    private long rateWindowStart = System.nanoTime();
+
+    /** Items submitted in the current ingest window. Guarded by this. */
+    private int rateWindowCount;
+
+    /** Items per second over the last completed ingest window. Guarded by this. */
+    private double ingestRate;
+
+    /** Batches applied. Guarded by this. */
+    private long batches;
+
+    /** Items applied. Guarded by this. */
+    private long itemsApplied;
+
+    /** Size of the largest batch. Guarded by this. */
+    private int largestBatch;
+
+    /** EDT time of the last batch. Guarded by this. */
+    private long lastBatchNanos;
+
+    /** EDT time of the slowest batch. Guarded by this. */
+    private long maxBatchNanos;
+
+    /** EDT time of all batches. Guarded by this. */
+    private long totalBatchNanos;
+
+    /**
+     * Creates a batcher that flushes once per EDT tick.
+     *
+     * @param sink applies each batch on the EDT
+     */
+    public EdtBatcher(final Consumer<List<T>> sink) {
+        this(sink, 0);
+    }
+
+    /**
+     * Creates a batcher.
+     *
+     * @param sink     applies each batch on the EDT
+     * @param windowMs how long to hold a batch open after its first item, or 0 for one EDT tick
+     */
+    public EdtBatcher(final Consumer<List<T>> sink, final int windowMs) {
+        this.sink = sink;
+        if (windowMs > 0) {
+            windowTimer = new Timer(windowMs, e -> flush());
+            windowTimer.setRepeats(false);
+        } else {
+            windowTimer = null;
+        }
+    }
+
+    /**
+     * Queues an item. Safe to call from any thread.
+     *
+     * @param item the item
+     */
+    public void submit(final T item) {
+        final boolean schedule;
+        synchronized (this) {
+            pending.add(item);
+            countIngest();
+            rateWindowCount++;
+            schedule = !scheduled;
+            scheduled = true;
+        }
+        if (schedule) {
+            if (windowTimer != null) {
+                windowTimer.restart();
+            } else {
+                SwingUtilities.invokeLater(this::flush);
+            }
+        }
+    }
+
+    /**
+     * Applies everything queued so far. Must be called on the EDT; callers that
+     * touch the same view outside the batcher use it to keep their changes in
+     * order with queued ones.
+     */
+    public void flush() {
+        final List<T> batch;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        if (windowTimer != null) {
+            windowTimer.stop();
+        }
+
+        final long start = System.nanoTime();
+        try {
+            sink.accept(batch);
+        } catch (Exception e) {
+            System.err.println("[EdtBatcher] Failed to apply batch of " + batch.size() + ": " + e.getMessage());
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        synchronized (this) {
+            batches++;
+            itemsApplied += batch.size();
+            largestBatch = Math.max(largestBatch, batch.size());
+            lastBatchNanos = elapsed;
+            maxBatchNanos = Math.max(maxBatchNanos, elapsed);
+            totalBatchNanos += elapsed;
+        }
+    }
+
+    /**
+     * Gets the number of items waiting for the EDT.
+     *
+     * @return the pending count
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Gets a snapshot of the batching metrics.
+     *
+     * @return the stats
+     */
+    public synchronized Stats getStats() {
+        countIngest();
+        return new Stats(ingestRate, batches, itemsApplied, largestBatch,
+                lastBatchNanos / NANOS_PER_MILLI,
+                maxBatchNanos / NANOS_PER_MILLI,
+                batches == 0 ? 0 : totalBatchNanos / NANOS_PER_MILLI / batches);
+    }
+
+    /**
+     * Rolls the ingest window over once a second has passed.
+     */
+    private void countIngest() {
+        final long now = System.nanoTime();
+        final long elapsed = now - rateWindowStart;
+        if (elapsed >= NANOS_PER_SECOND) {
+            ingestRate = rateWindowCount * (double) NANOS_PER_SECOND / elapsed;
+            rateWindowStart = now;
+            rateWindowCount = 0;
+        }
+    }
+
+    /**
+     * Batching metrics at one point in time.
+     *
+     * @param ingestPerSecond  items submitted per second over the last full second
+     * @param batches          batches applied
+     * @param items            items applied
+     * @param largestBatch     size of the largest batch
+     * @param lastBatchMillis  EDT time of the last batch
+     * @param maxBatchMillis   EDT time of the slowest batch
+     * @param meanBatchMillis  mean EDT time per batch
+     */
+    public record Stats(double ingestPerSecond, long batches, long items, int largestBatch,
+                        double lastBatchMillis, double maxBatchMillis, double meanBatchMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%.1f msg/s in, %d batches (%d items, largest %d),"
+                            + " EDT last %.2f ms / max %.2f ms / mean %.2f ms",
+                    ingestPerSecond, batches, items, largestBatch,
+                    lastBatchMillis, maxBatchMillis, meanBatchMillis);
+        }
+    }
+}
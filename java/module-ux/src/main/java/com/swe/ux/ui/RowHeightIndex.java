@@ -0,0 +1,154 @@
+package com.swe.ux.ui;
+
+import java.util.Arrays;
+
+/**
+ * Heights of the rows of a virtual list, with fast offset lookups.
+ *
+ * <p>Backed by a Fenwick tree: appending a row, changing a row's height,
+ * finding a row's y-offset and finding the row at a y-offset are all
+ * O(log n), so a list of thousands of rows never has to walk every row to
+ * lay itself out. Rows of height 0 take no space and are never returned by
+ * {@link #indexAt(int)}.</p>
+ */
+public final class RowHeightIndex {
+
+    /** Initial capacity. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Fenwick tree, 1-based. */
+    private int[] tree = new int[INITIAL_CAPACITY + 1];
+
+    /** Height of each row, 0-based. */
+    private int[] heights = new int[INITIAL_CAPACITY];
+
+    /** Number of rows. */
+    private int size;
+
+    /** Sum of all heights. */
+    private int total;
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the sum of all row heights.
+     *
+     * @return the total height
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param height the row height
+     */
+    public void add(final int height) {
+        if (size == heights.length) {
+            heights = Arrays.copyOf(heights, size * 2);
+            tree = Arrays.copyOf(tree, size * 2 + 1);
+        }
+        heights[size] = height;
+        size++;
+        // Node i covers rows (i - lowbit(i), i]; all but the new one are already summed
+        tree[size] = height + prefix(size - 1) - prefix(size - (size & -size));
+        total += height;
+    }
+
+    /**
+     * Changes the height of a row.
+     *
+     * @param index  the row
+     * @param height the new height
+     */
+    public void set(final int index, final int height) {
+        checkIndex(index);
+        final int delta = height - heights[index];
+        if (delta == 0) {
+            return;
+        }
+        heights[index] = height;
+        for (int i = index + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+        total += delta;
+    }
+
+    /**
+     * Gets the height of a row.
+     *
+     * @param index the row
+     * @return its height
+     */
+    public int get(final int index) {
+        checkIndex(index);
+        return heights[index];
+    }
+
+    /**
+     * Gets the y-offset of a row: the sum of the heights of the rows before it.
+     *
+     * @param index the row, or {@link #size()} for the end of the list
+     * @return its offset
+     */
+    public int offsetOf(final int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+        return prefix(index);
+    }
+
+    /**
+     * Finds the row covering a y-offset.
+     *
+     * @param y the offset
+     * @return the row, or -1 if the offset is outside the list
+     */
+    public int indexAt(final int y) {
+        if (y < 0 || y >= total) {
+            return -1;
+        }
+        int pos = 0;
+        int remaining = y;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            final int next = pos + step;
+            if (next <= size && tree[next] <= remaining) {
+                pos = next;
+                remaining -= tree[next];
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Removes all rows.
+     */
+    public void clear() {
+        Arrays.fill(tree, 0, size + 1, 0);
+        Arrays.fill(heights, 0, size, 0);
+        size = 0;
+        total = 0;
+    }
+
+    private int prefix(final int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.swe.ux.ui;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.LineMetrics;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Word-wrapped text laid out once and kept by key, e.g. by message ID.
+ *
+ * <p>Laying out a paragraph with {@link LineBreakMeasurer} is the expensive
+ * part of drawing wrapped text; drawing the resulting {@link TextLayout}s is
+ * cheap. An entry is reused for as long as its text, font and wrap width stay
+ * the same, so a row that is painted, re-measured or re-themed again is not
+ * laid out again. Colours are applied when drawing and are not part of the
+ * entry. The least recently used entries are dropped beyond a fixed count.</p>
+ *
+ * <p>Text is plain: {@code '\n'} starts a new line and nothing else is
+ * interpreted. Layouts use {@link #RENDER_CONTEXT}, so they measure the same
+ * whatever component or screen they are first asked for on.</p>
+ *
+ * <p><b>Thread Safety:</b> Not thread-safe; use it on the EDT.</p>
+ */
+public final class TextLayoutCache {
+
+    /** Default number of entries kept. */
+    public static final int DEFAULT_CAPACITY = 2048;
+
+    /** Antialiased, fractional metrics; the hints to draw with must match. */
+    public static final FontRenderContext RENDER_CONTEXT = new FontRenderContext(null, true, true);
+
+    /** Most entries kept. */
+    private final int capacity;
+
+    /** Entries by key, least recently used first. */
+    private final LinkedHashMap<String, WrappedText> entries;
+
+    /**
+     * Text wrapped to a width: its lines and where their baselines are.
+     */
+    public static final class WrappedText {
+        /** The text. */
+        private final String text;
+        /** The font. */
+        private final Font font;
+        /** Width the text was wrapped to. */
+        private final int wrapWidth;
+        /** One layout per line. */
+        private final TextLayout[] lines;
+        /** Baseline of each line, from the top. */
+        private final float[] baselines;
+        /** Total height in pixels, rounded up. */
+        private final int height;
+
+        /**
+         * Lays text out.
+         *
+         * @param textParam  the text
+         * @param fontParam  the font
+         * @param widthParam the width to wrap at
+         */
+        WrappedText(final String textParam, final Font fontParam, final int widthParam) {
+            this.text = textParam;
+            this.font = fontParam;
+            this.wrapWidth = widthParam;
+
+            final List<TextLayout> laid = new ArrayList<>();
+            final List<Float> tops = new ArrayList<>();
+            final LineMetrics blank = fontParam.getLineMetrics(" ", RENDER_CONTEXT);
+            float y = 0;
+            if (!textParam.isEmpty()) {
+                for (String paragraph : textParam.split("\n", -1)) {
+                    if (paragraph.isEmpty()) {
+                        y += blank.getAscent() + blank.getDescent() + blank.getLeading();
+                        continue;
+                    }
+                    final AttributedString styled = new AttributedString(paragraph);
+                    styled.addAttribute(TextAttribute.FONT, fontParam);
+                    final LineBreakMeasurer measurer =
+                            new LineBreakMeasurer(styled.getIterator(), RENDER_CONTEXT);
+                    while (measurer.getPosition() < paragraph.length()) {
+                        final TextLayout line = measurer.nextLayout(Math.max(1, widthParam));
+                        y += line.getAscent();
+                        laid.add(line);
+                        tops.add(y);
+                        y += line.getDescent() + line.getLeading();
+                    }
+                }
+            }
+            this.lines = laid.toArray(new TextLayout[0]);
+            this.baselines = new float[tops.size()];
+            for (int i = 0; i < baselines.length; i++) {
+                baselines[i] = tops.get(i);
+            }
+            this.height = (int) Math.ceil(y);
+        }
+
+        /**
+         * Checks whether this layout is still right for some text.
+         *
+         * @param textParam  the text
+         * @param fontParam  the font
+         * @param widthParam the width to wrap at
+         * @return true if nothing changed
+         */
+        private boolean matches(final String textParam, final Font fontParam, final int widthParam) {
+            return wrapWidth == widthParam && text.equals(textParam) && font.equals(fontParam);
+        }
+
+        /**
+         * Gets the number of lines.
+         *
+         * @return the line count
+         */
+        public int getLineCount() {
+            return lines.length;
+        }
+
+        /**
+         * Gets the height of all lines.
+         *
+         * @return the height in pixels, rounded up
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Draws the lines in the graphics' current colour.
+         *
+         * @param g the graphics, with hints matching {@link #RENDER_CONTEXT}
+         * @param x left edge
+         * @param y top edge
+         */
+        public void draw(final Graphics2D g, final float x, final float y) {
+            for (int i = 0; i < lines.length; i++) {
+                lines[i].draw(g, x, y + baselines[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates a cache of {@link #DEFAULT_CAPACITY} entries.
+     */
+    public TextLayoutCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacityParam most entries kept
+     */
+    public TextLayoutCache(final int capacityParam) {
+        this.capacity = capacityParam;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, WrappedText> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the layout of a key's text, laying it out only if the key is new
+     * or its text, font or width changed.
+     *
+     * @param key   identifies the text, e.g. a message ID
+     * @param text  the text; null is treated as empty
+     * @param font  the font
+     * @param width the width to wrap at
+     * @return the layout
+     */
+    public WrappedText get(final String key, final String text, final Font font, final int width) {
+        Objects.requireNonNull(font, "font");
+        final String value = text != null ? text : "";
+        final WrappedText cached = entries.get(key);
+        if (cached != null && cached.matches(value, font, width)) {
+            return cached;
+        }
+        final WrappedText laid = new WrappedText(value, font, width);
+        entries.put(key, laid);
+        return laid;
+    }
+
+    /**
+     * Drops a key's layout, e.g. once its row is gone.
+     *
+     * @param key the key
+     */
+    public void remove(final String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Drops every layout.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of layouts kept.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,351 @@
+package com.swe.ux.ui;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Builds small previews of image attachments off the EDT and keeps them in
+ * memory and on disk.
+ *
+ * <p>{@link #get(String)} never blocks: it returns the thumbnail if it is in
+ * memory and otherwise null, and {@link #request(String)} queues the work.
+ * A worker first looks in the disk cache and otherwise decodes the source
+ * with {@link ImageReadParam} subsampling, so a 40 MP photo is never fully
+ * decoded. It then scales the result to fit a fixed box and saves it as
+ * PNG. The newest request runs first, so rows scrolled into view win over
+ * rows already scrolled past. Memory is bounded by an LRU of decoded pixels;
+ * images that fail to decode are remembered and not retried.</p>
+ */
+public final class ThumbnailCache {
+
+    /** Default edge of the square box thumbnails fit in. */
+    public static final int DEFAULT_SIZE = 160;
+
+    /** Default memory budget for decoded thumbnails. */
+    public static final long DEFAULT_MEMORY_BYTES = 16L * 1024 * 1024;
+
+    /** Bytes per ARGB pixel. */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /** Background decoder threads. */
+    private static final int WORKERS = 2;
+
+    /** Edge of the thumbnail box. */
+    private final int size;
+
+    /** Memory budget in bytes. */
+    private final long memoryBudget;
+
+    /** Directory of saved thumbnails; null for memory only. */
+    private final Path diskDirectory;
+
+    /** Finds the image file for a key; may return null. Called off the EDT. */
+    private final Function<String, Path> sourceResolver;
+
+    /** Told on the EDT when a key's thumbnail is ready. */
+    private final Consumer<String> onReady;
+
+    /** Thumbnails in memory, least recently used first. Guarded by itself. */
+    private final LinkedHashMap<String, BufferedImage> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Bytes held by {@link #memory}. Guarded by memory. */
+    private long memoryBytes;
+
+    /** Keys queued or being decoded. */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /** Keys whose image could not be decoded. */
+    private final Set<String> failed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /** Decoder pool, newest task first. */
+    private final ExecutorService workers;
+
+    /**
+     * Creates a thumbnail cache.
+     *
+     * @param sizeParam      edge of the box thumbnails fit in
+     * @param memoryBytes    memory budget for decoded thumbnails
+     * @param directory      where to save thumbnails, or null to keep them in memory only
+     * @param resolver       finds the image file for a key, or returns null if there is none yet
+     * @param readyListener  told on the EDT when a key's thumbnail is ready
+     */
+    public ThumbnailCache(final int sizeParam, final long memoryBytes, final Path directory,
+                          final Function<String, Path> resolver, final Consumer<String> readyListener) {
+        this.size = sizeParam;
+        this.memoryBudget = memoryBytes;
+        this.diskDirectory = directory;
+        this.sourceResolver = resolver;
+        this.onReady = readyListener;
+        this.workers = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingDeque<Runnable>() {
+                    @Override
+                    public boolean offer(final Runnable task) {
+                        return offerFirst(task);
+                    }
+                },
+                task -> {
+                    final Thread thread = new Thread(task, "chat-thumbnails");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    /**
+     * Checks whether a file name looks like an image ImageIO can read.
+     *
+     * @param fileName the file name
+     * @return true for readable image types
+     */
+    public static boolean isImage(final String fileName) {
+        if (fileName == null) {
+            return false;
+        }
+        final int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot == fileName.length() - 1) {
+            return false;
+        }
+        return ImageIO.getImageReadersBySuffix(fileName.substring(dot + 1).toLowerCase(Locale.ROOT)).hasNext();
+    }
+
+    /**
+     * Gets the edge of the box thumbnails fit in.
+     *
+     * @return the size in pixels
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets a thumbnail if it is in memory. Never blocks.
+     *
+     * @param key the key, e.g. a message ID
+     * @return the thumbnail, or null if it is not loaded
+     */
+    public BufferedImage get(final String key) {
+        synchronized (memory) {
+            return memory.get(key);
+        }
+    }
+
+    /**
+     * Queues a thumbnail to be loaded unless it is in memory, already queued
+     * or known to be unreadable.
+     *
+     * @param key the key, e.g. a message ID
+     */
+    public void request(final String key) {
+        if (get(key) != null || failed.contains(key) || !inFlight.add(key)) {
+            return;
+        }
+        workers.execute(() -> {
+            try {
+                final BufferedImage thumbnail = load(key);
+                if (thumbnail != null) {
+                    remember(key, thumbnail);
+                    SwingUtilities.invokeLater(() -> onReady.accept(key));
+                }
+            } finally {
+                inFlight.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Gets the bytes of decoded thumbnails held in memory.
+     *
+     * @return the memory in use
+     */
+    public long getMemoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    /**
+     * Stops the decoder threads.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Loads a thumbnail from disk or builds it from its source.
+     *
+     * @param key the key
+     * @return the thumbnail, or null if there is no source yet or it cannot be read
+     */
+    private BufferedImage load(final String key) {
+        final Path saved = diskDirectory != null ? diskDirectory.resolve(fileNameFor(key)) : null;
+        if (saved != null && Files.isRegularFile(saved)) {
+            try {
+                final BufferedImage image = ImageIO.read(saved.toFile());
+                if (image != null) {
+                    return image;
+                }
+            } catch (IOException e) {
+                System.err.println("[ThumbnailCache] Unreadable saved thumbnail " + saved + ": " + e.getMessage());
+            }
+        }
+
+        final Path source = sourceResolver.apply(key);
+        if (source == null || !Files.isRegularFile(source)) {
+            // Not available yet, e.g. not downloaded; a later request may succeed
+            return null;
+        }
+        try {
+            final BufferedImage thumbnail = createThumbnail(source, size);
+            if (thumbnail == null) {
+                failed.add(key);
+                return null;
+            }
+            if (saved != null) {
+                save(thumbnail, saved);
+            }
+            return thumbnail;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[ThumbnailCache] Could not decode " + source + ": " + e.getMessage());
+            failed.add(key);
+            return null;
+        }
+    }
+
+    /**
+     * Decodes an image subsampled to about twice the box and scales it to fit.
+     *
+     * @param source the image file
+     * @param box    edge of the box to fit in
+     * @return the thumbnail, or null if no reader understands the file
+     * @throws IOException if the file cannot be read
+     */
+    static BufferedImage createThumbnail(final Path source, final int box) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                final int width = reader.getWidth(0);
+                final int height = reader.getHeight(0);
+                final ImageReadParam param = reader.getDefaultReadParam();
+                // Keep about twice the target resolution for a clean downscale
+                final int step = Math.max(1, Math.max(width, height) / (box * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return scaleToFit(reader.read(0, param), box);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image to fit a square box, keeping its aspect ratio.
+     *
+     * @param image the image
+     * @param box   edge of the box
+     * @return the scaled ARGB image
+     */
+    private static BufferedImage scaleToFit(final BufferedImage image, final int box) {
+        final double scale = Math.min(1.0, Math.min((double) box / image.getWidth(), (double) box / image.getHeight()));
+        final int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        final int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        final BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g2 = scaled.createGraphics();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g2.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Writes a thumbnail to disk, replacing the file in one step.
+     *
+     * @param thumbnail the thumbnail
+     * @param target    the file
+     */
+    private static void save(final BufferedImage thumbnail, final Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            final Path partial = target.resolveSibling(target.getFileName() + ".part");
+            ImageIO.write(thumbnail, "png", partial.toFile());
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("[ThumbnailCache] Could not save " + target + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a thumbnail to memory and evicts the least recently used over budget.
+     *
+     * @param key       the key
+     * @param thumbnail the thumbnail
+     */
+    private void remember(final String key, final BufferedImage thumbnail) {
+        synchronized (memory) {
+            final BufferedImage previous = memory.put(key, thumbnail);
+            if (previous != null) {
+                memoryBytes -= bytesOf(previous);
+            }
+            memoryBytes += bytesOf(thumbnail);
+            final Iterator<Map.Entry<String, BufferedImage>> it = memory.entrySet().iterator();
+            while (memoryBytes > memoryBudget && memory.size() > 1 && it.hasNext()) {
+                final Map.Entry<String, BufferedImage> eldest = it.next();
+                memoryBytes -= bytesOf(eldest.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Estimates the memory of a decoded image.
+     *
+     * @param image the image
+     * @return its size in bytes
+     */
+    private static long bytesOf(final BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * Maps a key to a safe file name.
+     *
+     * @param key the key
+     * @return the file name
+     */
+    private static String fileNameFor(final String key) {
+        return key.replaceAll("[^A-Za-z0-9._-]", "_") + ".png";
+    }
+}
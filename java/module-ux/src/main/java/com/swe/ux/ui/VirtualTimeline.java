@@ -0,0 +1,570 @@
+package com.swe.ux.ui;
+
+import javax.swing.AbstractButton;
+import javax.swing.CellRendererPane;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.ToolTipManager;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Virtualized vertical list of variable-height rows, e.g. a chat timeline.
+ *
+ * <p>Rows are painted through a {@link CellRendererPane}, like
+ * {@link javax.swing.JList}: the {@link RowRenderer} configures and returns a
+ * reused component for a row, and only the rows inside the clip are painted.
+ * Each row's height is measured when it is added or updated, and kept
+ * in a {@link RowHeightIndex}, so appending, updating and scrolling to a row
+ * cost O(log n) plus the rows on screen, whatever the length of the list.</p>
+ *
+ * <p>Renderer components are not live. A click is replayed on the row's
+ * renderer component: a button under the mouse is clicked, otherwise the
+ * click is sent to the nearest component with mouse listeners. Cursors and
+ * tooltips of the component under the mouse are shown the same way.</p>
+ *
+ * <p>Removed rows are kept as zero-height tombstones so the indices of the
+ * other rows stay valid.</p>
+ *
+ * <p>{@link #remeasureAll()} only marks heights stale; a stale row is
+ * measured again when it is next painted or scrolled to, so a theme change
+ * costs the rows on screen rather than the whole history.</p>
+ *
+ * <p>By default the timeline holds the row objects. With a
+ * {@link #setRowSource row source} it holds only their keys and looks rows
+ * up as they are painted, so the source can keep a bounded window in memory
+ * and page older rows back in when they scroll into view.</p>
+ *
+ * @param <T> the row type
+ */
+public class VirtualTimeline<T> extends JComponent implements Scrollable {
+    private static final long serialVersionUID = 1L;
+
+    /** Default scroll distance of one wheel notch. */
+    private static final int DEFAULT_UNIT_INCREMENT = 16;
+
+    /**
+     * Supplies the component that draws a row.
+     *
+     * @param <T> the row type
+     */
+    @FunctionalInterface
+    public interface RowRenderer<T> {
+        /**
+         * Configures a component to draw a row. The component may be reused
+         * for every row.
+         *
+         * @param item the row
+         * @return the configured component
+         */
+        Component getRowComponent(T item);
+    }
+
+    /** Paints the renderer components. */
+    private final CellRendererPane rendererPane = new CellRendererPane();
+    /** Row keys in order; null for removed rows. */
+    private final List<String> rows = new ArrayList<>();
+    /** Row objects by key, when there is no row source. */
+    private final Map<String, T> items = new HashMap<>();
+    /** Row index by key. */
+    private final Map<String, Integer> indexByKey = new HashMap<>();
+    /** Measured row heights. */
+    private final RowHeightIndex heights = new RowHeightIndex();
+    /** Rows whose height must be measured again before they are shown. */
+    private final BitSet stale = new BitSet();
+    /** Extracts the key of a row. */
+    private final Function<T, String> keyOf;
+    /** Draws the rows. */
+    private final RowRenderer<T> renderer;
+    /** Looks rows up by key, or null to hold them in {@link #items}. */
+    private Function<String, T> rowSource;
+
+    /** Row painted with the highlight, or -1. */
+    private int highlightedRow = -1;
+    /** Background of the highlighted row. */
+    private Color highlightColor = Color.YELLOW;
+    /** Clears the current highlight. */
+    private Timer highlightTimer;
+    /** Scroll distance of one wheel notch. */
+    private int unitIncrement = DEFAULT_UNIT_INCREMENT;
+
+    /**
+     * Creates an empty timeline.
+     *
+     * @param keyFunction extracts the unique key of a row
+     * @param rowRenderer draws the rows
+     */
+    public VirtualTimeline(final Function<T, String> keyFunction, final RowRenderer<T> rowRenderer) {
+        this.keyOf = keyFunction;
+        this.renderer = rowRenderer;
+        add(rendererPane);
+        setOpaque(true);
+        ToolTipManager.sharedInstance().registerComponent(this);
+
+        final MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseClicked(final MouseEvent e) {
+                dispatchClick(e);
+            }
+
+            @Override
+            public void mouseMoved(final MouseEvent e) {
+                final Component target = targetAt(e.getPoint());
+                setCursor(target != null ? target.getCursor() : Cursor.getDefaultCursor());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    /**
+     * Looks rows up by key when they are painted instead of holding them.
+     * Set before adding rows.
+     *
+     * @param source returns the row for a key, or null if it is gone
+     */
+    public void setRowSource(final Function<String, T> source) {
+        this.rowSource = source;
+        items.clear();
+    }
+
+    /**
+     * Adds a row at the end, or updates the row with the same key in place.
+     *
+     * @param item the row
+     * @return true if the row was appended, false if it replaced an existing one
+     */
+    public boolean put(final T item) {
+        final String key = keyOf.apply(item);
+        final Integer existing = indexByKey.get(key);
+        final int height = measure(item);
+        if (rowSource == null) {
+            items.put(key, item);
+        }
+        if (existing != null) {
+            final int row = existing;
+            final int oldHeight = heights.get(row);
+            heights.set(row, height);
+            stale.clear(row);
+            if (oldHeight != height) {
+                revalidate();
+                repaintFrom(row);
+            } else {
+                repaint(getRowBounds(row));
+            }
+            return false;
+        }
+        final int row = rows.size();
+        rows.add(key);
+        indexByKey.put(key, row);
+        heights.add(height);
+        revalidate();
+        repaint(getRowBounds(row));
+        return true;
+    }
+
+    /**
+     * Removes the row with a key.
+     *
+     * @param key the row key
+     * @return true if a row was removed
+     */
+    public boolean remove(final String key) {
+        final Integer row = indexByKey.remove(key);
+        if (row == null) {
+            return false;
+        }
+        rows.set(row, null);
+        items.remove(key);
+        heights.set(row, 0);
+        stale.clear(row);
+        if (highlightedRow == row) {
+            highlightedRow = -1;
+        }
+        revalidate();
+        repaintFrom(row);
+        return true;
+    }
+
+    /**
+     * Removes all rows.
+     */
+    public void clear() {
+        rows.clear();
+        items.clear();
+        indexByKey.clear();
+        heights.clear();
+        stale.clear();
+        highlightedRow = -1;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Gets the number of rows still shown.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return indexByKey.size();
+    }
+
+    /**
+     * Checks whether a row is shown.
+     *
+     * @param key the row key
+     * @return true if the row exists
+     */
+    public boolean contains(final String key) {
+        return indexByKey.containsKey(key);
+    }
+
+    /**
+     * Marks every row for re-measuring, e.g. after a font change. The rows in
+     * view are measured now and the others when they scroll into view, so
+     * rows held by a row source are not looked up until then.
+     */
+    public void remeasureAll() {
+        final List<String> visible = getVisibleKeys();
+        stale.set(0, rows.size());
+        for (String key : visible) {
+            remeasure(indexByKey.get(key));
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Scrolls so that the row with a key is visible.
+     *
+     * @param key the row key
+     * @return true if the row exists
+     */
+    public boolean scrollToKey(final String key) {
+        final Integer row = indexByKey.get(key);
+        if (row == null) {
+            return false;
+        }
+        if (stale.get(row) && remeasure(row)) {
+            revalidate();
+        }
+        scrollRectToVisible(getRowBounds(row));
+        return true;
+    }
+
+    /**
+     * Scrolls to the end of the list.
+     */
+    public void scrollToEnd() {
+        final Insets in = getInsets();
+        scrollRectToVisible(new Rectangle(0, in.top + heights.total(), 1, in.bottom + 1));
+    }
+
+    /**
+     * Paints a row with the highlight background for a while.
+     *
+     * @param key      the row key
+     * @param duration how long to highlight, in milliseconds
+     */
+    public void highlight(final String key, final int duration) {
+        final Integer row = indexByKey.get(key);
+        if (row == null) {
+            return;
+        }
+        if (highlightTimer != null) {
+            highlightTimer.stop();
+        }
+        repaintRow(highlightedRow);
+        highlightedRow = row;
+        repaintRow(row);
+        highlightTimer = new Timer(duration, e -> {
+            repaintRow(highlightedRow);
+            highlightedRow = -1;
+            ((Timer) e.getSource()).stop();
+        });
+        highlightTimer.start();
+    }
+
+    /**
+     * Sets the background of highlighted rows.
+     *
+     * @param color the color
+     */
+    public void setHighlightColor(final Color color) {
+        this.highlightColor = color;
+    }
+
+    /**
+     * Sets the scroll distance of one wheel notch.
+     *
+     * @param increment the distance in pixels
+     */
+    public void setUnitIncrement(final int increment) {
+        this.unitIncrement = increment;
+    }
+
+    /**
+     * Gets the keys of the rows currently in view, top to bottom.
+     *
+     * @return the visible keys
+     */
+    public List<String> getVisibleKeys() {
+        final Rectangle view = getVisibleRect();
+        final List<String> keys = new ArrayList<>();
+        if (view.isEmpty()) {
+            return keys;
+        }
+        int row = Math.max(0, rowAtY(Math.max(view.y, getInsets().top)));
+        final int bottom = view.y + view.height;
+        for (; row < rows.size(); row++) {
+            if (rows.get(row) == null) {
+                continue;
+            }
+            if (getInsets().top + heights.offsetOf(row) >= bottom) {
+                break;
+            }
+            keys.add(rows.get(row));
+        }
+        return keys;
+    }
+
+    /**
+     * Repaints the row with a key, e.g. when an image it shows has loaded.
+     *
+     * @param key the row key
+     */
+    public void repaintKey(final String key) {
+        final Integer row = indexByKey.get(key);
+        if (row != null) {
+            repaint(getRowBounds(row));
+        }
+    }
+
+    /**
+     * Gets the bounds of a row in this component.
+     *
+     * @param row the row index
+     * @return its bounds
+     */
+    public Rectangle getRowBounds(final int row) {
+        final Insets in = getInsets();
+        return new Rectangle(in.left, in.top + heights.offsetOf(row),
+                Math.max(0, getWidth() - in.left - in.right), heights.get(row));
+    }
+
+    /**
+     * Finds the row at a y-coordinate.
+     *
+     * @param y the coordinate in this component
+     * @return the row index, or -1 if there is none
+     */
+    public int rowAtY(final int y) {
+        return heights.indexAt(y - getInsets().top);
+    }
+
+    @Override
+    protected void paintComponent(final Graphics g) {
+        final Rectangle clip = g.getClipBounds() != null
+                ? g.getClipBounds() : new Rectangle(0, 0, getWidth(), getHeight());
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        }
+        final int bottom = clip.y + clip.height;
+        if (remeasureStale(clip.y, bottom)) {
+            // Rows below moved; the scroll pane picks up the new height later
+            revalidate();
+        }
+        int row = Math.max(0, rowAtY(Math.max(clip.y, getInsets().top)));
+        for (; row < rows.size(); row++) {
+            if (rows.get(row) == null) {
+                continue;
+            }
+            final Rectangle bounds = getRowBounds(row);
+            if (bounds.y >= bottom) {
+                break;
+            }
+            final T item = itemAt(row);
+            if (item == null) {
+                continue;
+            }
+            if (row == highlightedRow) {
+                g.setColor(highlightColor);
+                g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+            }
+            rendererPane.paintComponent(g, renderer.getRowComponent(item), this,
+                    bounds.x, bounds.y, bounds.width, bounds.height, true);
+        }
+        rendererPane.removeAll();
+    }
+
+    @Override
+    public String getToolTipText(final MouseEvent event) {
+        final Component target = targetAt(event.getPoint());
+        if (target instanceof JComponent) {
+            return ((JComponent) target).getToolTipText();
+        }
+        return null;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        final Insets in = getInsets();
+        return new Dimension(in.left + in.right, in.top + heights.total() + in.bottom);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(final Rectangle visibleRect, final int orientation,
+                                          final int direction) {
+        return unitIncrement;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(final Rectangle visibleRect, final int orientation,
+                                           final int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // Fill the viewport while the rows are shorter than it
+        return getParent() instanceof JViewport
+                && getParent().getHeight() > getPreferredSize().height;
+    }
+
+    private T itemAt(final int row) {
+        final String key = rows.get(row);
+        if (key == null) {
+            return null;
+        }
+        return rowSource != null ? rowSource.apply(key) : items.get(key);
+    }
+
+    private int measure(final T item) {
+        return renderer.getRowComponent(item).getPreferredSize().height;
+    }
+
+    /**
+     * Measures the stale rows between two y-coordinates. Rows above are left
+     * alone, so what is on screen does not jump.
+     *
+     * @return true if a height changed
+     */
+    private boolean remeasureStale(final int top, final int bottom) {
+        final Insets in = getInsets();
+        boolean changed = false;
+        int row = stale.nextSetBit(Math.max(0, rowAtY(Math.max(top, in.top))));
+        while (row >= 0 && row < rows.size() && in.top + heights.offsetOf(row) < bottom) {
+            changed |= remeasure(row);
+            row = stale.nextSetBit(row + 1);
+        }
+        return changed;
+    }
+
+    /**
+     * Measures a row again and clears its stale mark.
+     *
+     * @return true if its height changed
+     */
+    private boolean remeasure(final int row) {
+        stale.clear(row);
+        final T item = itemAt(row);
+        if (item == null) {
+            return false;
+        }
+        final int height = measure(item);
+        if (height == heights.get(row)) {
+            return false;
+        }
+        heights.set(row, height);
+        return true;
+    }
+
+    /**
+     * Lays out the renderer component of the row under a point and finds the
+     * component that should react to the mouse there.
+     */
+    private Component targetAt(final Point p) {
+        final int row = rowAtY(p.y);
+        final T item = row < 0 ? null : itemAt(row);
+        if (item == null) {
+            return null;
+        }
+        final Rectangle bounds = getRowBounds(row);
+        if (!bounds.contains(p)) {
+            return null;
+        }
+        final Component cell = renderer.getRowComponent(item);
+        rendererPane.add(cell);
+        cell.setBounds(0, 0, bounds.width, bounds.height);
+        cell.validate();
+        Component target = SwingUtilities.getDeepestComponentAt(cell, p.x - bounds.x, p.y - bounds.y);
+        while (target != null && target != rendererPane) {
+            if (target instanceof AbstractButton) {
+                return target.isEnabled() ? target : null;
+            }
+            if (target.getMouseListeners().length > 0 && target != cell) {
+                return target;
+            }
+            target = target.getParent();
+        }
+        return null;
+    }
+
+    private void dispatchClick(final MouseEvent e) {
+        if (!SwingUtilities.isLeftMouseButton(e)) {
+            return;
+        }
+        final Component target = targetAt(e.getPoint());
+        if (target instanceof AbstractButton) {
+            ((AbstractButton) target).doClick(0);
+        } else if (target != null) {
+            // The renderer pane sits at the origin, so shift by the row's offset
+            final Rectangle bounds = getRowBounds(rowAtY(e.getY()));
+            final Point local = SwingUtilities.convertPoint(this, e.getX() - bounds.x,
+                    e.getY() - bounds.y, target);
+            target.dispatchEvent(new MouseEvent(target, MouseEvent.MOUSE_CLICKED, e.getWhen(),
+                    e.getModifiersEx(), local.x, local.y, e.getClickCount(), false, e.getButton()));
+        }
+        rendererPane.removeAll();
+    }
+
+    private void repaintRow(final int row) {
+        if (row >= 0 && row < rows.size()) {
+            repaint(getRowBounds(row));
+        }
+    }
+
+    private void repaintFrom(final int row) {
+        final Rectangle bounds = getRowBounds(row);
+        repaint(bounds.x, bounds.y, bounds.width, Math.max(0, getHeight() - bounds.y));
+    }
+}
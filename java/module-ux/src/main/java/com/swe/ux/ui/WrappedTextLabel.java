@@ -0,0 +1,106 @@
+package com.swe.ux.ui;
+
+import javax.swing.JComponent;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.RenderingHints;
+
+/**
+ * Plain-text label that wraps at a fixed width, drawn from a shared
+ * {@link TextLayoutCache}.
+ *
+ * <p>Stands in for a {@code JLabel} holding an HTML paragraph: it takes the
+ * full wrap width and the height of its lines, but never parses markup and
+ * lays each key's text out only once. Useful as a list renderer component,
+ * which is re-pointed at a different row for every paint.</p>
+ */
+public class WrappedTextLabel extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    /** Where the layouts are kept. */
+    private final transient TextLayoutCache cache;
+
+    /** Width the text wraps at. */
+    private int wrapWidth;
+
+    /** Current layout; null before the first {@link #setText}. */
+    private transient TextLayoutCache.WrappedText layout;
+
+    /**
+     * Creates an empty label.
+     *
+     * @param layoutCache where the layouts are kept
+     * @param width       the width the text wraps at
+     */
+    public WrappedTextLabel(final TextLayoutCache layoutCache, final int width) {
+        this.cache = layoutCache;
+        this.wrapWidth = width;
+        // Line up like a JLabel in a vertical box
+        setAlignmentX(LEFT_ALIGNMENT);
+    }
+
+    /**
+     * Shows a text in the current font.
+     *
+     * @param key  identifies the text in the cache, e.g. a message ID
+     * @param text the text
+     */
+    public void setText(final String key, final String text) {
+        layout = cache.get(key, text, getFont(), wrapWidth);
+    }
+
+    /**
+     * Sets the width the text wraps at. Takes effect at the next
+     * {@link #setText}.
+     *
+     * @param width the width in pixels
+     */
+    public void setWrapWidth(final int width) {
+        this.wrapWidth = width;
+    }
+
+    /**
+     * Gets the number of lines shown.
+     *
+     * @return the line count
+     */
+    public int getLineCount() {
+        return layout != null ? layout.getLineCount() : 0;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        final Insets insets = getInsets();
+        final int height = layout != null ? layout.getHeight() : 0;
+        return new Dimension(wrapWidth + insets.left + insets.right, height + insets.top + insets.bottom);
+    }
+
+    @Override
+    public Dimension getMinimumSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public Dimension getMaximumSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    protected void paintComponent(final Graphics g) {
+        if (layout == null) {
+            return;
+        }
+        final Graphics2D g2 = (Graphics2D) g.create();
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        g2.setColor(getForeground());
+        final Insets insets = getInsets();
+        layout.draw(g2, insets.left, insets.top);
+        g2.dispose();
+    }
+}
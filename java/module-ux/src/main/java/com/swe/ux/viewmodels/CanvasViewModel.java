@@ -1,9 +1,13 @@
 package com.swe.ux.viewmodels;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import com.swe.canvas.datamodel.action.ActionFactory;
@@ -19,17 +23,21 @@ import com.swe.canvas.datamodel.shape.ShapeId;
 import com.swe.canvas.datamodel.shape.ShapeType;
 import com.swe.ux.canvas.util.ColorConverter;
 import com.swe.ux.canvas.util.GeometryUtils;
+import com.swe.ux.canvas.util.StrokeSimplifier;
 
-import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.scene.paint.Color;
 
 public class CanvasViewModel {
 
-    
+    /** Smallest marquee, in canvas units, that selects anything (smaller is a click). */
+    private static final double MIN_MARQUEE_SIZE = 2.0;
+
     private final ActionManager actionManager;
     private final CanvasState canvasState;
     private final ActionFactory actionFactory;
@@ -41,21 +49,41 @@ public class CanvasViewModel {
     public final DoubleProperty activeStrokeWidth = new SimpleDoubleProperty(2.0);
     public final ObjectProperty<ShapeId> selectedShapeId = new SimpleObjectProperty<>(null);
 
+    /** Current zoom level of the view; freehand thresholds are scaled by it. */
+    public final DoubleProperty zoomLevel = new SimpleDoubleProperty(1.0);
+    /** Minimum distance between recorded freehand points, in screen pixels. */
+    public final DoubleProperty minPointDistance = new SimpleDoubleProperty(StrokeSimplifier.DEFAULT_MIN_DISTANCE);
+    /** Freehand simplification tolerance on commit, in screen pixels (0 disables). */
+    public final DoubleProperty simplifyTolerance = new SimpleDoubleProperty(StrokeSimplifier.DEFAULT_TOLERANCE);
+
     private final List<Point> currentPoints = new ArrayList<>();
 
-    // Ghost Shape Logic
+    // Ghost Shape Logic: only while a gesture is in progress. Committed actions
+    // are applied to the canvas state optimistically by the action manager.
     private Shape transientShape = null;
-    private Timer ghostTimer = new Timer(true);
-
-    // FIX: Track the intent of the ghost (Are we waiting for it to vanish or appear?)
-    private boolean isPendingDelete = false;
 
     private double lastDragX;
     private double lastDragY;
     public boolean isDraggingSelection = false;
-    private ShapeState originalShapeForDrag = null;
+
+    // Group drag: the selected shapes are drawn with one shared offset and are
+    // only copied and translated when the move is committed.
+    private double dragOffsetX;
+    private double dragOffsetY;
+
+    // Every selected shape; selectedShapeId is the one picked last.
+    private final Set<ShapeId> selection = new LinkedHashSet<>();
+    private boolean updatingSelection;
+
+    // Marquee in progress as {startX, startY, endX, endY}, or null
+    private double[] marquee;
+    private boolean additiveSelection;
 
     private final CanvasShapeCount shapeCount;
+
+    // Freehand input statistics: mouse positions seen vs. points committed
+    private long capturedPointCount;
+    private long committedPointCount;
     
     public CanvasViewModel(final String userId, final ActionManager actionManager) {
 
@@ -66,6 +94,15 @@ public class CanvasViewModel {
         this.shapeFactory = new ShapeFactory();
         this.shapeCount = new CanvasShapeCount(0, 0, 0, 0, 0);
 
+        // Setting selectedShapeId directly selects just that shape
+        selectedShapeId.addListener((obs, oldVal, newVal) -> {
+            if (!updatingSelection) {
+                selection.clear();
+                if (newVal != null) {
+                    selection.add(newVal);
+                }
+            }
+        });
     }
 
     private byte[] handleUpdate(final byte[] data) {
@@ -97,47 +134,70 @@ public class CanvasViewModel {
     }
 
     private void updateShapeProperty(final Consumer<Shape> modifier) {
-        final ShapeId id = selectedShapeId.get();
-        if (id != null) {
-            final ShapeState currentState = canvasState.getShapeState(id);
-            if (currentState != null && !currentState.isDeleted()) {
-                final Shape modifiedShape = currentState.getShape().copy();
-                modifier.accept(modifiedShape);
-
-                actionManager.requestModify(currentState, modifiedShape);
-
-                // FIX: Intent is Modify (not delete)
-                this.isPendingDelete = false;
-                showGhostShape(modifiedShape);
-            }
+        final Map<ShapeId, Shape> modified = new LinkedHashMap<>();
+        for (final ShapeId id : getSelectedShapeIds()) {
+            final Shape modifiedShape = canvasState.getShapeState(id).getShape().copy();
+            modifier.accept(modifiedShape);
+            modified.put(id, modifiedShape);
+        }
+        modifySelected(modified);
+    }
+
+    /**
+     * Sends modified selected shapes: one modify for a single shape, one
+     * batched action for several.
+     */
+    private void modifySelected(final Map<ShapeId, Shape> modified) {
+        if (modified.size() == 1) {
+            final Map.Entry<ShapeId, Shape> only = modified.entrySet().iterator().next();
+            actionManager.requestModify(canvasState.getShapeState(only.getKey()), only.getValue());
+        } else if (modified.size() > 1) {
+            actionManager.requestModifyBatch(modified);
         }
     }
 
     public void onMousePressed(final double x, final double y) {
+        onMousePressed(x, y, false);
+    }
+
+    /**
+     * Starts a gesture. With the select tool, pressing on a shape selects it
+     * and starts dragging the selection, and pressing on empty space starts
+     * a marquee.
+     *
+     * @param x        x in canvas coordinates
+     * @param y        y in canvas coordinates
+     * @param additive true (e.g. Shift held) to add to the selection instead of replacing it
+     */
+    public void onMousePressed(final double x, final double y, final boolean additive) {
         lastDragX = x;
         lastDragY = y;
         transientShape = null;
-        isPendingDelete = false; // Reset intent
 
         if (activeTool.get() == ToolType.SELECT) {
+            isDraggingSelection = false;
+            dragOffsetX = 0;
+            dragOffsetY = 0;
+            marquee = null;
+            additiveSelection = additive;
+
             final ShapeId hitShapeId = findHitShape(x, y);
-            selectedShapeId.set(hitShapeId);
-
-            if (hitShapeId != null) {
-                final ShapeState ss = canvasState.getShapeState(hitShapeId);
-                if (ss != null && !ss.isDeleted() && ss.getShape() != null) {
-                    isDraggingSelection = true;
-                    originalShapeForDrag = ss;
-                    // Start ghosting for drag
-                    transientShape = ss.getShape().copy();
-                    isPendingDelete = false; // Dragging is a modify operation
-                } else {
-                    isDraggingSelection = false;
-                    originalShapeForDrag = null;
+            if (hitShapeId == null) {
+                if (!additive) {
+                    setSelection(List.of());
+                }
+                marquee = new double[] {x, y, x, y};
+            } else if (additive) {
+                final List<ShapeId> ids = new ArrayList<>(selection);
+                if (!ids.remove(hitShapeId)) {
+                    ids.add(hitShapeId);
                 }
+                setSelection(ids);
             } else {
-                isDraggingSelection = false;
-                originalShapeForDrag = null;
+                if (!selection.contains(hitShapeId)) {
+                    setSelection(List.of(hitShapeId));
+                }
+                isDraggingSelection = true;
             }
         } else {
             // Drawing mode
@@ -151,15 +211,22 @@ public class CanvasViewModel {
 
     public void onMouseDragged(final double x, final double y) {
         if (activeTool.get() == ToolType.SELECT) {
-            if (isDraggingSelection && transientShape != null && originalShapeForDrag != null) {
-                final double dx = x - lastDragX;
-                final double dy = y - lastDragY;
-                transientShape.translate(dx, dy);
+            if (isDraggingSelection) {
+                dragOffsetX += x - lastDragX;
+                dragOffsetY += y - lastDragY;
                 lastDragX = x;
                 lastDragY = y;
+            } else if (marquee != null) {
+                marquee[2] = x;
+                marquee[3] = y;
             }
         } else {
             if (activeTool.get() == ToolType.FREEHAND) {
+                capturedPointCount++;
+                final double minDistance = StrokeSimplifier.toCanvasUnits(minPointDistance.get(), zoomLevel.get());
+                if (!StrokeSimplifier.shouldRecord(currentPoints.get(currentPoints.size() - 1), x, y, minDistance)) {
+                    return;
+                }
                 currentPoints.add(new Point(x, y));
             } else {
                 currentPoints.set(currentPoints.size() - 1, new Point(x, y));
@@ -170,56 +237,110 @@ public class CanvasViewModel {
 
     public void onMouseReleased(final double x, final double y) {
         if (activeTool.get() == ToolType.SELECT) {
-            if (isDraggingSelection && transientShape != null && originalShapeForDrag != null) {
-                actionManager.requestModify(originalShapeForDrag, transientShape);
-
-                // FIX: Intent is Modify
-                this.isPendingDelete = false;
-                startGhostTimer();
+            if (isDraggingSelection) {
+                commitSelectionMove();
+            } else if (marquee != null) {
+                marquee[2] = x;
+                marquee[3] = y;
+                commitMarquee();
             }
             isDraggingSelection = false;
-            originalShapeForDrag = null;
+            dragOffsetX = 0;
+            dragOffsetY = 0;
+            marquee = null;
 
         } else if (transientShape != null) {
-            actionManager.requestCreate(transientShape);
+            if (activeTool.get() == ToolType.FREEHAND) {
+                commitFreehandPoints(x, y);
+            }
+            final Shape created = transientShape;
+            transientShape = null;
+            actionManager.requestCreate(created);
 
             // Track shape creation for analytics
-            updateShapeCount(transientShape.getShapeType());
-
-            // FIX: Intent is Create
-            this.isPendingDelete = false;
-            startGhostTimer();
+            updateShapeCount(created.getShapeType());
         }
 
         currentPoints.clear();
     }
 
-    private void showGhostShape(final Shape shape) {
-        transientShape = shape;
-        startGhostTimer();
+    private void commitFreehandPoints(final double x, final double y) {
+        final Point last = currentPoints.get(currentPoints.size() - 1);
+        if (last.getX() != x || last.getY() != y) {
+            currentPoints.add(new Point(x, y));
+        }
+        final List<Point> simplified = StrokeSimplifier.simplify(currentPoints,
+                StrokeSimplifier.toCanvasUnits(simplifyTolerance.get(), zoomLevel.get()));
+        committedPointCount += simplified.size();
+        currentPoints.clear();
+        currentPoints.addAll(simplified);
+        updateGhostShape();
+    }
+
+    /**
+     * Commits a drag of the selection as one move of every selected shape.
+     */
+    private void commitSelectionMove() {
+        if (dragOffsetX == 0 && dragOffsetY == 0) {
+            return;
+        }
+        final Map<ShapeId, Shape> moved = new LinkedHashMap<>();
+        for (final ShapeId id : getSelectedShapeIds()) {
+            final Shape shape = canvasState.getShapeState(id).getShape().copy();
+            shape.translate(dragOffsetX, dragOffsetY);
+            moved.put(id, shape);
+        }
+        modifySelected(moved);
+    }
+
+    /**
+     * Selects the shapes under the marquee, using the canvas state's index.
+     */
+    private void commitMarquee() {
+        if (Math.abs(marquee[2] - marquee[0]) < MIN_MARQUEE_SIZE
+                && Math.abs(marquee[3] - marquee[1]) < MIN_MARQUEE_SIZE) {
+            return;
+        }
+        final Set<ShapeId> ids = new LinkedHashSet<>();
+        if (additiveSelection) {
+            ids.addAll(selection);
+        }
+        ids.addAll(canvasState.findShapesInRect(marquee[0], marquee[1], marquee[2], marquee[3]));
+        setSelection(ids);
     }
 
-    private void startGhostTimer() {
-        ghostTimer.cancel();
-        ghostTimer = new Timer(true);
-        ghostTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                transientShape = null;
-                Platform.runLater(() -> {
-                    if (actionManager != null) {
-                        actionManager.getCanvasState().notifyUpdate();
-                    }
-                });
+    /**
+     * Replaces the selection. The last shape becomes {@link #selectedShapeId}.
+     * Shapes that no longer exist are left out.
+     *
+     * @param ids the shapes to select
+     */
+    public void setSelection(final Collection<ShapeId> ids) {
+        updatingSelection = true;
+        try {
+            selection.clear();
+            ShapeId last = null;
+            for (final ShapeId id : ids) {
+                final ShapeState state = canvasState.getShapeState(id);
+                if (state != null && !state.isDeleted()) {
+                    selection.add(id);
+                    last = id;
+                }
             }
-        }, 2000);
+            selectedShapeId.set(last);
+        } finally {
+            updatingSelection = false;
+        }
     }
 
     private ShapeId findHitShape(final double x, final double y) {
-        final List<Shape> shapes = new ArrayList<>(canvasState.getVisibleShapes());
-        for (int i = shapes.size() - 1; i >= 0; i--) {
-            if (GeometryUtils.hitTest(shapes.get(i), x, y)) {
-                return shapes.get(i).getShapeId();
+        // Only shapes near the point can be hit: ask the index for them
+        final double r = GeometryUtils.HIT_THRESHOLD;
+        final List<ShapeId> candidates = canvasState.findShapesInRect(x - r, y - r, x + r, y + r);
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            final ShapeState state = canvasState.getShapeState(candidates.get(i));
+            if (state != null && !state.isDeleted() && GeometryUtils.hitTest(state.getShape(), x, y)) {
+                return candidates.get(i);
             }
         }
         return null;
@@ -248,29 +369,99 @@ public class CanvasViewModel {
                 break;
         }
 
-        // Creating a new shape (not delete)
-        this.isPendingDelete = false;
-
         transientShape = shapeFactory.createShape(
                 type, ShapeId.randomId(), new ArrayList<>(currentPoints),
                 activeStrokeWidth.get(), ColorConverter.toAwt(activeColor.get()), userId);
     }
 
     public void deleteSelectedShape() {
-        final ShapeId id = selectedShapeId.get();
-        if (id != null) {
-            final ShapeState stateToDelete = canvasState.getShapeState(id);
-            if (stateToDelete != null && !stateToDelete.isDeleted()) {
-                actionManager.requestDelete(stateToDelete);
-
-                // FIX: Set intent to Delete
-                this.isPendingDelete = true;
-
-                final Shape ghost = stateToDelete.getShape().copy();
-                showGhostShape(ghost);
-                selectedShapeId.set(null);
+        final List<ShapeId> ids = getSelectedShapeIds();
+        if (!ids.isEmpty()) {
+            deleteShapes(ids);
+            selectedShapeId.set(null);
+        }
+    }
+
+    /**
+     * Deletes every shape on the board as one action, so a single undo
+     * brings the whole board back.
+     */
+    public void clearBoard() {
+        final List<ShapeId> ids = new ArrayList<>();
+        for (final ShapeState state : canvasState.getShapeStates()) {
+            if (!state.isDeleted()) {
+                ids.add(state.getShapeId());
+            }
+        }
+        if (!ids.isEmpty()) {
+            deleteShapes(ids);
+            selectedShapeId.set(null);
+        }
+    }
+
+    private void deleteShapes(final List<ShapeId> ids) {
+        if (ids.size() == 1) {
+            actionManager.requestDelete(canvasState.getShapeState(ids.get(0)));
+        } else {
+            actionManager.requestDeleteBatch(ids);
+        }
+    }
+
+    /**
+     * IDs of the selected shapes that still exist, for operations that act on
+     * the whole selection.
+     *
+     * @return selected shape IDs (empty if nothing is selected)
+     */
+    public List<ShapeId> getSelectedShapeIds() {
+        final List<ShapeId> ids = new ArrayList<>();
+        for (final ShapeId id : selection) {
+            final ShapeState state = canvasState.getShapeState(id);
+            if (state != null && !state.isDeleted()) {
+                ids.add(id);
             }
         }
+        return ids;
+    }
+
+    /**
+     * Read-only view of the selection, for rendering.
+     *
+     * @return selected shape IDs (may include shapes deleted since)
+     */
+    public Set<ShapeId> getSelection() {
+        return Collections.unmodifiableSet(selection);
+    }
+
+    /**
+     * Horizontal offset of the selection being dragged.
+     *
+     * @return offset in canvas units (0 when not dragging)
+     */
+    public double getDragOffsetX() {
+        return dragOffsetX;
+    }
+
+    /**
+     * Vertical offset of the selection being dragged.
+     *
+     * @return offset in canvas units (0 when not dragging)
+     */
+    public double getDragOffsetY() {
+        return dragOffsetY;
+    }
+
+    /**
+     * The marquee being drawn.
+     *
+     * @return its bounds in canvas coordinates, or null if there is none
+     */
+    public Bounds getMarquee() {
+        if (marquee == null) {
+            return null;
+        }
+        return new BoundingBox(Math.min(marquee[0], marquee[2]), Math.min(marquee[1], marquee[3]),
+                Math.abs(marquee[2] - marquee[0]), Math.abs(marquee[3] - marquee[1]));
     }
 
     public void undo() {
@@ -313,49 +504,38 @@ public class CanvasViewModel {
     }
 
     /**
-     * FIX: Revised logic to check for conflict resolution correctly. Only
-     * clears the ghost if the server state matches the intent.
+     * Number of mouse positions seen while drawing freehand strokes.
+     *
+     * @return captured position count
      */
-    public void handleValidatedUpdate() {
-        if (transientShape == null) {
-            return;
-        }
-
-        final ShapeId tid = transientShape.getShapeId();
-        if (tid == null) {
-            return;
-        }
+    public long getCapturedPointCount() {
+        return capturedPointCount;
+    }
 
-        final ShapeState st = canvasState.getShapeState(tid);
-        final boolean isDeletedInServer = (st == null || st.isDeleted());
+    /**
+     * Number of points in committed freehand strokes, after decimation and
+     * simplification.
+     *
+     * @return committed point count
+     */
+    public long getCommittedPointCount() {
+        return committedPointCount;
+    }
 
-        if (isPendingDelete) {
-            // CASE: We are deleting.
-            // We only clear the ghost if the server confirms it's GONE.
-            if (isDeletedInServer) {
-                transientShape = null;
-                try { ghostTimer.cancel(); } catch (Exception ignored) {}
-            }
-            // If !isDeletedInServer, implies server hasn't processed delete yet.
-            // Keep ghost (so original remains hidden by renderer).
-        } else {
-            // CASE: Create or Modify.
-            // We clear the ghost if the server confirms it EXISTS (and implies it's updated).
-            // (If the server says it's deleted, we also clear because our create/modify failed).
-            if (!isDeletedInServer) {
-                transientShape = null;
-                try { ghostTimer.cancel(); } catch (Exception ignored) {}
-            }
-            else if (st == null) {
-                // Special case: If we created a shape with a RandomID, but server assigned a NewID,
-                // our RandomID won't exist in state. The ghost usually stays until timer,
-                // OR we can choose to clear it to avoid duplication if we assume success.
-                // For now, we let the timer handle the ID mismatch scenario, or clear if strict.
-                // Safest approach for "Create" with ID swap is to clear ghost on *any* update
-                // because the new shape (NewID) is likely already in the VisibleShapes list.
-                transientShape = null;
-                try { ghostTimer.cancel(); } catch (Exception ignored) {}
-            }
+    /**
+     * Reconciles the selection with an update of the canvas state. Shapes
+     * deleted meanwhile (by someone else, or by a rollback) are deselected,
+     * and a drag with nothing left to move is cancelled.
+     */
+    public void handleValidatedUpdate() {
+        final List<ShapeId> live = getSelectedShapeIds();
+        if (live.size() != selection.size()) {
+            setSelection(live);
+        }
+        if (isDraggingSelection && selection.isEmpty()) {
+            isDraggingSelection = false;
+            dragOffsetX = 0;
+            dragOffsetY = 0;
         }
     }
 }
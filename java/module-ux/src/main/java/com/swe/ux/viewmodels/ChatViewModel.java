@@ -1,22 +1,37 @@
 package com.swe.ux.viewmodels;
 
+import com.swe.chat.AttachmentCache;
 import com.swe.chat.ChatMessageSerializer;
+import com.swe.chat.ChatMessageStore;
+import com.swe.chat.ChatSearchIndex;
+import com.swe.chat.ChunkedFileSender;
+import com.swe.chat.FileChunkSerializer;
 import com.swe.chat.FileMessageSerializer;
 import com.swe.chat.MessageVM;
+import com.swe.chat.OutboundQueue;
 import com.swe.controller.Meeting.UserProfile;
 import com.swe.controller.RPCinterface.AbstractRPC;
 import com.swe.ux.model.ChatMessage;
 import com.swe.ux.model.FileMessage;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -25,6 +40,9 @@ import java.util.function.Consumer;
  */
 public class ChatViewModel {
 
+    /** Text a deleted message is replaced with. */
+    public static final String DELETED_MESSAGE_TEXT = "This message was deleted";
+
     // --- Dependencies & State ---
     /** Singleton instance. */
     private static ChatViewModel instance;
@@ -37,12 +55,58 @@ public class ChatViewModel {
 
 //    private static final long MAX_FILE_SIZE_BYTES = 50 * 1024 * 1024; // 50 MB
 
-    /** Message history map. */
-    private final Map<String, MessageVM> messageHistory = new ConcurrentHashMap<>();
+    /** How long to wait for the backend to accept or refuse a chunked upload. */
+    private static final long UPLOAD_START_TIMEOUT_SECONDS = 10;
+
+    /** File transfers that may run at once; more wait their turn. */
+    private static final int MAX_PARALLEL_TRANSFERS = 3;
+
+    /** Largest file I send that is also copied into the attachment cache. */
+    private static final long MAX_CACHED_UPLOAD_BYTES = AttachmentCache.DEFAULT_BUDGET_BYTES / 8;
+
+    /** Most search results returned at once. */
+    private static final int MAX_SEARCH_RESULTS = 500;
+
+    /** Outbound queue key prefix of deletions, kept apart from message sends. */
+    private static final String DELETE_KEY_PREFIX = "delete:";
+
+    /** Message history in arrival order; older messages spill to disk. */
+    private final ChatMessageStore messageHistory = new ChatMessageStore();
+    /** Full-text index of the message history. */
+    private final ChatSearchIndex searchIndex = new ChatSearchIndex();
     /** Current reply ID. */
     private String currentReplyId = null;
     /** Attached file. */
     private File attachedFile = null;
+    /** Progress of my uploads in flight or paused, as a percentage, by message ID. */
+    private final Map<String, Integer> uploadPercent = new ConcurrentHashMap<>();
+    /** Uploads that failed part way and can be resumed, by message ID. */
+    private final Map<String, Upload> pausedUploads = new ConcurrentHashMap<>();
+    /** Local content-addressed attachment cache; null if it could not be opened. */
+    private final AttachmentCache attachmentCache;
+    /** Content hash of each file message that carried one, by message ID. */
+    private final Map<String, String> attachmentHashes = new ConcurrentHashMap<>();
+    /** Files I sent, by message ID. */
+    private final Map<String, Path> sentAttachments = new ConcurrentHashMap<>();
+    /** Content hashes of files the backend is saving for us, by where they should land. */
+    private final Map<Path, String> pendingDownloads = new ConcurrentHashMap<>();
+    /** Sends messages and deletions in order, retrying through network blips. */
+    private final OutboundQueue outbound;
+    /** Hashes, uploads and saves files; transfers block for seconds at a time, so they get their own threads. */
+    private final ExecutorService transfers = Executors.newFixedThreadPool(MAX_PARALLEL_TRANSFERS, task -> {
+        final Thread thread = new Thread(task, "chat-transfer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A chunked upload: the sender and the metadata that (re)starts it.
+     *
+     * @param sender       streams the file
+     * @param startPayload serialized file metadata
+     */
+    private record Upload(ChunkedFileSender sender, byte[] startPayload) {
+    }
 
     // --- View Callbacks ---
     /** Message added callback. */
@@ -59,6 +123,10 @@ public class ChatViewModel {
     private Consumer<String> onShowErrorDialog;
     /** Show success dialog callback. */
     private Consumer<String> onShowSuccessDialog;
+    /** Upload progress callback, with the message ID. */
+    private Consumer<String> onUploadProgress;
+    /** Delivery state callback, with the message ID. */
+    private Consumer<String> onDeliveryStateChanged;
 
     // --- Constructor (Dependency Injection) ---
     /**
@@ -70,6 +138,16 @@ public class ChatViewModel {
         this.rpc = rpcParam;
         this.userEmail = userProfile.getEmail();
         this.userDisplayName = userProfile.getDisplayName();
+        AttachmentCache cache = null;
+        try {
+            cache = AttachmentCache.openDefault();
+        } catch (Exception e) {
+            System.err.println("[FRONT][Chat] Attachment cache unavailable: " + e.getMessage());
+        }
+        this.attachmentCache = cache;
+        this.outbound = new OutboundQueue(this.rpc::call, this::handleDeliveryState);
+        // Messages that scrolled out of memory no longer need their send state or payload kept
+        this.messageHistory.setOnSpilled(outbound::forget);
         // Subscribe to incoming messages broadcast from the Core
         this.rpc.subscribe("chat:new-message", this::handleBackendTextMessage);
         this.rpc.subscribe("chat:file-metadata-received", this::handleBackendFileMetadata);
@@ -103,8 +181,8 @@ public class ChatViewModel {
         if (messageHistory.isEmpty()) {
             System.out.println("(History is empty)");
         } else {
-            // Iterate over every message in the map
-            messageHistory.values().forEach(vm -> {
+            // Iterate over every message in arrival order
+            messageHistory.range(0, messageHistory.size()).forEach(vm -> {
                 System.out.println("------------------------------------------------");
                 System.out.println("ID        : " + vm.getMessageId());
                 System.out.println("Time      : " + vm.getTimestamp());
@@ -179,6 +257,10 @@ public class ChatViewModel {
                     + " name=" + message.getFileName()
                     + " caption=" + message.getCaption());
 
+            if (message.getContentHash() != null) {
+                attachmentHashes.put(message.getMessageId(), message.getContentHash());
+            }
+
             // Extract compressed size for UI display
             final long compressedSize;
             if (message.getFileContent() != null) {
@@ -218,6 +300,7 @@ public class ChatViewModel {
      */
     private byte[] handleFileSaveSuccess(final byte[] data) {
         final String message = new String(data, StandardCharsets.UTF_8);
+        cacheSavedFiles();
         if (onShowSuccessDialog != null) {
             onShowSuccessDialog.accept("File saved successfully!\n" + message);
         }
@@ -260,14 +343,15 @@ public class ChatViewModel {
                 final MessageVM deletedMsg = new MessageVM(
                         oldMsg.getMessageId(),
                         oldMsg.getUsername(),
-                        "<i>This message was deleted</i>", // The specific text your View looks for
+                        DELETED_MESSAGE_TEXT, // The specific text your View looks for
                         null,           // Clear file attachment
                         oldMsg.getTimestamp(),
                         new MessageVM.ReplyContext(oldMsg.isSentByMe(), null, null)
                 );
 
                 // 5. Update History
-                messageHistory.put(messageId, deletedMsg);
+                messageHistory.replace(deletedMsg);
+                searchIndex.remove(messageId);
 
                 // 6. Trigger the View Update
                 if (onMessageAdded != null) {
@@ -319,7 +403,7 @@ public class ChatViewModel {
         );
 
         final byte[] messageBytes = ChatMessageSerializer.serialize(messageToSend);
-        sendRpc("chat:send-text", messageBytes);
+        sendRpc(messageId, "chat:send-text", messageBytes);
 
         final String localTimeFormatted = formatToLocalTime(messageToSend.getTimestamp());
 
@@ -333,11 +417,19 @@ public class ChatViewModel {
                 messageToSend.getContent(),
                 null, 0, null
         );
-        printMessageHistory();
     }
 
     /**
-     * SEND FILE - Sends ONLY the path to backend.
+     * SEND FILE - Streams the file to the backend in checksummed chunks.
+     *
+     * <p>The backend is first offered the file metadata on
+     * {@code chat:file-transfer-start} and answers with the offset to start
+     * from. A backend that does not answer with an offset gets the old
+     * path-mode message on {@code chat:send-file} instead, and reads the file
+     * itself. The metadata carries the content hash; a backend that already
+     * holds that content answers with the file size, and nothing but the
+     * closing empty chunk is sent.</p>
+     *
      * @param file The file to send
      * @param caption The file caption
      */
@@ -360,7 +452,7 @@ public class ChatViewModel {
                 + " size=" + file.length()
                 + " caption=" + caption);
 
-        // Create PATH-MODE FileMessage
+        // Create PATH-MODE FileMessage, the fallback for backends without chunked upload
         final FileMessage messageToSend = new FileMessage(
                 messageId,
                 this.userEmail,
@@ -371,9 +463,27 @@ public class ChatViewModel {
                 this.currentReplyId
         );
 
-        final byte[] messageBytes = FileMessageSerializer.serialize(messageToSend);
-        System.out.println("[FRONT][Chat] Serialized file metadata payload bytes=" + messageBytes.length);
-        sendRpc("chat:send-file", messageBytes);
+        // Metadata only; the bytes follow as chunks
+        final FileMessage metadata = new FileMessage(
+                messageId,
+                this.userEmail,
+                this.userDisplayName,
+                caption,
+                file.getName(),
+                (byte[]) null,
+                messageToSend.getTimestamp().toEpochSecond(ZoneOffset.UTC),
+                this.currentReplyId
+        );
+        final Path source = Path.of(cleanPath);
+        sentAttachments.put(messageId, source);
+        final ChunkedFileSender sender = new ChunkedFileSender(
+                source,
+                messageId,
+                ChunkedFileSender.DEFAULT_CHUNK_SIZE,
+                frame -> this.rpc.call("chat:file-chunk", frame),
+                this::reportUploadProgress
+        );
+        uploadPercent.put(messageId, 0);
 
         // Optimistic UI update
         handleIncomingMessage(
@@ -388,11 +498,176 @@ public class ChatViewModel {
                 null            // NO file content
         );
         System.out.println("[FRONT][Chat] Optimistic UI update added file bubble for id=" + messageId);
+
+        // Hash off the caller's thread, then offer the upload and cache the file behind it
+        CompletableFuture.runAsync(() -> {
+            final String contentHash = hashFile(source);
+            if (contentHash != null) {
+                attachmentHashes.put(messageId, contentHash);
+            }
+            messageToSend.setContentHash(contentHash);
+            metadata.setContentHash(contentHash);
+            startUpload(new Upload(sender, FileMessageSerializer.serialize(metadata)),
+                    FileMessageSerializer.serialize(messageToSend));
+            if (contentHash != null && file.length() <= MAX_CACHED_UPLOAD_BYTES) {
+                cacheFile(source, contentHash);
+            }
+        }, transfers);
+    }
+
+    /**
+     * Hashes a file I am sending.
+     *
+     * @param source the file
+     * @return its content hash, or null if it could not be read
+     */
+    private static String hashFile(final Path source) {
+        try {
+            return AttachmentCache.hash(source);
+        } catch (IOException e) {
+            System.err.println("[FRONT][Chat] Could not hash " + source + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds a file to the attachment cache in the background, so a repost of
+     * the same content by anyone can be saved without a transfer. The cache
+     * checks the copy against the hash.
+     *
+     * @param file        the file
+     * @param contentHash its content hash
+     */
+    private void cacheFile(final Path file, final String contentHash) {
+        if (attachmentCache == null) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                attachmentCache.put(file, contentHash);
+            } catch (IOException e) {
+                System.err.println("[FRONT][Chat] Could not cache " + file + ": " + e.getMessage());
+            }
+        }, transfers);
     }
 
+    /**
+     * Starts or resumes a chunked upload in the background.
+     *
+     * @param upload the upload
+     * @param pathModeFallback path-mode message to send if the backend refuses
+     *                         chunked upload, or null when resuming
+     */
+    private void startUpload(final Upload upload, final byte[] pathModeFallback) {
+        final String messageId = upload.sender().getTransferId();
+        CompletableFuture.runAsync(() -> {
+            long resumeFrom;
+            try {
+                resumeFrom = FileChunkSerializer.deserializeAck(
+                        this.rpc.call("chat:file-transfer-start", upload.startPayload())
+                                .get(UPLOAD_START_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                System.err.println("[FRONT][Chat] Chunked upload not accepted: " + e.getMessage());
+                resumeFrom = -1;
+            }
+
+            if (resumeFrom < 0) {
+                if (pathModeFallback != null) {
+                    System.out.println("[FRONT][Chat] Falling back to path-mode send for id=" + messageId);
+                    uploadPercent.remove(messageId);
+                    notifyUploadProgress(messageId);
+                    sendRpc(messageId, "chat:send-file", pathModeFallback);
+                } else {
+                    pauseUpload(upload);
+                }
+                return;
+            }
+
+            try {
+                upload.sender().send(resumeFrom);
+                pausedUploads.remove(messageId);
+                uploadPercent.remove(messageId);
+                notifyUploadProgress(messageId);
+                System.out.println("[FRONT][Chat] Upload complete id=" + messageId);
+            } catch (IOException e) {
+                System.err.println("[FRONT][Chat] Upload paused id=" + messageId + " at "
+                        + upload.sender().getAckedOffset() + ": " + e.getMessage());
+                pauseUpload(upload);
+            }
+        }, transfers);
+    }
+
+    /**
+     * Keeps a failed upload so the user can resume it.
+     *
+     * @param upload the upload
+     */
+    private void pauseUpload(final Upload upload) {
+        pausedUploads.put(upload.sender().getTransferId(), upload);
+        notifyUploadProgress(upload.sender().getTransferId());
+    }
+
+    /**
+     * Resumes a paused upload from where the backend left off.
+     *
+     * @param messageId the file message ID
+     */
+    public void resumeUpload(final String messageId) {
+        final Upload upload = pausedUploads.remove(messageId);
+        if (upload == null) {
+            return;
+        }
+        notifyUploadProgress(messageId);
+        startUpload(upload, null);
+    }
+
+    /**
+     * Records upload progress, telling the view only when the percentage changes.
+     *
+     * @param progress the progress
+     */
+    private void reportUploadProgress(final ChunkedFileSender.Progress progress) {
+        final Integer previous = uploadPercent.put(progress.transferId(), progress.percent());
+        if (previous == null || previous != progress.percent()) {
+            notifyUploadProgress(progress.transferId());
+        }
+    }
+
+    /**
+     * Tells the view an upload changed.
+     *
+     * @param messageId the file message ID
+     */
+    private void notifyUploadProgress(final String messageId) {
+        if (onUploadProgress != null) {
+            onUploadProgress.accept(messageId);
+        }
+    }
+
+    /**
+     * Gets the progress of one of my uploads.
+     *
+     * @param messageId the file message ID
+     * @return the percentage sent, or -1 if the message is not uploading
+     */
+    public int getUploadPercent(final String messageId) {
+        return uploadPercent.getOrDefault(messageId, -1);
+    }
+
+    /**
+     * Checks whether an upload failed part way and can be resumed.
+     *
+     * @param messageId the file message ID
+     * @return true if the upload is paused
+     */
+    public boolean isUploadPaused(final String messageId) {
+        return pausedUploads.containsKey(messageId);
+    }
 
     /**
-     * Downloads a file message.
+     * Downloads a file message. Content already in the attachment cache is
+     * copied straight to the Downloads folder; anything else is saved by the
+     * backend as before.
      * @param fileMessage The file message to download
      */
     public void downloadFile(final MessageVM fileMessage) {
@@ -403,7 +678,49 @@ public class ChatViewModel {
             return;
         }
 
+        final String contentHash = attachmentHashes.get(fileMessage.getMessageId());
+        if (contentHash != null && attachmentCache != null && attachmentCache.contains(contentHash)) {
+            final Path target = downloadTarget(downloadsDirectory(), fileMessage.getFileName());
+            if (target == null) {
+                System.err.println("[FRONT][Chat] Refusing to save file named " + fileMessage.getFileName());
+                if (onShowErrorDialog != null) {
+                    onShowErrorDialog.accept("Invalid file name");
+                }
+                return;
+            }
+            CompletableFuture.runAsync(() -> {
+                try {
+                    final Path saved = attachmentCache.copyTo(contentHash, target);
+                    if (saved != null) {
+                        System.out.println("[FRONT][Chat] Saved " + fileMessage.getFileName() + " from cache");
+                        if (onShowSuccessDialog != null) {
+                            onShowSuccessDialog.accept("File saved successfully!\n" + saved);
+                        }
+                        return;
+                    }
+                } catch (IOException e) {
+                    System.err.println("[FRONT][Chat] Cache copy failed: " + e.getMessage());
+                }
+                requestBackendSave(fileMessage, contentHash);
+            }, transfers);
+            return;
+        }
+        requestBackendSave(fileMessage, contentHash);
+    }
+
+    /**
+     * Asks the backend to decompress and save a file message.
+     * @param fileMessage The file message
+     * @param contentHash Its content hash, or null if unknown
+     */
+    private void requestBackendSave(final MessageVM fileMessage, final String contentHash) {
         System.out.println("[FRONT] User clicked 'Save'. Requesting backend to decompress and save.");
+        if (contentHash != null) {
+            final Path target = downloadTarget(downloadsDirectory(), fileMessage.getFileName());
+            if (target != null) {
+                pendingDownloads.put(target, contentHash);
+            }
+        }
 
         final byte[] messageIdBytes = fileMessage.getMessageId().getBytes(StandardCharsets.UTF_8);
 
@@ -423,7 +740,87 @@ public class ChatViewModel {
             } catch (Exception e) {
                 e.printStackTrace();
             }
-        });
+        }, transfers);
+    }
+
+    /**
+     * Adds the files the backend saved for us to the attachment cache. Each
+     * is looked for where {@link #downloadTarget} puts it in the Downloads
+     * folder; one that is not there yet stays pending.
+     */
+    private void cacheSavedFiles() {
+        for (Map.Entry<Path, String> pending : pendingDownloads.entrySet()) {
+            final Path saved = pending.getKey();
+            if (Files.isRegularFile(saved) && pendingDownloads.remove(saved, pending.getValue())) {
+                cacheFile(saved, pending.getValue());
+            }
+        }
+    }
+
+    /**
+     * Finds a local copy of a file message's content: the attachment cache
+     * entry for its hash, or the original of a file I sent.
+     * @param messageId The file message ID
+     * @return the file, or null if there is no local copy
+     */
+    public Path getAttachmentFile(final String messageId) {
+        final String contentHash = attachmentHashes.get(messageId);
+        if (contentHash != null && attachmentCache != null && attachmentCache.contains(contentHash)) {
+            final Path cached = attachmentCache.get(contentHash);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return sentAttachments.get(messageId);
+    }
+
+    /**
+     * Checks whether a file message's content is available locally, without
+     * touching the disk.
+     * @param messageId The file message ID
+     * @return true if {@link #getAttachmentFile(String)} would find a file
+     */
+    public boolean hasAttachmentFile(final String messageId) {
+        final String contentHash = attachmentHashes.get(messageId);
+        return (contentHash != null && attachmentCache != null && attachmentCache.contains(contentHash))
+                || sentAttachments.containsKey(messageId);
+    }
+
+    /**
+     * Gets the folder files are saved to from the cache.
+     * @return the user's Downloads folder
+     */
+    private static Path downloadsDirectory() {
+        return Path.of(System.getProperty("user.home"), "Downloads");
+    }
+
+    /**
+     * Works out where to save a file named by its sender. Only the last
+     * part of the name is kept, so a name like {@code ../../.bashrc} cannot
+     * climb out of the folder.
+     * @param directory The folder to save into
+     * @param fileName The name the sender gave the file
+     * @return the file inside {@code directory}, or null if the name is unusable
+     */
+    static Path downloadTarget(final Path directory, final String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return null;
+        }
+        final Path name;
+        try {
+            name = Path.of(fileName).getFileName();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        if (name == null || name.toString().equals(".") || name.toString().equals("..")) {
+            return null;
+        }
+        final Path root = directory.toAbsolutePath().normalize();
+        final Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            return null;
+        }
+        return target;
     }
 
     /**
@@ -446,7 +843,7 @@ public class ChatViewModel {
             final long compressedFileSizeParam,     // Compressed size (metadata)
             final byte[] fileContentParam           // NULL except when needed
     ) {
-        if (messageHistory.containsKey(messageIdParam)) {
+        if (messageHistory.contains(messageIdParam)) {
             System.out.println("[FRONT] Duplicate message ignored: " + messageIdParam);
             return;
         }
@@ -499,14 +896,23 @@ public class ChatViewModel {
                 new MessageVM.ReplyContext(isSentByMe, quotedContent, replyToIdParam)
         );
 
-        messageHistory.put(vm.getMessageId(), vm);
+        messageHistory.add(vm);
+        // Tokenized once here, so searching never rescans the history
+        final String sender = (senderDisplayNameParam != null ? senderDisplayNameParam + " " : "")
+                + userEmailParam + (isSentByMe ? " You" : "");
+        final String searchText;
+        if (fileNameParam == null || contentParam == null) {
+            searchText = fileNameParam != null ? fileNameParam : contentParam;
+        } else {
+            searchText = fileNameParam + " " + contentParam;
+        }
+        searchIndex.add(messageIdParam, sender, searchText);
         System.out.println("[FRONT][Chat] Stored message id=" + vm.getMessageId()
                 + " type=" + (vm.isFileMessage() ? "FILE" : "TEXT")
                 + " sender=" + vm.getUsername());
         if (onMessageAdded != null) {
             onMessageAdded.accept(vm);
         }
-        printMessageHistory();
     }
 
     /**
@@ -551,21 +957,22 @@ public class ChatViewModel {
 
         // 1. Send RPC to backend (keep this)
         final byte[] messageIdBytes = messageToDelete.getMessageId().getBytes(StandardCharsets.UTF_8);
-        sendRpc("chat:delete-message", messageIdBytes);
+        sendRpc(DELETE_KEY_PREFIX + messageToDelete.getMessageId(), "chat:delete-message", messageIdBytes);
 
         // 2. CREATE THE "DELETED" VERSION OF THE MESSAGE
         // We convert the file or text message into a simple text message with italics
         final MessageVM deletedMsg = new MessageVM(
                 messageToDelete.getMessageId(),
                 messageToDelete.getUsername(),
-                "<i>This message was deleted</i>", // HTML italics for styling
+                DELETED_MESSAGE_TEXT, // Shown in italics
                 null,           // No file attachment
                 messageToDelete.getTimestamp(),
                 new MessageVM.ReplyContext(messageToDelete.isSentByMe(), null, null)
         );
 
         // 3. UPDATE THE HISTORY (Do not remove!)
-        messageHistory.put(messageToDelete.getMessageId(), deletedMsg);
+        messageHistory.replace(deletedMsg);
+        searchIndex.remove(deletedMsg.getMessageId());
 
         // 4. NOTIFY VIEW TO UPDATE (Use onMessageAdded, NOT onMessageRemoved)
         // Your View logic already handles updating if the ID exists
@@ -583,6 +990,28 @@ public class ChatViewModel {
 
 
 
+    /**
+     * Gets a message from the history, paging it back in from disk if it
+     * has been spilled.
+     *
+     * @param messageId The message ID
+     * @return The message, or null if unknown
+     */
+    public MessageVM getMessage(final String messageId) {
+        return messageHistory.get(messageId);
+    }
+
+    /**
+     * Searches the message history. Every word must match the start of a
+     * word in the message or file name; {@code from:name} matches the sender.
+     *
+     * @param query The search query
+     * @return IDs of the matching messages, newest first
+     */
+    public List<String> search(final String query) {
+        return searchIndex.search(query, MAX_SEARCH_RESULTS);
+    }
+
     /**
      * Cancels the attachment.
      */
@@ -594,32 +1023,69 @@ public class ChatViewModel {
     }
 
     /**
-     * Sends an RPC call.
+     * Queues an RPC call behind the ones queued before it. A key is sent once;
+     * queuing it again does nothing.
+     * @param keyParam Identifies the call, e.g. the message ID
      * @param endpointParam The endpoint
      * @param dataParam The data
      */
-    private void sendRpc(final String endpointParam, final byte[] dataParam) {
+    private void sendRpc(final String keyParam, final String endpointParam, final byte[] dataParam) {
         System.out.println("[FRONT][Chat] RPC -> " + endpointParam
                 + " payloadBytes=" + (dataParam != null ? dataParam.length : 0));
-        CompletableFuture.runAsync(() -> {
-            try {
-                this.rpc.call(endpointParam, dataParam)
-                        .thenAccept(responseBytes -> {
-                            if (responseBytes != null && responseBytes.length > 0) {
-                                System.out.println("[FRONT] Received response from backend");
-                            }
-                        })
-                        .exceptionally(e -> {
-                            System.err.println("[FRONT] RPC call failed: " + e.getMessage());
-                            if (onShowErrorDialog != null) {
-                                onShowErrorDialog.accept("RPC call failed: " + e.getMessage());
-                            }
-                            return null;
-                        });
-            } catch (Exception e) {
-                e.printStackTrace();
+        outbound.enqueue(keyParam, endpointParam, dataParam);
+    }
+
+    /**
+     * Reacts to a queued call changing state: the state of a send shows on
+     * its bubble, and a deletion that failed is reported.
+     * @param key The outbound queue key
+     * @param state The new state
+     */
+    private void handleDeliveryState(final String key, final OutboundQueue.DeliveryState state) {
+        if (key.startsWith(DELETE_KEY_PREFIX)) {
+            if (state == OutboundQueue.DeliveryState.FAILED && onShowErrorDialog != null) {
+                onShowErrorDialog.accept("Could not delete the message. Check your connection.");
+            } else if (state == OutboundQueue.DeliveryState.SENT) {
+                // Nothing shows the state of a deletion once it went through
+                outbound.forget(key);
             }
-        });
+            return;
+        }
+        if (state == OutboundQueue.DeliveryState.SENT && messageHistory.isSpilled(key)) {
+            // Spilled while it was still sending, so the spill listener kept it
+            outbound.forget(key);
+        }
+        if (onDeliveryStateChanged != null) {
+            onDeliveryStateChanged.accept(key);
+        }
+    }
+
+    /**
+     * Gets the delivery state of one of my messages.
+     * @param messageId The message ID
+     * @return The state, or null if the message was not sent from here
+     */
+    public OutboundQueue.DeliveryState getDeliveryState(final String messageId) {
+        return outbound.getState(messageId);
+    }
+
+    /**
+     * Sends a message that failed to send again.
+     * @param messageId The message ID
+     */
+    public void retrySend(final String messageId) {
+        outbound.retry(messageId);
+    }
+
+    /**
+     * Releases the chat when its meeting ends: stops the outbound queue,
+     * failing anything not yet sent, stops file transfers and deletes the
+     * history spill file.
+     */
+    public void close() {
+        outbound.close();
+        transfers.shutdownNow();
+        messageHistory.close();
     }
 
 
@@ -712,4 +1178,21 @@ public class ChatViewModel {
     public void setOnShowSuccessDialog(final Consumer<String> listener) {
         this.onShowSuccessDialog = listener;
     }
+
+    /**
+     * Sets the upload progress callback; it receives the file message ID.
+     * @param listener The listener
+     */
+    public void setOnUploadProgress(final Consumer<String> listener) {
+        this.onUploadProgress = listener;
+    }
+
+    /**
+     * Sets the delivery state callback; it receives the message ID. Called
+     * from the sending thread.
+     * @param listener The listener
+     */
+    public void setOnDeliveryStateChanged(final Consumer<String> listener) {
+        this.onDeliveryStateChanged = listener;
+    }
 }
@@ -1,29 +1,36 @@
 package com.swe.ux.views;
 
 import com.swe.chat.MessageVM;
+import com.swe.chat.OutboundQueue;
 import com.swe.ux.theme.Theme;
 import com.swe.ux.theme.ThemeManager;
+import com.swe.ux.ui.EdtBatcher;
+import com.swe.ux.ui.PlaceholderTextField;
+import com.swe.ux.ui.TextLayoutCache;
+import com.swe.ux.ui.ThumbnailCache;
+import com.swe.ux.ui.VirtualTimeline;
+import com.swe.ux.ui.WrappedTextLabel;
 import com.swe.ux.viewmodels.ChatViewModel;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
-import javax.swing.Icon;
+import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
-import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
-import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
@@ -37,12 +44,12 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Insets;
 import java.awt.RenderingHints;
-import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * The Chat UI View. It is a JPanel that can be embedded in the main application.
@@ -56,8 +63,6 @@ public class ChatView extends JPanel {
     private static final int SMALL_PADDING = 5;
     /** Tiny padding value. */
     private static final int TINY_PADDING = 3;
-    /** Value representing minus one. */
-    private static final int MINUS_ONE = -1;
     /** Value representing zero. */
     private static final int ZERO = 0;
     /** Value representing one. */
@@ -86,10 +91,10 @@ public class ChatView extends JPanel {
     private static final int BYTES_PER_KB = 1024;
     /** Width of quote border. */
     private static final int QUOTE_BORDER_WIDTH = 3;
-    /** Width for quote content. */
-    private static final int QUOTE_WIDTH = 220;
-    /** Width for AI content. */
-    private static final int AI_CONTENT_WIDTH = 240;
+    /** Width message text and captions wrap at. */
+    private static final int TEXT_WRAP_WIDTH = 286;
+    /** Width AI text wraps at. */
+    private static final int AI_TEXT_WRAP_WIDTH = 312;
     /** Font size 10. */
     private static final int FONT_SIZE_10 = 10;
     /** Font size 11. */
@@ -147,15 +152,59 @@ public class ChatView extends JPanel {
     private final ChatViewModel viewModel;
 
     /**
-     * Container panel for all messages.
+     * Virtualized list of all messages.
      */
-    private JPanel messageContainer;
+    private VirtualTimeline<MessageVM> timeline;
+    /**
+     * Coalesces incoming messages so a burst is laid out and scrolled once.
+     */
+    private final EdtBatcher<MessageVM> incoming = new EdtBatcher<>(this::applyMessageBatch);
+    /**
+     * Previews of image attachments, built in the background for visible rows.
+     */
+    private ThumbnailCache thumbnails;
+    /**
+     * Wrapped message text, laid out once per message and wrap width.
+     */
+    private final TextLayoutCache textLayouts = new TextLayoutCache();
+    /**
+     * Search bar above the conversation.
+     */
+    private JPanel searchPanel;
+    /**
+     * Rounded wrapper for the search field.
+     */
+    private RoundedPanel searchFieldWrapper;
+    /**
+     * Text field for search queries.
+     */
+    private PlaceholderTextField searchField;
+    /**
+     * Shows which search result is selected.
+     */
+    private JLabel searchStatusLabel;
+    /**
+     * Jumps to the next older search result.
+     */
+    private JButton searchOlderButton;
+    /**
+     * Jumps to the next newer search result.
+     */
+    private JButton searchNewerButton;
+    /**
+     * IDs of the current search results, newest first.
+     */
+    private List<String> searchResults = List.of();
+    /**
+     * Index of the selected search result.
+     */
+    private int searchPosition;
     /**
      * Stacked column holding preview + message list.
      */
     private JPanel conversationColumn;
     /**
-     * Wrapper panel to allow background changes.
+     * Padded panel around the upload preview.
      */
     private JPanel messageContainerWrapper;
     /**
@@ -172,7 +221,7 @@ public class ChatView extends JPanel {
     private JButton uploadPreviewCancelButton;
 
     /**
-     * Scroll pane containing the message container.
+     * Scroll pane containing the timeline.
      */
     private JScrollPane scrollPane;
 
@@ -224,10 +273,6 @@ public class ChatView extends JPanel {
      */
     private JPopupMenu suggestionPopup;
 
-    /**
-     * Map of message IDs to their UI components.
-     */
-    private final Map<String, Component> messageComponentMap = new HashMap<>();
     /** Cached theme colors. */
     private Color backgroundColor;
     private Color panelBackgroundColor;
@@ -253,6 +298,7 @@ public class ChatView extends JPanel {
         this.viewModel = chatViewModel;
 
         setupMainPanel();
+        setupSearchPanel();
         setupMessageContainer();
         setupBottomPanel();
         bindViewModelCallbacks();
@@ -270,37 +316,104 @@ public class ChatView extends JPanel {
         setBackground(Color.WHITE);
     }
 
+    /**
+     * Sets up the search bar above the conversation.
+     */
+    private void setupSearchPanel() {
+        searchPanel = new JPanel(new BorderLayout(SMALL_PADDING, ZERO));
+        searchPanel.setBorder(new EmptyBorder(SMALL_PADDING, BORDER_PADDING, SMALL_PADDING, BORDER_PADDING));
+
+        searchField = new PlaceholderTextField("Search messages (from:name to filter)");
+        searchField.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_13));
+        searchField.setBorder(BorderFactory.createEmptyBorder(TINY_PADDING, SMALL_PADDING,
+                TINY_PADDING, SMALL_PADDING));
+
+        searchFieldWrapper = new RoundedPanel(INPUT_CORNER_RADIUS);
+        searchFieldWrapper.setLayout(new BorderLayout());
+        searchFieldWrapper.setBorder(new EmptyBorder(TWO, SMALL_PADDING, TWO, SMALL_PADDING));
+        searchFieldWrapper.add(searchField, BorderLayout.CENTER);
+
+        searchStatusLabel = new JLabel();
+        searchStatusLabel.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_12));
+        searchStatusLabel.putClientProperty(MUTED_LABEL_KEY, Boolean.TRUE);
+
+        searchOlderButton = new JButton("Older");
+        searchNewerButton = new JButton("Newer");
+        final JPanel controls = new JPanel();
+        controls.setLayout(new BoxLayout(controls, BoxLayout.X_AXIS));
+        controls.setOpaque(false);
+        controls.add(searchStatusLabel);
+        for (JButton button : new JButton[] {searchOlderButton, searchNewerButton}) {
+            button.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_12));
+            button.setMargin(new Insets(TWO, EIGHT, TWO, EIGHT));
+            button.setFocusPainted(false);
+            button.setEnabled(false);
+            controls.add(Box.createHorizontalStrut(SMALL_PADDING));
+            controls.add(button);
+        }
+
+        // Results are newest first, so "older" moves down the list
+        searchOlderButton.addActionListener(e -> showSearchResult(searchPosition + 1));
+        searchNewerButton.addActionListener(e -> showSearchResult(searchPosition - 1));
+        searchField.addActionListener(e -> showSearchResult(searchPosition + 1));
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(final DocumentEvent e) {
+                runSearch();
+            }
+
+            @Override
+            public void removeUpdate(final DocumentEvent e) {
+                runSearch();
+            }
+
+            @Override
+            public void changedUpdate(final DocumentEvent e) {
+                runSearch();
+            }
+        });
+
+        searchPanel.add(searchFieldWrapper, BorderLayout.CENTER);
+        searchPanel.add(controls, BorderLayout.EAST);
+        add(searchPanel, BorderLayout.NORTH);
+    }
+
     /**
      * Sets up the message container and scroll pane.
      */
     private void setupMessageContainer() {
-        messageContainer = new JPanel();
-        messageContainer.setLayout(new BoxLayout(messageContainer, BoxLayout.Y_AXIS));
-        messageContainer.setOpaque(false);
-        messageContainer.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        conversationColumn = new JPanel();
-        conversationColumn.setLayout(new BoxLayout(conversationColumn, BoxLayout.Y_AXIS));
-        conversationColumn.setOpaque(false);
-        conversationColumn.setAlignmentX(Component.LEFT_ALIGNMENT);
+        // Only the bubbles on screen are built and painted; see VirtualTimeline
+        timeline = new VirtualTimeline<>(MessageVM::getMessageId, new BubbleRenderer());
+        // Rows are read from the history as they scroll into view
+        timeline.setRowSource(viewModel::getMessage);
+        timeline.setBorder(new EmptyBorder(SMALL_PADDING, BORDER_PADDING,
+                BORDER_PADDING, BORDER_PADDING));
+        timeline.setUnitIncrement(SIXTEEN);
+        timeline.setHighlightColor(new Color(COLOR_HIGHLIGHT));
 
         uploadPreviewPanel = buildUploadPreviewPanel();
-        conversationColumn.add(uploadPreviewPanel);
-        conversationColumn.add(Box.createRigidArea(new Dimension(ZERO, SMALL_PADDING)));
-        conversationColumn.add(messageContainer);
-
         messageContainerWrapper = new JPanel(new BorderLayout());
-        messageContainerWrapper.setBorder(new EmptyBorder(BORDER_PADDING, BORDER_PADDING,
-                BORDER_PADDING, BORDER_PADDING));
-        messageContainerWrapper.add(conversationColumn, BorderLayout.NORTH);
+        messageContainerWrapper.setBorder(new EmptyBorder(SMALL_PADDING, BORDER_PADDING,
+                ZERO, BORDER_PADDING));
+        messageContainerWrapper.add(uploadPreviewPanel, BorderLayout.CENTER);
 
-        scrollPane = new JScrollPane(messageContainerWrapper);
+        scrollPane = new JScrollPane(timeline);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
         scrollPane.getVerticalScrollBar().setUnitIncrement(SIXTEEN);
 
-        add(scrollPane, BorderLayout.CENTER);
+        thumbnails = new ThumbnailCache(ThumbnailCache.DEFAULT_SIZE, ThumbnailCache.DEFAULT_MEMORY_BYTES,
+                Path.of(System.getProperty("user.home"), ".vartal", "thumbnails"),
+                viewModel::getAttachmentFile, timeline::repaintKey);
+        // Scrolling or resizing brings new rows into view
+        scrollPane.getViewport().addChangeListener(e -> requestVisibleThumbnails());
+
+        conversationColumn = new JPanel(new BorderLayout());
+        conversationColumn.add(messageContainerWrapper, BorderLayout.NORTH);
+        conversationColumn.add(scrollPane, BorderLayout.CENTER);
+
+        add(conversationColumn, BorderLayout.CENTER);
     }
 
     /**
@@ -458,6 +571,8 @@ public class ChatView extends JPanel {
 
         viewModel.setOnMessageAdded(this::addMessageToView);
         viewModel.setOnMessageRemoved(this::removeMessageFromView);
+        viewModel.setOnUploadProgress(this::refreshMessage);
+        viewModel.setOnDeliveryStateChanged(this::refreshMessage);
 
         attachButton.addActionListener(e -> showSelectFileDialog());
 
@@ -561,32 +676,9 @@ public class ChatView extends JPanel {
             return;
         }
 
-        final Component targetComponent = messageComponentMap.get(targetMessageId);
-
-        if (targetComponent != null) {
-            // 1. SCROLL logic
-            // We get the bounds of the component and tell the visible rect to go there
-            final Rectangle bounds = targetComponent.getBounds();
-            messageContainer.scrollRectToVisible(bounds);
-
-            // 2. HIGHLIGHT logic (Flash effect like WhatsApp)
-            // We assume targetComponent is the JPanel wrapper we created
-            if (targetComponent instanceof JPanel) {
-                final JPanel panel = (JPanel) targetComponent;
-                final Color originalColor = panel.getBackground();
-                final Color highlightColor = new Color(COLOR_HIGHLIGHT);
-
-                // Change color immediately
-                panel.setBackground(highlightColor);
-                panel.repaint();
-
-                // Change it back after 1 second using a Swing Timer
-                new Timer(TIMER_DELAY_MS, e -> {
-                    panel.setBackground(originalColor);
-                    panel.repaint();
-                    ((Timer) e.getSource()).stop(); // Stop the timer
-                }).start();
-            }
+        if (timeline.scrollToKey(targetMessageId)) {
+            // Flash effect like WhatsApp
+            timeline.highlight(targetMessageId, TIMER_DELAY_MS);
         } else {
             // Optional: Show a small toast if the message isn't loaded/found
             System.out.println("Message " + targetMessageId + " not found in current view.");
@@ -594,458 +686,538 @@ public class ChatView extends JPanel {
     }
 
     /**
-     * Removes a message from the view.
-     *
-     * @param messageId the ID of the message to remove
+     * Searches the history for the query in the search field and jumps to
+     * the newest match. Runs on every keystroke; the index answers in
+     * milliseconds.
      */
-    private void removeMessageFromView(final String messageId) {
-        SwingUtilities.invokeLater(() -> {
-            final Component componentToRemove = messageComponentMap.get(messageId);
-            if (componentToRemove != null) {
-                messageContainer.remove(componentToRemove);
-                messageComponentMap.remove(messageId);
-                messageContainer.revalidate();
-                messageContainer.repaint();
-            }
-        });
+    private void runSearch() {
+        final String query = searchField.getText();
+        // Queued messages must be in the timeline before we can jump to them
+        incoming.flush();
+        searchResults = viewModel.search(query);
+        searchPosition = 0;
+        if (searchResults.isEmpty()) {
+            updateSearchStatus(query.isBlank() ? "" : "No results");
+            return;
+        }
+        showSearchResult(0);
     }
 
     /**
-     * Formats file size in human-readable format.
+     * Jumps to a search result, wrapping around at either end.
      *
-     * @param bytes the file size in bytes
-     * @return formatted file size string
+     * @param position index into the results, newest first
      */
-    private String formatFileSize(final long bytes) {
-        if (bytes < BYTES_PER_KB) {
-            return bytes + " B";
+    private void showSearchResult(final int position) {
+        if (searchResults.isEmpty()) {
+            return;
         }
-        final int exp = (int) (Math.log(bytes) / Math.log(BYTES_PER_KB));
-        final String pre = "KMGTPE".charAt(exp - ONE) + "";
-        return String.format("%.1f %sB", bytes / Math.pow(BYTES_PER_KB, exp), pre);
+        searchPosition = Math.floorMod(position, searchResults.size());
+        scrollToMessage(searchResults.get(searchPosition));
+        updateSearchStatus((searchPosition + 1) + " of " + searchResults.size());
     }
 
     /**
-     * Helper to add message on EDT.
+     * Updates the search status text and result buttons.
      *
-     * @param messageVM the message view model to add
+     * @param status the text to show
      */
-    private void addMessageToView(final MessageVM messageVM) {
-        SwingUtilities.invokeLater(() -> {
-            // 1. Check if we already have a component for this message ID
-            if (messageComponentMap.containsKey(messageVM.getMessageId())) {
-                // --- UPDATE LOGIC ---
-                final Component oldComponent = messageComponentMap.get(messageVM.getMessageId());
-
-                // Find the index of the old component
-                int index = MINUS_ONE;
-                for (int i = ZERO; i < messageContainer.getComponentCount(); i++) {
-                    if (messageContainer.getComponent(i) == oldComponent) {
-                        index = i;
-                        break;
-                    }
-                }
-
-                // If found, replace it
-                if (index != MINUS_ONE) {
-                    messageContainer.remove(index); // Remove old bubble
-
-                    // Create new bubble (Text bubble with "This message was deleted")
-                    final Component newComponent = createMessageComponent(messageVM);
-
-                    messageContainer.add(newComponent, index); // Add new at SAME index
-                    messageComponentMap.put(messageVM.getMessageId(), newComponent); // Update map
-
-                    messageContainer.revalidate();
-                    messageContainer.repaint();
-                }
-            } else {
-                // --- ADD NEW LOGIC (Original) ---
-                final Component messageComponent = createMessageComponent(messageVM);
-                messageComponentMap.put(messageVM.getMessageId(), messageComponent);
-                messageContainer.add(messageComponent);
-
-                messageContainer.revalidate();
-                messageContainer.repaint();
+    private void updateSearchStatus(final String status) {
+        searchStatusLabel.setText(status);
+        searchOlderButton.setEnabled(searchResults.size() > 1);
+        searchNewerButton.setEnabled(searchResults.size() > 1);
+        searchPanel.revalidate();
+    }
 
-                // Only scroll to bottom for NEW messages
-                final JScrollBar vertical = scrollPane.getVerticalScrollBar();
-                vertical.setValue(vertical.getMaximum());
-            }
+    /**
+     * Removes a message from the view.
+     *
+     * @param messageId the ID of the message to remove
+     */
+    private void removeMessageFromView(final String messageId) {
+        SwingUtilities.invokeLater(() -> {
+            // Apply queued messages first so a remove never overtakes its add
+            incoming.flush();
+            timeline.remove(messageId);
+            textLayouts.remove(messageId);
         });
     }
 
     /**
-     * Creates a message component based on message type.
+     * Redraws a message's bubble, e.g. after its upload or delivery state
+     * changed. Safe to call from any thread.
      *
-     * @param messageVM the message view model
-     * @return the created component
+     * @param messageId the message ID
      */
-    private Component createMessageComponent(final MessageVM messageVM) {
-        if (messageVM.isFileMessage()) {
-            return createFileBubble(messageVM);
-        } else {
-            // ⭐ CHECK FOR AI MESSAGE
-            if (messageVM.getUsername().equals("AI_Bot")) {
-                return createAiBubble(messageVM);
-            }
-            return createTextBubble(messageVM);
+    private void refreshMessage(final String messageId) {
+        // Re-put the message so its bubble redraws with the new state
+        final MessageVM message = viewModel.getMessage(messageId);
+        if (message != null) {
+            incoming.submit(message);
         }
     }
 
     /**
-     * Builds a rounded bubble container with shared padding.
-     * @return rounded panel
+     * Checks whether a message is the placeholder left by a deletion.
+     *
+     * @param messageVM the message
+     * @return true if it was deleted
      */
-    private RoundedPanel createBubblePanel() {
-        final RoundedPanel bubble = new RoundedPanel(BUBBLE_CORNER_RADIUS);
-        bubble.setLayout(new BoxLayout(bubble, BoxLayout.Y_AXIS));
-        bubble.setBorder(new EmptyBorder(EIGHT, EIGHT, EIGHT, TWELVE));
-        bubble.setOpaque(false);
-        bubble.setAlignmentX(Component.LEFT_ALIGNMENT);
-        return bubble;
+    private static boolean isDeleted(final MessageVM messageVM) {
+        return ChatViewModel.DELETED_MESSAGE_TEXT.equals(messageVM.getContent());
     }
 
     /**
-     * ⭐ AI Special Bubble (Distinct Look).
+     * Formats file size in human-readable format.
      *
-     * @param messageVM the message view model
-     * @return the created AI bubble component
+     * @param bytes the file size in bytes
+     * @return formatted file size string
      */
-    private Component createAiBubble(final MessageVM messageVM) {
-        final RoundedPanel bubble = createBubblePanel();
-        bubble.setMaximumSize(new Dimension(AI_BUBBLE_MAX_WIDTH, MAX_DIMENSION));
-
-        // Header with Robot Icon
-        final JLabel usernameLabel = new JLabel("✨ AI Assistant");
-        usernameLabel.setFont(new Font("Arial", Font.BOLD, FONT_SIZE_13));
-        usernameLabel.putClientProperty(SKIP_LABEL_THEME_KEY, Boolean.TRUE);
-
-        final JLabel contentLabel = new JLabel("<html><p style=\"width:" + AI_CONTENT_WIDTH
-                + "px; font-family:SansSerif;\">" + messageVM.getContent() + "</p></html>");
-        contentLabel.setFont(new Font("Segoe UI", Font.PLAIN, FOURTEEN));
-        applyLabelTheme(contentLabel);
-
-        final JPanel footer = createFooterPanel(messageVM);
-
-        bubble.add(usernameLabel);
-        bubble.add(Box.createRigidArea(new Dimension(ZERO, FOUR)));
-        bubble.add(contentLabel);
-        bubble.add(Box.createRigidArea(new Dimension(ZERO, SMALL_PADDING)));
-        bubble.add(footer);
-
-        return wrapBubble(bubble, usernameLabel, false, true); // True = Is AI
+    private String formatFileSize(final long bytes) {
+        if (bytes < BYTES_PER_KB) {
+            return bytes + " B";
+        }
+        final int exp = (int) (Math.log(bytes) / Math.log(BYTES_PER_KB));
+        final String pre = "KMGTPE".charAt(exp - ONE) + "";
+        return String.format("%.1f %sB", bytes / Math.pow(BYTES_PER_KB, exp), pre);
     }
 
     /**
-     * Creates a text message bubble.
+     * Queues a message for the next batch. Safe to call from any thread.
      *
-     * @param messageVM the message view model
-     * @return the created text bubble component
+     * @param messageVM the message view model to add
      */
-    private Component createTextBubble(final MessageVM messageVM) {
-        final RoundedPanel bubble = createBubblePanel();
-        bubble.setMaximumSize(new Dimension(BUBBLE_MAX_WIDTH, MAX_DIMENSION));
+    private void addMessageToView(final MessageVM messageVM) {
+        incoming.submit(messageVM);
+    }
 
-        if (messageVM.hasQuote()) {
-            bubble.add(createQuotePanel(messageVM.getQuotedContent(), messageVM.getReplyToId()));
-            bubble.add(Box.createRigidArea(new Dimension(ZERO, SMALL_PADDING)));
+    /**
+     * Applies a batch of messages on the EDT. A message whose ID is already
+     * shown (e.g. "This message was deleted") replaces it in place. The list
+     * is laid out and scrolled once per batch rather than once per message.
+     *
+     * @param batch the messages, in arrival order
+     */
+    private void applyMessageBatch(final List<MessageVM> batch) {
+        boolean appended = false;
+        for (final MessageVM messageVM : batch) {
+            appended |= timeline.put(messageVM);
         }
-
-        final JLabel usernameLabel = new JLabel(messageVM.getUsername());
-        usernameLabel.setFont(new Font("Arial", Font.BOLD, FONT_SIZE_13));
-        usernameLabel.putClientProperty(SKIP_LABEL_THEME_KEY, Boolean.TRUE);
-
-        // Highlight my questions to AI
-        final boolean isQuestionToAi = messageVM.getContent().trim().startsWith("@AI");
-        if (isQuestionToAi) {
-            usernameLabel.setText(messageVM.getUsername() + " (Asking AI)");
-            usernameLabel.putClientProperty(AI_QUESTION_LABEL_KEY, Boolean.TRUE);
-        } else {
-            usernameLabel.putClientProperty(AI_QUESTION_LABEL_KEY, null);
+        if (appended) {
+            // Only scroll to bottom for NEW messages, once the viewport knows the new height
+            scrollPane.validate();
+            timeline.scrollToEnd();
         }
-
-        final JLabel contentLabel = new JLabel("<html><p style=\"width:" + QUOTE_WIDTH
-                + "px;\">" + messageVM.getContent() + "</p></html>");
-        contentLabel.setFont(new Font("Arial", isQuestionToAi ? Font.ITALIC : Font.PLAIN, FOURTEEN));
-        applyLabelTheme(contentLabel);
-
-        final JPanel footer = createFooterPanel(messageVM);
-
-        bubble.add(usernameLabel);
-        bubble.add(Box.createRigidArea(new Dimension(ZERO, TWO)));
-        bubble.add(contentLabel);
-        bubble.add(Box.createRigidArea(new Dimension(ZERO, SMALL_PADDING)));
-        bubble.add(footer);
-
-        return wrapBubble(bubble, usernameLabel, messageVM.isSentByMe(), false);
+        requestVisibleThumbnails();
     }
 
     /**
-     * Factory for building a File Message bubble.
-     *
-     * @param messageVM the message view model
-     * @return the created file bubble component
+     * Queues previews for the image attachments in view. Rows out of view are
+     * never decoded.
      */
-    private Component createFileBubble(final MessageVM messageVM) {
-        final RoundedPanel bubble = createBubblePanel();
-        bubble.setMaximumSize(new Dimension(BUBBLE_MAX_WIDTH, MAX_DIMENSION));
-
-        if (messageVM.hasQuote()) {
-            bubble.add(createQuotePanel(messageVM.getQuotedContent(), messageVM.getReplyToId()));
-            bubble.add(Box.createRigidArea(new Dimension(ZERO, SMALL_PADDING)));
+    private void requestVisibleThumbnails() {
+        for (String key : timeline.getVisibleKeys()) {
+            if (thumbnails.get(key) != null) {
+                continue;
+            }
+            final MessageVM message = viewModel.getMessage(key);
+            if (message != null && message.isFileMessage() && ThumbnailCache.isImage(message.getFileName())
+                    && viewModel.hasAttachmentFile(key)) {
+                thumbnails.request(key);
+            }
         }
-
-        final JLabel usernameLabel = new JLabel(messageVM.getUsername());
-        usernameLabel.setFont(new Font("Arial", Font.BOLD, FONT_SIZE_13));
-
-        final JPanel filePanel = createFilePanel(messageVM);
-        final JPanel footer = createFooterPanel(messageVM);
-
-        bubble.add(usernameLabel);
-        bubble.add(Box.createRigidArea(new Dimension(ZERO, SMALL_PADDING)));
-        bubble.add(filePanel);
-
-        addCaptionIfPresent(bubble, messageVM);
-
-        bubble.add(Box.createRigidArea(new Dimension(ZERO, SMALL_PADDING)));
-        bubble.add(footer);
-
-        return wrapBubble(bubble, usernameLabel, messageVM.isSentByMe(), false);
     }
 
     /**
-     * Creates the file panel with icon and file information.
+     * Gets the incoming-message batching metrics: messages per second received
+     * and EDT time spent per batch.
      *
-     * @param messageVM the message view model
-     * @return the created file panel
+     * @return the current stats
      */
-    private JPanel createFilePanel(final MessageVM messageVM) {
-        final JPanel filePanel = new JPanel(new BorderLayout(BORDER_PADDING, ZERO));
-        filePanel.setOpaque(false);
-        filePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        final Icon fileIcon = UIManager.getIcon("FileView.fileIcon");
-        final JLabel iconLabel = new JLabel(fileIcon);
-        iconLabel.setVerticalAlignment(SwingConstants.TOP);
-        filePanel.add(iconLabel, BorderLayout.WEST);
-
-        final JPanel infoPanel = createFileInfoPanel(messageVM);
-        filePanel.add(infoPanel, BorderLayout.CENTER);
-
-        return filePanel;
+    public EdtBatcher.Stats getMessageBatchStats() {
+        return incoming.getStats();
     }
 
     /**
-     * Creates the file info panel with file name, size, and save button.
-     *
-     * @param messageVM the message view model
-     * @return the created info panel
+     * Builds a rounded bubble container with shared padding.
+     * @return rounded panel
      */
-    private JPanel createFileInfoPanel(final MessageVM messageVM) {
-        final JPanel infoPanel = new JPanel();
-        infoPanel.setOpaque(false);
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        final JLabel fileNameLabel = new JLabel(messageVM.getFileName());
-        fileNameLabel.setFont(new Font("Arial", Font.BOLD, FOURTEEN));
-        applyLabelTheme(fileNameLabel);
-        infoPanel.add(fileNameLabel);
-
-        final String sizeDisplay;
-        if (messageVM.getCompressedFileSize() > ZERO) {
-            sizeDisplay = formatFileSize(messageVM.getCompressedFileSize()) + " (compressed)";
-        } else {
-            sizeDisplay = "Size unknown";
-        }
-        final JLabel sizeLabel = new JLabel(sizeDisplay);
-        sizeLabel.setFont(new Font("Arial", Font.PLAIN, TWELVE));
-        sizeLabel.putClientProperty(MUTED_LABEL_KEY, Boolean.TRUE);
-        applyLabelTheme(sizeLabel);
-        infoPanel.add(sizeLabel);
-
-        if (!messageVM.isSentByMe()) {
-            addSaveButton(infoPanel, messageVM);
-        }
-
-        return infoPanel;
+    private RoundedPanel createBubblePanel() {
+        final RoundedPanel bubble = new RoundedPanel(BUBBLE_CORNER_RADIUS);
+        bubble.setLayout(new BoxLayout(bubble, BoxLayout.Y_AXIS));
+        bubble.setBorder(new EmptyBorder(EIGHT, EIGHT, EIGHT, TWELVE));
+        bubble.setOpaque(false);
+        bubble.setAlignmentX(Component.LEFT_ALIGNMENT);
+        return bubble;
     }
 
     /**
-     * Adds a save button to the info panel.
+     * Creates a fixed vertical gap.
      *
-     * @param infoPanel the info panel to add the button to
-     * @param messageVM the message view model
+     * @param height the gap height
+     * @return the gap component
      */
-    private void addSaveButton(final JPanel infoPanel, final MessageVM messageVM) {
-        infoPanel.add(Box.createRigidArea(new Dimension(ZERO, EIGHT)));
-        final JButton saveButton = new JButton("Save File");
-        saveButton.setFont(new Font("Arial", Font.PLAIN, TWELVE));
-        saveButton.setMargin(new Insets(TWO, SMALL_PADDING, TWO, SMALL_PADDING));
-        saveButton.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        saveButton.addActionListener(e -> {
-            viewModel.downloadFile(messageVM);
-        });
-        infoPanel.add(saveButton);
+    private static Component gap(final int height) {
+        return Box.createRigidArea(new Dimension(ZERO, height));
     }
 
     /**
-     * Adds caption to bubble if message has content.
+     * Invalidates a component tree, so layouts that cache child sizes
+     * (e.g. BoxLayout) measure the new contents.
      *
-     * @param bubble the bubble panel
-     * @param messageVM the message view model
+     * @param component the root of the tree
      */
-    private void addCaptionIfPresent(final JPanel bubble, final MessageVM messageVM) {
-        if (messageVM.getContent() != null && !messageVM.getContent().trim().isEmpty()) {
-            bubble.add(Box.createRigidArea(new Dimension(ZERO, EIGHT)));
-            final JLabel captionLabel = new JLabel(
-                    "<html><p style=\"width:" + QUOTE_WIDTH + "px;\">"
-                            + messageVM.getContent() + "</p></html>"
-            );
-            captionLabel.setFont(new Font("Arial", Font.PLAIN, FOURTEEN));
-            applyLabelTheme(captionLabel);
-            captionLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-            bubble.add(captionLabel);
+    private static void invalidateTree(final Component component) {
+        component.invalidate();
+        if (component instanceof Container) {
+            for (Component child : ((Container) component).getComponents()) {
+                invalidateTree(child);
+            }
         }
     }
 
     /**
-     * Reusable UI Helper - Quote Panel.
+     * Draws every message bubble in the timeline with one reused component tree.
      *
-     * @param quotedContent the quoted message content
-     * @param replyToId the ID of the message being replied to
-     * @return the created quote panel component
+     * <p>The renderer holds the parts of all bubble kinds (text, file, AI) and
+     * re-assembles and re-themes them for each row it is asked for. Its
+     * buttons act on the message it was last configured for, which the
+     * timeline sets up right before replaying a click.</p>
      */
-    private Component createQuotePanel(final String quotedContent, final String replyToId) {
-        final RoundedPanel quotePanel = new RoundedPanel(BUBBLE_CORNER_RADIUS - 6);
-        quotePanel.setLayout(new BorderLayout());
-        quotePanel.putClientProperty(QUOTE_PANEL_KEY, Boolean.TRUE);
-        styleQuotePanel(quotePanel);
-
-        final JLabel quoteLabel = new JLabel(quotedContent);
-        quoteLabel.setFont(new Font("Arial", Font.ITALIC, FONT_SIZE_11));
-        quoteLabel.putClientProperty(MUTED_LABEL_KEY, Boolean.TRUE);
-        applyLabelTheme(quoteLabel);
-        quotePanel.add(quoteLabel, BorderLayout.CENTER);
-        quotePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        // --- NEW: MAKE IT CLICKABLE ---
-        if (replyToId != null) {
-            quotePanel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+    private final class BubbleRenderer implements VirtualTimeline.RowRenderer<MessageVM> {
+        /** Outer row panel, aligning the bubble left or right. */
+        private final JPanel wrapper = new JPanel(new BorderLayout());
+        /** The rounded bubble. */
+        private final RoundedPanel bubble = createBubblePanel();
+        /** Quote of the replied-to message. */
+        private final RoundedPanel quotePanel = new RoundedPanel(BUBBLE_CORNER_RADIUS - 6);
+        /** Quote text. */
+        private final JLabel quoteLabel = new JLabel();
+        /** Sender name or AI header. */
+        private final JLabel usernameLabel = new JLabel();
+        /** Message text. */
+        private final WrappedTextLabel contentLabel = new WrappedTextLabel(textLayouts, TEXT_WRAP_WIDTH);
+        /** File icon and details. */
+        private final JPanel filePanel = new JPanel(new BorderLayout(BORDER_PADDING, ZERO));
+        /** File details column. */
+        private final JPanel infoPanel = new JPanel();
+        /** File name. */
+        private final JLabel fileNameLabel = new JLabel();
+        /** File size. */
+        private final JLabel sizeLabel = new JLabel();
+        /** Gap above the save button. */
+        private final Component saveGap = gap(EIGHT);
+        /** Saves a received file. */
+        private final JButton saveButton = new JButton("Save File");
+        /** Image preview, or its placeholder while loading. */
+        private final JLabel previewLabel = new JLabel();
+        /** Gap below the image preview. */
+        private final Component previewGap = gap(EIGHT);
+        /** File caption. */
+        private final WrappedTextLabel captionLabel = new WrappedTextLabel(textLayouts, TEXT_WRAP_WIDTH);
+        /** Timestamp and actions. */
+        private final JPanel footer = new JPanel(new BorderLayout());
+        /** Timestamp. */
+        private final JLabel timeLabel = new JLabel();
+        /** Reply and delete buttons. */
+        private final JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, ZERO, ZERO));
+        /** Sends a message that failed to send again. */
+        private final JButton retryBtn = new JButton("Retry");
+        /** Starts a reply. */
+        private final JButton replyBtn = new JButton("Reply");
+        /** Deletes one of my messages. */
+        private final JButton deleteBtn = new JButton("Delete");
+        /** Gaps, one per position in the bubble. */
+        private final Component quoteGap = gap(SMALL_PADDING);
+        private final Component textHeaderGap = gap(TWO);
+        private final Component aiHeaderGap = gap(FOUR);
+        private final Component fileHeaderGap = gap(SMALL_PADDING);
+        private final Component captionGap = gap(EIGHT);
+        private final Component footerGap = gap(SMALL_PADDING);
+
+        /** Font of message text and captions. */
+        private final Font textFont = new Font("Arial", Font.PLAIN, FOURTEEN);
+        /** Font of questions to the AI and deleted messages. */
+        private final Font italicTextFont = textFont.deriveFont(Font.ITALIC);
+        /** Font of AI answers. */
+        private final Font aiFont = new Font("Segoe UI", Font.PLAIN, FOURTEEN);
+
+        /** The message the components currently show. */
+        private MessageVM current;
+
+        BubbleRenderer() {
+            wrapper.setOpaque(false);
+            wrapper.setBorder(new EmptyBorder(TINY_PADDING, ZERO, TINY_PADDING, ZERO));
+
+            quotePanel.setLayout(new BorderLayout());
+            quotePanel.putClientProperty(QUOTE_PANEL_KEY, Boolean.TRUE);
+            quotePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+            quoteLabel.setFont(new Font("Arial", Font.ITALIC, FONT_SIZE_11));
+            quoteLabel.putClientProperty(MUTED_LABEL_KEY, Boolean.TRUE);
+            quotePanel.add(quoteLabel, BorderLayout.CENTER);
             quotePanel.addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseClicked(final MouseEvent e) {
-                    scrollToMessage(replyToId);
+                    if (current != null && current.getReplyToId() != null) {
+                        scrollToMessage(current.getReplyToId());
+                    }
                 }
             });
-            // Optional: Add tooltip
-            quotePanel.setToolTipText("Click to jump to original message");
-        }
 
-        return quotePanel;
-    }
+            usernameLabel.putClientProperty(SKIP_LABEL_THEME_KEY, Boolean.TRUE);
+            bubble.putClientProperty(USERNAME_LABEL_KEY, usernameLabel);
+
+            filePanel.setOpaque(false);
+            filePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+            final JLabel iconLabel = new JLabel(UIManager.getIcon("FileView.fileIcon"));
+            iconLabel.setVerticalAlignment(SwingConstants.TOP);
+            filePanel.add(iconLabel, BorderLayout.WEST);
+            infoPanel.setOpaque(false);
+            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+            infoPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+            fileNameLabel.setFont(new Font("Arial", Font.BOLD, FOURTEEN));
+            sizeLabel.setFont(new Font("Arial", Font.PLAIN, TWELVE));
+            sizeLabel.putClientProperty(MUTED_LABEL_KEY, Boolean.TRUE);
+            saveButton.setFont(new Font("Arial", Font.PLAIN, TWELVE));
+            saveButton.setMargin(new Insets(TWO, SMALL_PADDING, TWO, SMALL_PADDING));
+            saveButton.setAlignmentX(Component.LEFT_ALIGNMENT);
+            saveButton.addActionListener(e -> {
+                if (current.isSentByMe()) {
+                    viewModel.resumeUpload(current.getMessageId());
+                } else {
+                    viewModel.downloadFile(current);
+                }
+            });
+            infoPanel.add(fileNameLabel);
+            infoPanel.add(sizeLabel);
+            infoPanel.add(saveGap);
+            infoPanel.add(saveButton);
+            filePanel.add(infoPanel, BorderLayout.CENTER);
+
+            // Fixed box, so the row keeps its height when the thumbnail arrives
+            final Dimension previewSize = new Dimension(ThumbnailCache.DEFAULT_SIZE, ThumbnailCache.DEFAULT_SIZE);
+            previewLabel.setPreferredSize(previewSize);
+            previewLabel.setMinimumSize(previewSize);
+            previewLabel.setMaximumSize(previewSize);
+            previewLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            previewLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+            previewLabel.setFont(new Font("Arial", Font.ITALIC, TWELVE));
+            previewLabel.putClientProperty(MUTED_LABEL_KEY, Boolean.TRUE);
+
+            captionLabel.setFont(textFont);
+            captionLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-    /**
-     * Reusable UI Helper - Footer Panel (with Reply/Delete buttons).
-     *
-     * @param messageVM the message view model
-     * @return the created footer panel
-     */
-    private JPanel createFooterPanel(final MessageVM messageVM) {
-        final JPanel footer = new JPanel(new BorderLayout());
-        footer.setOpaque(false);
-        footer.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        // 1. Always show the timestamp
-        final JLabel timeLabel = new JLabel(messageVM.getTimestamp());
-        timeLabel.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_10));
-        timeLabel.putClientProperty(MUTED_LABEL_KEY, Boolean.TRUE);
-        applyLabelTheme(timeLabel);
-        footer.add(timeLabel, BorderLayout.WEST);
-
-        // 2. CHECK IF MESSAGE IS DELETED
-        // We check if the content contains the specific text we set in the ViewModel
-        final boolean isDeleted = messageVM.getContent() != null
-                && messageVM.getContent().contains("This message was deleted");
-
-        // 3. ONLY ADD BUTTONS IF THE MESSAGE IS NOT DELETED
-        if (!isDeleted) {
-            final JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, ZERO, ZERO));
+            footer.setOpaque(false);
+            footer.setAlignmentX(Component.LEFT_ALIGNMENT);
+            timeLabel.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_10));
+            timeLabel.putClientProperty(MUTED_LABEL_KEY, Boolean.TRUE);
+            footer.add(timeLabel, BorderLayout.WEST);
             buttonPanel.setOpaque(false);
-
-            // --- Reply Button ---
-            final JButton replyBtn = new JButton("Reply");
+            retryBtn.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_10));
+            retryBtn.setMargin(new Insets(ZERO, ZERO, ZERO, SMALL_PADDING));
+            retryBtn.addActionListener(e -> viewModel.retrySend(current.getMessageId()));
             replyBtn.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_10));
-            styleLinkButton(replyBtn, safeAccentColor());
             replyBtn.setMargin(new Insets(ZERO, ZERO, ZERO, ZERO));
             replyBtn.addActionListener(e -> {
-                viewModel.startReply(messageVM);
+                viewModel.startReply(current);
                 messageInputField.requestFocus(); // Focus input after clicking reply
             });
+            deleteBtn.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_10));
+            deleteBtn.setMargin(new Insets(ZERO, SMALL_PADDING, ZERO, ZERO));
+            deleteBtn.addActionListener(e -> {
+                // The dialog repaints the timeline, which re-points current
+                final MessageVM target = current;
+                final int choice = JOptionPane.showConfirmDialog(ChatView.this,
+                        "Are you sure you want to delete this message?", "Delete Message",
+                        JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                if (choice == JOptionPane.YES_OPTION) {
+                    viewModel.deleteMessage(target);
+                }
+            });
+            buttonPanel.add(retryBtn);
             buttonPanel.add(replyBtn);
+            buttonPanel.add(deleteBtn);
+            footer.add(buttonPanel, BorderLayout.EAST);
+        }
 
-            // --- Delete Button (Only if sent by me) ---
-            if (messageVM.isSentByMe()) {
-                final JButton deleteBtn = new JButton("Delete");
-                deleteBtn.setFont(new Font("Arial", Font.PLAIN, FONT_SIZE_10));
-                styleLinkButton(deleteBtn, safeDangerColor());
-                deleteBtn.setMargin(new Insets(ZERO, SMALL_PADDING, ZERO, ZERO));
-                deleteBtn.addActionListener(e -> {
-                    final int choice = JOptionPane.showConfirmDialog(this,
-                            "Are you sure you want to delete this message?", "Delete Message",
-                            JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-                    if (choice == JOptionPane.YES_OPTION) {
-                        viewModel.deleteMessage(messageVM);
-                    }
-                });
-                buttonPanel.add(deleteBtn);
+        @Override
+        public Component getRowComponent(final MessageVM messageVM) {
+            current = messageVM;
+            bubble.removeAll();
+
+            final boolean isAi = !messageVM.isFileMessage() && "AI_Bot".equals(messageVM.getUsername());
+            final BubbleRole role;
+            if (isAi) {
+                role = BubbleRole.AI;
+            } else if (messageVM.isSentByMe()) {
+                role = BubbleRole.SENT;
+            } else {
+                role = BubbleRole.RECEIVED;
             }
+            bubble.setMaximumSize(new Dimension(isAi ? AI_BUBBLE_MAX_WIDTH : BUBBLE_MAX_WIDTH,
+                    MAX_DIMENSION));
 
-            // Add the button panel to the footer
-            footer.add(buttonPanel, BorderLayout.EAST);
+            if (!isAi && messageVM.hasQuote()) {
+                configureQuote(messageVM);
+                bubble.add(quotePanel);
+                bubble.add(quoteGap);
+            }
+
+            usernameLabel.setFont(new Font("Arial", Font.BOLD, FONT_SIZE_13));
+            usernameLabel.putClientProperty(AI_QUESTION_LABEL_KEY, null);
+            bubble.add(usernameLabel);
+
+            if (isAi) {
+                // ⭐ AI Special Bubble (Distinct Look)
+                usernameLabel.setText("✨ AI Assistant");
+                contentLabel.setFont(aiFont);
+                contentLabel.setWrapWidth(AI_TEXT_WRAP_WIDTH);
+                contentLabel.setText(messageVM.getMessageId(), messageVM.getContent());
+                bubble.add(aiHeaderGap);
+                bubble.add(contentLabel);
+            } else if (messageVM.isFileMessage()) {
+                usernameLabel.setText(messageVM.getUsername());
+                configureFile(messageVM);
+                bubble.add(fileHeaderGap);
+                if (ThumbnailCache.isImage(messageVM.getFileName())) {
+                    configurePreview(messageVM);
+                    bubble.add(previewLabel);
+                    bubble.add(previewGap);
+                }
+                bubble.add(filePanel);
+                if (messageVM.getContent() != null && !messageVM.getContent().trim().isEmpty()) {
+                    captionLabel.setText(messageVM.getMessageId(), messageVM.getContent());
+                    captionLabel.setForeground(fallbackColor(textColor, DEFAULT_TEXT));
+                    bubble.add(captionGap);
+                    bubble.add(captionLabel);
+                }
+            } else {
+                // Highlight my questions to AI
+                final boolean isQuestionToAi = messageVM.getContent().trim().startsWith("@AI");
+                if (isQuestionToAi) {
+                    usernameLabel.setText(messageVM.getUsername() + " (Asking AI)");
+                    usernameLabel.putClientProperty(AI_QUESTION_LABEL_KEY, Boolean.TRUE);
+                } else {
+                    usernameLabel.setText(messageVM.getUsername());
+                }
+                contentLabel.setFont(isQuestionToAi || isDeleted(messageVM) ? italicTextFont : textFont);
+                contentLabel.setWrapWidth(TEXT_WRAP_WIDTH);
+                contentLabel.setText(messageVM.getMessageId(), messageVM.getContent());
+                bubble.add(textHeaderGap);
+                bubble.add(contentLabel);
+            }
+            contentLabel.setForeground(fallbackColor(textColor, DEFAULT_TEXT));
+
+            configureFooter(messageVM);
+            bubble.add(footerGap);
+            bubble.add(footer);
+
+            bubble.putClientProperty(CHAT_ROLE_KEY, role);
+            applyBubbleTheme(bubble, role);
+
+            wrapper.removeAll();
+            wrapper.add(bubble, role == BubbleRole.SENT ? BorderLayout.EAST : BorderLayout.WEST);
+            invalidateTree(wrapper);
+            return wrapper;
         }
 
-        return footer;
-    }
+        /**
+         * Shows the quote; it jumps to the original message when clicked.
+         *
+         * @param messageVM the message
+         */
+        private void configureQuote(final MessageVM messageVM) {
+            styleQuotePanel(quotePanel);
+            quoteLabel.setText(messageVM.getQuotedContent());
+            applyLabelTheme(quoteLabel);
+            if (messageVM.getReplyToId() != null) {
+                quotePanel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+                quotePanel.setToolTipText("Click to jump to original message");
+            } else {
+                quotePanel.setCursor(Cursor.getDefaultCursor());
+                quotePanel.setToolTipText(null);
+            }
+        }
 
-    /**
-     * Reusable UI Helper - Wrap Bubble (align left/right based on sender).
-     *
-     * @param bubble the bubble panel to wrap
-     * @param usernameLabel the username label
-     * @param isSentByMe whether the message was sent by the current user
-     * @param isAi whether this is an AI message
-     * @return the wrapped bubble component
-     */
-    private Component wrapBubble(final JPanel bubble, final JLabel usernameLabel,
-                                  final boolean isSentByMe, final boolean isAi) {
-        final JPanel wrapper = new JPanel(new BorderLayout());
-        wrapper.setOpaque(false);
-        wrapper.setBorder(new EmptyBorder(TINY_PADDING, ZERO, TINY_PADDING, ZERO));
-
-        final BubbleRole role;
-        if (isAi) {
-            role = BubbleRole.AI;
-        } else if (isSentByMe) {
-            role = BubbleRole.SENT;
-        } else {
-            role = BubbleRole.RECEIVED;
+        /**
+         * Shows the file name, size or upload progress and, for received files,
+         * the save button; a paused upload of mine gets a resume button instead.
+         *
+         * @param messageVM the message
+         */
+        private void configureFile(final MessageVM messageVM) {
+            fileNameLabel.setText(messageVM.getFileName());
+            applyLabelTheme(fileNameLabel);
+            final int uploadPercent = viewModel.getUploadPercent(messageVM.getMessageId());
+            final boolean paused = uploadPercent >= ZERO && viewModel.isUploadPaused(messageVM.getMessageId());
+            if (paused) {
+                sizeLabel.setText("Upload paused at " + uploadPercent + "%");
+            } else if (uploadPercent >= ZERO) {
+                sizeLabel.setText("Uploading " + uploadPercent + "% of "
+                        + formatFileSize(messageVM.getCompressedFileSize()));
+            } else if (messageVM.getCompressedFileSize() > ZERO) {
+                sizeLabel.setText(formatFileSize(messageVM.getCompressedFileSize()) + " (compressed)");
+            } else {
+                sizeLabel.setText("Size unknown");
+            }
+            applyLabelTheme(sizeLabel);
+            final boolean showButton = !messageVM.isSentByMe() || paused;
+            saveButton.setText(paused ? "Resume Upload" : "Save File");
+            saveGap.setVisible(showButton);
+            saveButton.setVisible(showButton);
         }
 
-        usernameLabel.putClientProperty(SKIP_LABEL_THEME_KEY, Boolean.TRUE);
-        bubble.putClientProperty(CHAT_ROLE_KEY, role);
-        bubble.putClientProperty(USERNAME_LABEL_KEY, usernameLabel);
-        wrapper.putClientProperty(BUBBLE_PANEL_KEY, bubble);
-        applyBubbleTheme(bubble, role);
+        /**
+         * Shows the image thumbnail if it is loaded, and a placeholder otherwise.
+         *
+         * @param messageVM the message
+         */
+        private void configurePreview(final MessageVM messageVM) {
+            final BufferedImage thumbnail = thumbnails.get(messageVM.getMessageId());
+            if (thumbnail != null) {
+                previewLabel.setIcon(new ImageIcon(thumbnail));
+                previewLabel.setText(null);
+                previewLabel.setBorder(null);
+            } else {
+                previewLabel.setIcon(null);
+                previewLabel.setText(viewModel.hasAttachmentFile(messageVM.getMessageId())
+                        ? "Loading preview…" : "Save to preview");
+                applyLabelTheme(previewLabel);
+                previewLabel.setBorder(BorderFactory.createDashedBorder(previewLabel.getForeground()));
+            }
+        }
 
-        if (role == BubbleRole.SENT) {
-            wrapper.add(bubble, BorderLayout.EAST);
-        } else {
-            wrapper.add(bubble, BorderLayout.WEST);
+        /**
+         * Shows the timestamp, the delivery state of my messages and the
+         * retry/reply/delete buttons.
+         *
+         * @param messageVM the message
+         */
+        private void configureFooter(final MessageVM messageVM) {
+            final OutboundQueue.DeliveryState delivery = messageVM.isSentByMe() && !isDeleted(messageVM)
+                    ? viewModel.getDeliveryState(messageVM.getMessageId()) : null;
+            if (delivery == OutboundQueue.DeliveryState.SENDING) {
+                timeLabel.setText(messageVM.getTimestamp() + " · Sending…");
+            } else if (delivery == OutboundQueue.DeliveryState.SENT) {
+                timeLabel.setText(messageVM.getTimestamp() + " · Sent");
+            } else if (delivery == OutboundQueue.DeliveryState.FAILED) {
+                timeLabel.setText(messageVM.getTimestamp() + " · Not sent");
+            } else {
+                timeLabel.setText(messageVM.getTimestamp());
+            }
+            applyLabelTheme(timeLabel);
+            if (delivery == OutboundQueue.DeliveryState.FAILED) {
+                timeLabel.setForeground(safeDangerColor());
+            }
+            retryBtn.setVisible(delivery == OutboundQueue.DeliveryState.FAILED);
+            styleLinkButton(retryBtn, safeDangerColor());
+
+            // Only show buttons if the message is not deleted
+            buttonPanel.setVisible(!isDeleted(messageVM));
+            styleLinkButton(replyBtn, safeAccentColor());
+            styleLinkButton(deleteBtn, safeDangerColor());
+            deleteBtn.setVisible(messageVM.isSentByMe());
         }
-        return wrapper;
     }
 
 
@@ -1081,8 +1253,10 @@ public class ChatView extends JPanel {
         if (conversationColumn != null) {
             conversationColumn.setBackground(panelBackgroundColor);
         }
-        if (messageContainer != null) {
-            messageContainer.setBackground(panelBackgroundColor);
+        if (timeline != null) {
+            // Bubbles are themed as they are painted; a theme can change fonts and insets, so re-measure rows
+            timeline.setBackground(panelBackgroundColor);
+            timeline.remeasureAll();
         }
 
         styleScrollPane();
@@ -1090,14 +1264,13 @@ public class ChatView extends JPanel {
         styleSurfacePanel(replyQuotePanel);
         styleUploadPreviewPanel();
         styleInputPanel();
+        styleSearchPanel();
 
         applyLabelTheme(attachmentLabel);
         applyLabelTheme(replyQuoteLabel);
         applyLabelTheme(uploadPreviewLabel);
 
-        refreshAllBubbleThemes();
         retintLabels(messageContainerWrapper);
-        refreshQuotePanels(messageContainerWrapper);
 
         revalidate();
         repaint();
@@ -1174,26 +1347,25 @@ public class ChatView extends JPanel {
         styleSecondaryButton(attachButton);
     }
 
-    private void refreshAllBubbleThemes() {
-        if (messageContainer == null) {
+    private void styleSearchPanel() {
+        if (searchPanel == null) {
             return;
         }
-        for (Component component : messageContainer.getComponents()) {
-            if (!(component instanceof JPanel)) {
-                continue;
-            }
-            final JPanel wrapper = (JPanel) component;
-            final Object bubbleObj = wrapper.getClientProperty(BUBBLE_PANEL_KEY);
-            if (bubbleObj instanceof JPanel) {
-                final JPanel bubblePanel = (JPanel) bubbleObj;
-                final Object roleObj = bubblePanel.getClientProperty(CHAT_ROLE_KEY);
-                if (roleObj instanceof BubbleRole) {
-                    applyBubbleTheme(bubblePanel, (BubbleRole) roleObj);
-                }
-            }
-        }
-        messageContainer.revalidate();
-        messageContainer.repaint();
+        searchPanel.setBackground(panelBackgroundColor != null ? panelBackgroundColor : Color.WHITE);
+
+        searchField.setForeground(fallbackColor(textColor, DEFAULT_TEXT));
+        searchField.setCaretColor(fallbackColor(textColor, DEFAULT_TEXT));
+        searchField.setDisabledTextColor(fallbackColor(mutedTextColor, DEFAULT_MUTED));
+        searchField.setBackground(new Color(0, 0, 0, 0));
+
+        final Color inputBg = blendColors(inputBackgroundColor, panelBackgroundColor, 0.5);
+        searchFieldWrapper.setGradient(null, null);
+        searchFieldWrapper.setFillColor(fallbackColor(inputBg, Color.WHITE));
+        searchFieldWrapper.setBorderColor(new Color(0, 0, 0, 0));
+
+        styleSecondaryButton(searchOlderButton);
+        styleSecondaryButton(searchNewerButton);
+        applyLabelTheme(searchStatusLabel);
     }
 
     private void retintLabels(final Component component) {
@@ -1210,23 +1382,6 @@ public class ChatView extends JPanel {
         }
     }
 
-    private void refreshQuotePanels(final Component component) {
-        if (component == null) {
-            return;
-        }
-        if (component instanceof JPanel) {
-            final JPanel panel = (JPanel) component;
-            if (Boolean.TRUE.equals(panel.getClientProperty(QUOTE_PANEL_KEY))) {
-                styleQuotePanel(panel);
-            }
-        }
-        if (component instanceof Container) {
-            for (Component child : ((Container) component).getComponents()) {
-                refreshQuotePanels(child);
-            }
-        }
-    }
-
     private void applyBubbleTheme(final JPanel bubble, final BubbleRole role) {
         if (bubble == null || role == null) {
             return;
@@ -4,6 +4,9 @@ import com.swe.canvas.datamodel.canvas.CanvasState;
 import com.swe.canvas.datamodel.collaboration.CanvasNetworkService;
 import com.swe.canvas.datamodel.manager.ClientActionManager;
 import com.swe.canvas.datamodel.manager.HostActionManager;
+import com.swe.canvas.datamodel.persistence.CanvasAutosave;
+import com.swe.canvas.datamodel.persistence.CanvasOpLog;
+import com.swe.cloud.functionlibrary.CloudFunctionLibrary;
 import com.swe.controller.Meeting.ParticipantRole;
 import com.swe.controller.Meeting.UserProfile;
 import com.swe.screenNVideo.Utils;
@@ -55,6 +58,8 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -118,6 +123,8 @@ public class MeetingPage extends FrostedBackgroundPanel {
     private static final int ICON_VERTICAL_OFFSET = 3;
     private static final int ICON_HEIGHT_ADJUST = 6;
     private static final int ICON_ROUND_CORNER = 4;
+    /** Where the host's canvas operation logs are kept. */
+    private static final Path CANVAS_LOG_DIR = Path.of(System.getProperty("user.home"), ".vartal", "canvas_logs");
 
     private final MeetingViewModel meetingViewModel;
     private SoftCardPanel headerCard;
@@ -157,6 +164,10 @@ public class MeetingPage extends FrostedBackgroundPanel {
     
     // Add reference to CanvasPage to pass participant updates
     private CanvasPage canvasPageReference;
+    /** The host's canvas manager, or null when not hosting. */
+    private HostActionManager canvasHostManager;
+    /** The chat's view model, or null if chat is unavailable. */
+    private ChatViewModel chatViewModel;
 
     public MeetingPage(final MeetingViewModel meetingViewModelParam) {
         this.meetingViewModel = meetingViewModelParam;
@@ -293,6 +304,9 @@ public class MeetingPage extends FrostedBackgroundPanel {
             final CanvasNetworkService networkService = new CanvasNetworkService(meetingViewModel.getRpc());
             final HostActionManager hostManager = new HostActionManager(userId, hostCanvasState,
                     networkService, meetingViewModel.getRpc());
+            attachCanvasLog(hostManager);
+            canvasHostManager = hostManager;
+            attachCanvasAutosave(hostManager, hostCanvasState);
             canvasPage = new CanvasPage(hostManager, userId, meetingViewModel.getRpc());
         } else {
             final CanvasState clientCanvasState = new CanvasState();
@@ -314,6 +328,31 @@ public class MeetingPage extends FrostedBackgroundPanel {
         return card;
     }
 
+    private void attachCanvasLog(final HostActionManager hostManager) {
+        final String logName = canvasBoardName() + ".oplog";
+        try {
+            hostManager.attachOpLog(new CanvasOpLog(CANVAS_LOG_DIR.resolve(logName)));
+        } catch (final IOException e) {
+            System.err.println("[MeetingPage] Canvas operation log disabled: " + e.getMessage());
+        }
+    }
+
+    private void attachCanvasAutosave(final HostActionManager hostManager, final CanvasState canvasState) {
+        final String boardId = "autosave-" + canvasBoardName();
+        try {
+            hostManager.attachAutosave(new CanvasAutosave(new CloudFunctionLibrary(), boardId, canvasState));
+            System.out.println("[MeetingPage] Canvas autosaves to cloud board " + boardId);
+        } catch (final Exception e) {
+            System.err.println("[MeetingPage] Canvas autosave disabled: " + e.getMessage());
+        }
+    }
+
+    private String canvasBoardName() {
+        final String meetingId = meetingViewModel.getMeetingId().get();
+        return (meetingId == null || meetingId.isBlank() ? "board" : meetingId)
+                .replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
     private JPanel wrap(final JPanel p) {
         final JPanel w = new JPanel(new BorderLayout());
         w.setOpaque(false);
@@ -411,7 +450,7 @@ public class MeetingPage extends FrostedBackgroundPanel {
             panel.add(fallback, BorderLayout.CENTER);
             return panel;
         }
-        final ChatViewModel chatViewModel = new ChatViewModel(meetingViewModel.getRpc(),
+        chatViewModel = new ChatViewModel(meetingViewModel.getRpc(),
                 meetingViewModel.getCurrentUser());
         final ChatView chatView = new ChatView(chatViewModel);
         panel.add(chatView, BorderLayout.CENTER);
@@ -634,6 +673,15 @@ public class MeetingPage extends FrostedBackgroundPanel {
             updateLeaveButtonLabel();
         }));
         
+        meetingViewModel.getIsMeetingActive().addListener(PropertyListeners.onBooleanChanged(active -> {
+            if (!Boolean.TRUE.equals(active) && canvasHostManager != null) {
+                canvasHostManager.closeOpLog();
+            }
+            if (!Boolean.TRUE.equals(active) && chatViewModel != null) {
+                chatViewModel.close();
+            }
+        }));
+
         // NEW: Bind participant changes to canvas user updates
         meetingViewModel.getParticipants().addListener(PropertyListeners.onListChanged((List<UserProfile> participants) -> {
             // Iterate all participants and notify canvas
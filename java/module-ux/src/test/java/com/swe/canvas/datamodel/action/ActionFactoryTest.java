@@ -12,6 +12,7 @@ package com.swe.canvas.datamodel.action;
 
 import com.swe.canvas.datamodel.canvas.CanvasState;
 import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.FreehandShape;
 import com.swe.canvas.datamodel.shape.Point;
 import com.swe.canvas.datamodel.shape.Shape;
 import com.swe.canvas.datamodel.shape.ShapeId;
@@ -21,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -270,4 +272,136 @@ class ActionFactoryTest {
         );
         assertTrue(e.getMessage().contains("Unknown action type"));
     }
-}
\ No newline at end of file
+
+    // --- Versioning Tests ---
+
+    @Test
+    void testVersionsIncreasePerAction() {
+        ActionFactory factory = new ActionFactory();
+        CanvasState canvas = new CanvasState();
+        ShapeId id = new ShapeId("shape-001");
+
+        Action create = factory.createCreateAction(new StubShape(id, Color.RED, 1.0, "u1"), "u1");
+        assertEquals(ShapeState.INITIAL_VERSION, create.getNewState().getVersion());
+        canvas.applyState(id, create.getNewState());
+
+        Action modify = factory.createModifyAction(canvas, id, new StubShape(id, Color.BLUE, 1.0, "u1"), "u1");
+        assertEquals(ShapeState.INITIAL_VERSION, modify.getPrevState().getVersion());
+        assertEquals(ShapeState.INITIAL_VERSION + 1, modify.getNewState().getVersion());
+        canvas.applyState(id, modify.getNewState());
+
+        Action inverse = factory.createInverseAction(modify, "u1");
+        assertEquals(modify.getNewState().getVersion(), inverse.getPrevState().getVersion());
+        assertEquals(modify.getNewState().getVersion() + 1, inverse.getNewState().getVersion());
+    }
+
+    @Test
+    void testResolvePrevState_MatchingVersion() {
+        ActionFactory factory = new ActionFactory();
+        ShapeId id = new ShapeId("shape-001");
+        ShapeState current = new ShapeState(new StubShape(id, Color.RED, 1.0, "u1"), false, 100L, 4L);
+        ShapeState next = new ShapeState(new StubShape(id, Color.BLUE, 1.0, "u1"), false, 200L, 5L);
+        Action received = new ModifyShapeAction("act-001", "u1", 200L, id, ShapeState.reference(false, 4L), next);
+
+        Action resolved = factory.resolvePrevState(received, current);
+
+        assertSame(current, resolved.getPrevState());
+        assertEquals(received.getActionId(), resolved.getActionId());
+        assertSame(next, resolved.getNewState());
+    }
+
+    @Test
+    void testResolvePrevState_StaleVersionKeepsReference() {
+        ActionFactory factory = new ActionFactory();
+        ShapeId id = new ShapeId("shape-001");
+        ShapeState current = new ShapeState(new StubShape(id, Color.RED, 1.0, "u1"), false, 100L, 7L);
+        ShapeState next = new ShapeState(new StubShape(id, Color.BLUE, 1.0, "u1"), false, 200L, 5L);
+        Action received = new ModifyShapeAction("act-001", "u1", 200L, id, ShapeState.reference(false, 4L), next);
+
+        assertSame(received, factory.resolvePrevState(received, current));
+        assertSame(received, factory.resolvePrevState(received, null));
+    }
+
+    @Test
+    void testWithNewVersion() {
+        ActionFactory factory = new ActionFactory();
+        ShapeId id = new ShapeId("shape-001");
+        Action create = factory.createCreateAction(new StubShape(id, Color.RED, 1.0, "u1"), "u1");
+
+        assertSame(create, factory.withNewVersion(create, ShapeState.INITIAL_VERSION));
+
+        Action stamped = factory.withNewVersion(create, 3L);
+        assertTrue(stamped instanceof CreateShapeAction);
+        assertEquals(3L, stamped.getNewState().getVersion());
+        assertEquals(create.getActionId(), stamped.getActionId());
+    }
+
+    // --- Delta Modify Tests ---
+
+    private static Shape stroke(ShapeId id, double offset, Color color) {
+        return new FreehandShape(id, List.of(new Point(offset, offset), new Point(offset + 10, offset)),
+                1.0, color, "u1", "u1");
+    }
+
+    @Test
+    void testCreateModifyAction_AttachesDelta() {
+        ActionFactory factory = new ActionFactory();
+        CanvasState canvas = new CanvasState();
+        ShapeId id = new ShapeId("shape-001");
+        canvas.applyState(id, new ShapeState(stroke(id, 0, Color.RED), false, 100L));
+
+        ModifyShapeAction moved = (ModifyShapeAction) factory.createModifyAction(canvas, id, stroke(id, 5, Color.RED), "u1");
+        assertEquals(ShapeDelta.translate(5, 5), moved.getDelta());
+
+        ModifyShapeAction mixed = (ModifyShapeAction) factory.createModifyAction(canvas, id, stroke(id, 5, Color.BLUE), "u1");
+        assertNull(mixed.getDelta());
+    }
+
+    @Test
+    void testCreateInverseAction_UndoDeltaModify() {
+        ActionFactory factory = new ActionFactory();
+        CanvasState canvas = new CanvasState();
+        ShapeId id = new ShapeId("shape-001");
+        canvas.applyState(id, new ShapeState(stroke(id, 0, Color.RED), false, 100L, 4L));
+
+        Action moved = factory.createModifyAction(canvas, id, stroke(id, 5, Color.RED), "u1");
+        ModifyShapeAction inverse = (ModifyShapeAction) factory.createInverseAction(moved, "u1");
+
+        assertEquals(ShapeDelta.translate(-5, -5), inverse.getDelta());
+        assertEquals(moved.getNewState(), inverse.getPrevState());
+        assertEquals(stroke(id, 0, Color.RED).getPoints(), inverse.getNewState().getShape().getPoints());
+        assertEquals(6L, inverse.getNewState().getVersion());
+    }
+
+    @Test
+    void testResolvePrevState_MaterializesDeltaNewState() {
+        ActionFactory factory = new ActionFactory();
+        ShapeId id = new ShapeId("shape-001");
+        ShapeState current = new ShapeState(stroke(id, 0, Color.RED), false, 100L, 3L);
+        Action received = new ModifyShapeAction("act-001", "u2", 200L, id,
+                ShapeState.reference(false, 3L), ShapeState.reference(false, 4L),
+                ShapeDelta.setColor(Color.RED, Color.BLUE));
+
+        Action resolved = factory.resolvePrevState(received, current);
+
+        assertSame(current, resolved.getPrevState());
+        assertFalse(resolved.getNewState().isReference());
+        assertEquals(Color.BLUE, resolved.getNewState().getShape().getColor());
+        assertEquals("u2", resolved.getNewState().getShape().getLastUpdatedBy());
+        assertEquals(200L, resolved.getNewState().getLastModified());
+        assertEquals(4L, resolved.getNewState().getVersion());
+        // The local copy must be untouched
+        assertEquals(Color.RED, current.getShape().getColor());
+    }
+
+    @Test
+    void testResolvePrevState_StaleDeltaStaysReference() {
+        ActionFactory factory = new ActionFactory();
+        ShapeId id = new ShapeId("shape-001");
+        ShapeState current = new ShapeState(stroke(id, 0, Color.RED), false, 100L, 9L);
+        Action received = new ModifyShapeAction("act-001", "u2", 200L, id,
+                ShapeState.reference(false, 3L), ShapeState.reference(false, 4L), ShapeDelta.translate(1, 1));
+
+        assertTrue(factory.resolvePrevState(received, current).getNewState().isReference());
+    }
+}
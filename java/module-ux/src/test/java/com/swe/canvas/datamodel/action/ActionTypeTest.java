@@ -21,10 +21,11 @@ class ActionTypeTest {
         assertNotNull(ActionType.MODIFY);
         assertNotNull(ActionType.DELETE);
         assertNotNull(ActionType.RESURRECT);
+        assertNotNull(ActionType.COMPOUND);
         assertNotNull(ActionType.UNKNOWN);
 
         // Verify total count (Now 5)
-        assertEquals(5, ActionType.values().length);
+        assertEquals(6, ActionType.values().length);
     }
 
     @Test
@@ -33,6 +34,7 @@ class ActionTypeTest {
         assertEquals(ActionType.MODIFY, ActionType.valueOf("MODIFY"));
         assertEquals(ActionType.DELETE, ActionType.valueOf("DELETE"));
         assertEquals(ActionType.RESURRECT, ActionType.valueOf("RESURRECT"));
+        assertEquals(ActionType.COMPOUND, ActionType.valueOf("COMPOUND"));
         assertEquals(ActionType.UNKNOWN, ActionType.valueOf("UNKNOWN"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: CompoundActionTest.java
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.action;
+
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.LineShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompoundActionTest {
+
+    private final ActionFactory factory = new ActionFactory();
+    private final CanvasState canvas = new CanvasState();
+    private final ShapeId a = new ShapeId("shape-a");
+    private final ShapeId b = new ShapeId("shape-b");
+
+    private static Shape line(final ShapeId id, final double offset) {
+        return new LineShape(id, new ArrayList<>(List.of(new Point(offset, 0), new Point(offset + 10, 10))),
+                1.0, Color.BLACK, "u1", "u1");
+    }
+
+    @BeforeEach
+    void setUp() {
+        canvas.applyState(a, new ShapeState(line(a, 0), false, 1L, 2L));
+        canvas.applyState(b, new ShapeState(line(b, 50), false, 1L, 5L));
+    }
+
+    private CompoundAction moveBoth() {
+        Action moveA = factory.createModifyAction(canvas, a, line(a, 100), "u1");
+        Action moveB = factory.createModifyAction(canvas, b, line(b, 150), "u1");
+        return factory.createCompoundAction(List.of(moveA, moveB), "u1");
+    }
+
+    @Test
+    void testBaseFieldsMirrorFirstChild() {
+        CompoundAction compound = moveBoth();
+
+        assertEquals(ActionType.COMPOUND, compound.getActionType());
+        assertEquals(a, compound.getShapeId());
+        assertEquals(compound.getActions().get(0).getNewState(), compound.getNewState());
+        assertEquals(List.of(a, b), compound.getShapeIds());
+        assertThrows(UnsupportedOperationException.class, () -> compound.getActions().clear());
+    }
+
+    @Test
+    void testRejectsEmptyOrNested() {
+        assertThrows(IllegalArgumentException.class,
+                () -> factory.createCompoundAction(List.of(), "u1"));
+        CompoundAction inner = moveBoth();
+        assertThrows(IllegalArgumentException.class,
+                () -> factory.createCompoundAction(List.of(inner), "u1"));
+    }
+
+    @Test
+    void testInverseUndoesChildrenInReverseOrder() {
+        CompoundAction compound = moveBoth();
+
+        Action inverse = factory.createInverseAction(compound, "u1");
+
+        assertTrue(inverse instanceof CompoundAction);
+        List<Action> children = ((CompoundAction) inverse).getActions();
+        assertEquals(List.of(b, a), List.of(children.get(0).getShapeId(), children.get(1).getShapeId()));
+        assertEquals(canvas.getShapeState(b).getShape().getPoints(),
+                children.get(0).getNewState().getShape().getPoints());
+        assertEquals(7L, children.get(0).getNewState().getVersion());
+    }
+
+    @Test
+    void testBatchFactories() {
+        ShapeId c = new ShapeId("shape-c");
+        CompoundAction create = factory.createCreateBatch(List.of(line(c, 0)), "u1");
+        assertEquals(ActionType.CREATE, create.getActions().get(0).getActionType());
+
+        CompoundAction delete = factory.createDeleteBatch(canvas, List.of(a, b), "u1");
+        assertEquals(List.of(a, b), delete.getShapeIds());
+        assertTrue(delete.getActions().get(1).getNewState().isDeleted());
+        assertEquals(6L, delete.getActions().get(1).getNewState().getVersion());
+
+        Action restore = factory.createInverseAction(delete, "u1");
+        for (Action child : ((CompoundAction) restore).getActions()) {
+            assertEquals(ActionType.RESURRECT, child.getActionType());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> factory.createDeleteBatch(canvas, List.of(), "u1"));
+    }
+
+    @Test
+    void testWithActionsKeepsIdentity() {
+        CompoundAction compound = moveBoth();
+        List<Action> stamped = new ArrayList<>();
+        for (Action child : compound.getActions()) {
+            stamped.add(factory.withNewVersion(child, child.getNewState().getVersion() + 10));
+        }
+
+        assertSame(compound, factory.withActions(compound, compound.getActions()));
+        CompoundAction replaced = factory.withActions(compound, stamped);
+        assertEquals(compound.getActionId(), replaced.getActionId());
+        assertEquals(13L, replaced.getActions().get(0).getNewState().getVersion());
+    }
+}
@@ -62,4 +62,17 @@ class ModifyShapeActionTest {
         );
         assertTrue(e.getMessage().contains("cannot be performed on a deleted shape"));
     }
+
+    @Test
+    void testConstruction_WithDelta() {
+        ShapeState prev = new ShapeState(new StubShape(), false, 100L);
+        ShapeState next = new ShapeState(new StubShape(), false, 200L);
+        ShapeDelta delta = ShapeDelta.translate(3, 4);
+
+        ModifyShapeAction withDelta = new ModifyShapeAction("action-001", "user-001", 200L, new ShapeId("shape-001"), prev, next, delta);
+        ModifyShapeAction fullState = new ModifyShapeAction("action-002", "user-001", 200L, new ShapeId("shape-001"), prev, next);
+
+        assertEquals(delta, withDelta.getDelta());
+        assertNull(fullState.getDelta());
+    }
 }
\ No newline at end of file
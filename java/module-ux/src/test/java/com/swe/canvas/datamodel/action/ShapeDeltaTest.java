@@ -0,0 +1,100 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: ShapeDeltaTest.java
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.action;
+
+import com.swe.canvas.datamodel.shape.FreehandShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShapeDeltaTest {
+
+    private static Shape stroke(double offset, Color color, double thickness) {
+        return new FreehandShape(new ShapeId("shape-001"),
+                List.of(new Point(offset, offset), new Point(offset + 10, offset + 5), new Point(offset + 20, offset)),
+                thickness, color, "u1", "u1");
+    }
+
+    @Test
+    void testBetween_Translate() {
+        ShapeDelta delta = ShapeDelta.between(stroke(0, Color.RED, 1.0), stroke(7, Color.RED, 1.0));
+
+        assertNotNull(delta);
+        assertEquals(DeltaType.TRANSLATE, delta.getType());
+        assertEquals(7.0, delta.getDx());
+        assertEquals(7.0, delta.getDy());
+    }
+
+    @Test
+    void testBetween_SetColor() {
+        ShapeDelta delta = ShapeDelta.between(stroke(0, Color.RED, 1.0), stroke(0, Color.BLUE, 1.0));
+
+        assertEquals(ShapeDelta.setColor(Color.RED, Color.BLUE), delta);
+    }
+
+    @Test
+    void testBetween_SetThickness() {
+        ShapeDelta delta = ShapeDelta.between(stroke(0, Color.RED, 1.0), stroke(0, Color.RED, 4.0));
+
+        assertEquals(ShapeDelta.setThickness(1.0, 4.0), delta);
+    }
+
+    @Test
+    void testBetween_NotExpressible() {
+        Shape before = stroke(0, Color.RED, 1.0);
+        Shape reshaped = new FreehandShape(new ShapeId("shape-001"),
+                List.of(new Point(0, 0), new Point(11, 5), new Point(20, 0)), 1.0, Color.RED, "u1", "u1");
+
+        assertNull(ShapeDelta.between(before, reshaped));
+        assertNull(ShapeDelta.between(before, stroke(3, Color.BLUE, 1.0)));
+        assertNull(ShapeDelta.between(before, stroke(0, Color.BLUE, 2.0)));
+        assertNull(ShapeDelta.between(before, stroke(0, Color.RED, 1.0)));
+    }
+
+    @Test
+    void testApplyTo() {
+        Shape shape = stroke(0, Color.RED, 1.0);
+
+        ShapeDelta.translate(7, 7).applyTo(shape);
+        ShapeDelta.setColor(Color.RED, Color.GREEN).applyTo(shape);
+        ShapeDelta.setThickness(1.0, 3.0).applyTo(shape);
+
+        assertEquals(stroke(7, Color.GREEN, 3.0).getPoints(), shape.getPoints());
+        assertEquals(Color.GREEN, shape.getColor());
+        assertEquals(3.0, shape.getThickness());
+    }
+
+    @Test
+    void testInvert() {
+        assertEquals(ShapeDelta.translate(-2, 3), ShapeDelta.translate(2, -3).invert());
+        assertEquals(ShapeDelta.setColor(Color.BLUE, Color.RED), ShapeDelta.setColor(Color.RED, Color.BLUE).invert());
+        assertEquals(ShapeDelta.setThickness(4.0, 1.0), ShapeDelta.setThickness(1.0, 4.0).invert());
+
+        Shape shape = stroke(0, Color.RED, 1.0);
+        ShapeDelta delta = ShapeDelta.translate(12, -4);
+        delta.applyTo(shape);
+        delta.invert().applyTo(shape);
+        assertEquals(stroke(0, Color.RED, 1.0).getPoints(), shape.getPoints());
+    }
+
+    @Test
+    void testThen() {
+        assertEquals(ShapeDelta.translate(3, 1), ShapeDelta.translate(1, 2).then(ShapeDelta.translate(2, -1)));
+        assertEquals(ShapeDelta.setColor(Color.RED, Color.GREEN),
+                ShapeDelta.setColor(Color.RED, Color.BLUE).then(ShapeDelta.setColor(Color.BLUE, Color.GREEN)));
+        assertEquals(ShapeDelta.setThickness(1.0, 5.0),
+                ShapeDelta.setThickness(1.0, 2.0).then(ShapeDelta.setThickness(2.0, 5.0)));
+        assertNull(ShapeDelta.translate(1, 2).then(ShapeDelta.setThickness(1.0, 2.0)));
+        assertNull(ShapeDelta.translate(1, 2).then(null));
+    }
+}
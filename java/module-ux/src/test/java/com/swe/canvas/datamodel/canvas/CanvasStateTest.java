@@ -144,4 +144,70 @@ class CanvasStateTest {
 
         assertEquals(0, canvasState.getAllStates().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRemoveState() {
+        ShapeId id = new ShapeId("s1");
+        canvasState.applyState(id, new ShapeState(new TestShape(id), false, 1L));
+
+        canvasState.removeState(id);
+
+        assertNull(canvasState.getShapeState(id));
+        assertThrows(NullPointerException.class, () -> canvasState.removeState(null));
+    }
+
+    @Test
+    void testApplyStates_OneVersionPerBatch() {
+        ShapeId a = new ShapeId("s1");
+        ShapeId b = new ShapeId("s2");
+        Map<ShapeId, ShapeState> batch = new HashMap<>();
+        batch.put(a, new ShapeState(new TestShape(a), false, 1L));
+        batch.put(b, new ShapeState(new TestShape(b), true, 1L));
+        long before = canvasState.getBoardVersion();
+
+        canvasState.applyStates(batch);
+
+        assertEquals(before + 1, canvasState.getBoardVersion());
+        assertEquals(batch, canvasState.getAllStates());
+        canvasState.applyStates(new HashMap<>());
+        assertEquals(before + 1, canvasState.getBoardVersion());
+    }
+
+    @Test
+    void testFindShapesInRect_TracksVisibleShapes() {
+        ShapeId id = new ShapeId("s1");
+        canvasState.applyState(id, new ShapeState(new TestShape(id), false, 1L));
+
+        assertEquals(java.util.List.of(id), canvasState.findShapesInRect(5, 5, -5, -5));
+
+        canvasState.applyState(id, new ShapeState(new TestShape(id), true, 2L));
+        assertTrue(canvasState.findShapesInRect(-5, -5, 5, 5).isEmpty());
+
+        Map<ShapeId, ShapeState> restored = new HashMap<>();
+        restored.put(id, new ShapeState(new TestShape(id), false, 3L));
+        canvasState.setAllStates(restored);
+        assertEquals(1, canvasState.findShapesInRect(-5, -5, 5, 5).size());
+
+        canvasState.clear();
+        assertTrue(canvasState.findShapesInRect(-5, -5, 5, 5).isEmpty());
+    }
+
+    @Test
+    void testBoardVersionChangesOnEveryMutation() {
+        ShapeId id = new ShapeId("s1");
+        long v0 = canvasState.getBoardVersion();
+
+        canvasState.applyState(id, new ShapeState(new TestShape(id), false, 1L));
+        long v1 = canvasState.getBoardVersion();
+        canvasState.removeState(id);
+        long v2 = canvasState.getBoardVersion();
+        canvasState.setAllStates(new HashMap<>());
+        long v3 = canvasState.getBoardVersion();
+        canvasState.clear();
+        long v4 = canvasState.getBoardVersion();
+
+        assertTrue(v0 < v1 && v1 < v2 && v2 < v3 && v3 < v4);
+        canvasState.getAllStates();
+        assertEquals(v4, canvasState.getBoardVersion());
+    }
+}
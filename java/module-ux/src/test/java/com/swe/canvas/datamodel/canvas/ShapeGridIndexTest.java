@@ -0,0 +1,99 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: ShapeGridIndexTest.java
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.canvas;
+
+import com.swe.canvas.datamodel.shape.LineShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShapeGridIndexTest {
+
+    private final ShapeGridIndex index = new ShapeGridIndex();
+
+    private static ShapeState line(final ShapeId id, final double x0, final double y0,
+                                   final double x1, final double y1, final boolean deleted) {
+        return new ShapeState(new LineShape(id, new ArrayList<>(List.of(new Point(x0, y0), new Point(x1, y1))),
+                1.0, Color.BLACK, "u1", "u1"), deleted, 1L);
+    }
+
+    @Test
+    void testQueryFindsIntersectingShapesOnly() {
+        ShapeId near = new ShapeId("near");
+        ShapeId across = new ShapeId("across");
+        ShapeId far = new ShapeId("far");
+        index.update(near, line(near, 10, 10, 20, 20, false));
+        index.update(across, line(across, -300, 15, 900, 15, false));
+        index.update(far, line(far, 2000, 2000, 2010, 2010, false));
+
+        assertEquals(Set.of(near, across), new HashSet<>(index.query(0, 0, 50, 50)));
+        assertEquals(List.of(far), index.query(1990, 1990, 2000, 2000));
+        assertTrue(index.query(500, 500, 600, 600).isEmpty());
+    }
+
+    @Test
+    void testUpdateMovesAndDeleteRemoves() {
+        ShapeId id = new ShapeId("s");
+        index.update(id, line(id, 0, 0, 10, 10, false));
+        index.update(id, line(id, 1000, 1000, 1010, 1010, false));
+
+        assertTrue(index.query(0, 0, 10, 10).isEmpty());
+        assertEquals(List.of(id), index.query(1000, 1000, 1001, 1001));
+
+        index.update(id, line(id, 1000, 1000, 1010, 1010, true));
+        assertTrue(index.query(1000, 1000, 1001, 1001).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testOversizedShapeIsStillFound() {
+        ShapeId huge = new ShapeId("huge");
+        index.update(huge, line(huge, -100_000, -100_000, 100_000, 100_000, false));
+
+        assertEquals(List.of(huge), index.query(5, 5, 6, 6));
+        index.remove(huge);
+        assertTrue(index.query(5, 5, 6, 6).isEmpty());
+    }
+
+    @Test
+    void testMatchesLinearScan() {
+        Random random = new Random(7);
+        List<ShapeState> states = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            ShapeId id = new ShapeId("s" + i);
+            double x = random.nextInt(5000) - 1000;
+            double y = random.nextInt(5000) - 1000;
+            ShapeState state = line(id, x, y, x + random.nextInt(400), y + random.nextInt(400), false);
+            states.add(state);
+            index.update(id, state);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double x = random.nextInt(5000) - 1000;
+            double y = random.nextInt(5000) - 1000;
+            double w = random.nextInt(1500);
+            double h = random.nextInt(1500);
+            Set<ShapeId> expected = new HashSet<>();
+            for (ShapeState state : states) {
+                double[] b = ShapeGridIndex.boundsOf(state.getShape());
+                if (b[0] <= x + w && b[2] >= x && b[1] <= y + h && b[3] >= y) {
+                    expected.add(state.getShapeId());
+                }
+            }
+            assertEquals(expected, new HashSet<>(index.query(x, y, x + w, y + h)));
+        }
+    }
+}
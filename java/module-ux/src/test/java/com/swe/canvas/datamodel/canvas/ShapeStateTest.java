@@ -121,4 +121,28 @@ class ShapeStateTest {
         assertEquals(state1.hashCode(), state2.hashCode());
         assertNotEquals(state1.hashCode(), state3.hashCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testVersion() {
+        TestShape shape = new TestShape(new ShapeId("s1"), "u1");
+
+        assertEquals(ShapeState.UNVERSIONED, new ShapeState(shape, false, 100L).getVersion());
+
+        ShapeState versioned = new ShapeState(shape, false, 100L, 3L);
+        assertEquals(3L, versioned.getVersion());
+        assertEquals(3L, versioned.copy().getVersion());
+        assertNotEquals(versioned, new ShapeState(shape, false, 100L, 4L));
+    }
+
+    @Test
+    void testReference() {
+        ShapeState ref = ShapeState.reference(true, 9L);
+
+        assertTrue(ref.isReference());
+        assertTrue(ref.isDeleted());
+        assertEquals(9L, ref.getVersion());
+        assertNull(ref.getShapeId());
+        assertSame(ref, ref.copy());
+        assertFalse(new ShapeState(new TestShape(new ShapeId("s1"), "u1"), false, 1L).isReference());
+    }
+}
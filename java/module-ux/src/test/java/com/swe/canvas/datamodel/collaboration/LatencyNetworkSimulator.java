@@ -0,0 +1,255 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: LatencyNetworkSimulator.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.collaboration;
+
+import com.swe.canvas.datamodel.manager.ActionManager;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory network with injected latency and reordering, for load tests.
+ *
+ * <p>Every message is delivered after a base latency plus a random jitter, on
+ * a single network thread. Messages from the host to a client keep their
+ * order, like on one connection per client. Messages to the host may be
+ * reordered by the jitter when {@code reorderToHost} is set, so actions from
+ * different clients (or from one client) reach the host in a different order
+ * than they were sent.</p>
+ *
+ * <p>Everything that touches the managers should run on the network thread
+ * (see {@link #execute(Runnable)} and {@link #scheduleAtFixedRate}), which
+ * keeps the managers single-threaded as in the application.</p>
+ */
+public class LatencyNetworkSimulator extends NetworkSimulator implements AutoCloseable {
+
+    /** Nanoseconds per millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /** How often {@link #awaitQuiet(long)} checks for in-flight messages. */
+    private static final long QUIET_POLL_MS = 1;
+
+    /**
+     * Receives a callback after each delivered message.
+     */
+    @FunctionalInterface
+    public interface DeliveryListener {
+
+        /**
+         * Called on the network thread after the target processed a message.
+         *
+         * @param message         The message.
+         * @param toHost          True if it travelled from a client to the host.
+         * @param sentNanos       {@link System#nanoTime()} when it was sent.
+         * @param processingNanos Time the target spent processing it.
+         */
+        void delivered(NetworkMessage message, boolean toHost, long sentNanos, long processingNanos);
+    }
+
+    /** The single network thread. */
+    private final ScheduledThreadPoolExecutor executor;
+
+    /** Base one-way latency, in nanoseconds. */
+    private final long latencyNanos;
+
+    /** Maximum random extra latency, in nanoseconds. */
+    private final long jitterNanos;
+
+    /** Whether messages to the host may overtake each other. */
+    private final boolean reorderToHost;
+
+    /** Source of jitter. Guarded by {@link #links}. */
+    private final Random random;
+
+    /** Ordered links: latest due time and undelivered messages per target. Guards itself. */
+    private final Map<ActionManager, Link> links = new IdentityHashMap<>();
+
+    /** Messages sent but not yet processed. */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Optional delivery callback. */
+    private volatile DeliveryListener listener;
+
+    /**
+     * A message on its way.
+     *
+     * @param message   The message.
+     * @param sentNanos {@link System#nanoTime()} when it was sent.
+     */
+    private record Envelope(NetworkMessage message, long sentNanos) {
+    }
+
+    /**
+     * An ordered link to one target.
+     */
+    private static final class Link {
+
+        /** Messages not yet delivered, in send order. */
+        private final Deque<Envelope> queue = new ArrayDeque<>();
+
+        /** Due time of the last message queued. */
+        private long lastDue = Long.MIN_VALUE;
+    }
+
+    /**
+     * Creates a network.
+     *
+     * @param latencyMs     Base one-way latency, in milliseconds.
+     * @param jitterMs      Maximum random extra latency, in milliseconds.
+     * @param reorderToHost Whether jitter may reorder messages to the host.
+     * @param seed          Seed for the jitter.
+     */
+    public LatencyNetworkSimulator(final long latencyMs, final long jitterMs,
+                                   final boolean reorderToHost, final long seed) {
+        this.latencyNanos = Math.max(0, latencyMs) * NANOS_PER_MILLI;
+        this.jitterNanos = Math.max(0, jitterMs) * NANOS_PER_MILLI;
+        this.reorderToHost = reorderToHost;
+        this.random = new Random(seed);
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "canvas-network-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Sets the callback run after each delivered message.
+     *
+     * @param deliveryListener The listener, or null for none.
+     */
+    public void setDeliveryListener(final DeliveryListener deliveryListener) {
+        this.listener = deliveryListener;
+    }
+
+    @Override
+    protected void deliver(final ActionManager target, final NetworkMessage message,
+                           final boolean toHost) {
+        final Envelope envelope = new Envelope(message, System.nanoTime());
+        final boolean ordered = !toHost || !reorderToHost;
+        long due;
+        synchronized (links) {
+            due = envelope.sentNanos() + latencyNanos;
+            if (jitterNanos > 0) {
+                due += (long) (random.nextDouble() * jitterNanos);
+            }
+            if (ordered) {
+                final Link link = links.computeIfAbsent(target, t -> new Link());
+                due = Math.max(due, link.lastDue);
+                link.lastDue = due;
+                link.queue.addLast(envelope);
+            }
+        }
+        inFlight.incrementAndGet();
+        executor.schedule(() -> {
+            if (ordered) {
+                // Each task delivers the oldest message of its link, so the
+                // link stays FIFO even if tasks fire out of order
+                final Envelope next;
+                synchronized (links) {
+                    next = links.get(target).queue.pollFirst();
+                }
+                process(target, next, toHost);
+            } else {
+                process(target, envelope, toHost);
+            }
+        }, due - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private void process(final ActionManager target, final Envelope envelope, final boolean toHost) {
+        try {
+            final long start = System.nanoTime();
+            target.processIncomingMessage(envelope.message());
+            final DeliveryListener current = listener;
+            if (current != null) {
+                current.delivered(envelope.message(), toHost, envelope.sentNanos(),
+                        System.nanoTime() - start);
+            }
+        } catch (final RuntimeException e) {
+            System.err.println("[LatencyNetworkSimulator] Delivery failed: " + e.getMessage());
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs a task on the network thread.
+     *
+     * @param task The task.
+     */
+    public void execute(final Runnable task) {
+        executor.execute(guarded(task));
+    }
+
+    /**
+     * Runs a task on the network thread repeatedly, e.g. a simulated user.
+     *
+     * @param task         The task.
+     * @param initialNanos Delay before the first run, in nanoseconds.
+     * @param periodNanos  Time between runs, in nanoseconds.
+     * @return A future that cancels the task.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(final Runnable task, final long initialNanos,
+                                                  final long periodNanos) {
+        return executor.scheduleAtFixedRate(guarded(task), initialNanos, periodNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of messages sent but not yet processed.
+     *
+     * @return The in-flight message count.
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Waits until no message is in flight.
+     *
+     * @param timeoutMs The longest time to wait, in milliseconds.
+     * @return True if the network went quiet in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitQuiet(final long timeoutMs) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeoutMs * NANOS_PER_MILLI;
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(QUIET_POLL_MS);
+        }
+        return true;
+    }
+
+    /**
+     * Stops the network thread, dropping undelivered messages.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static Runnable guarded(final Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                // A periodic task stops for good if it throws
+                System.err.println("[LatencyNetworkSimulator] Task failed: " + e.getMessage());
+            }
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.swe.canvas.datamodel.collaboration;
+
+import com.swe.canvas.datamodel.manager.ActionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests latency, ordering and reordering of the load-test network.
+ */
+class LatencyNetworkSimulatorTest {
+
+    private LatencyNetworkSimulator network;
+
+    private static ActionManager recorder(final List<NetworkMessage> received) {
+        return (ActionManager) Proxy.newProxyInstance(ActionManager.class.getClassLoader(),
+                new Class<?>[] {ActionManager.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("processIncomingMessage")) {
+                        received.add((NetworkMessage) args[0]);
+                    }
+                    return null;
+                });
+    }
+
+    private static List<NetworkMessage> messages(final int count) {
+        List<NetworkMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new NetworkMessage(MessageType.NORMAL, new byte[] {(byte) i}));
+        }
+        return messages;
+    }
+
+    @AfterEach
+    void tearDown() {
+        network.close();
+    }
+
+    @Test
+    void testBroadcastArrivesLateButInOrder() throws InterruptedException {
+        network = new LatencyNetworkSimulator(20, 30, true, 1);
+        List<NetworkMessage> received = Collections.synchronizedList(new ArrayList<>());
+        network.registerClient(recorder(received));
+        List<NetworkMessage> sent = messages(100);
+
+        long start = System.nanoTime();
+        sent.forEach(network::broadcastMessage);
+        assertTrue(received.isEmpty());
+        assertTrue(network.awaitQuiet(5_000));
+
+        assertTrue(System.nanoTime() - start >= 20_000_000L);
+        assertEquals(sent, received);
+        assertEquals(0, network.getInFlightCount());
+    }
+
+    @Test
+    void testJitterReordersMessagesToHostOnlyWhenAllowed() throws InterruptedException {
+        List<NetworkMessage> sent = messages(200);
+
+        network = new LatencyNetworkSimulator(0, 30, true, 1);
+        List<NetworkMessage> reordered = Collections.synchronizedList(new ArrayList<>());
+        network.registerHost(recorder(reordered));
+        sent.forEach(network::sendMessageToHost);
+        assertTrue(network.awaitQuiet(5_000));
+        network.close();
+
+        network = new LatencyNetworkSimulator(0, 30, false, 1);
+        List<NetworkMessage> ordered = Collections.synchronizedList(new ArrayList<>());
+        network.registerHost(recorder(ordered));
+        sent.forEach(network::sendMessageToHost);
+        assertTrue(network.awaitQuiet(5_000));
+
+        assertEquals(sent.size(), reordered.size());
+        assertNotEquals(sent, reordered);
+        assertEquals(sent, ordered);
+    }
+
+    @Test
+    void testListenerSeesEveryDelivery() throws InterruptedException {
+        network = new LatencyNetworkSimulator(1, 0, false, 1);
+        List<Boolean> directions = Collections.synchronizedList(new ArrayList<>());
+        network.setDeliveryListener((message, toHost, sentNanos, processingNanos) -> directions.add(toHost));
+        network.registerHost(recorder(new ArrayList<>()));
+        network.registerClient(recorder(new ArrayList<>()));
+
+        network.sendMessageToHost(messages(1).get(0));
+        network.broadcastMessage(messages(1).get(0));
+        assertTrue(network.awaitQuiet(5_000));
+
+        assertEquals(2, directions.size());
+        assertTrue(directions.contains(true));
+        assertTrue(directions.contains(false));
+    }
+}
@@ -56,11 +56,29 @@ class NetworkSimulatorReflectionTest {
             // no-op
         }
 
+        @Override
+        public void requestModifyBatch(final java.util.Map<com.swe.canvas.datamodel.shape.ShapeId,
+                com.swe.canvas.datamodel.shape.Shape> modifiedShapes) {
+            // no-op
+        }
+
         @Override
         public void requestDelete(final com.swe.canvas.datamodel.canvas.ShapeState shapeToDelete) {
             // no-op
         }
 
+        @Override
+        public void requestCreateBatch(
+                final java.util.Collection<com.swe.canvas.datamodel.shape.Shape> newShapes) {
+            // no-op
+        }
+
+        @Override
+        public void requestDeleteBatch(
+                final java.util.Collection<com.swe.canvas.datamodel.shape.ShapeId> shapeIds) {
+            // no-op
+        }
+
         @Override
         public void requestUndo() {
             // no-op
@@ -81,6 +99,16 @@ class NetworkSimulatorReflectionTest {
             // no-op
         }
 
+        @Override
+        public byte[] saveMapBinary() {
+            return new byte[0];
+        }
+
+        @Override
+        public void restoreMapBinary(final byte[] data) {
+            // no-op
+        }
+
         @Override
         public void processIncomingMessage(final NetworkMessage message) {
             this.lastMessage = message;
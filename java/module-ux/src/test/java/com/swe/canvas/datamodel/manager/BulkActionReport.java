@@ -0,0 +1,273 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: BulkActionReport.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.manager;
+
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.collaboration.NetworkMessage;
+import com.swe.canvas.datamodel.collaboration.NetworkSimulator;
+import com.swe.canvas.datamodel.shape.FreehandShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.RectangleShape;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Command-line tool comparing bulk edits sent one action per shape with the
+ * same edits sent as one compound action.
+ *
+ * <p>A client and the host are wired through a {@link NetworkSimulator}. The
+ * client creates, moves and clears a board, then undoes the clear. For each
+ * step the report shows the messages and bytes sent in both directions, the
+ * wall time, the number of update callbacks (one per render) and the undo
+ * history entries used.</p>
+ *
+ * <p>Usage: {@code BulkActionReport [shapeCount]}; defaults to 1,000.</p>
+ */
+public final class BulkActionReport {
+
+    /** Shapes per board when none are given. */
+    private static final int DEFAULT_SHAPES = 1_000;
+
+    /** Points in a generated freehand stroke. */
+    private static final int STROKE_POINTS = 40;
+
+    /** Width and height of the generated board. */
+    private static final int BOARD_SIZE = 4000;
+
+    /** Distance every shape is moved by. */
+    private static final double MOVE_OFFSET = 25;
+
+    /** Untimed warm-up runs per path. */
+    private static final int WARMUP_RUNS = 2;
+
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** Bytes per kilobyte. */
+    private static final double BYTES_PER_KB = 1024.0;
+
+    /** Steps of the scenario, in order. */
+    private static final String[] STEPS = {"create", "move", "clear", "undo clear"};
+
+    private BulkActionReport() {
+        // Utility class
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args Optional number of shapes.
+     */
+    public static void main(final String[] args) {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SHAPES;
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            new Session().run(count, false);
+            new Session().run(count, true);
+        }
+
+        System.out.printf("%d shapes%n", count);
+        System.out.printf("%-11s %-9s | %9s %10s %9s %9s %8s%n",
+                "step", "path", "messages", "KB", "ms", "renders", "history");
+        final long[][] single = new Session().run(count, false);
+        final long[][] batched = new Session().run(count, true);
+        for (int s = 0; s < STEPS.length; s++) {
+            print(STEPS[s], "per-shape", single[s]);
+            print(STEPS[s], "compound", batched[s]);
+        }
+    }
+
+    private static void print(final String step, final String path, final long[] row) {
+        System.out.printf("%-11s %-9s | %9d %10.1f %9.1f %9d %8d%n", step, path,
+                row[0], row[1] / BYTES_PER_KB, row[2] / NANOS_PER_MILLI, row[3], row[4]);
+    }
+
+    /**
+     * Generates shapes owned by the given user: freehand strokes and rectangles.
+     *
+     * @param count Number of shapes.
+     * @param user  The owner.
+     * @return The shapes, the same for the same count.
+     */
+    static List<Shape> generateShapes(final int count, final String user) {
+        final Random random = new Random(count);
+        final List<Shape> shapes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final ShapeId id = ShapeId.randomId();
+            final double x = random.nextInt(BOARD_SIZE);
+            final double y = random.nextInt(BOARD_SIZE);
+            if (i % 2 == 0) {
+                final List<Point> stroke = new ArrayList<>();
+                for (int p = 0; p < STROKE_POINTS; p++) {
+                    stroke.add(new Point(x + p, y + random.nextInt(7) - 3));
+                }
+                shapes.add(new FreehandShape(id, stroke, 2.0, Color.BLACK, user, user));
+            } else {
+                shapes.add(new RectangleShape(id, List.of(new Point(x, y),
+                        new Point(x + random.nextInt(300), y + random.nextInt(300))),
+                        1.0, Color.BLUE, user, user));
+            }
+        }
+        return shapes;
+    }
+
+    private static Shape moved(final Shape shape) {
+        final List<Point> points = new ArrayList<>(shape.getPoints().size());
+        for (final Point p : shape.getPoints()) {
+            points.add(new Point(p.getX() + MOVE_OFFSET, p.getY() + MOVE_OFFSET));
+        }
+        final Shape copy = shape.copy();
+        copy.setPoints(points);
+        return copy;
+    }
+
+    /**
+     * Counts what crosses the simulated network.
+     */
+    private static final class CountingNetwork extends NetworkSimulator {
+
+        /** Messages sent in either direction. */
+        private long messages;
+
+        /** Serialized action bytes sent in either direction. */
+        private long bytes;
+
+        private void count(final NetworkMessage message) {
+            messages++;
+            if (message.getSerializedAction() != null) {
+                bytes += message.getSerializedAction().length;
+            }
+        }
+
+        @Override
+        public void sendMessageToHost(final NetworkMessage message) {
+            count(message);
+            super.sendMessageToHost(message);
+        }
+
+        @Override
+        public void broadcastMessage(final NetworkMessage message) {
+            count(message);
+            super.broadcastMessage(message);
+        }
+    }
+
+    /**
+     * One host, one client and a fresh board.
+     */
+    private static final class Session {
+
+        /** The simulated network. */
+        private final CountingNetwork network = new CountingNetwork();
+
+        /** The client's view of the board. */
+        private final CanvasState clientState = new CanvasState();
+
+        /** The client performing the edits. */
+        private final ClientActionManager client;
+
+        /** The host the client sends its edits to. */
+        private final HostActionManager host;
+
+        /** Update callbacks on either side. */
+        private long renders;
+
+        Session() {
+            final LocalRpc rpc = new LocalRpc();
+            host = new HostActionManager("host", new CanvasState(), network, rpc);
+            client = new ClientActionManager("client", clientState, network, rpc);
+            network.registerHost(host);
+            network.registerClient(client);
+            host.setOnUpdate(() -> renders++);
+            client.setOnUpdate(() -> renders++);
+        }
+
+        /**
+         * Runs the scenario.
+         *
+         * @param count    Number of shapes.
+         * @param compound True to send each step as one compound action.
+         * @return Per step: messages, bytes, nanoseconds, renders, history entries.
+         */
+        long[][] run(final int count, final boolean compound) {
+            final List<Shape> shapes = generateShapes(count, "client");
+            final long[][] rows = new long[STEPS.length][];
+
+            rows[0] = measure(() -> {
+                if (compound) {
+                    client.requestCreateBatch(shapes);
+                } else {
+                    for (final Shape shape : shapes) {
+                        client.requestCreate(shape);
+                    }
+                }
+            });
+
+            rows[1] = measure(() -> {
+                if (compound) {
+                    final Map<ShapeId, Shape> moves = new LinkedHashMap<>();
+                    for (final Shape shape : shapes) {
+                        moves.put(shape.getShapeId(), moved(shape));
+                    }
+                    client.requestModifyBatch(moves);
+                } else {
+                    for (final Shape shape : shapes) {
+                        client.requestModify(clientState.getShapeState(shape.getShapeId()), moved(shape));
+                    }
+                }
+            });
+
+            rows[2] = measure(() -> {
+                final List<ShapeId> ids = new ArrayList<>(count);
+                for (final ShapeState state : clientState.getShapeStates()) {
+                    ids.add(state.getShapeId());
+                }
+                if (compound) {
+                    client.requestDeleteBatch(ids);
+                } else {
+                    for (final ShapeId id : ids) {
+                        client.requestDelete(clientState.getShapeState(id));
+                    }
+                }
+            });
+
+            final int clearSteps = compound ? 1 : count;
+            rows[3] = measure(() -> {
+                for (int i = 0; i < clearSteps; i++) {
+                    client.requestUndo();
+                }
+            });
+
+            if (client.getPendingActionCount() != 0
+                    || clientState.getVisibleShapes().size() != count
+                    || !host.getCanvasState().getAllStates().equals(clientState.getAllStates())) {
+                System.err.println("[BulkActionReport] Host and client did not converge.");
+            }
+            return rows;
+        }
+
+        private long[] measure(final Runnable step) {
+            final long messages = network.messages;
+            final long bytes = network.bytes;
+            final long updates = renders;
+            final long start = System.nanoTime();
+            step.run();
+            final long nanos = System.nanoTime() - start;
+            return new long[] {network.messages - messages, network.bytes - bytes, nanos,
+                renders - updates, client.getUndoRedoManager().getHistorySize()};
+        }
+    }
+}
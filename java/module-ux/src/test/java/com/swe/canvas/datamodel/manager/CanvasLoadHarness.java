@@ -0,0 +1,597 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: CanvasLoadHarness.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.manager;
+
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.collaboration.LatencyNetworkSimulator;
+import com.swe.canvas.datamodel.collaboration.NetworkMessage;
+import com.swe.canvas.datamodel.serialization.ShapeSerializer;
+import com.swe.canvas.datamodel.shape.FreehandShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.RectangleShape;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.awt.Color;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for the canvas: one host and several clients wired through a
+ * {@link LatencyNetworkSimulator}, with simulated users editing a large board.
+ *
+ * <p>Each user issues create, modify, delete and undo requests at a fixed
+ * rate, either picked at random from a weighted mix or cycling through a
+ * script. When the load stops, the harness waits for every replica to match
+ * the host and reports:</p>
+ * <ul>
+ * <li>host actions applied per second, and how many were rejected;</li>
+ * <li>convergence time after the last request;</li>
+ * <li>p50/p99 host apply time (processing one message) and send-to-applied
+ *     latency (network, queueing and processing);</li>
+ * <li>heap used per shape on the host.</li>
+ * </ul>
+
+ * <p>The host and all clients run on the simulated network's single thread,
+ * so queueing delays include the clients' work as well as the host's.</p>
+ *
+ * <p>Usage: {@code CanvasLoadHarness [key=value ...]}, e.g.
+ * {@code users=16 rate=50 duration=30 shapes=20000 latency=40 jitter=30
+ * reorder=true mix=40:40:10:10} or {@code script=create,modify,modify,undo}.
+ * The Maven {@code benchmark} profile runs it headless with the arguments in
+ * {@code loadtest.args}.</p>
+ */
+public final class CanvasLoadHarness {
+
+    /** Nanoseconds per second. */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** Longest wait for the replicas to converge, in milliseconds. */
+    private static final long CONVERGENCE_TIMEOUT_MS = 60_000;
+
+    /** How often convergence is checked, in milliseconds. */
+    private static final long CONVERGENCE_POLL_MS = 10;
+
+    /** Points in a generated freehand stroke. */
+    private static final int STROKE_POINTS = 40;
+
+    /** Width and height of the area new shapes are drawn in. */
+    private static final int BOARD_SIZE = 4000;
+
+    /** Largest distance a modify moves a shape by. */
+    private static final int MAX_MOVE = 40;
+
+    /** 50th percentile. */
+    private static final double P50 = 0.50;
+
+    /** 99th percentile. */
+    private static final double P99 = 0.99;
+
+    /** Garbage collection passes before reading the heap. */
+    private static final int GC_PASSES = 3;
+
+    /** Pause after each garbage collection pass, in milliseconds. */
+    private static final long GC_PAUSE_MS = 50;
+
+    /**
+     * A user request.
+     */
+    enum Op {
+        /** Draw a new shape. */
+        CREATE,
+        /** Move an existing shape. */
+        MODIFY,
+        /** Delete an existing shape. */
+        DELETE,
+        /** Undo the user's last action. */
+        UNDO
+    }
+
+    private CanvasLoadHarness() {
+        // Utility class
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args Options as {@code key=value}.
+     */
+    public static void main(final String[] args) {
+        final Config config;
+        try {
+            config = Config.parse(args);
+        } catch (final IllegalArgumentException e) {
+            System.err.println("[CanvasLoadHarness] " + e.getMessage());
+            System.err.println("Options: users= rate= duration= shapes= latency= jitter= reorder= "
+                    + "mix=create:modify:delete:undo script=op,op,... seed= verbose=");
+            return;
+        }
+        try {
+            print(config, run(config));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("[CanvasLoadHarness] Interrupted.");
+        }
+    }
+
+    private static void print(final Config config, final Result r) {
+        System.out.printf(Locale.ROOT, "%d users x %.0f req/s for %.1f s on %d shapes, "
+                        + "latency %d+%d ms, reorder to host %s%n",
+                config.users, config.rate, config.durationSec, config.shapes,
+                config.latencyMs, config.jitterMs, config.reorder);
+        System.out.printf(Locale.ROOT, "requests sent      %10d%n", r.requests);
+        System.out.printf(Locale.ROOT, "host applied       %10d  (%.1f actions/s)%n",
+                r.applied, r.appliedPerSecond);
+        System.out.printf(Locale.ROOT, "host rejected      %10d%n", r.requests - r.applied);
+        System.out.printf(Locale.ROOT, "host apply time    p50 %8.3f ms   p99 %8.3f ms%n",
+                r.applyP50Nanos / NANOS_PER_MILLI, r.applyP99Nanos / NANOS_PER_MILLI);
+        System.out.printf(Locale.ROOT, "send to applied    p50 %8.3f ms   p99 %8.3f ms%n",
+                r.endToEndP50Nanos / NANOS_PER_MILLI, r.endToEndP99Nanos / NANOS_PER_MILLI);
+        if (r.converged) {
+            System.out.printf(Locale.ROOT, "converged after    %10.1f ms%n", r.convergenceMs);
+        } else {
+            System.out.printf(Locale.ROOT, "NOT converged: %d replica(s) differ from the host%n",
+                    r.divergedReplicas);
+        }
+        System.out.printf(Locale.ROOT, "heap per shape     %10.0f bytes%n", r.bytesPerShape);
+    }
+
+    /**
+     * Runs one load test.
+     *
+     * @param config The options.
+     * @return The measurements.
+     * @throws InterruptedException if interrupted while waiting for the load or convergence.
+     */
+    static Result run(final Config config) throws InterruptedException {
+        final Result result = new Result();
+
+        // Board, measured on the host
+        final long heapBefore = usedHeap();
+        final CanvasState hostState = new CanvasState();
+        final Map<ShapeId, ShapeState> board = new LinkedHashMap<>();
+        for (final Shape shape : BulkActionReport.generateShapes(config.shapes, "board")) {
+            board.put(shape.getShapeId(), new ShapeState(shape, false, 0L, ShapeState.INITIAL_VERSION));
+        }
+        hostState.setAllStates(board);
+        board.clear();
+        result.bytesPerShape = config.shapes == 0 ? 0
+                : (double) (usedHeap() - heapBefore) / config.shapes;
+        final String snapshot = ShapeSerializer.serializeShapesMap(hostState.getAllStates());
+
+        final PrintStream err = System.err;
+        if (!config.verbose) {
+            // Rejected actions are expected under load; do not log each one
+            System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        try (MeteredNetwork network = new MeteredNetwork(config)) {
+            final LocalRpc rpc = new LocalRpc();
+            final HostActionManager host = new HostActionManager("host", hostState, network, rpc);
+            network.registerHost(host);
+
+            final List<ShapeId> ids = new ArrayList<>(hostState.getAllStates().keySet());
+            final List<ClientActionManager> clients = new ArrayList<>();
+            final List<ScheduledFuture<?>> users = new ArrayList<>();
+            final long period = (long) (NANOS_PER_SECOND / config.rate);
+            final Random stagger = new Random(config.seed);
+            for (int u = 0; u < config.users; u++) {
+                final CanvasState replica = new CanvasState();
+                replica.setAllStates(ShapeSerializer.deserializeShapesMap(snapshot));
+                final ClientActionManager client = new ClientActionManager("user-" + u, replica, network, rpc);
+                network.registerClient(client);
+                clients.add(client);
+            }
+            // Every client is registered before any user starts, so none misses a broadcast
+            for (int u = 0; u < config.users; u++) {
+                final User user = new User(clients.get(u), ids, config, config.seed + u + 1);
+                users.add(network.scheduleAtFixedRate(user, (long) (stagger.nextDouble() * period), period));
+            }
+
+            final long start = System.nanoTime();
+            Thread.sleep((long) (config.durationSec * TimeUnit.SECONDS.toMillis(1)));
+            for (final ScheduledFuture<?> user : users) {
+                user.cancel(false);
+            }
+            final long loadEnd = System.nanoTime();
+
+            // Actions the host rejected without a conflicting broadcast stay
+            // pending on their client until its timeout rolls them back
+            final long deadline = loadEnd + TimeUnit.MILLISECONDS.toNanos(CONVERGENCE_TIMEOUT_MS);
+            while (network.awaitQuiet(CONVERGENCE_TIMEOUT_MS)
+                    && countDiverged(clients, hostState) > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(CONVERGENCE_POLL_MS);
+            }
+            final long quietAt = System.nanoTime();
+            result.divergedReplicas = countDiverged(clients, hostState);
+            result.converged = result.divergedReplicas == 0 && network.getInFlightCount() == 0;
+            result.convergenceMs = (quietAt - loadEnd) / NANOS_PER_MILLI;
+
+            result.requests = network.requests;
+            result.applied = network.applied;
+            result.appliedPerSecond = network.applied * NANOS_PER_SECOND / (quietAt - start);
+            final long[] apply = network.applyNanos.sorted();
+            final long[] endToEnd = network.endToEndNanos.sorted();
+            result.applyP50Nanos = percentile(apply, P50);
+            result.applyP99Nanos = percentile(apply, P99);
+            result.endToEndP50Nanos = percentile(endToEnd, P50);
+            result.endToEndP99Nanos = percentile(endToEnd, P99);
+        } finally {
+            System.setErr(err);
+        }
+        return result;
+    }
+
+    private static int countDiverged(final List<ClientActionManager> clients, final CanvasState hostState) {
+        int diverged = 0;
+        for (final ClientActionManager client : clients) {
+            if (client.getPendingActionCount() != 0
+                    || !client.getCanvasState().getAllStates().equals(hostState.getAllStates())) {
+                diverged++;
+            }
+        }
+        return diverged;
+    }
+
+    private static long percentile(final long[] sorted, final double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_PASSES; i++) {
+            System.gc();
+            Thread.sleep(GC_PAUSE_MS);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Options of a run.
+     */
+    static final class Config {
+
+        /** Number of simulated users, one client each. */
+        private int users = 8;
+
+        /** Requests per second per user. */
+        private double rate = 20;
+
+        /** Length of the load phase, in seconds. */
+        private double durationSec = 10;
+
+        /** Shapes on the board before the load starts. */
+        private int shapes = 5_000;
+
+        /** Base one-way network latency, in milliseconds. */
+        private long latencyMs = 20;
+
+        /** Maximum extra random latency, in milliseconds. */
+        private long jitterMs = 10;
+
+        /** Whether jitter may reorder messages to the host. */
+        private boolean reorder = true;
+
+        /** Relative weights of create, modify, delete and undo. */
+        private int[] mix = {40, 40, 10, 10};
+
+        /** Requests each user cycles through instead of the mix, or null. */
+        private List<Op> script;
+
+        /** Seed for the board, the users and the jitter. */
+        private long seed = 42;
+
+        /** Whether to keep the managers' per-conflict error logging. */
+        private boolean verbose;
+
+        /**
+         * Parses {@code key=value} options.
+         *
+         * @param args The options.
+         * @return The configuration.
+         * @throws IllegalArgumentException if an option is unknown or invalid.
+         */
+        static Config parse(final String... args) {
+            final Config config = new Config();
+            for (final String arg : args) {
+                final int eq = arg.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+                }
+                final String value = arg.substring(eq + 1).trim();
+                try {
+                    config.set(arg.substring(0, eq).trim(), value);
+                } catch (final NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid number in '" + arg + "'", e);
+                }
+            }
+            if (config.users < 1 || config.rate <= 0 || config.durationSec <= 0 || config.shapes < 0) {
+                throw new IllegalArgumentException("users, rate and duration must be positive");
+            }
+            if (Arrays.stream(config.mix).sum() <= 0) {
+                throw new IllegalArgumentException("mix needs at least one positive weight");
+            }
+            return config;
+        }
+
+        private void set(final String key, final String value) {
+            switch (key) {
+                case "users" -> users = Integer.parseInt(value);
+                case "rate" -> rate = Double.parseDouble(value);
+                case "duration" -> durationSec = Double.parseDouble(value);
+                case "shapes" -> shapes = Integer.parseInt(value);
+                case "latency" -> latencyMs = Long.parseLong(value);
+                case "jitter" -> jitterMs = Long.parseLong(value);
+                case "reorder" -> reorder = Boolean.parseBoolean(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "verbose" -> verbose = Boolean.parseBoolean(value);
+                case "mix" -> {
+                    final String[] parts = value.split(":");
+                    if (parts.length != Op.values().length) {
+                        throw new IllegalArgumentException("mix needs create:modify:delete:undo weights");
+                    }
+                    mix = Arrays.stream(parts).mapToInt(p -> Integer.parseInt(p.trim())).toArray();
+                }
+                case "script" -> {
+                    script = new ArrayList<>();
+                    for (final String op : value.split(",")) {
+                        try {
+                            script.add(Op.valueOf(op.trim().toUpperCase(Locale.ROOT)));
+                        } catch (final IllegalArgumentException e) {
+                            throw new IllegalArgumentException("Unknown script step '" + op + "'", e);
+                        }
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown option '" + key + "'");
+            }
+        }
+    }
+
+    /**
+     * Measurements of a run.
+     */
+    static final class Result {
+
+        /** Action messages the clients sent to the host. */
+        private long requests;
+
+        /** Actions the host applied and broadcast. */
+        private long applied;
+
+        /** Applied actions per second of wall time. */
+        private double appliedPerSecond;
+
+        /** Median time the host spent on one message. */
+        private long applyP50Nanos;
+
+        /** 99th percentile of the time the host spent on one message. */
+        private long applyP99Nanos;
+
+        /** Median time from a client sending a message to the host applying it. */
+        private long endToEndP50Nanos;
+
+        /** 99th percentile of the time from sending to applied. */
+        private long endToEndP99Nanos;
+
+        /** Time from the end of the load until no message was in flight. */
+        private double convergenceMs;
+
+        /** Whether every replica matches the host. */
+        private boolean converged;
+
+        /** Replicas that do not match the host. */
+        private int divergedReplicas;
+
+        /** Heap used on the host per board shape, in bytes. */
+        private double bytesPerShape;
+
+        long getRequests() {
+            return requests;
+        }
+
+        long getApplied() {
+            return applied;
+        }
+
+        boolean isConverged() {
+            return converged;
+        }
+
+        double getBytesPerShape() {
+            return bytesPerShape;
+        }
+    }
+
+    /**
+     * One simulated user. Runs on the network thread.
+     */
+    private static final class User implements Runnable {
+
+        /** The user's client. */
+        private final ClientActionManager client;
+
+        /** Every shape ID seen so far, shared by all users. */
+        private final List<ShapeId> ids;
+
+        /** The options. */
+        private final Config config;
+
+        /** The user's own random source. */
+        private final Random random;
+
+        /** Position in the script. */
+        private int step;
+
+        User(final ClientActionManager clientManager, final List<ShapeId> shapeIds,
+             final Config options, final long seed) {
+            this.client = clientManager;
+            this.ids = shapeIds;
+            this.config = options;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public void run() {
+            switch (nextOp()) {
+                case MODIFY -> {
+                    final ShapeState target = pickShape();
+                    if (target == null) {
+                        create();
+                    } else {
+                        client.requestModify(target, moved(target.getShape()));
+                    }
+                }
+                case DELETE -> {
+                    final ShapeState target = pickShape();
+                    if (target == null) {
+                        create();
+                    } else {
+                        client.requestDelete(target);
+                    }
+                }
+                case UNDO -> client.requestUndo();
+                default -> create();
+            }
+        }
+
+        private Op nextOp() {
+            if (config.script != null && !config.script.isEmpty()) {
+                return config.script.get(step++ % config.script.size());
+            }
+            int pick = random.nextInt(Arrays.stream(config.mix).sum());
+            for (int i = 0; i < config.mix.length; i++) {
+                pick -= config.mix[i];
+                if (pick < 0) {
+                    return Op.values()[i];
+                }
+            }
+            return Op.CREATE;
+        }
+
+        private ShapeState pickShape() {
+            if (ids.isEmpty()) {
+                return null;
+            }
+            final ShapeState state = client.getCanvasState()
+                    .getShapeState(ids.get(random.nextInt(ids.size())));
+            return state == null || state.isDeleted() ? null : state;
+        }
+
+        private void create() {
+            final ShapeId id = ShapeId.randomId();
+            final double x = random.nextInt(BOARD_SIZE);
+            final double y = random.nextInt(BOARD_SIZE);
+            final String user = client.getUserId();
+            final Shape shape;
+            if (random.nextBoolean()) {
+                final List<Point> stroke = new ArrayList<>(STROKE_POINTS);
+                for (int p = 0; p < STROKE_POINTS; p++) {
+                    stroke.add(new Point(x + p, y + random.nextInt(7) - 3));
+                }
+                shape = new FreehandShape(id, stroke, 2.0, Color.BLACK, user, user);
+            } else {
+                shape = new RectangleShape(id, List.of(new Point(x, y),
+                        new Point(x + random.nextInt(300), y + random.nextInt(300))),
+                        1.0, Color.BLUE, user, user);
+            }
+            ids.add(id);
+            client.requestCreate(shape);
+        }
+
+        private Shape moved(final Shape shape) {
+            final double dx = random.nextInt(2 * MAX_MOVE + 1) - MAX_MOVE;
+            final double dy = random.nextInt(2 * MAX_MOVE + 1) - MAX_MOVE;
+            final List<Point> points = new ArrayList<>(shape.getPoints().size());
+            for (final Point p : shape.getPoints()) {
+                points.add(new Point(p.getX() + dx, p.getY() + dy));
+            }
+            final Shape copy = shape.copy();
+            copy.setPoints(points);
+            return copy;
+        }
+    }
+
+    /**
+     * Growable list of samples.
+     */
+    private static final class Samples {
+
+        /** Initial capacity. */
+        private static final int INITIAL_CAPACITY = 1024;
+
+        /** The samples. */
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        /** Number of samples. */
+        private int size;
+
+        void add(final long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] sorted() {
+            final long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Counts requests and accepted actions and times the host.
+     * The counters are only touched on the network thread.
+     */
+    private static final class MeteredNetwork extends LatencyNetworkSimulator {
+
+        /** Action messages delivered to the host. */
+        private long requests;
+
+        /** Actions the host broadcast after applying them. */
+        private long applied;
+
+        /** Host processing time per message. */
+        private final Samples applyNanos = new Samples();
+
+        /** Time from send to processed per message to the host. */
+        private final Samples endToEndNanos = new Samples();
+
+        MeteredNetwork(final Config config) {
+            super(config.latencyMs, config.jitterMs, config.reorder, config.seed);
+            setDeliveryListener((message, toHost, sentNanos, processingNanos) -> {
+                if (toHost) {
+                    requests++;
+                    applyNanos.add(processingNanos);
+                    endToEndNanos.add(System.nanoTime() - sentNanos);
+                }
+            });
+        }
+
+        @Override
+        public void broadcastMessage(final NetworkMessage message) {
+            applied++;
+            super.broadcastMessage(message);
+        }
+    }
+}
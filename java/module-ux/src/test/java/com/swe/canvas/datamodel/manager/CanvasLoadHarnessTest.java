@@ -0,0 +1,34 @@
+package com.swe.canvas.datamodel.manager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests option parsing and a short load run of the canvas load harness.
+ */
+class CanvasLoadHarnessTest {
+
+    @Test
+    void testParseRejectsUnknownOrInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> CanvasLoadHarness.Config.parse("colour=red"));
+        assertThrows(IllegalArgumentException.class, () -> CanvasLoadHarness.Config.parse("users=0"));
+        assertThrows(IllegalArgumentException.class, () -> CanvasLoadHarness.Config.parse("mix=1:2"));
+        assertThrows(IllegalArgumentException.class, () -> CanvasLoadHarness.Config.parse("script=create,fly"));
+        assertThrows(IllegalArgumentException.class, () -> CanvasLoadHarness.Config.parse("rate"));
+    }
+
+    @Test
+    void testShortRunConverges() throws InterruptedException {
+        CanvasLoadHarness.Config config = CanvasLoadHarness.Config.parse(
+                "users=3", "rate=40", "duration=0.5", "shapes=200", "latency=2", "jitter=2",
+                "script=create,modify,modify,delete,undo");
+
+        CanvasLoadHarness.Result result = CanvasLoadHarness.run(config);
+
+        assertTrue(result.isConverged());
+        assertTrue(result.getRequests() > 0);
+        assertTrue(result.getApplied() > 0 && result.getApplied() <= result.getRequests());
+        assertTrue(result.getBytesPerShape() > 0);
+    }
+}
@@ -17,6 +17,7 @@ import com.swe.canvas.datamodel.shape.ShapeId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.awt.Color;
@@ -222,4 +223,84 @@ class ClientActionManagerTest {
         NetworkMessage msg = new NetworkMessage(MessageType.NORMAL, data);
         assertDoesNotThrow(() -> clientManager.processIncomingMessage(msg));
     }
+
+    // --- Optimistic apply ---
+
+    private NetworkMessage lastSentMessage() {
+        ArgumentCaptor<NetworkMessage> captor = ArgumentCaptor.forClass(NetworkMessage.class);
+        verify(networkService, atLeastOnce()).sendMessageToHost(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void testRequestCreate_AppliedBeforeHostEcho() {
+        ShapeId id = new ShapeId("s1");
+        AtomicBoolean updated = new AtomicBoolean(false);
+        clientManager.setOnUpdate(() -> updated.set(true));
+
+        clientManager.requestCreate(createLineShape(id, userId));
+
+        assertNotNull(canvasState.getShapeState(id));
+        assertTrue(updated.get());
+        assertEquals(1, clientManager.getPendingActionCount());
+        assertFalse(clientManager.getUndoRedoManager().canUndo());
+    }
+
+    @Test
+    void testHostEcho_ConfirmsPendingAction() {
+        ShapeId id = new ShapeId("s1");
+        clientManager.requestCreate(createLineShape(id, userId));
+
+        clientManager.processIncomingMessage(lastSentMessage());
+
+        assertEquals(0, clientManager.getPendingActionCount());
+        assertNotNull(canvasState.getShapeState(id));
+        assertTrue(clientManager.getUndoRedoManager().canUndo());
+    }
+
+    @Test
+    void testConflictingUpdate_RollsBackPendingActions() {
+        ShapeId id = new ShapeId("s1");
+        ShapeState confirmed = new ShapeState(createLineShape(id, "OTHER"), false, 100L);
+        canvasState.applyState(id, confirmed);
+
+        clientManager.requestDelete(canvasState.getShapeState(id));
+        assertTrue(canvasState.getShapeState(id).isDeleted());
+
+        // Someone else modified the shape first; the host will reject our delete
+        CanvasState hostView = new CanvasState();
+        hostView.applyState(id, confirmed);
+        Shape moved = createLineShape(id, "OTHER");
+        moved.translate(5, 5);
+        Action other = new ActionFactory().createModifyAction(hostView, id, moved, "OTHER");
+        NetworkMessage msg = new NetworkMessage(MessageType.NORMAL,
+                NetActionSerializer.serializeAction(other).getBytes());
+
+        clientManager.processIncomingMessage(msg);
+
+        assertEquals(0, clientManager.getPendingActionCount());
+        assertFalse(canvasState.getShapeState(id).isDeleted());
+        assertEquals(other.getNewState(), canvasState.getShapeState(id));
+    }
+
+    @Test
+    void testSendFailure_RollsBackPendingCreate() {
+        doThrow(new RuntimeException("Send failed")).when(networkService).sendMessageToHost(any());
+        ShapeId id = new ShapeId("s1");
+
+        clientManager.requestCreate(createLineShape(id, userId));
+
+        assertNull(canvasState.getShapeState(id));
+        assertEquals(0, clientManager.getPendingActionCount());
+    }
+
+    @Test
+    void testRestore_DropsPendingActions() {
+        clientManager.requestCreate(createLineShape(new ShapeId("s1"), userId));
+
+        clientManager.processIncomingMessage(new NetworkMessage(MessageType.RESTORE, null, "{}"));
+
+        assertEquals(0, clientManager.getPendingActionCount());
+        assertTrue(canvasState.getAllStates().isEmpty());
+    }
 }
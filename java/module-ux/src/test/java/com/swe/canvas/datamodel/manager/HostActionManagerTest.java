@@ -97,6 +97,22 @@ class HostActionManagerTest {
         verify(networkService).broadcastMessage(any());
     }
 
+    @Test
+    void testRequestDeleteBatch_OneMessageOneUndoStep() {
+        ShapeId a = new ShapeId("s1");
+        ShapeId b = new ShapeId("s2");
+        hostManager.requestCreateBatch(Arrays.asList(createLineShape(a, hostId), createLineShape(b, hostId)));
+
+        hostManager.requestDeleteBatch(Arrays.asList(a, b));
+        assertTrue(canvasState.getShapeState(a).isDeleted());
+        assertTrue(canvasState.getShapeState(b).isDeleted());
+        verify(networkService, times(2)).broadcastMessage(any());
+
+        hostManager.requestUndo();
+        assertFalse(canvasState.getShapeState(a).isDeleted());
+        assertFalse(canvasState.getShapeState(b).isDeleted());
+    }
+
     @Test
     void testRequestUndoRedo() {
         Shape shape = createLineShape(new ShapeId("s1"), hostId);
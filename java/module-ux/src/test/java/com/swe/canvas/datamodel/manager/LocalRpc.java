@@ -0,0 +1,34 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: LocalRpc.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.manager;
+
+import com.swe.controller.RPCinterface.AbstractRPC;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * RPC stand-in for the command-line tools; their scenarios never leave the process.
+ */
+final class LocalRpc implements AbstractRPC {
+
+    @Override
+    public void subscribe(final String methodName, final Function<byte[], byte[]> method) {
+        // Not needed
+    }
+
+    @Override
+    public Thread connect(final int portNumber) {
+        return new Thread(() -> { });
+    }
+
+    @Override
+    public CompletableFuture<byte[]> call(final String methodName, final byte[] data) {
+        return CompletableFuture.completedFuture(new byte[0]);
+    }
+}
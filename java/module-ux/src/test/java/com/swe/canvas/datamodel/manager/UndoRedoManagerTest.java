@@ -10,7 +10,11 @@ package com.swe.canvas.datamodel.manager;
 
 import com.swe.canvas.datamodel.action.Action;
 import com.swe.canvas.datamodel.action.ActionType;
+import com.swe.canvas.datamodel.action.CompoundAction;
+import com.swe.canvas.datamodel.action.ModifyShapeAction;
+import com.swe.canvas.datamodel.action.ShapeDelta;
 import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.FreehandShape;
 import com.swe.canvas.datamodel.shape.Point;
 import com.swe.canvas.datamodel.shape.Shape;
 import com.swe.canvas.datamodel.shape.ShapeId;
@@ -19,8 +23,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.awt.Color;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,6 +54,17 @@ class UndoRedoManagerTest {
         }
     }
 
+    /** Serializes fine but can never be read back, like a corrupted cold entry. */
+    static class UnreadableAction extends TestAction {
+        private static final long serialVersionUID = 1L;
+        UnreadableAction(String actionId) {
+            super(actionId);
+        }
+        private void readObject(ObjectInputStream in) throws InvalidObjectException {
+            throw new InvalidObjectException("corrupt");
+        }
+    }
+
     @BeforeEach
     void setUp() {
         manager = new UndoRedoManager();
@@ -87,4 +105,200 @@ class UndoRedoManagerTest {
         manager.clear();
         assertFalse(manager.canUndo());
     }
-}
\ No newline at end of file
+
+    // --- Bounds, coalescing and spill ---
+
+    private static ShapeState strokeState(ShapeId id, double offset, int pointCount, long version) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < pointCount; i++) {
+            points.add(new Point(offset + i, i));
+        }
+        return new ShapeState(new FreehandShape(id, points, 1.0, Color.BLACK, "u", "u"), false, version, version);
+    }
+
+    private static ModifyShapeAction move(String actionId, ShapeId id, long fromVersion, long timestamp, int pointCount) {
+        return new ModifyShapeAction(actionId, "u", timestamp, id,
+                strokeState(id, fromVersion, pointCount, fromVersion),
+                strokeState(id, fromVersion + 1, pointCount, fromVersion + 1),
+                ShapeDelta.translate(1, 0));
+    }
+
+    @Test
+    void testInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new UndoRedoManager(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new UndoRedoManager(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new UndoRedoManager(1, 1, 0));
+    }
+
+    @Test
+    void testBoundedByEntryCount() {
+        UndoRedoManager bounded = new UndoRedoManager(3, Long.MAX_VALUE, 32);
+        for (int i = 1; i <= 5; i++) {
+            bounded.push(new TestAction("act-" + i));
+        }
+
+        assertEquals(3, bounded.getHistorySize());
+        assertEquals(2, bounded.getEvictedCount());
+        assertEquals("act-5", bounded.getActionToUndo().getActionId());
+
+        bounded.applyHostUndo();
+        bounded.applyHostUndo();
+        assertEquals("act-3", bounded.getActionToUndo().getActionId());
+        bounded.applyHostUndo();
+        assertFalse(bounded.canUndo());
+    }
+
+    @Test
+    void testBoundedByBytes() {
+        ShapeId id = new ShapeId("s1");
+        long perAction = UndoRedoManager.estimateBytes(move("act-0", id, 1, 0, 1000));
+        UndoRedoManager bounded = new UndoRedoManager(1000, perAction * 3, 1000);
+
+        for (int i = 0; i < 10; i++) {
+            // Far apart in time so they are not coalesced
+            bounded.push(move("act-" + i, id, 1 + i, i * 10_000L, 1000));
+        }
+
+        assertEquals(3, bounded.getHistorySize());
+        assertTrue(bounded.getEstimatedBytes() <= perAction * 3);
+        assertEquals("act-9", bounded.getActionToUndo().getActionId());
+    }
+
+    @Test
+    void testRedoTruncationReleasesBytes() {
+        manager.push(stubAction1);
+        long oneEntry = manager.getEstimatedBytes();
+        manager.push(stubAction2);
+        manager.applyHostUndo();
+
+        manager.push(new TestAction("act-3"));
+
+        assertEquals(2, manager.getHistorySize());
+        assertEquals(2 * oneEntry, manager.getEstimatedBytes());
+    }
+
+    @Test
+    void testCoalescesConsecutiveModifies() {
+        ShapeId id = new ShapeId("s1");
+        ModifyShapeAction first = move("act-1", id, 1, 1000L, 3);
+        ModifyShapeAction second = move("act-2", id, 2, 1500L, 3);
+
+        manager.push(first);
+        manager.push(second);
+
+        assertEquals(1, manager.getHistorySize());
+        assertEquals(1, manager.getCoalescedCount());
+        ModifyShapeAction merged = (ModifyShapeAction) manager.getActionToUndo();
+        assertEquals(first.getPrevState(), merged.getPrevState());
+        assertEquals(second.getNewState(), merged.getNewState());
+        assertEquals(ShapeDelta.translate(2, 0), merged.getDelta());
+    }
+
+    @Test
+    void testDoesNotCoalesceUnrelatedModifies() {
+        ShapeId id = new ShapeId("s1");
+        manager.push(move("act-1", id, 1, 1000L, 3));
+        manager.push(move("act-2", new ShapeId("s2"), 2, 1100L, 3)); // other shape
+        manager.push(move("act-3", new ShapeId("s2"), 3, 1100L + UndoRedoManager.COALESCE_WINDOW_MS + 1, 3)); // too late
+        manager.push(move("act-4", new ShapeId("s2"), 9, 2200L, 3)); // not based on act-3
+
+        assertEquals(4, manager.getHistorySize());
+        assertEquals(0, manager.getCoalescedCount());
+    }
+
+    @Test
+    void testSpillsColdEntries() {
+        UndoRedoManager spilling = new UndoRedoManager(100, Long.MAX_VALUE, 2);
+        ShapeId id = new ShapeId("s1");
+        List<Action> pushed = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Action action = move("act-" + i, id, 1 + i, i * 10_000L, 2000);
+            pushed.add(action);
+            spilling.push(action);
+        }
+
+        assertEquals(4, spilling.getSpilledEntryCount());
+        long hotBytes = 2 * UndoRedoManager.estimateBytes(pushed.get(0));
+        assertTrue(spilling.getEstimatedBytes() < hotBytes + 4 * UndoRedoManager.estimateBytes(pushed.get(0)) / 4);
+
+        // Undo walks back through the spilled entries transparently
+        for (int i = 5; i >= 0; i--) {
+            Action restored = spilling.getActionToUndo();
+            assertEquals(pushed.get(i).getActionId(), restored.getActionId());
+            assertEquals(pushed.get(i).getNewState(), restored.getNewState());
+            assertEquals(pushed.get(i).getPrevState(), restored.getPrevState());
+            spilling.applyHostUndo();
+        }
+        assertEquals(pushed.get(0).getActionId(), spilling.getActionToRedo().getActionId());
+    }
+
+    @Test
+    void testClearResetsBytes() {
+        manager.push(stubAction1);
+        assertTrue(manager.getEstimatedBytes() > 0);
+
+        manager.clear();
+
+        assertEquals(0, manager.getHistorySize());
+        assertEquals(0, manager.getEstimatedBytes());
+    }
+
+    @Test
+    void testCompoundActionIsOneStep() {
+        CompoundAction compound = new CompoundAction("c-1", "user", 1L, List.of(stubAction1, stubAction2));
+
+        manager.push(compound);
+
+        assertEquals(1, manager.getHistorySize());
+        assertSame(compound, manager.getActionToUndo());
+        assertTrue(manager.getEstimatedBytes() > UndoRedoManager.estimateBytes(stubAction1)
+                + UndoRedoManager.estimateBytes(stubAction2));
+    }
+
+    @Test
+    void testSpilledCompoundActionRestoresChildren() {
+        manager = new UndoRedoManager(10, Long.MAX_VALUE, 1);
+        manager.push(new CompoundAction("c-1", "user", 1L, List.of(stubAction1, stubAction2)));
+        manager.push(new TestAction("act-3"));
+
+        manager.applyHostUndo();
+        Action restored = manager.getActionToUndo();
+
+        assertEquals(1, manager.getSpilledEntryCount());
+        assertTrue(restored instanceof CompoundAction);
+        assertEquals(2, ((CompoundAction) restored).getActions().size());
+    }
+
+    @Test
+    void testUnreadableColdEntryIsDroppedOnUndo() {
+        manager = new UndoRedoManager(10, Long.MAX_VALUE, 1);
+        manager.push(new UnreadableAction("act-0"));
+        manager.push(stubAction1);
+        manager.push(stubAction2);
+        manager.applyHostUndo();
+
+        assertEquals("act-1", manager.getActionToUndo().getActionId());
+        manager.applyHostUndo();
+
+        assertNull(manager.getActionToUndo());
+        assertFalse(manager.canUndo());
+        assertEquals(2, manager.getHistorySize());
+        assertEquals(1, manager.getEvictedCount());
+        assertEquals("act-1", manager.getActionToRedo().getActionId());
+    }
+
+    @Test
+    void testUnreadableColdEntryDropsRedoFuture() {
+        manager = new UndoRedoManager(10, Long.MAX_VALUE, 1);
+        manager.push(stubAction1);
+        manager.push(new UnreadableAction("act-u"));
+        manager.push(stubAction2);
+        manager.applyHostUndo();
+        manager.applyHostUndo();
+
+        assertNull(manager.getActionToRedo());
+        assertFalse(manager.canRedo());
+        assertEquals(1, manager.getHistorySize());
+        assertEquals("act-1", manager.getActionToUndo().getActionId());
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: CanvasAutosaveTest.java
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.persistence;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.serialization.BoardBinarySerializer;
+import com.swe.canvas.datamodel.shape.LineShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import com.swe.cloud.datastructures.CloudResponse;
+import com.swe.cloud.datastructures.Entity;
+import com.swe.cloud.functionlibrary.CloudFunctionLibrary;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanvasAutosaveTest {
+
+    /** Long enough that debounced saves never fire; tests call save() directly. */
+    private static final long NO_DEBOUNCE = 3_600_000;
+
+    /**
+     * In-memory stand-in for the cloud: keeps one document and applies
+     * post/update the way the cloud functions do.
+     */
+    static class FakeCloud extends CloudFunctionLibrary {
+        final List<Entity> requests = new ArrayList<>();
+        ObjectNode document;
+        int failuresLeft;
+
+        FakeCloud() {
+            super("http://localhost");
+        }
+
+        @Override
+        public synchronized CompletableFuture<CloudResponse> cloudPost(final Entity request) {
+            requests.add(request);
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                return CompletableFuture.failedFuture(new RuntimeException("offline"));
+            }
+            if (document != null) {
+                return CompletableFuture.completedFuture(new CloudResponse(409, "exists", null));
+            }
+            document = request.data().deepCopy();
+            return CompletableFuture.completedFuture(new CloudResponse(200, "ok", null));
+        }
+
+        @Override
+        public synchronized CompletableFuture<CloudResponse> cloudUpdate(final Entity request) {
+            requests.add(request);
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                return CompletableFuture.failedFuture(new RuntimeException("offline"));
+            }
+            if (document == null) {
+                return CompletableFuture.completedFuture(new CloudResponse(404, "missing", null));
+            }
+            if (request.type() == null) {
+                document = request.data().deepCopy();
+            } else {
+                document.set(request.type(), request.data().get(request.type()));
+            }
+            return CompletableFuture.completedFuture(new CloudResponse(200, "ok", null));
+        }
+    }
+
+    private final FakeCloud cloud = new FakeCloud();
+    private final CanvasState canvas = new CanvasState();
+    private final CanvasAutosave autosave = new CanvasAutosave(cloud, "board-1", canvas, NO_DEBOUNCE);
+
+    private void put(final String id, final double x, final long version) {
+        Shape shape = new LineShape(new ShapeId(id), List.of(new Point(x, 0), new Point(x + 5, 5)),
+                1.0, Color.BLACK, "u", "u");
+        canvas.applyState(shape.getShapeId(), new ShapeState(shape, false, 1L, version));
+    }
+
+    private int shapesIn(final Entity request) {
+        String field = request.type() == null ? CanvasAutosave.BASE_KEY : request.type();
+        byte[] bytes = Base64.getDecoder().decode(request.data().get(field).asText());
+        return BoardBinarySerializer.deserializeBoard(bytes).size();
+    }
+
+    @Test
+    void testFirstSaveWritesWholeBoard() {
+        for (int i = 0; i < 50; i++) {
+            put("s" + i, i, 1);
+        }
+        autosave.markAllDirty();
+        autosave.save();
+
+        assertTrue(CanvasAutosave.isAutosaveDocument(cloud.document));
+        assertEquals(canvas.getAllStates(), CanvasAutosave.readDocument(cloud.document));
+        assertEquals(1, autosave.getUploadCount());
+    }
+
+    @Test
+    void testLaterSavesUploadOnlyDirtyShapes() {
+        for (int i = 0; i < 50; i++) {
+            put("s" + i, i, 1);
+        }
+        autosave.save();
+        cloud.requests.clear();
+
+        put("s3", 100, 2);
+        put("s7", 200, 2);
+        autosave.markDirty(new ShapeId("s3"));
+        autosave.markDirty(new ShapeId("s7"));
+        autosave.save();
+
+        assertEquals(1, cloud.requests.size());
+        Entity delta = cloud.requests.get(0);
+        assertEquals(CanvasAutosave.DELTA_PREFIX + "1", delta.type());
+        assertEquals(2, shapesIn(delta));
+        assertEquals(0, autosave.getDirtyCount());
+        assertEquals(canvas.getAllStates(), CanvasAutosave.readDocument(cloud.document));
+    }
+
+    @Test
+    void testNothingToSave() {
+        autosave.save();
+        cloud.requests.clear();
+
+        autosave.save();
+
+        assertTrue(cloud.requests.isEmpty());
+    }
+
+    @Test
+    void testCompactsAfterManyDeltas() {
+        put("s0", 0, 1);
+        autosave.save();
+
+        for (int i = 1; i <= CanvasAutosave.COMPACT_AFTER_DELTAS; i++) {
+            put("s0", i, i + 1);
+            autosave.markDirty(new ShapeId("s0"));
+            autosave.save();
+        }
+        assertTrue(cloud.document.has(CanvasAutosave.DELTA_PREFIX + CanvasAutosave.COMPACT_AFTER_DELTAS));
+
+        put("s1", 50, 1);
+        autosave.markDirty(new ShapeId("s1"));
+        autosave.save();
+
+        assertFalse(cloud.document.has(CanvasAutosave.DELTA_PREFIX + "1"));
+        assertEquals(canvas.getAllStates(), CanvasAutosave.readDocument(cloud.document));
+    }
+
+    @Test
+    void testReadDocumentKeepsNewestVersion() {
+        put("s0", 0, 1);
+        autosave.save();
+        put("s0", 10, 2);
+        autosave.markDirty(new ShapeId("s0"));
+        autosave.save();
+        put("s0", 20, 3);
+        autosave.markDirty(new ShapeId("s0"));
+        autosave.save();
+
+        // Field order must not matter
+        ObjectNode reordered = cloud.document.objectNode();
+        reordered.set(CanvasAutosave.DELTA_PREFIX + "2", cloud.document.get(CanvasAutosave.DELTA_PREFIX + "2"));
+        reordered.set(CanvasAutosave.DELTA_PREFIX + "1", cloud.document.get(CanvasAutosave.DELTA_PREFIX + "1"));
+        reordered.set(CanvasAutosave.BASE_KEY, cloud.document.get(CanvasAutosave.BASE_KEY));
+
+        assertEquals(3L, CanvasAutosave.readDocument(reordered).get(new ShapeId("s0")).getVersion());
+    }
+
+    @Test
+    void testRetriesFailedUpload() throws InterruptedException {
+        put("s0", 0, 1);
+        cloud.failuresLeft = 2;
+
+        autosave.save();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (autosave.getUploadCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, autosave.getUploadCount());
+        assertEquals(canvas.getAllStates(), CanvasAutosave.readDocument(cloud.document));
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: CanvasOpLogTest.java
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.persistence;
+
+import com.swe.canvas.datamodel.action.Action;
+import com.swe.canvas.datamodel.action.ActionFactory;
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.serialization.ShapeSerializer;
+import com.swe.canvas.datamodel.shape.LineShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanvasOpLogTest {
+
+    private Path dir;
+    private Path logFile;
+    private final ActionFactory factory = new ActionFactory();
+    private final CanvasState canvas = new CanvasState();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("oplog-test");
+        logFile = dir.resolve("board.oplog");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private Shape line(ShapeId id, double offset) {
+        return new LineShape(id, new ArrayList<>(List.of(new Point(offset, 0), new Point(offset + 10, 10))),
+                1.0, Color.BLACK, "u1", "u1");
+    }
+
+    /** Applies the action to the test canvas (as the host would) and logs it. */
+    private void accept(CanvasOpLog log, Action action) throws IOException {
+        canvas.applyState(action.getShapeId(), action.getNewState());
+        log.append(action);
+        if (log.isSnapshotDue()) {
+            log.snapshot(canvas.getAllStates());
+        }
+    }
+
+    @Test
+    void testNewLogIsEmpty() throws IOException {
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            assertTrue(log.getRecoveredStates().isEmpty());
+            assertEquals(0, log.getReplayedOps());
+            assertEquals(CanvasOpLog.HEADER_BYTES, log.getLogBytes());
+        }
+    }
+
+    @Test
+    void testRecoversAppendedActions() throws IOException {
+        ShapeId a = new ShapeId("shape-a");
+        ShapeId b = new ShapeId("shape-b");
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            accept(log, factory.createCreateAction(line(a, 0), "u1"));
+            accept(log, factory.createCreateAction(line(b, 0), "u1"));
+            accept(log, factory.createModifyAction(canvas, a, line(a, 25), "u1")); // delta
+            accept(log, factory.createDeleteAction(canvas, b, "u1"));
+        }
+
+        try (CanvasOpLog reopened = new CanvasOpLog(logFile)) {
+            assertEquals(4, reopened.getReplayedOps());
+            assertEquals(canvas.getShapeState(a), reopened.getRecoveredStates().get(a));
+            assertTrue(reopened.getRecoveredStates().get(b).isDeleted());
+            assertEquals(canvas.getShapeState(b).getVersion(), reopened.getRecoveredStates().get(b).getVersion());
+        }
+    }
+
+    @Test
+    void testSnapshotBoundsReplay() throws IOException {
+        ShapeId id = new ShapeId("shape-a");
+        try (CanvasOpLog log = new CanvasOpLog(logFile, 10)) {
+            accept(log, factory.createCreateAction(line(id, 0), "u1"));
+            for (int i = 1; i <= 24; i++) {
+                accept(log, factory.createModifyAction(canvas, id, line(id, i), "u1"));
+            }
+            assertEquals(5, log.getOpsSinceSnapshot());
+        }
+
+        try (CanvasOpLog reopened = new CanvasOpLog(logFile, 10)) {
+            assertEquals(5, reopened.getReplayedOps());
+            assertEquals(canvas.getShapeState(id), reopened.getRecoveredStates().get(id));
+            assertEquals(25L, reopened.getRecoveredStates().get(id).getVersion());
+        }
+    }
+
+    @Test
+    void testAppendAfterRecoveryContinuesLog() throws IOException {
+        ShapeId id = new ShapeId("shape-a");
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            accept(log, factory.createCreateAction(line(id, 0), "u1"));
+        }
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            accept(log, factory.createModifyAction(canvas, id, line(id, 5), "u1"));
+        }
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            assertEquals(2, log.getReplayedOps());
+            assertEquals(canvas.getShapeState(id), log.getRecoveredStates().get(id));
+        }
+    }
+
+    @Test
+    void testTornRecordIsIgnored() throws IOException {
+        ShapeId id = new ShapeId("shape-a");
+        int endOfFirst;
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            accept(log, factory.createCreateAction(line(id, 0), "u1"));
+            endOfFirst = log.getLogBytes();
+            accept(log, factory.createModifyAction(canvas, id, line(id, 5), "u1"));
+        }
+
+        // Corrupt the payload of the second record
+        try (RandomAccessFile raf = new RandomAccessFile(logFile.toFile(), "rw")) {
+            raf.seek(endOfFirst + 12);
+            raf.write('#');
+        }
+
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            assertEquals(1, log.getReplayedOps());
+            assertEquals(1L, log.getRecoveredStates().get(id).getVersion());
+            assertEquals(endOfFirst, log.getLogBytes());
+        }
+    }
+
+    @Test
+    void testReplaySkipsActionsAlreadyInSnapshot() throws IOException {
+        ShapeId id = new ShapeId("shape-a");
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            accept(log, factory.createCreateAction(line(id, 0), "u1"));
+            accept(log, factory.createModifyAction(canvas, id, line(id, 5), "u1"));
+            // Simulate a crash between writing the snapshot and clearing the log
+            Files.writeString(dir.resolve("board.oplog.snapshot"),
+                    ShapeSerializer.serializeShapesMap(canvas.getAllStates()));
+        }
+
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            assertEquals(canvas.getShapeState(id), log.getRecoveredStates().get(id));
+        }
+    }
+
+    @Test
+    void testSnapshotAtCheckpointKeepsLaterRecords() throws IOException {
+        ShapeId id = new ShapeId("shape-a");
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            accept(log, factory.createCreateAction(line(id, 0), "u1"));
+            accept(log, factory.createModifyAction(canvas, id, line(id, 1), "u1"));
+            CanvasOpLog.Checkpoint mark = log.checkpoint();
+            Map<ShapeId, ShapeState> copy = new HashMap<>(canvas.getAllStates());
+
+            // Appended while the snapshot is being written
+            accept(log, factory.createModifyAction(canvas, id, line(id, 2), "u1"));
+            assertTrue(log.snapshot(copy, mark));
+            assertEquals(1, log.getOpsSinceSnapshot());
+        }
+
+        try (CanvasOpLog reopened = new CanvasOpLog(logFile)) {
+            assertEquals(1, reopened.getReplayedOps());
+            assertEquals(canvas.getShapeState(id), reopened.getRecoveredStates().get(id));
+            assertEquals(3L, reopened.getRecoveredStates().get(id).getVersion());
+        }
+    }
+
+    @Test
+    void testStaleCheckpointIsDiscarded() throws IOException {
+        ShapeId id = new ShapeId("shape-a");
+        try (CanvasOpLog log = new CanvasOpLog(logFile)) {
+            accept(log, factory.createCreateAction(line(id, 0), "u1"));
+            CanvasOpLog.Checkpoint stale = log.checkpoint();
+            Map<ShapeId, ShapeState> old = new HashMap<>(canvas.getAllStates());
+            accept(log, factory.createModifyAction(canvas, id, line(id, 1), "u1"));
+            log.snapshot(canvas.getAllStates());
+
+            assertFalse(log.snapshot(old, stale));
+        }
+
+        try (CanvasOpLog reopened = new CanvasOpLog(logFile)) {
+            assertEquals(2L, reopened.getRecoveredStates().get(id).getVersion());
+        }
+    }
+
+    @Test
+    void testRejectsForeignFile() throws IOException {
+        Files.writeString(logFile, "not a log at all");
+        assertThrows(IOException.class, () -> new CanvasOpLog(logFile));
+    }
+
+    @Test
+    void testInvalidInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new CanvasOpLog(logFile, 0));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: OpLogReplay.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Command-line tool that replays a {@link CanvasOpLog} and reports how long
+ * recovery takes. Intended for performance regression testing.
+ *
+ * <p>Usage: {@code OpLogReplay <log-file> [iterations]}. The log (and its
+ * snapshot) are copied to a temporary directory first, so the original is
+ * never modified.</p>
+ */
+public final class OpLogReplay {
+
+    /** Iterations used when none are given. */
+    private static final int DEFAULT_ITERATIONS = 5;
+
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private OpLogReplay() {
+        // Utility class
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args The log file and, optionally, the number of iterations.
+     * @throws IOException if the log cannot be read.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: OpLogReplay <log-file> [iterations]");
+            return;
+        }
+        final Path log = Paths.get(args[0]);
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+
+        for (int i = 0; i < iterations; i++) {
+            final Path workDir = Files.createTempDirectory("oplog-replay");
+            final Path copy = workDir.resolve(log.getFileName());
+            Files.copy(log, copy, StandardCopyOption.REPLACE_EXISTING);
+            final Path snapshot = log.resolveSibling(log.getFileName() + ".snapshot");
+            if (Files.exists(snapshot)) {
+                Files.copy(snapshot, workDir.resolve(snapshot.getFileName()));
+            }
+
+            final long start = System.nanoTime();
+            try (CanvasOpLog replayed = new CanvasOpLog(copy)) {
+                final double millis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+                System.out.printf("[OpLogReplay] run %d: %d shapes, %d records replayed in %.2f ms%n",
+                        i + 1, replayed.getRecoveredStates().size(), replayed.getReplayedOps(), millis);
+            }
+
+            Files.deleteIfExists(copy);
+            Files.deleteIfExists(workDir.resolve(snapshot.getFileName()));
+            Files.deleteIfExists(workDir);
+        }
+    }
+}
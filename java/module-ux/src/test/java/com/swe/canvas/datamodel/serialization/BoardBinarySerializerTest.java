@@ -0,0 +1,101 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: BoardBinarySerializerTest.java
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.serialization;
+
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.*;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardBinarySerializerTest {
+
+    @Test
+    void testRoundTrip_AllShapes() {
+        Map<ShapeId, ShapeState> board = new HashMap<>();
+        List<Point> box = List.of(new Point(-5, 3), new Point(120, 80));
+        Shape[] shapes = {
+            new FreehandShape(new ShapeId("f1"), List.of(new Point(1, 1), new Point(4, -2), new Point(9, 7)),
+                    2.5, Color.BLUE, "alice", "bob"),
+            new RectangleShape(new ShapeId("a1b2c3d4-0000-4000-8000-0123456789ab"), box, 1, Color.BLACK, "u", "u"),
+            new EllipseShape(new ShapeId("e1"), box, 4, new Color(10, 20, 30, 40), "u", "alice"),
+            new TriangleShape(new ShapeId("t1"), box, 1, Color.RED, "bob", "u"),
+            new LineShape(new ShapeId("l1"), box, 1, Color.GREEN, "u", "u"),
+        };
+        long version = 1;
+        for (Shape shape : shapes) {
+            board.put(shape.getShapeId(), new ShapeState(shape, version == 3, 1_700_000_000_000L + version, version));
+            version++;
+        }
+
+        byte[] data = BoardBinarySerializer.serializeBoard(board);
+
+        assertTrue(BoardBinarySerializer.isBinaryBoard(data));
+        assertEquals(board, BoardBinarySerializer.deserializeBoard(data));
+    }
+
+    @Test
+    void testThicknessKeepsFullPrecision() {
+        Map<ShapeId, ShapeState> board = new HashMap<>();
+        Shape shape = new FreehandShape(new ShapeId("f1"), List.of(new Point(0, 0), new Point(3, 4)),
+                2.3, Color.BLACK, "u", "u");
+        board.put(shape.getShapeId(), new ShapeState(shape, false, 5L, 1L));
+
+        Shape restored = BoardBinarySerializer.deserializeBoard(BoardBinarySerializer.serializeBoard(board))
+                .get(shape.getShapeId()).getShape();
+
+        assertEquals(2.3, restored.getThickness());
+    }
+
+    @Test
+    void testEmptyBoard() {
+        assertTrue(BoardBinarySerializer.deserializeBoard(BoardBinarySerializer.serializeBoard(new HashMap<>())).isEmpty());
+        assertTrue(BoardBinarySerializer.deserializeBoard(BoardBinarySerializer.serializeBoard(null)).isEmpty());
+    }
+
+    @Test
+    void testReadBoard_DetectsJson() {
+        Map<ShapeId, ShapeState> board = new HashMap<>();
+        Shape shape = new LineShape(new ShapeId("l1"), List.of(new Point(0, 0), new Point(10, 10)),
+                1, Color.BLACK, "u", "u");
+        board.put(shape.getShapeId(), new ShapeState(shape, false, 5L, 2L));
+        byte[] json = ShapeSerializer.serializeShapesMap(board).getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(BoardBinarySerializer.isBinaryBoard(json));
+        assertEquals(board, BoardBinarySerializer.readBoard(json));
+        assertEquals(board, BoardBinarySerializer.readBoard(BoardBinarySerializer.serializeBoard(board)));
+    }
+
+    @Test
+    void testSmallerThanJson() {
+        Map<ShapeId, ShapeState> board = BoardFormatReport.generateBoard(1_000, new Random(1));
+
+        byte[] binary = BoardBinarySerializer.serializeBoard(board);
+        byte[] json = ShapeSerializer.serializeShapesMap(board).getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(board, BoardBinarySerializer.readBoard(binary));
+        assertTrue(binary.length * 4 < json.length,
+                "binary " + binary.length + " bytes vs json " + json.length + " bytes");
+    }
+
+    @Test
+    void testCorruptData() {
+        byte[] data = BoardBinarySerializer.serializeBoard(BoardFormatReport.generateBoard(10, new Random(2)));
+        byte[] truncated = java.util.Arrays.copyOf(data, data.length / 2);
+
+        assertThrows(SerializationException.class, () -> BoardBinarySerializer.deserializeBoard(truncated));
+        assertThrows(SerializationException.class,
+                () -> BoardBinarySerializer.deserializeBoard("{}".getBytes(StandardCharsets.UTF_8)));
+    }
+}
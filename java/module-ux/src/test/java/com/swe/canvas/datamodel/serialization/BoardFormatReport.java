@@ -0,0 +1,148 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: BoardFormatReport.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.serialization;
+
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.FreehandShape;
+import com.swe.canvas.datamodel.shape.LineShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.RectangleShape;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.awt.Color;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Command-line tool comparing the JSON and binary board formats on
+ * generated boards: encoded size, save time and restore time.
+ *
+ * <p>Usage: {@code BoardFormatReport [shapeCount...]}; defaults to
+ * 1k, 5k, 10k and 50k shapes.</p>
+ */
+public final class BoardFormatReport {
+
+    /** Board sizes used when none are given. */
+    private static final int[] DEFAULT_SIZES = {1_000, 5_000, 10_000, 50_000};
+
+    /** Points in a generated freehand stroke. */
+    private static final int STROKE_POINTS = 40;
+
+    /** Width and height of the generated board. */
+    private static final int BOARD_SIZE = 4000;
+
+    /** Untimed warm-up runs per format. */
+    private static final int WARMUP_RUNS = 2;
+
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** Bytes per kilobyte. */
+    private static final double BYTES_PER_KB = 1024.0;
+
+    private BoardFormatReport() {
+        // Utility class
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args Optional board sizes.
+     */
+    public static void main(final String[] args) {
+        final int[] sizes = args.length == 0 ? DEFAULT_SIZES : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%8s | %12s %10s %10s | %12s %10s %10s%n", "shapes",
+                "json KB", "save ms", "load ms", "binary KB", "save ms", "load ms");
+        for (final int size : sizes) {
+            final Map<ShapeId, ShapeState> board = generateBoard(size, new Random(size));
+
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                ShapeSerializer.deserializeShapesMap(ShapeSerializer.serializeShapesMap(board));
+                BoardBinarySerializer.deserializeBoard(BoardBinarySerializer.serializeBoard(board));
+            }
+
+            long start = System.nanoTime();
+            final byte[] json = ShapeSerializer.serializeShapesMap(board).getBytes(StandardCharsets.UTF_8);
+            final double jsonSave = elapsedMillis(start);
+            start = System.nanoTime();
+            BoardBinarySerializer.readBoard(json);
+            final double jsonLoad = elapsedMillis(start);
+
+            start = System.nanoTime();
+            final byte[] binary = BoardBinarySerializer.serializeBoard(board);
+            final double binarySave = elapsedMillis(start);
+            start = System.nanoTime();
+            BoardBinarySerializer.readBoard(binary);
+            final double binaryLoad = elapsedMillis(start);
+
+            System.out.printf("%8d | %12.1f %10.1f %10.1f | %12.1f %10.1f %10.1f%n", size,
+                    json.length / BYTES_PER_KB, jsonSave, jsonLoad,
+                    binary.length / BYTES_PER_KB, binarySave, binaryLoad);
+        }
+    }
+
+    /**
+     * Generates a board with a mix of freehand strokes, lines and rectangles.
+     *
+     * @param count  Number of shapes.
+     * @param random Source of randomness.
+     * @return The board.
+     */
+    static Map<ShapeId, ShapeState> generateBoard(final int count, final Random random) {
+        final String[] users = {"alice", "bob", "carol", "dave"};
+        final Color[] colors = {Color.BLACK, Color.RED, Color.BLUE, new Color(0x33, 0x99, 0x33)};
+        final Map<ShapeId, ShapeState> board = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            final ShapeId id = new ShapeId(UUID.randomUUID().toString());
+            final String user = users[random.nextInt(users.length)];
+            final Color color = colors[random.nextInt(colors.length)];
+            final double x = random.nextInt(BOARD_SIZE);
+            final double y = random.nextInt(BOARD_SIZE);
+
+            final Shape shape;
+            switch (i % 3) {
+                case 0:
+                    final List<Point> stroke = new ArrayList<>();
+                    double px = x;
+                    double py = y;
+                    for (int p = 0; p < STROKE_POINTS; p++) {
+                        stroke.add(new Point(px, py));
+                        px += random.nextInt(7) - 3;
+                        py += random.nextInt(7) - 3;
+                    }
+                    shape = new FreehandShape(id, stroke, 2.0, color, user, user);
+                    break;
+                case 1:
+                    shape = new LineShape(id, List.of(new Point(x, y),
+                            new Point(x + random.nextInt(200), y + random.nextInt(200))), 1.0, color, user, user);
+                    break;
+                default:
+                    shape = new RectangleShape(id, List.of(new Point(x, y),
+                            new Point(x + random.nextInt(300), y + random.nextInt(300))), 3.0, color, user, user);
+                    break;
+            }
+            board.put(id, new ShapeState(shape, false, System.currentTimeMillis(), 1 + random.nextInt(5)));
+        }
+        return board;
+    }
+
+    private static double elapsedMillis(final long start) {
+        return (System.nanoTime() - start) / NANOS_PER_MILLI;
+    }
+}
@@ -115,4 +115,16 @@ class JsonUtilsTest {
         assertNull(JsonUtils.extractNestedJson("{\"key\": ", "key")); // Ends abruptly
         assertNull(JsonUtils.extractNestedJson("{\"key\": \"not-obj\"}", "key")); // Not an object
     }
-}
\ No newline at end of file
+
+    @Test
+    void testExtractObjectArray() {
+        String content = "\"Id\":\"x\",\"Items\":[{\"A\":{\"B\":1}}, {\"C\":2}],\"After\":{\"D\":3}";
+
+        List<String> items = JsonUtils.extractObjectArray(content, "Items");
+
+        assertEquals(List.of("{\"A\":{\"B\":1}}", "{\"C\":2}"), items);
+        assertEquals(List.of(), JsonUtils.extractObjectArray("\"Items\": []", "Items"));
+        assertNull(JsonUtils.extractObjectArray(content, "Missing"));
+        assertNull(JsonUtils.extractObjectArray(content, "Id"));
+    }
+}
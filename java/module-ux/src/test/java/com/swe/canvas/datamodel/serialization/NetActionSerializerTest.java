@@ -11,7 +11,9 @@
 package com.swe.canvas.datamodel.serialization;
 
 import com.swe.canvas.datamodel.action.*;
+import com.swe.canvas.datamodel.canvas.CanvasState;
 import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.FreehandShape;
 import com.swe.canvas.datamodel.shape.Point;
 import com.swe.canvas.datamodel.shape.RectangleShape;
 import com.swe.canvas.datamodel.shape.Shape;
@@ -103,6 +105,71 @@ class NetActionSerializerTest {
         assertTrue(deserialized instanceof ResurrectShapeAction);
     }
 
+    @Test
+    void testModifyAction_OmitsPrevStatePayload() {
+        List<Point> stroke = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            stroke.add(new Point(i, i));
+        }
+        Shape prevShape = new FreehandShape(new ShapeId("s1"), stroke, 1.0, Color.RED, "u1", "u1");
+        Shape nextShape = new FreehandShape(new ShapeId("s1"), stroke, 1.0, Color.BLUE, "u1", "u1");
+        ShapeState prev = new ShapeState(prevShape, false, 100L, 6L);
+        ShapeState next = new ShapeState(nextShape, false, 200L, 7L);
+
+        Action action = new ModifyShapeAction("act-5", "u1", 200L, new ShapeId("s1"), prev, next);
+        String json = NetActionSerializer.serializeAction(action);
+
+        // Only the new state's points travel; the previous state is a version reference
+        assertEquals(1, json.split("\"Points\"", -1).length - 1);
+
+        Action deserialized = NetActionSerializer.deserializeAction(json);
+        assertTrue(deserialized.getPrevState().isReference());
+        assertEquals(6L, deserialized.getPrevState().getVersion());
+        assertEquals(7L, deserialized.getNewState().getVersion());
+    }
+
+    @Test
+    void testResurrectAction_PrevReferenceIsDeleted() {
+        Shape shape = new RectangleShape(new ShapeId("s1"),
+                List.of(new Point(0, 0), new Point(10, 10)), 1.0, Color.RED, "u1", "u1");
+        ShapeState prev = new ShapeState(shape, true, 100L, 2L);
+        ShapeState next = new ShapeState(shape, false, 200L, 3L);
+
+        Action action = new ResurrectShapeAction("act-6", "u1", 200L, new ShapeId("s1"), prev, next);
+        Action deserialized = NetActionSerializer.deserializeAction(NetActionSerializer.serializeAction(action));
+
+        assertTrue(deserialized.getPrevState().isDeleted());
+        assertEquals(2L, deserialized.getPrevState().getVersion());
+    }
+
+    @Test
+    void testRoundTrip_DeltaModifyAction() {
+        Shape shape = new RectangleShape(new ShapeId("s1"),
+                List.of(new Point(0, 0), new Point(10, 10)), 1.0, Color.RED, "u1", "u1");
+        ShapeState prev = new ShapeState(shape, false, 100L, 2L);
+        ShapeState next = new ShapeState(shape, false, 200L, 3L);
+        ShapeDelta[] deltas = {
+            ShapeDelta.translate(12.5, -3),
+            ShapeDelta.setColor(Color.RED, new Color(10, 20, 30, 40)),
+            ShapeDelta.setThickness(1.0, 2.5)
+        };
+
+        for (ShapeDelta delta : deltas) {
+            Action action = new ModifyShapeAction("act-7", "u2", 200L, new ShapeId("s1"), prev, next, delta);
+            String json = NetActionSerializer.serializeAction(action);
+            assertFalse(json.contains("\"Next\""));
+
+            ModifyShapeAction deserialized = (ModifyShapeAction) NetActionSerializer.deserializeAction(json);
+            assertEquals(delta, deserialized.getDelta());
+            assertEquals("s1", deserialized.getShapeId().getValue());
+            assertEquals("u2", deserialized.getUserId());
+            assertEquals(200L, deserialized.getTimestamp());
+            assertEquals(2L, deserialized.getPrevState().getVersion());
+            assertTrue(deserialized.getNewState().isReference());
+            assertEquals(3L, deserialized.getNewState().getVersion());
+        }
+    }
+
     @Test
     void testDeserialize_MissingFields() {
         String json = "{}"; // Missing ActionId, Type, etc.
@@ -140,4 +207,53 @@ class NetActionSerializerTest {
 
         assertThrows(SerializationException.class, () -> NetActionSerializer.deserializeAction(json));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRoundTrip_CompoundAction() {
+        CanvasStateFixture fixture = new CanvasStateFixture();
+        ActionFactory factory = new ActionFactory();
+
+        Shape moved = fixture.a.copy();
+        moved.translate(5, 0);
+        Shape recolored = fixture.b.copy();
+        recolored.setPoints(List.of(new Point(1, 1), new Point(30, 30)));
+        Action modifyA = factory.createModifyAction(fixture.canvas, fixture.a.getShapeId(), moved, "u1");
+        Action modifyB = factory.createModifyAction(fixture.canvas, fixture.b.getShapeId(), recolored, "u1");
+        CompoundAction compound = factory.createCompoundAction(List.of(modifyA, modifyB), "u1");
+
+        String json = NetActionSerializer.serializeAction(compound);
+        Action deserialized = NetActionSerializer.deserializeAction(json);
+
+        assertTrue(deserialized instanceof CompoundAction);
+        assertEquals(compound.getActionId(), deserialized.getActionId());
+        assertEquals("u1", deserialized.getUserId());
+        assertEquals(compound.getTimestamp(), deserialized.getTimestamp());
+        List<Action> children = ((CompoundAction) deserialized).getActions();
+        assertEquals(2, children.size());
+        assertEquals(modifyA.getActionId(), children.get(0).getActionId());
+        assertNotNull(((ModifyShapeAction) children.get(0)).getDelta());
+        assertEquals(modifyB.getActionId(), children.get(1).getActionId());
+        assertEquals(recolored.getPoints(), children.get(1).getNewState().getShape().getPoints());
+    }
+
+    @Test
+    void testDeserializeCompound_MissingChildren() {
+        String json = "{\"ActionId\":\"c1\",\"ActionType\":\"COMPOUND\",\"UserId\":\"u1\","
+                + "\"Timestamp\":1,\"Actions\":[]}";
+        assertThrows(SerializationException.class, () -> NetActionSerializer.deserializeAction(json));
+    }
+
+    /** Two rectangles on a canvas. */
+    private static final class CanvasStateFixture {
+        final CanvasState canvas = new CanvasState();
+        final Shape a = new RectangleShape(new ShapeId("shape-a"),
+                List.of(new Point(0, 0), new Point(10, 10)), 1.0, Color.RED, "u1", "u1");
+        final Shape b = new RectangleShape(new ShapeId("shape-b"),
+                List.of(new Point(20, 20), new Point(40, 40)), 1.0, Color.BLUE, "u1", "u1");
+
+        CanvasStateFixture() {
+            canvas.applyState(a.getShapeId(), new ShapeState(a, false, 1L, 3L));
+            canvas.applyState(b.getShapeId(), new ShapeState(b, false, 1L, 7L));
+        }
+    }
+}
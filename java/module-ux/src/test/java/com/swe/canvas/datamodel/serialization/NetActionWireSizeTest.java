@@ -0,0 +1,108 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: NetActionWireSizeTest.java
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.canvas.datamodel.serialization;
+
+import com.swe.canvas.datamodel.action.Action;
+import com.swe.canvas.datamodel.action.ActionFactory;
+import com.swe.canvas.datamodel.action.ModifyShapeAction;
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.collaboration.MessageType;
+import com.swe.canvas.datamodel.collaboration.NetworkMessage;
+import com.swe.canvas.datamodel.shape.FreehandShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the bytes sent per action in a move-heavy session.
+ *
+ * <p>Simulates dragging freehand strokes of growing size and compares the
+ * size of the NetworkMessage sent for a full-state MODIFY against the delta
+ * MODIFY produced by {@link ActionFactory#createModifyAction}.</p>
+ */
+class NetActionWireSizeTest {
+
+    private static final int MOVES_PER_SHAPE = 50;
+
+    private static Shape stroke(ShapeId id, int pointCount) {
+        List<Point> points = new ArrayList<>(pointCount);
+        for (int i = 0; i < pointCount; i++) {
+            points.add(new Point(i, (i * 7) % 300));
+        }
+        return new FreehandShape(id, points, 2.0, Color.BLACK, "u1", "u1");
+    }
+
+    private static int wireBytes(Action action) {
+        String json = NetActionSerializer.serializeAction(action);
+        NetworkMessage message = new NetworkMessage(MessageType.NORMAL, json.getBytes(StandardCharsets.UTF_8));
+        return message.serialize().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Runs a drag session on one shape and returns {fullBytes, deltaBytes} per move.
+     */
+    private static long[] moveSession(int pointCount) {
+        ActionFactory factory = new ActionFactory();
+        CanvasState canvas = new CanvasState();
+        ShapeId id = new ShapeId("stroke-" + pointCount);
+        canvas.applyState(id, new ShapeState(stroke(id, pointCount), false, 0L));
+
+        long fullBytes = 0;
+        long deltaBytes = 0;
+        for (int move = 0; move < MOVES_PER_SHAPE; move++) {
+            Shape moved = canvas.getShapeState(id).getShape().copy();
+            moved.translate(3, 1);
+
+            ModifyShapeAction action = (ModifyShapeAction) factory.createModifyAction(canvas, id, moved, "u1");
+            assertNotNull(action.getDelta());
+
+            ModifyShapeAction fullState = new ModifyShapeAction(action.getActionId(), action.getUserId(),
+                    action.getTimestamp(), id, action.getPrevState(), action.getNewState());
+            fullBytes += wireBytes(fullState);
+            deltaBytes += wireBytes(action);
+
+            canvas.applyState(id, action.getNewState());
+        }
+        return new long[] {fullBytes / MOVES_PER_SHAPE, deltaBytes / MOVES_PER_SHAPE};
+    }
+
+    @Test
+    void testDeltaWireSizeIndependentOfPointCount() {
+        int[] pointCounts = {2, 50, 500, 5000};
+        long[] fullSizes = new long[pointCounts.length];
+        long[] deltaSizes = new long[pointCounts.length];
+
+        for (int i = 0; i < pointCounts.length; i++) {
+            long[] sizes = moveSession(pointCounts[i]);
+            fullSizes[i] = sizes[0];
+            deltaSizes[i] = sizes[1];
+
+            if (pointCounts[i] > 2) {
+                assertTrue(sizes[1] < sizes[0],
+                        "delta should be smaller than full state at " + pointCounts[i] + " points");
+                assertTrue(fullSizes[i] > fullSizes[i - 1], "full state should grow with point count");
+            }
+        }
+
+        // Only the shape id length and number formatting vary, never the points
+        for (long size : deltaSizes) {
+            assertTrue(Math.abs(size - deltaSizes[0]) <= 16,
+                    "delta size should not grow with point count: " + size + " vs " + deltaSizes[0]);
+        }
+        // A large stroke's full state is orders of magnitude bigger than its delta
+        assertTrue(fullSizes[pointCounts.length - 1] > 100 * deltaSizes[pointCounts.length - 1]);
+    }
+}
@@ -43,6 +43,16 @@ class ShapeSerializerTest {
         assertEquals(3, restored.getShape().getPoints().size());
     }
 
+    @Test
+    void testRoundTrip_Version() {
+        Shape shape = new LineShape(new ShapeId("l1"),
+                List.of(new Point(0, 0), new Point(10, 10)), 1, Color.BLACK, "u", "u");
+        ShapeState restored = ShapeSerializer.deserializeShape(
+                ShapeSerializer.serializeShape(new ShapeState(shape, false, 5L, 12L)));
+
+        assertEquals(12L, restored.getVersion());
+    }
+
     @Test
     void testRoundTrip_AllShapes() {
         List<Point> box = List.of(new Point(0, 0), new Point(10, 10));
@@ -109,4 +119,23 @@ class ShapeSerializerTest {
         String json = "{\"ShapeId\":\"s1\"}"; // Missing Type, etc.
         assertThrows(SerializationException.class, () -> ShapeSerializer.deserializeShape(json));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRoundTrip_ShapeList() {
+        ShapeState a = new ShapeState(new RectangleShape(new ShapeId("s1"),
+                List.of(new Point(0, 0), new Point(5, 5)), 1.0, Color.RED, "u1", "u1"), false, 10L);
+        ShapeState b = new ShapeState(new FreehandShape(new ShapeId("s2"),
+                List.of(new Point(1, 2), new Point(3, 4), new Point(5, 6)), 2.0, Color.BLUE, "u1", "u1"), false, 20L);
+
+        String json = ShapeSerializer.serializeShapeList(List.of(a, b));
+        List<ShapeState> restored = ShapeSerializer.deserializeShapeList(json);
+
+        assertTrue(json.startsWith("["));
+        assertEquals(2, restored.size());
+        assertEquals(new ShapeId("s1"), restored.get(0).getShapeId());
+        assertEquals(b.getShape().getPoints(), restored.get(1).getShape().getPoints());
+        // A single object is read as a list of one
+        assertEquals(1, ShapeSerializer.deserializeShapeList(ShapeSerializer.serializeShape(a)).size());
+        assertTrue(ShapeSerializer.deserializeShapeList("[]").isEmpty());
+    }
+}
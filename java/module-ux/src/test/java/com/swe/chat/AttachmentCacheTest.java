@@ -0,0 +1,121 @@
+package com.swe.chat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests deduplication, LRU eviction and reopening of the attachment cache.
+ */
+class AttachmentCacheTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("attachment-cache-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path file(final String name, final int size, final int seed) throws IOException {
+        final byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return Files.write(dir.resolve(name), bytes);
+    }
+
+    @Test
+    void hashesWithSha256() throws IOException {
+        final Path abc = Files.write(dir.resolve("abc.txt"), "abc".getBytes(StandardCharsets.UTF_8));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", AttachmentCache.hash(abc));
+    }
+
+    @Test
+    void storesIdenticalContentOnce() throws IOException {
+        final AttachmentCache cache = new AttachmentCache(dir.resolve("cache"), 10_000);
+        final String first = cache.put(file("deck.pdf", 1000, 1));
+        final String again = cache.put(file("deck-copy.pdf", 1000, 1));
+
+        assertEquals(first, again);
+        assertEquals(first, AttachmentCache.hash(cache.get(first)), "filed under the hash of what was copied");
+        assertEquals(1, cache.size());
+        assertEquals(1000, cache.getTotalBytes());
+
+        final Path saved = cache.copyTo(first, dir.resolve("out").resolve("deck.pdf"));
+        final Path second = cache.copyTo(first, dir.resolve("out").resolve("deck.pdf"));
+        assertEquals("deck (1).pdf", second.getFileName().toString());
+        assertArrayEquals(Files.readAllBytes(dir.resolve("deck.pdf")), Files.readAllBytes(saved));
+        assertNull(cache.copyTo("0".repeat(64), dir.resolve("missing.bin")));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOverBudget() throws IOException {
+        final AttachmentCache cache = new AttachmentCache(dir.resolve("cache"), 2500);
+        final String a = cache.put(file("a", 1000, 1));
+        final String b = cache.put(file("b", 1000, 2));
+        assertNotNull(cache.get(a));
+        final String c = cache.put(file("c", 1000, 3));
+
+        assertTrue(cache.contains(a));
+        assertFalse(cache.contains(b));
+        assertTrue(cache.contains(c));
+        assertEquals(2000, cache.getTotalBytes());
+        assertFalse(Files.exists(dir.resolve("cache").resolve(b)));
+
+        assertFalse(cache.put(file("huge", 3000, 4), AttachmentCache.hash(dir.resolve("huge"))));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void rejectsContentThatDoesNotMatchClaimedHash() throws IOException {
+        final AttachmentCache cache = new AttachmentCache(dir.resolve("cache"), 10_000);
+        final String real = AttachmentCache.hash(file("real", 1000, 1));
+        final Path forged = file("forged", 1000, 2);
+
+        assertThrows(IOException.class, () -> cache.put(forged, real));
+        assertFalse(cache.contains(real));
+        assertNull(cache.get(real));
+        try (Stream<Path> files = Files.list(dir.resolve("cache"))) {
+            assertEquals(0, files.count(), "no partial copy is left behind");
+        }
+
+        assertTrue(cache.put(dir.resolve("real"), real));
+        assertTrue(cache.contains(real));
+    }
+
+    @Test
+    void reopenKeepsEntriesAndUseOrder() throws IOException {
+        final Path cacheDir = dir.resolve("cache");
+        final AttachmentCache cache = new AttachmentCache(cacheDir, 10_000);
+        final String a = cache.put(file("a", 1000, 1));
+        final String b = cache.put(file("b", 1000, 2));
+        Files.setLastModifiedTime(cacheDir.resolve(a), FileTime.fromMillis(2_000_000));
+        Files.setLastModifiedTime(cacheDir.resolve(b), FileTime.fromMillis(1_000_000));
+        Files.write(cacheDir.resolve(a + "123.part"), new byte[10]);
+
+        // A smaller budget on reopen evicts the file used longest ago
+        final AttachmentCache reopened = new AttachmentCache(cacheDir, 1500);
+        assertTrue(reopened.contains(a));
+        assertFalse(reopened.contains(b));
+        assertFalse(Files.exists(cacheDir.resolve(a + "123.part")));
+    }
+}
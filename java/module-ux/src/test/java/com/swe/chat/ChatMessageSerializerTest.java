@@ -0,0 +1,109 @@
+package com.swe.chat;
+
+import com.swe.ux.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the in-place chat message codec keeps the wire format and
+ * shares sender strings.
+ */
+class ChatMessageSerializerTest {
+
+    /** Strings covering every UTF-8 length, surrogate pairs and broken surrogates. */
+    private static final String[] SAMPLES = {
+        "plain ascii", "héllo wörld", "会議は3時から", "emoji 🚀 ok",
+        "lone \uD83D high", "lone \uDE80 low", "ends high \uD83D", "", "\u0000\u007F\u0080߿ࠀ￿",
+    };
+
+    /**
+     * Encodes a message the way the serializer did before it worked in place.
+     */
+    private static byte[] legacy(final ChatMessage message) {
+        final String[] fields = {message.getMessageId(), message.getUserId(), message.getSenderDisplayName(),
+            message.getContent()};
+        int size = Long.BYTES;
+        for (String field : fields) {
+            size += Integer.BYTES + field.getBytes(StandardCharsets.UTF_8).length;
+        }
+        final byte[] reply = message.getReplyToMessageId() == null
+                ? new byte[0] : message.getReplyToMessageId().getBytes(StandardCharsets.UTF_8);
+        size += Integer.BYTES + reply.length;
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (String field : fields) {
+            final byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+        buffer.putLong(message.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(reply.length).put(reply);
+        return buffer.array();
+    }
+
+    @Test
+    void matchesLegacyEncoding() {
+        for (String sample : SAMPLES) {
+            final ChatMessage message = new ChatMessage("id-" + sample, "user@x", "Ann " + sample, sample,
+                    1_700_000_000L, sample.isEmpty() ? null : "r" + sample);
+            assertArrayEquals(legacy(message), ChatMessageSerializer.serialize(message));
+        }
+
+        final Random random = new Random(48);
+        for (int i = 0; i < 500; i++) {
+            final char[] chars = new char[random.nextInt(40)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) random.nextInt(Character.MAX_VALUE + 1);
+            }
+            final String content = new String(chars);
+            final ChatMessage message = new ChatMessage("m" + i, "u", "n", content, 0L, null);
+            assertArrayEquals(legacy(message), ChatMessageSerializer.serialize(message));
+        }
+    }
+
+    @Test
+    void roundTrips() {
+        final ChatMessage message = new ChatMessage("m1", "ann@x", "Ann Ö", "decided: ship 🚀",
+                1_700_000_123L, "m0");
+        final ChatMessage read = ChatMessageSerializer.deserialize(ChatMessageSerializer.serialize(message));
+
+        assertEquals("m1", read.getMessageId());
+        assertEquals("ann@x", read.getUserId());
+        assertEquals("Ann Ö", read.getSenderDisplayName());
+        assertEquals("decided: ship 🚀", read.getContent());
+        assertEquals(message.getTimestamp(), read.getTimestamp());
+        assertEquals("m0", read.getReplyToMessageId());
+
+        final ChatMessage noReply = ChatMessageSerializer.deserialize(
+                ChatMessageSerializer.serialize(new ChatMessage("m2", "u", "n", "x", 0L, null)));
+        assertNull(noReply.getReplyToMessageId());
+    }
+
+    @Test
+    void sharesSenderStringsBetweenMessages() {
+        final ChatMessage first = ChatMessageSerializer.deserialize(ChatMessageSerializer.serialize(
+                new ChatMessage("m1", "bob@x", "Bob", "one", 0L, null)));
+        final ChatMessage second = ChatMessageSerializer.deserialize(ChatMessageSerializer.serialize(
+                new ChatMessage("m2", "bob@x", "Bob", "two", 0L, null)));
+
+        assertSame(first.getUserId(), second.getUserId());
+        assertSame(first.getSenderDisplayName(), second.getSenderDisplayName());
+        assertNotSame(first.getContent(), second.getContent());
+    }
+
+    @Test
+    void rejectsTruncatedMessages() {
+        final byte[] bytes = ChatMessageSerializer.serialize(new ChatMessage("m1", "u", "n", "hello", 0L, "r"));
+
+        assertThrows(BufferUnderflowException.class,
+                () -> ChatMessageSerializer.deserialize(Arrays.copyOf(bytes, 30)));
+        assertThrows(BufferUnderflowException.class,
+                () -> ChatMessageSerializer.deserialize(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+}
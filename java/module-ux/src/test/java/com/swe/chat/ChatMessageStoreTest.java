@@ -0,0 +1,114 @@
+package com.swe.chat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests ordering, lookups, the reply index and spilling to disk.
+ */
+class ChatMessageStoreTest {
+
+    private static MessageVM text(final String id, final String content, final String replyTo) {
+        return new MessageVM(id, "Bob", content, null, "10:00",
+                new MessageVM.ReplyContext(false, replyTo != null ? "quoted" : null, replyTo));
+    }
+
+    private static List<String> ids(final List<MessageVM> messages) {
+        return messages.stream().map(MessageVM::getMessageId).collect(Collectors.toList());
+    }
+
+    @Test
+    void keepsArrivalOrderAndRejectsDuplicates() {
+        try (ChatMessageStore store = new ChatMessageStore()) {
+            assertTrue(store.add(text("c", "1", null)));
+            assertTrue(store.add(text("a", "2", null)));
+            assertTrue(store.add(text("b", "3", null)));
+            assertFalse(store.add(text("a", "again", null)));
+
+            assertEquals(List.of("c", "a", "b"), ids(store.range(0, 10)));
+            assertEquals(List.of("a", "b"), ids(store.latest(2)));
+            assertEquals(List.of("c"), ids(store.before("a", 5)));
+            assertEquals(1, store.positionOf("a"));
+            assertEquals("2", store.get("a").getContent());
+        }
+    }
+
+    @Test
+    void indexesRepliesAndUpdatesThemOnReplace() {
+        try (ChatMessageStore store = new ChatMessageStore()) {
+            store.add(text("root", "hi", null));
+            store.add(text("r1", "re", "root"));
+            store.add(text("r2", "re", "root"));
+
+            assertEquals(List.of("r1", "r2"), store.getReplies("root"));
+
+            // A deleted reply no longer points at its parent
+            assertTrue(store.replace(text("r1", "<i>This message was deleted</i>", null)));
+            assertEquals(List.of("r2"), store.getReplies("root"));
+            assertEquals(1, store.positionOf("r1"));
+            assertFalse(store.replace(text("missing", "x", null)));
+        }
+    }
+
+    @Test
+    void spillsOldMessagesAndPagesThemBackIn() {
+        try (ChatMessageStore store = new ChatMessageStore(10, null)) {
+            for (int i = 0; i < 200; i++) {
+                final MessageVM message = i % 4 == 0
+                        ? new MessageVM("m" + i, "Ann", "caption " + i,
+                                new MessageVM.FileAttachment("f" + i + ".txt", i, null), "10:00",
+                                new MessageVM.ReplyContext(true, null, null))
+                        : text("m" + i, "message " + i, i > 0 ? "m" + (i - 1) : null);
+                store.add(message);
+            }
+
+            assertEquals(200, store.size());
+            assertEquals(10, store.residentCount());
+
+            final MessageVM old = store.get("m4");
+            assertEquals("caption 4", old.getContent());
+            assertEquals("f4.txt", old.getFileName());
+            assertTrue(old.isSentByMe());
+            assertEquals("m4", store.get("m5").getReplyToId());
+
+            assertEquals(List.of("m47", "m48", "m49"), ids(store.before("m50", 3)));
+            assertEquals(200, store.range(0, 500).size());
+        }
+    }
+
+    @Test
+    void reportsSpilledMessages() {
+        final List<String> spilled = new ArrayList<>();
+        try (ChatMessageStore store = new ChatMessageStore(2, null)) {
+            store.setOnSpilled(spilled::add);
+            for (int i = 0; i < 5; i++) {
+                store.add(text("m" + i, "message " + i, null));
+            }
+
+            assertEquals(List.of("m0", "m1", "m2"), spilled);
+            assertTrue(store.isSpilled("m2"));
+            assertFalse(store.isSpilled("m3"));
+            assertFalse(store.isSpilled("unknown"));
+        }
+    }
+
+    @Test
+    void replacesSpilledMessages() {
+        try (ChatMessageStore store = new ChatMessageStore(2, null)) {
+            for (int i = 0; i < 5; i++) {
+                store.add(text("m" + i, "message " + i, null));
+            }
+            store.get("m0");
+
+            assertTrue(store.replace(text("m0", "<i>This message was deleted</i>", null)));
+            assertEquals("<i>This message was deleted</i>", store.get("m0").getContent());
+            assertEquals(2, store.residentCount());
+            assertEquals("message 1", store.get("m1").getContent());
+        }
+    }
+}
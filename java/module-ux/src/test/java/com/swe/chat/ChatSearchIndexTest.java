@@ -0,0 +1,93 @@
+package com.swe.chat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests tokenizing, prefix queries, sender filters and removal in the chat
+ * search index.
+ */
+class ChatSearchIndexTest {
+
+    private static ChatSearchIndex sample() {
+        final ChatSearchIndex index = new ChatSearchIndex();
+        index.add("m1", "Alice Smith alice@example.com", "Agenda is at https://wiki.example.com/Q3-Planning");
+        index.add("m2", "Bob Jones bob@example.com", "We decided to ship the planner on Friday");
+        index.add("m3", "Alice Smith alice@example.com", "Decision: ship Friday, demo Monday");
+        index.add("m4", "Bob Jones bob@example.com", "slides.pdf Final deck");
+        return index;
+    }
+
+    @Test
+    void tokenizesIntoLowercaseWords() {
+        final List<String> terms = new ArrayList<>();
+        ChatSearchIndex.tokenize("See https://Wiki.example.com/Q3, ÉTÉ-plan!", terms::add);
+        assertEquals(List.of("see", "https", "wiki", "example", "com", "q3", "été", "plan"), terms);
+
+        terms.clear();
+        ChatSearchIndex.tokenize("x".repeat(100), terms::add);
+        assertEquals(ChatSearchIndex.MAX_TERM_LENGTH, terms.get(0).length());
+
+        terms.clear();
+        ChatSearchIndex.tokenize(null, terms::add);
+        assertTrue(terms.isEmpty());
+    }
+
+    @Test
+    void matchesEveryWordAsPrefixNewestFirst() {
+        final ChatSearchIndex index = sample();
+
+        assertEquals(List.of("m3", "m2"), index.search("ship fri", 10));
+        assertEquals(List.of("m3", "m2"), index.search("deci", 10));
+        assertEquals(List.of("m2", "m1"), index.search("plan", 10));
+        assertEquals(List.of("m1"), index.search("wiki.example", 10));
+        assertEquals(List.of("m4"), index.search("slides", 10));
+        assertTrue(index.search("ship tuesday", 10).isEmpty());
+        assertTrue(index.search("   ", 10).isEmpty());
+        assertTrue(index.search(null, 10).isEmpty());
+    }
+
+    @Test
+    void filtersBySender() {
+        final ChatSearchIndex index = sample();
+
+        assertEquals(List.of("m3"), index.search("ship from:alice", 10));
+        assertEquals(List.of("m2"), index.search("FROM:bob@example.com ship", 10));
+        assertEquals(List.of("m4", "m2"), index.search("from:jon", 10));
+        assertTrue(index.search("from:carol", 10).isEmpty());
+    }
+
+    @Test
+    void respectsLimitAndRemoval() {
+        final ChatSearchIndex index = sample();
+
+        assertEquals(List.of("m3"), index.search("fri", 1));
+        assertTrue(index.remove("m3"));
+        assertFalse(index.remove("m3"));
+        assertFalse(index.contains("m3"));
+        assertEquals(List.of("m2"), index.search("fri", 10));
+        assertEquals(3, index.size());
+
+        assertFalse(index.add("m2", "Bob", "duplicate"));
+        assertTrue(index.search("duplicate", 10).isEmpty());
+    }
+
+    @Test
+    void searchesLargeHistory() {
+        final ChatSearchIndex index = new ChatSearchIndex();
+        for (int i = 0; i < 100_000; i++) {
+            index.add("m" + i, i % 2 == 0 ? "Alice" : "Bob",
+                    "status update " + i + (i % 1000 == 0 ? " milestone reached" : ""));
+        }
+
+        final List<String> results = index.search("mile from:al", 1000);
+        assertEquals(100, results.size());
+        assertEquals("m99000", results.get(0));
+        assertEquals("m0", results.get(99));
+        assertEquals(List.of("m12345"), index.search("12345", 10));
+    }
+}
@@ -0,0 +1,187 @@
+package com.swe.chat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests chunked file transfer between a sender and a receiver, including
+ * corrupt chunks and resuming after a failure.
+ */
+class ChunkedFileTransferTest {
+
+    private static final int CHUNK = 1024;
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("chunk-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private Path source(final int size) throws IOException {
+        final byte[] bytes = new byte[size];
+        new Random(44).nextBytes(bytes);
+        return Files.write(dir.resolve("source.bin"), bytes);
+    }
+
+    private static CompletableFuture<byte[]> deliver(final ChunkedFileReceiver receiver, final byte[] frame) {
+        try {
+            return CompletableFuture.completedFuture(receiver.handle(frame));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Test
+    void transfersFileInBoundedChunksWithProgress() throws IOException {
+        final Path source = source(CHUNK * 70 + 123);
+        final Path target = dir.resolve("target.bin");
+        final List<Integer> frameSizes = new ArrayList<>();
+        final List<ChunkedFileSender.Progress> progress = new ArrayList<>();
+
+        try (ChunkedFileReceiver receiver = new ChunkedFileReceiver(target, "t1")) {
+            final ChunkedFileSender sender = new ChunkedFileSender(source, "t1", CHUNK, frame -> {
+                frameSizes.add(frame.length);
+                return deliver(receiver, frame);
+            }, progress::add);
+
+            assertEquals(Files.size(source), sender.send(0));
+            assertTrue(receiver.isComplete());
+        }
+
+        assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(target));
+        assertEquals(71, frameSizes.size());
+        assertTrue(frameSizes.stream().allMatch(size -> size < CHUNK + 64));
+        assertEquals(100, progress.get(progress.size() - 1).percent());
+        assertEquals(Files.size(source), progress.get(progress.size() - 1).sentBytes());
+    }
+
+    @Test
+    void corruptChunkIsSentAgain() throws IOException {
+        final Path source = source(CHUNK * 5);
+        final Path target = dir.resolve("target.bin");
+        final AtomicInteger sent = new AtomicInteger();
+
+        try (ChunkedFileReceiver receiver = new ChunkedFileReceiver(target, "t2")) {
+            final ChunkedFileSender sender = new ChunkedFileSender(source, "t2", CHUNK, frame -> {
+                if (sent.incrementAndGet() == 3) {
+                    // Flip a payload byte in transit
+                    frame[frame.length - 1] ^= 0x5A;
+                }
+                return deliver(receiver, frame);
+            }, null);
+            sender.send(0);
+        }
+
+        assertEquals(6, sent.get());
+        assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(target));
+    }
+
+    @Test
+    void resumesFromReceiverOffsetAfterFailure() throws IOException {
+        final Path source = source(CHUNK * 10 + 7);
+        final Path target = dir.resolve("target.bin");
+        final AtomicInteger sent = new AtomicInteger();
+
+        final ChunkedFileSender failing;
+        try (ChunkedFileReceiver receiver = new ChunkedFileReceiver(target, "t3")) {
+            failing = new ChunkedFileSender(source, "t3", CHUNK, frame -> {
+                if (sent.incrementAndGet() > 4) {
+                    return CompletableFuture.failedFuture(new IOException("link down"));
+                }
+                return deliver(receiver, frame);
+            }, null);
+            assertThrows(IOException.class, () -> failing.send(0));
+        }
+        assertEquals(CHUNK * 4, failing.getAckedOffset());
+
+        // A fresh receiver picks up from what is already on disk
+        final List<Long> offsets = new ArrayList<>();
+        try (ChunkedFileReceiver receiver = new ChunkedFileReceiver(target, "t3")) {
+            assertEquals(CHUNK * 4, receiver.getNextOffset());
+            final ChunkedFileSender resumed = new ChunkedFileSender(source, "t3", CHUNK, frame -> {
+                offsets.add(FileChunkSerializer.deserialize(frame).getOffset());
+                return deliver(receiver, frame);
+            }, null);
+            resumed.send(receiver.getNextOffset());
+            assertTrue(receiver.isComplete());
+        }
+
+        assertEquals(CHUNK * 4L, (long) offsets.get(0));
+        assertEquals(7, offsets.size());
+        assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(target));
+    }
+
+    @Test
+    void receiverRedirectsOutOfOrderChunks() throws IOException {
+        final Path target = dir.resolve("target.bin");
+        try (ChunkedFileReceiver receiver = new ChunkedFileReceiver(target, "t4")) {
+            final ByteBuffer payload = ByteBuffer.wrap(new byte[] {1, 2, 3});
+            final CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+
+            assertEquals(0, receiver.accept(new FileChunk("t4", 3, 6, (int) crc.getValue(), payload)));
+            assertEquals(0, receiver.accept(new FileChunk("other", 0, 6, (int) crc.getValue(), payload)));
+            assertEquals(3, receiver.accept(new FileChunk("t4", 0, 6, (int) crc.getValue(), payload)));
+            assertFalse(receiver.isComplete());
+        }
+    }
+
+    @Test
+    void emptyFileCompletes() throws IOException {
+        final Path source = Files.write(dir.resolve("empty.bin"), new byte[0]);
+        final Path target = dir.resolve("target.bin");
+        try (ChunkedFileReceiver receiver = new ChunkedFileReceiver(target, "t5")) {
+            final ChunkedFileSender sender = new ChunkedFileSender(source, "t5", CHUNK,
+                    frame -> deliver(receiver, frame), null);
+            assertEquals(0, sender.send(0));
+            assertTrue(receiver.isComplete());
+        }
+        assertEquals(0, Files.size(target));
+    }
+
+    @Test
+    void frameRoundTripsAndRejectsTruncation() {
+        final byte[] frame = FileChunkSerializer.serialize("id", 42, 100, 7,
+                ByteBuffer.wrap(new byte[] {9, 8, 7}));
+        final FileChunk chunk = FileChunkSerializer.deserialize(frame);
+
+        assertEquals("id", chunk.getTransferId());
+        assertEquals(42, chunk.getOffset());
+        assertEquals(100, chunk.getTotalSize());
+        assertEquals(7, chunk.getChecksum());
+        assertEquals(3, chunk.getLength());
+        assertEquals(8, chunk.getPayload().get(1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> FileChunkSerializer.deserialize(Arrays.copyOf(frame, frame.length - 1)));
+        assertEquals(-1, FileChunkSerializer.deserializeAck(new byte[0]));
+        assertEquals(5, FileChunkSerializer.deserializeAck(FileChunkSerializer.serializeAck(5)));
+    }
+}
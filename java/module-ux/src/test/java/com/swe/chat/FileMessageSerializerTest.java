@@ -0,0 +1,54 @@
+package com.swe.chat;
+
+import com.swe.ux.model.FileMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests file message encoding, including the optional content hash appended
+ * to file messages.
+ */
+class FileMessageSerializerTest {
+
+    @Test
+    void contentHashRoundTrips() {
+        final FileMessage message = new FileMessage("m1", "u@x", "Ann", "deck", "deck.pdf", "/tmp/deck.pdf", null);
+        message.setContentHash("ab".repeat(32));
+
+        final FileMessage read = FileMessageSerializer.deserialize(FileMessageSerializer.serialize(message));
+
+        assertEquals("ab".repeat(32), read.getContentHash());
+        assertEquals("deck.pdf", read.getFileName());
+        assertEquals("/tmp/deck.pdf", read.getFilePath());
+    }
+
+    @Test
+    void messagesWithoutHashStillRead() {
+        final FileMessage message = new FileMessage("m1", "u@x", "Ann", "deck", "deck.pdf", null, 1000L, "m0");
+        final byte[] bytes = FileMessageSerializer.serialize(message);
+        // Drop the empty hash field, as an older sender would
+        final FileMessage read = FileMessageSerializer.deserialize(Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertNull(read.getContentHash());
+        assertEquals("m0", read.getReplyToMessageId());
+    }
+
+    @Test
+    void inlineContentAndSenderRoundTrip() {
+        final byte[] content = {1, 2, 3, -1};
+        final FileMessage first = FileMessageSerializer.deserialize(FileMessageSerializer.serialize(
+                new FileMessage("m1", "zoë@x", "Zoë", "résumé 🚀", "cv.pdf", content, 1000L, null)));
+        final FileMessage second = FileMessageSerializer.deserialize(FileMessageSerializer.serialize(
+                new FileMessage("m2", "zoë@x", "Zoë", null, "cv2.pdf", content, 1000L, null)));
+
+        assertArrayEquals(content, first.getFileContent());
+        assertEquals("résumé 🚀", first.getCaption());
+        assertNull(second.getCaption());
+        assertNull(first.getFilePath());
+        assertSame(first.getUserId(), second.getUserId());
+        assertSame(first.getSenderDisplayName(), second.getSenderDisplayName());
+    }
+}
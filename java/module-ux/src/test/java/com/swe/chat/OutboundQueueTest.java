@@ -0,0 +1,230 @@
+package com.swe.chat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests ordering, retries, deduplication, forgetting and the capacity bound
+ * of the outbound chat queue.
+ */
+class OutboundQueueTest {
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    private OutboundQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    private OutboundQueue newQueue(final int capacity, final long ackTimeout, final OutboundQueue.Transport transport) {
+        queue = new OutboundQueue(capacity, 3, 1, 4, ackTimeout, transport,
+                (key, state) -> events.add(key + "=" + state));
+        return queue;
+    }
+
+    private static byte[] bytes(final String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void awaitState(final OutboundQueue queue, final String key,
+                                   final OutboundQueue.DeliveryState state) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.getState(key) != state) {
+            assertTrue(System.nanoTime() < deadline, key + " never became " + state + ": " + queue.getState(key));
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void sendsInOrderOneAtATime() throws Exception {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        newQueue(100, 1000, (endpoint, payload) -> CompletableFuture.supplyAsync(() -> {
+            if (inFlight.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            sent.add(new String(payload, StandardCharsets.UTF_8));
+            inFlight.decrementAndGet();
+            return new byte[0];
+        }));
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(queue.enqueue("m" + i, "chat:send-text", bytes("m" + i)));
+        }
+        awaitState(queue, "m49", OutboundQueue.DeliveryState.SENT);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("m" + i, sent.get(i));
+            assertEquals(OutboundQueue.DeliveryState.SENT, queue.getState("m" + i));
+        }
+        assertEquals(0, overlaps.get());
+        assertEquals(List.of("m0=SENDING", "m0=SENT"), events.stream().filter(e -> e.startsWith("m0=")).toList());
+    }
+
+    @Test
+    void retriesUntilAcknowledged() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        newQueue(100, 1000, (endpoint, payload) -> {
+            final String key = new String(payload, StandardCharsets.UTF_8);
+            if (key.equals("a") && attempts.incrementAndGet() < 3) {
+                return CompletableFuture.failedFuture(new IOException("network blip"));
+            }
+            sent.add(key);
+            return CompletableFuture.completedFuture(new byte[0]);
+        });
+
+        queue.enqueue("a", "chat:send-text", bytes("a"));
+        queue.enqueue("b", "chat:send-text", bytes("b"));
+        awaitState(queue, "b", OutboundQueue.DeliveryState.SENT);
+
+        awaitState(queue, "a", OutboundQueue.DeliveryState.SENT);
+
+        assertEquals(3, attempts.get());
+        assertEquals(2, sent.size());
+        assertTrue(sent.containsAll(List.of("a", "b")));
+    }
+
+    @Test
+    void sendsLaterMessagesWhileAnEarlierOneIsFailing() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        queue = new OutboundQueue(100, 3, 200, 200, 1000, (endpoint, payload) -> {
+            final String key = new String(payload, StandardCharsets.UTF_8);
+            if (key.equals("a")) {
+                attempts.incrementAndGet();
+                return CompletableFuture.failedFuture(new IOException("rejected"));
+            }
+            sent.add(key);
+            return CompletableFuture.completedFuture(new byte[0]);
+        }, null);
+
+        queue.enqueue("a", "chat:send-text", bytes("a"));
+        queue.enqueue("b", "chat:send-text", bytes("b"));
+        queue.enqueue("c", "chat:send-text", bytes("c"));
+        awaitState(queue, "c", OutboundQueue.DeliveryState.SENT);
+
+        assertEquals(List.of("b", "c"), sent);
+        assertEquals(OutboundQueue.DeliveryState.SENDING, queue.getState("a"));
+        assertTrue(attempts.get() < 3);
+        awaitState(queue, "a", OutboundQueue.DeliveryState.FAILED);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void failsAfterLastAttemptAndCanBeRetried() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicBoolean online = new AtomicBoolean();
+        newQueue(100, 20, (endpoint, payload) -> {
+            calls.incrementAndGet();
+            if (!online.get()) {
+                // Never acknowledged, so every attempt times out
+                return new CompletableFuture<>();
+            }
+            sent.add(endpoint);
+            return CompletableFuture.completedFuture(new byte[0]);
+        });
+
+        queue.enqueue("a", "chat:send-text", bytes("a"));
+        awaitState(queue, "a", OutboundQueue.DeliveryState.FAILED);
+        assertEquals(3, calls.get());
+        assertTrue(sent.isEmpty());
+
+        assertFalse(queue.retry("unknown"));
+        online.set(true);
+        assertTrue(queue.retry("a"));
+        awaitState(queue, "a", OutboundQueue.DeliveryState.SENT);
+        assertEquals(List.of("chat:send-text"), sent);
+        assertFalse(queue.retry("a"));
+    }
+
+    @Test
+    void acceptsEachKeyOnce() throws Exception {
+        newQueue(100, 1000, (endpoint, payload) -> {
+            sent.add(new String(payload, StandardCharsets.UTF_8));
+            return CompletableFuture.completedFuture(new byte[0]);
+        });
+
+        assertTrue(queue.enqueue("a", "chat:send-text", bytes("first")));
+        assertFalse(queue.enqueue("a", "chat:send-text", bytes("second")));
+        awaitState(queue, "a", OutboundQueue.DeliveryState.SENT);
+        assertFalse(queue.enqueue("a", "chat:send-text", bytes("third")));
+        queue.enqueue("b", "chat:send-text", bytes("b"));
+        awaitState(queue, "b", OutboundQueue.DeliveryState.SENT);
+
+        assertEquals(List.of("first", "b"), sent);
+    }
+
+    @Test
+    void forgetsSentAndFailedKeys() throws Exception {
+        final AtomicBoolean online = new AtomicBoolean(true);
+        newQueue(100, 20, (endpoint, payload) -> online.get()
+                ? CompletableFuture.completedFuture(new byte[0]) : new CompletableFuture<>());
+
+        queue.enqueue("a", "chat:send-text", bytes("a"));
+        awaitState(queue, "a", OutboundQueue.DeliveryState.SENT);
+        online.set(false);
+        queue.enqueue("b", "chat:send-text", bytes("b"));
+        awaitState(queue, "b", OutboundQueue.DeliveryState.FAILED);
+
+        assertTrue(queue.forget("a"));
+        assertNull(queue.getState("a"));
+        assertTrue(queue.forget("b"));
+        assertNull(queue.getState("b"));
+        assertFalse(queue.retry("b"));
+        assertFalse(queue.forget("unknown"));
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentFailures() throws Exception {
+        newQueue(2, 1000, (endpoint, payload) -> CompletableFuture.failedFuture(new IOException("down")));
+
+        for (String key : List.of("a", "b", "c")) {
+            queue.enqueue(key, "chat:send-text", bytes(key));
+            awaitState(queue, key, OutboundQueue.DeliveryState.FAILED);
+        }
+
+        assertFalse(queue.retry("a"));
+        assertTrue(queue.retry("b"));
+        assertTrue(queue.retry("c"));
+    }
+
+    @Test
+    void rejectsWhenFullAndFailsPendingOnClose() throws Exception {
+        final CompletableFuture<byte[]> stuck = new CompletableFuture<>();
+        newQueue(1, 60_000, (endpoint, payload) -> stuck);
+
+        assertTrue(queue.enqueue("a", "chat:send-text", bytes("a")));
+        awaitState(queue, "a", OutboundQueue.DeliveryState.SENDING);
+        // Wait until the sender has taken "a", so "b" is the only one waiting
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.getPendingCount() > 0) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        assertTrue(queue.enqueue("b", "chat:send-text", bytes("b")));
+        assertFalse(queue.enqueue("c", "chat:send-text", bytes("c")));
+        assertEquals(OutboundQueue.DeliveryState.FAILED, queue.getState("c"));
+
+        queue.close();
+        awaitState(queue, "a", OutboundQueue.DeliveryState.FAILED);
+        awaitState(queue, "b", OutboundQueue.DeliveryState.FAILED);
+        assertFalse(queue.enqueue("d", "chat:send-text", bytes("d")));
+        assertEquals(OutboundQueue.DeliveryState.FAILED, queue.getState("d"));
+    }
+}
@@ -98,6 +98,21 @@ class CanvasControllerFXMLTest {
             onUpdate.run();
         }
 
+        @Override
+        public void requestModifyBatch(java.util.Map<ShapeId, Shape> modifiedShapes) {
+            modifiedShapes.forEach((id, shape) -> requestModify(canvasState.getShapeState(id), shape));
+        }
+
+        @Override
+        public void requestCreateBatch(java.util.Collection<Shape> newShapes) {
+            newShapes.forEach(this::requestCreate);
+        }
+
+        @Override
+        public void requestDeleteBatch(java.util.Collection<ShapeId> shapeIds) {
+            shapeIds.forEach(id -> requestDelete(canvasState.getShapeState(id)));
+        }
+
         @Override
         public void requestDelete(ShapeState shapeToDelete) {
             deleteCalls++;
@@ -125,6 +140,16 @@ class CanvasControllerFXMLTest {
         public void restoreMap(String json) {
             /* no-op */ }
 
+        @Override
+        public byte[] saveMapBinary() {
+            return new byte[0];
+        }
+
+        @Override
+        public void restoreMapBinary(byte[] data) {
+            // no-op
+        }
+
         @Override
         public void processIncomingMessage(NetworkMessage message) {
             /* no-op */ }
@@ -0,0 +1,115 @@
+package com.swe.ux.canvas;
+
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.canvas.ShapeState;
+import com.swe.canvas.datamodel.shape.LineShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.RectangleShape;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests rendering a canvas state without JavaFX.
+ */
+class CanvasRasterizerTest {
+
+    private static final int WHITE = 0xFFFFFF;
+
+    private final CanvasState canvas = new CanvasState();
+    private final CanvasRasterizer rasterizer = new CanvasRasterizer(canvas);
+
+    private void put(final Shape shape, final boolean deleted) {
+        canvas.applyState(shape.getShapeId(), new ShapeState(shape, deleted, 1L));
+    }
+
+    private static int rgb(final BufferedImage image, final int x, final int y) {
+        return image.getRGB(x, y) & WHITE;
+    }
+
+    @Test
+    void render_drawsVisibleShapesOnWhite() {
+        put(new LineShape(new ShapeId("line"), List.of(new Point(10, 50), new Point(90, 50)),
+                4.0, Color.RED, "u", "u"), false);
+        put(new LineShape(new ShapeId("gone"), List.of(new Point(50, 10), new Point(50, 90)),
+                4.0, Color.BLUE, "u", "u"), true);
+
+        BufferedImage image = rasterizer.render(100, 100, 100, 100);
+
+        assertEquals(WHITE, rgb(image, 5, 5));
+        assertEquals(0xFF0000, rgb(image, 30, 50));
+        assertEquals(WHITE, rgb(image, 50, 20), "deleted shapes are not drawn");
+    }
+
+    @Test
+    void render_scalesToRequestedSize() {
+        put(new RectangleShape(new ShapeId("r"), List.of(new Point(10, 10), new Point(40, 40)),
+                2.0, Color.BLACK, "u", "u"), false);
+
+        BufferedImage image = rasterizer.render(50, 50, 200, 200);
+
+        assertEquals(200, image.getWidth());
+        assertEquals(0x000000, rgb(image, 40, 100), "left edge at x=10 lands at x=40");
+        assertEquals(WHITE, rgb(image, 100, 100));
+    }
+
+    @Test
+    void render_appliesViewTransform() {
+        put(new RectangleShape(new ShapeId("r"), List.of(new Point(10, 10), new Point(40, 40)),
+                2.0, Color.BLACK, "u", "u"), false);
+
+        // Zoomed in twice and panned 30 pixels left
+        AffineTransform view = AffineTransform.getTranslateInstance(-30, 0);
+        view.scale(2, 2);
+        BufferedImage image = rasterizer.render(view, 100, 100);
+
+        assertEquals(0x000000, rgb(image, 50, 60), "right edge at x=40 lands at x=50");
+        assertEquals(WHITE, rgb(image, 20, 60), "left edge at x=10 is off to the left");
+        assertEquals(WHITE, rgb(image, 80, 60));
+    }
+
+    @Test
+    void renderPng_isCachedPerView() throws Exception {
+        put(new LineShape(new ShapeId("a"), List.of(new Point(0, 0), new Point(20, 20)),
+                1.0, Color.BLACK, "u", "u"), false);
+        AffineTransform view = AffineTransform.getScaleInstance(2, 2);
+
+        byte[] zoomed = rasterizer.renderPng(view, 64, 64);
+        assertSame(zoomed, rasterizer.renderPngAsync(view, 64, 64).get(10, TimeUnit.SECONDS));
+
+        view.translate(5, 0);
+        assertNotSame(zoomed, rasterizer.renderPng(view, 64, 64));
+    }
+
+    @Test
+    void renderPng_isCachedUntilBoardChanges() throws Exception {
+        put(new LineShape(new ShapeId("a"), List.of(new Point(0, 0), new Point(20, 20)),
+                1.0, Color.BLACK, "u", "u"), false);
+
+        byte[] first = rasterizer.renderPng(64, 64, 64, 64);
+        byte[] again = rasterizer.renderPng(64, 64, 64, 64);
+        assertSame(first, again);
+        assertEquals(canvas.getBoardVersion(), rasterizer.getCachedVersion());
+
+        assertNotSame(first, rasterizer.renderPng(64, 64, 32, 32));
+
+        put(new LineShape(new ShapeId("b"), List.of(new Point(0, 20), new Point(20, 0)),
+                1.0, Color.BLACK, "u", "u"), false);
+        byte[] changed = rasterizer.renderPngAsync(64, 64, 64, 64).get(10, TimeUnit.SECONDS);
+        assertNotSame(first, changed);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(changed));
+        assertEquals(64, decoded.getWidth());
+        assertEquals(64, decoded.getHeight());
+    }
+}
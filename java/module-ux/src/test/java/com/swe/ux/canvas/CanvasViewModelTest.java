@@ -36,6 +36,7 @@ class CanvasViewModelTest {
         };
         int createCalls, modifyCalls, deleteCalls;
         int undoCalls, redoCalls;
+        int modifyBatchCalls;
 
         @Override
         public void initialize() {
@@ -78,6 +79,22 @@ class CanvasViewModelTest {
             onUpdate.run();
         }
 
+        @Override
+        public void requestModifyBatch(java.util.Map<ShapeId, Shape> modifiedShapes) {
+            modifyBatchCalls++;
+            modifiedShapes.forEach((id, shape) -> requestModify(canvasState.getShapeState(id), shape));
+        }
+
+        @Override
+        public void requestCreateBatch(java.util.Collection<Shape> newShapes) {
+            newShapes.forEach(this::requestCreate);
+        }
+
+        @Override
+        public void requestDeleteBatch(java.util.Collection<ShapeId> shapeIds) {
+            shapeIds.forEach(id -> requestDelete(canvasState.getShapeState(id)));
+        }
+
         @Override
         public void requestDelete(ShapeState shapeToDelete) {
             deleteCalls++;
@@ -105,6 +122,16 @@ class CanvasViewModelTest {
         public void restoreMap(String json) {
             /* no-op */ }
 
+        @Override
+        public byte[] saveMapBinary() {
+            return new byte[0];
+        }
+
+        @Override
+        public void restoreMapBinary(byte[] data) {
+            // no-op
+        }
+
         @Override
         public void processIncomingMessage(com.swe.canvas.datamodel.collaboration.NetworkMessage message) {
             /* no-op */ }
@@ -145,6 +172,36 @@ class CanvasViewModelTest {
         assertEquals(1, actionManager.getCanvasState().getVisibleShapes().size());
     }
 
+    @Test
+    void freehandStroke_isDecimatedAndSimplified() {
+        viewModel.activeTool.set(ToolType.FREEHAND);
+        viewModel.onMousePressed(0, 0);
+        for (int i = 1; i <= 400; i++) {
+            viewModel.onMouseDragged(i * 0.25, 0); // sub-pixel moves along a straight line
+        }
+        viewModel.onMouseReleased(100, 0);
+
+        assertEquals(1, actionManager.createCalls);
+        Shape stroke = actionManager.getCanvasState().getVisibleShapes().iterator().next();
+        assertEquals(2, stroke.getPoints().size(), "Straight stroke keeps only its endpoints");
+        assertEquals(400, viewModel.getCapturedPointCount());
+        assertEquals(2, viewModel.getCommittedPointCount());
+    }
+
+    @Test
+    void freehandTolerance_scalesWithZoom() {
+        viewModel.activeTool.set(ToolType.FREEHAND);
+        viewModel.zoomLevel.set(4.0);
+        viewModel.onMousePressed(0, 0);
+        viewModel.onMouseDragged(0.3, 0.3); // 1.7 screen pixels at 4x zoom: recorded
+        viewModel.onMouseDragged(0.35, 0.3); // 0.2 screen pixels: dropped
+        viewModel.onMouseDragged(0.6, 0);
+        viewModel.onMouseReleased(0.6, 0);
+
+        Shape stroke = actionManager.getCanvasState().getVisibleShapes().iterator().next();
+        assertEquals(3, stroke.getPoints().size(), "The corner survives at high zoom");
+    }
+
     @Test
     void modifySelectedShapeColor() {
         Shape s = SHAPE_FACTORY.createShape(ShapeType.LINE, ShapeId.randomId(), null, 2.0, java.awt.Color.BLACK, "u");
@@ -197,4 +254,65 @@ class CanvasViewModelTest {
         viewModel.onMouseReleased(10, 10);
         assertEquals(1, actionManager.modifyCalls, "Drag should invoke modify");
     }
+
+    private Shape rect(double x, double y) {
+        Shape s = SHAPE_FACTORY.createShape(ShapeType.RECTANGLE, ShapeId.randomId(),
+                new java.util.ArrayList<>(java.util.List.of(
+                        new com.swe.canvas.datamodel.shape.Point(x, y),
+                        new com.swe.canvas.datamodel.shape.Point(x + 20, y + 20))),
+                2.0, java.awt.Color.BLACK, "u");
+        actionManager.requestCreate(s);
+        return s;
+    }
+
+    @Test
+    void marquee_selectsShapesInsideAndShiftAdds() {
+        Shape a = rect(10, 10);
+        Shape b = rect(60, 10);
+        Shape far = rect(500, 500);
+        viewModel.activeTool.set(ToolType.SELECT);
+
+        viewModel.onMousePressed(0, 0);
+        viewModel.onMouseDragged(100, 50);
+        assertNotNull(viewModel.getMarquee());
+        viewModel.onMouseReleased(100, 50);
+
+        assertNull(viewModel.getMarquee());
+        assertEquals(java.util.Set.of(a.getShapeId(), b.getShapeId()),
+                new java.util.HashSet<>(viewModel.getSelectedShapeIds()));
+
+        viewModel.onMousePressed(510, 510, true); // shift-click adds
+        viewModel.onMouseReleased(510, 510);
+        assertEquals(3, viewModel.getSelectedShapeIds().size());
+        assertEquals(far.getShapeId(), viewModel.selectedShapeId.get());
+
+        viewModel.onMousePressed(300, 300); // plain click on empty space clears
+        viewModel.onMouseReleased(300, 300);
+        assertTrue(viewModel.getSelectedShapeIds().isEmpty());
+    }
+
+    @Test
+    void groupDrag_usesOneOffsetAndCommitsOneBatch() {
+        Shape a = rect(10, 10);
+        Shape b = rect(60, 10);
+        viewModel.activeTool.set(ToolType.SELECT);
+        viewModel.setSelection(java.util.List.of(a.getShapeId(), b.getShapeId()));
+
+        viewModel.onMousePressed(15, 15);
+        viewModel.onMouseDragged(25, 20);
+        viewModel.onMouseDragged(35, 25);
+        assertEquals(20.0, viewModel.getDragOffsetX());
+        assertEquals(10.0, viewModel.getDragOffsetY());
+        assertNull(viewModel.getTransientShape(), "No cloned ghost shapes while dragging");
+        assertEquals(10.0, actionManager.getCanvasState().getShapeState(b.getShapeId())
+                .getShape().getPoints().get(0).getY(), "Committed shapes untouched until release");
+
+        viewModel.onMouseReleased(35, 25);
+
+        assertEquals(1, actionManager.modifyBatchCalls);
+        assertEquals(80.0, actionManager.getCanvasState().getShapeState(b.getShapeId())
+                .getShape().getPoints().get(0).getX());
+        assertEquals(0.0, viewModel.getDragOffsetX());
+        assertEquals(2, viewModel.getSelectedShapeIds().size(), "Selection kept after the move");
+    }
 }
@@ -0,0 +1,85 @@
+package com.swe.ux.canvas.util;
+
+import com.swe.canvas.datamodel.shape.FreehandShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.RectangleShape;
+import com.swe.canvas.datamodel.shape.Shape;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests level selection, cached simplification and sub-pixel detection.
+ */
+class LodCacheTest {
+
+    private final LodCache cache = new LodCache();
+
+    private static Shape wavyStroke(final String id, final int points) {
+        List<Point> stroke = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            stroke.add(new Point(i, Math.sin(i / 3.0) * 1.5));
+        }
+        return new FreehandShape(new ShapeId(id), stroke, 2.0, Color.BLACK, "u1", "u1");
+    }
+
+    @Test
+    void levelFor_getsCoarserWhenZoomedOut() {
+        assertEquals(-1, LodCache.levelFor(2.0));
+        assertEquals(0, LodCache.levelFor(1.0));
+        assertEquals(1, LodCache.levelFor(0.5));
+        assertEquals(LodCache.LEVEL_TOLERANCES.length - 1, LodCache.levelFor(0.001));
+    }
+
+    @Test
+    void pointsFor_simplifiesOnceAndRebuildsWhenPointsChange() {
+        Shape stroke = wavyStroke("s", 500);
+
+        List<Point> zoomedIn = cache.pointsFor(stroke, 4.0);
+        List<Point> zoomedOut = cache.pointsFor(stroke, 0.05);
+
+        assertSame(stroke.getPoints(), zoomedIn);
+        assertTrue(zoomedOut.size() < stroke.getPoints().size() / 10);
+        assertSame(zoomedOut, cache.pointsFor(stroke, 0.05));
+
+        stroke.setPoints(new ArrayList<>(stroke.getPoints().subList(0, 100)));
+        assertEquals(new Point(99, Math.sin(99 / 3.0) * 1.5),
+                cache.pointsFor(stroke, 0.05).get(cache.pointsFor(stroke, 0.05).size() - 1));
+    }
+
+    @Test
+    void pointsFor_leavesOtherShapesAlone() {
+        Shape rect = new RectangleShape(new ShapeId("r"), List.of(new Point(0, 0), new Point(10, 10)),
+                1.0, Color.BLUE, "u1", "u1");
+        assertSame(rect.getPoints(), cache.pointsFor(rect, 0.05));
+    }
+
+    @Test
+    void isSubPixel_dependsOnScreenSize() {
+        Shape tiny = new RectangleShape(new ShapeId("t"), List.of(new Point(0, 0), new Point(3, 1)),
+                1.0, Color.BLUE, "u1", "u1");
+
+        assertFalse(cache.isSubPixel(tiny, 1.0));
+        assertTrue(cache.isSubPixel(tiny, 0.2));
+        assertArrayEquals(new double[] {0, 0, 3, 1}, cache.boundsOf(tiny));
+    }
+
+    @Test
+    void evictUntouched_dropsShapesNotDrawnSinceLastFrame() {
+        Shape kept = wavyStroke("kept", 50);
+        Shape gone = wavyStroke("gone", 50);
+        cache.pointsFor(kept, 0.1);
+        cache.pointsFor(gone, 0.1);
+        cache.evictUntouched();
+        assertEquals(2, cache.size());
+
+        cache.pointsFor(kept, 0.1);
+        cache.evictUntouched();
+        assertEquals(1, cache.size());
+    }
+}
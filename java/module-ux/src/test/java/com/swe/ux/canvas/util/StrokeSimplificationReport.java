@@ -0,0 +1,147 @@
+/*
+ * -----------------------------------------------------------------------------
+ * File: StrokeSimplificationReport.java
+ * Module: Canvas
+ *
+ * -----------------------------------------------------------------------------
+ */
+
+package com.swe.ux.canvas.util;
+
+import com.swe.canvas.datamodel.action.Action;
+import com.swe.canvas.datamodel.action.ActionFactory;
+import com.swe.canvas.datamodel.canvas.CanvasState;
+import com.swe.canvas.datamodel.serialization.NetActionSerializer;
+import com.swe.canvas.datamodel.shape.FreehandShape;
+import com.swe.canvas.datamodel.shape.Point;
+import com.swe.canvas.datamodel.shape.ShapeId;
+import java.awt.Color;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Command-line tool measuring the freehand input pipeline on synthetic
+ * strokes: point counts after decimation and simplification, the size of the
+ * resulting create action, and the time to build, serialize, deserialize and
+ * apply it (the local part of an action's end-to-end latency).
+ *
+ * <p>Usage: {@code StrokeSimplificationReport [strokes]}.</p>
+ */
+public final class StrokeSimplificationReport {
+
+    /** Strokes per configuration when none are given. */
+    private static final int DEFAULT_STROKES = 200;
+
+    /** Mouse events per synthetic stroke. */
+    private static final int EVENTS_PER_STROKE = 600;
+
+    /** Zoom levels to report. */
+    private static final double[] ZOOMS = {0.5, 1.0, 2.0, 4.0};
+
+    /** Nanoseconds per microsecond. */
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    private StrokeSimplificationReport() {
+        // Utility class
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args Optional number of strokes per configuration.
+     */
+    public static void main(final String[] args) {
+        final int strokes = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_STROKES;
+        final List<List<double[]>> inputs = new ArrayList<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < strokes; i++) {
+            inputs.add(generateStroke(random));
+        }
+
+        // Warm up both paths
+        run(inputs, 1.0, false);
+        run(inputs, 1.0, true);
+
+        System.out.printf("%-12s %6s | %10s %10s | %10s %10s%n",
+                "pipeline", "zoom", "points", "reduction", "bytes", "us/action");
+        final double[] raw = run(inputs, 1.0, false);
+        print("raw", 1.0, raw, raw);
+        for (final double zoom : ZOOMS) {
+            print("simplified", zoom, run(inputs, zoom, true), raw);
+        }
+    }
+
+    private static void print(final String name, final double zoom, final double[] result, final double[] raw) {
+        System.out.printf("%-12s %6.1f | %10.1f %9.1f%% | %10.0f %10.1f%n", name, zoom,
+                result[0], 100.0 * (1 - result[0] / raw[0]), result[1], result[2]);
+    }
+
+    /**
+     * Runs all strokes through the pipeline and the local action path.
+     *
+     * @return Average points per stroke, bytes per action and microseconds per action.
+     */
+    private static double[] run(final List<List<double[]>> inputs, final double zoom, final boolean simplify) {
+        final ActionFactory factory = new ActionFactory();
+        final CanvasState canvas = new CanvasState();
+        long points = 0;
+        long bytes = 0;
+        long nanos = 0;
+
+        for (final List<double[]> events : inputs) {
+            final List<Point> stroke = capture(events, zoom, simplify);
+            points += stroke.size();
+
+            final long start = System.nanoTime();
+            final FreehandShape shape = new FreehandShape(ShapeId.randomId(), stroke, 2.0, Color.BLACK, "u", "u");
+            final Action action = factory.createCreateAction(shape, "u");
+            final byte[] wire = NetActionSerializer.serializeAction(action).getBytes(StandardCharsets.UTF_8);
+            final Action received = NetActionSerializer.deserializeAction(new String(wire, StandardCharsets.UTF_8));
+            canvas.applyState(received.getShapeId(), received.getNewState());
+            nanos += System.nanoTime() - start;
+            bytes += wire.length;
+        }
+        final int n = inputs.size();
+        return new double[] {(double) points / n, (double) bytes / n, nanos / NANOS_PER_MICRO / n};
+    }
+
+    /**
+     * Mirrors what the view model does for a freehand gesture.
+     */
+    private static List<Point> capture(final List<double[]> events, final double zoom, final boolean simplify) {
+        final List<Point> points = new ArrayList<>();
+        final double minDistance = StrokeSimplifier.toCanvasUnits(StrokeSimplifier.DEFAULT_MIN_DISTANCE, zoom);
+        for (final double[] e : events) {
+            if (!simplify || points.isEmpty()
+                    || StrokeSimplifier.shouldRecord(points.get(points.size() - 1), e[0], e[1], minDistance)) {
+                points.add(new Point(e[0], e[1]));
+            }
+        }
+        if (!simplify) {
+            return points;
+        }
+        return StrokeSimplifier.simplify(points,
+                StrokeSimplifier.toCanvasUnits(StrokeSimplifier.DEFAULT_TOLERANCE, zoom));
+    }
+
+    /**
+     * Generates mouse events for a wavy stroke with sub-pixel jitter, as a
+     * high-rate pointer would report them.
+     */
+    private static List<double[]> generateStroke(final Random random) {
+        final List<double[]> events = new ArrayList<>();
+        double x = random.nextInt(800);
+        double y = random.nextInt(600);
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < EVENTS_PER_STROKE; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.2;
+            final double step = 0.2 + random.nextDouble() * 0.8;
+            x += Math.cos(heading) * step + (random.nextDouble() - 0.5) * 0.3;
+            y += Math.sin(heading) * step + (random.nextDouble() - 0.5) * 0.3;
+            events.add(new double[] {x, y});
+        }
+        return events;
+    }
+}
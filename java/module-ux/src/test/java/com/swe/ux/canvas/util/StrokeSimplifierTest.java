@@ -0,0 +1,93 @@
+package com.swe.ux.canvas.util;
+
+import com.swe.canvas.datamodel.shape.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests freehand decimation and Ramer–Douglas–Peucker simplification.
+ */
+class StrokeSimplifierTest {
+
+    @Test
+    void shouldRecord_respectsMinimumDistance() {
+        Point last = new Point(10, 10);
+        assertTrue(StrokeSimplifier.shouldRecord(null, 0, 0, 5));
+        assertFalse(StrokeSimplifier.shouldRecord(last, 10.4, 10.3, 1.0));
+        assertTrue(StrokeSimplifier.shouldRecord(last, 11, 10, 1.0));
+    }
+
+    @Test
+    void toCanvasUnits_scalesWithZoom() {
+        assertEquals(1.0, StrokeSimplifier.toCanvasUnits(2.0, 2.0));
+        assertEquals(4.0, StrokeSimplifier.toCanvasUnits(2.0, 0.5));
+        assertEquals(2.0, StrokeSimplifier.toCanvasUnits(2.0, 0));
+    }
+
+    @Test
+    void simplify_collinearPointsReduceToEndpoints() {
+        List<Point> line = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            line.add(new Point(i, 2 * i));
+        }
+
+        List<Point> result = StrokeSimplifier.simplify(line, 0.5);
+
+        assertEquals(List.of(new Point(0, 0), new Point(100, 200)), result);
+    }
+
+    @Test
+    void simplify_keepsCorners() {
+        List<Point> corner = new ArrayList<>();
+        for (int i = 0; i <= 50; i++) {
+            corner.add(new Point(i, 0));
+        }
+        for (int i = 1; i <= 50; i++) {
+            corner.add(new Point(50, i));
+        }
+
+        List<Point> result = StrokeSimplifier.simplify(corner, 0.5);
+
+        assertEquals(List.of(new Point(0, 0), new Point(50, 0), new Point(50, 50)), result);
+    }
+
+    @Test
+    void simplify_staysWithinTolerance() {
+        List<Point> wave = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            wave.add(new Point(i * 0.5, Math.sin(i * 0.05) * 20));
+        }
+
+        List<Point> result = StrokeSimplifier.simplify(wave, 0.75);
+
+        assertTrue(result.size() < wave.size() / 5, "kept " + result.size());
+        for (Point p : wave) {
+            double best = Double.MAX_VALUE;
+            for (int i = 1; i < result.size(); i++) {
+                best = Math.min(best, distance(p, result.get(i - 1), result.get(i)));
+            }
+            assertTrue(best <= 0.75 + 1e-9, "point " + p + " is " + best + " away");
+        }
+    }
+
+    @Test
+    void simplify_shortOrDisabledReturnsCopy() {
+        List<Point> two = List.of(new Point(0, 0), new Point(1, 1));
+        assertEquals(two, StrokeSimplifier.simplify(two, 1.0));
+
+        List<Point> three = List.of(new Point(0, 0), new Point(1, 0.1), new Point(2, 0));
+        assertEquals(three, StrokeSimplifier.simplify(three, 0));
+    }
+
+    private static double distance(Point p, Point a, Point b) {
+        double dx = b.getX() - a.getX();
+        double dy = b.getY() - a.getY();
+        double len = dx * dx + dy * dy;
+        double t = len == 0 ? 0 : Math.max(0, Math.min(1, ((p.getX() - a.getX()) * dx + (p.getY() - a.getY()) * dy) / len));
+        return Math.hypot(p.getX() - (a.getX() + t * dx), p.getY() - (a.getY() + t * dy));
+    }
+}
@@ -0,0 +1,107 @@
+package com.swe.ux.ui;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that bursts are coalesced into ordered batches on the EDT.
+ */
+class EdtBatcherTest {
+
+    private final List<List<Integer>> batches = new ArrayList<>();
+
+    private final List<Boolean> onEdt = new ArrayList<>();
+
+    private void record(final List<Integer> batch) {
+        batches.add(batch);
+        onEdt.add(SwingUtilities.isEventDispatchThread());
+    }
+
+    @Test
+    void burstSubmittedWhileEdtIsBusyLandsInOneBatch() throws Exception {
+        final EdtBatcher<Integer> batcher = new EdtBatcher<>(this::record);
+        final CountDownLatch edtBusy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        SwingUtilities.invokeLater(() -> {
+            edtBusy.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(edtBusy.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 200; i++) {
+            batcher.submit(i);
+        }
+        assertEquals(200, batcher.getPendingCount());
+        release.countDown();
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(1, batches.size());
+        assertEquals(200, batches.get(0).size());
+        assertEquals(0, (int) batches.get(0).get(0));
+        assertEquals(199, (int) batches.get(0).get(199));
+        assertTrue(onEdt.get(0));
+
+        final EdtBatcher.Stats stats = batcher.getStats();
+        assertEquals(1, stats.batches());
+        assertEquals(200, stats.items());
+        assertEquals(200, stats.largestBatch());
+        assertTrue(stats.lastBatchMillis() >= 0);
+    }
+
+    @Test
+    void flushAppliesPendingItemsImmediately() throws Exception {
+        final EdtBatcher<Integer> batcher = new EdtBatcher<>(this::record, 10_000);
+        batcher.submit(1);
+        batcher.submit(2);
+
+        SwingUtilities.invokeAndWait(batcher::flush);
+        SwingUtilities.invokeAndWait(batcher::flush);
+
+        assertEquals(List.of(List.of(1, 2)), batches);
+        assertEquals(0, batcher.getPendingCount());
+    }
+
+    @Test
+    void windowHoldsTheBatchOpen() throws Exception {
+        final CountDownLatch applied = new CountDownLatch(1);
+        final EdtBatcher<Integer> batcher = new EdtBatcher<>(batch -> {
+            record(batch);
+            applied.countDown();
+        }, 50);
+        batcher.submit(1);
+        SwingUtilities.invokeAndWait(() -> { });
+        batcher.submit(2);
+
+        assertTrue(applied.await(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals(List.of(List.of(1, 2)), batches);
+        assertTrue(onEdt.get(0));
+    }
+
+    @Test
+    void failingSinkDoesNotWedgeTheBatcher() throws Exception {
+        final EdtBatcher<Integer> batcher = new EdtBatcher<>(batch -> {
+            record(batch);
+            if (batch.contains(1)) {
+                throw new IllegalStateException("boom");
+            }
+        });
+        batcher.submit(1);
+        SwingUtilities.invokeAndWait(() -> { });
+        batcher.submit(2);
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(List.of(List.of(1), List.of(2)), batches);
+    }
+}
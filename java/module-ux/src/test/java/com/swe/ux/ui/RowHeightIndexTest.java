@@ -0,0 +1,89 @@
+package com.swe.ux.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests offsets and row lookup against a plain list of heights.
+ */
+class RowHeightIndexTest {
+
+    private final RowHeightIndex index = new RowHeightIndex();
+
+    @Test
+    void offsetsAndLookupFollowHeights() {
+        index.add(10);
+        index.add(20);
+        index.add(5);
+
+        assertEquals(35, index.total());
+        assertEquals(0, index.offsetOf(0));
+        assertEquals(30, index.offsetOf(2));
+        assertEquals(35, index.offsetOf(3));
+        assertEquals(0, index.indexAt(9));
+        assertEquals(1, index.indexAt(10));
+        assertEquals(2, index.indexAt(34));
+        assertEquals(-1, index.indexAt(35));
+        assertEquals(-1, index.indexAt(-1));
+    }
+
+    @Test
+    void zeroHeightRowsAreSkipped() {
+        index.add(10);
+        index.add(20);
+        index.add(30);
+        index.set(1, 0);
+
+        assertEquals(2, index.indexAt(10));
+        assertEquals(10, index.offsetOf(2));
+        assertEquals(40, index.total());
+    }
+
+    @Test
+    void matchesLinearScanUnderRandomEdits() {
+        final Random random = new Random(41);
+        final List<Integer> expected = new ArrayList<>();
+        for (int op = 0; op < 3000; op++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                final int h = random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(80);
+                expected.add(h);
+                index.add(h);
+            } else {
+                final int row = random.nextInt(expected.size());
+                final int h = random.nextInt(80);
+                expected.set(row, h);
+                index.set(row, h);
+            }
+        }
+
+        int offset = 0;
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(offset, index.offsetOf(row));
+            assertEquals((int) expected.get(row), index.get(row));
+            if (expected.get(row) > 0) {
+                assertEquals(row, index.indexAt(offset));
+                assertEquals(row, index.indexAt(offset + expected.get(row) - 1));
+            }
+            offset += expected.get(row);
+        }
+        assertEquals(offset, index.total());
+    }
+
+    @Test
+    void clearEmptiesTheIndex() {
+        for (int i = 0; i < 100; i++) {
+            index.add(3);
+        }
+        index.clear();
+        index.add(7);
+
+        assertEquals(1, index.size());
+        assertEquals(7, index.total());
+        assertEquals(0, index.indexAt(6));
+    }
+}
@@ -0,0 +1,72 @@
+package com.swe.ux.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Font;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests wrapping, reuse and invalidation of cached text layouts.
+ */
+class TextLayoutCacheTest {
+
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 14);
+
+    private static final String LONG_TEXT =
+            "We decided to ship the planner on Friday and demo it to the whole class on Monday morning";
+
+    @Test
+    void wrapsToWidthAndKeepsLineBreaks() {
+        final TextLayoutCache cache = new TextLayoutCache();
+
+        final TextLayoutCache.WrappedText oneLine = cache.get("a", "hi", FONT, 286);
+        final TextLayoutCache.WrappedText wide = cache.get("b", LONG_TEXT, FONT, 286);
+        final TextLayoutCache.WrappedText narrow = cache.get("c", LONG_TEXT, FONT, 100);
+
+        assertEquals(1, oneLine.getLineCount());
+        assertTrue(oneLine.getHeight() > 0);
+        assertTrue(wide.getLineCount() > 1);
+        assertTrue(narrow.getLineCount() > wide.getLineCount());
+        assertTrue(narrow.getHeight() > wide.getHeight());
+
+        final TextLayoutCache.WrappedText breaks = cache.get("d", "one\n\nthree", FONT, 286);
+        assertEquals(2, breaks.getLineCount());
+        assertTrue(breaks.getHeight() > 2 * oneLine.getHeight());
+
+        assertEquals(0, cache.get("e", null, FONT, 286).getHeight());
+        assertEquals(0, cache.get("f", "", FONT, 286).getLineCount());
+    }
+
+    @Test
+    void reusesLayoutUntilTextFontOrWidthChanges() {
+        final TextLayoutCache cache = new TextLayoutCache();
+        final TextLayoutCache.WrappedText first = cache.get("m1", LONG_TEXT, FONT, 286);
+
+        assertSame(first, cache.get("m1", new String(LONG_TEXT.toCharArray()), FONT, 286));
+        assertSame(first, cache.get("m1", LONG_TEXT, new Font(Font.SANS_SERIF, Font.PLAIN, 14), 286));
+
+        final TextLayoutCache.WrappedText resized = cache.get("m1", LONG_TEXT, FONT, 200);
+        assertNotSame(first, resized);
+        assertNotSame(resized, cache.get("m1", LONG_TEXT, FONT.deriveFont(Font.ITALIC), 200));
+        assertNotSame(resized, cache.get("m1", "This message was deleted", FONT, 200));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void dropsLeastRecentlyUsedBeyondCapacity() {
+        final TextLayoutCache cache = new TextLayoutCache(2);
+        final TextLayoutCache.WrappedText a = cache.get("a", "alpha", FONT, 100);
+        cache.get("b", "beta", FONT, 100);
+        cache.get("a", "alpha", FONT, 100);
+        cache.get("c", "gamma", FONT, 100);
+
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("a", "alpha", FONT, 100));
+
+        cache.remove("a");
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
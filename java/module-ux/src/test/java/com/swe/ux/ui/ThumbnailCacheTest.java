@@ -0,0 +1,167 @@
+package com.swe.ux.ui;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests background thumbnail generation, the disk cache and the memory bound.
+ */
+class ThumbnailCacheTest {
+
+    private Path dir;
+
+    private final Map<String, Path> sources = new ConcurrentHashMap<>();
+
+    private final List<String> ready = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger resolved = new AtomicInteger();
+
+    private final List<ThumbnailCache> caches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("thumbnail-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        caches.forEach(ThumbnailCache::shutdown);
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path image(final String name, final int width, final int height) throws IOException {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = image.createGraphics();
+        g2.setColor(Color.RED);
+        g2.fillRect(0, 0, width / 2, height);
+        g2.setColor(Color.BLUE);
+        g2.fillRect(width / 2, 0, width - width / 2, height);
+        g2.dispose();
+        final Path file = dir.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    private ThumbnailCache cache(final long memoryBytes, final Path disk) {
+        final ThumbnailCache cache = new ThumbnailCache(100, memoryBytes, disk, key -> {
+            resolved.incrementAndGet();
+            return sources.get(key);
+        }, ready::add);
+        caches.add(cache);
+        return cache;
+    }
+
+    private void awaitReady(final int count) throws Exception {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (ready.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals(count, ready.size());
+    }
+
+    @Test
+    void recognisesImageFileNames() {
+        assertTrue(ThumbnailCache.isImage("photo.PNG"));
+        assertTrue(ThumbnailCache.isImage("photo.jpeg"));
+        assertFalse(ThumbnailCache.isImage("slides.pdf"));
+        assertFalse(ThumbnailCache.isImage("README"));
+        assertFalse(ThumbnailCache.isImage(null));
+    }
+
+    @Test
+    void buildsScaledThumbnailInBackground() throws Exception {
+        sources.put("m1", image("wide.png", 2000, 1000));
+        final ThumbnailCache cache = cache(ThumbnailCache.DEFAULT_MEMORY_BYTES, dir.resolve("thumbs"));
+
+        assertNull(cache.get("m1"));
+        cache.request("m1");
+        awaitReady(1);
+
+        final BufferedImage thumbnail = cache.get("m1");
+        assertEquals(100, thumbnail.getWidth());
+        assertEquals(50, thumbnail.getHeight());
+        assertEquals(Color.RED.getRGB(), thumbnail.getRGB(10, 25));
+        assertEquals(Color.BLUE.getRGB(), thumbnail.getRGB(90, 25));
+        assertTrue(Files.exists(dir.resolve("thumbs").resolve("m1.png")));
+    }
+
+    @Test
+    void reusesThumbnailsSavedOnDisk() throws Exception {
+        sources.put("m1", image("photo.png", 400, 400));
+        cache(ThumbnailCache.DEFAULT_MEMORY_BYTES, dir.resolve("thumbs")).request("m1");
+        awaitReady(1);
+
+        sources.clear();
+        resolved.set(0);
+        final ThumbnailCache reopened = cache(ThumbnailCache.DEFAULT_MEMORY_BYTES, dir.resolve("thumbs"));
+        reopened.request("m1");
+        awaitReady(2);
+
+        assertNotNull(reopened.get("m1"));
+        assertEquals(0, resolved.get());
+    }
+
+    @Test
+    void keepsMemoryWithinBudget() throws Exception {
+        // Each 100x100 thumbnail holds 40 000 bytes
+        final ThumbnailCache cache = cache(100_000, null);
+        for (int i = 0; i < 5; i++) {
+            sources.put("m" + i, image("img" + i + ".png", 300, 300));
+        }
+        for (int i = 0; i < 5; i++) {
+            cache.request("m" + i);
+            awaitReady(i + 1);
+        }
+
+        assertTrue(cache.getMemoryBytes() <= 100_000);
+        assertNotNull(cache.get("m4"));
+        assertNull(cache.get("m0"));
+    }
+
+    @Test
+    void unreadableImagesAreNotRetriedButMissingSourcesAre() throws Exception {
+        final Path broken = Files.write(dir.resolve("broken.png"), new byte[] {1, 2, 3});
+        final ThumbnailCache cache = cache(ThumbnailCache.DEFAULT_MEMORY_BYTES, null);
+
+        cache.request("missing");
+        cache.request("m1");
+        Thread.sleep(200);
+        assertEquals(2, resolved.get());
+
+        sources.put("broken", broken);
+        cache.request("broken");
+        Thread.sleep(200);
+        cache.request("broken");
+        Thread.sleep(200);
+        assertEquals(3, resolved.get());
+
+        sources.put("missing", image("late.png", 50, 50));
+        cache.request("missing");
+        awaitReady(1);
+        assertEquals(List.of("missing"), ready);
+    }
+}
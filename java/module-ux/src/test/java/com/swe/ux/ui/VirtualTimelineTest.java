@@ -0,0 +1,98 @@
+package com.swe.ux.ui;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that re-measuring after a theme change only looks up the rows that
+ * are shown, so a row source that spills to disk is not read back whole.
+ */
+class VirtualTimelineTest {
+
+    private static final int ROWS = 1000;
+
+    private static final int VIEW_HEIGHT = 100;
+
+    /** Keys the row source was asked for, i.e. rows paged back in. */
+    private final Set<String> pagedIn = new HashSet<>();
+
+    /** Row height the renderer reports, standing in for the theme's font. */
+    private int rowHeight = 10;
+
+    private VirtualTimeline<String> timeline;
+
+    private JViewport viewport;
+
+    @BeforeEach
+    void setUp() {
+        final JPanel cell = new JPanel();
+        timeline = new VirtualTimeline<>(key -> key, key -> {
+            cell.setPreferredSize(new Dimension(10, rowHeight));
+            return cell;
+        });
+        timeline.setRowSource(key -> {
+            pagedIn.add(key);
+            return key;
+        });
+        for (int i = 0; i < ROWS; i++) {
+            timeline.put("m" + i);
+        }
+        viewport = new JViewport();
+        viewport.setView(timeline);
+        viewport.setSize(200, VIEW_HEIGHT);
+        timeline.setSize(200, ROWS * rowHeight);
+        viewport.setViewPosition(new Point(0, ROWS * rowHeight - VIEW_HEIGHT));
+    }
+
+    private void paint(final Rectangle clip) {
+        final BufferedImage image = new BufferedImage(200, timeline.getHeight(), BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        g.setClip(clip);
+        timeline.paintComponent(g);
+        g.dispose();
+    }
+
+    @Test
+    void themeChangeOnlyPagesInVisibleRows() {
+        pagedIn.clear();
+        rowHeight = 20;
+
+        timeline.remeasureAll();
+
+        assertTrue(pagedIn.contains("m999"));
+        assertFalse(pagedIn.contains("m0"), "off-screen rows stay on disk");
+        assertTrue(pagedIn.size() <= VIEW_HEIGHT / 10 + 1, "paged in " + pagedIn.size() + " rows");
+        assertEquals(20, timeline.getRowBounds(999).height);
+        assertEquals(10, timeline.getRowBounds(0).height);
+    }
+
+    @Test
+    void staleRowsAreMeasuredWhenShown() {
+        rowHeight = 20;
+        timeline.remeasureAll();
+        pagedIn.clear();
+
+        paint(new Rectangle(0, 0, 200, VIEW_HEIGHT));
+
+        assertTrue(pagedIn.contains("m0"));
+        assertEquals(20, timeline.getRowBounds(0).height);
+        assertEquals(20, timeline.getRowBounds(4).height);
+        assertEquals(10, timeline.getRowBounds(500).height);
+        assertFalse(pagedIn.contains("m500"));
+
+        assertTrue(timeline.scrollToKey("m500"));
+        assertEquals(20, timeline.getRowBounds(500).height);
+    }
+}
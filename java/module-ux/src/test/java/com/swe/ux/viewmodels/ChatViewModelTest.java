@@ -0,0 +1,38 @@
+package com.swe.ux.viewmodels;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+/**
+ * Unit tests for where ChatViewModel saves downloaded files.
+ */
+class ChatViewModelTest {
+
+    private final Path downloads = Path.of("/home/user/Downloads");
+
+    @Test
+    void testDownloadTargetKeepsPlainNames() {
+        assertEquals(downloads.resolve("deck.pdf"), ChatViewModel.downloadTarget(downloads, "deck.pdf"));
+    }
+
+    @Test
+    void testDownloadTargetStaysInsideFolder() {
+        assertEquals(downloads.resolve("passwd"), ChatViewModel.downloadTarget(downloads, "../../etc/passwd"));
+        assertEquals(downloads.resolve(".bashrc"), ChatViewModel.downloadTarget(downloads, "../.bashrc"));
+        assertEquals(downloads.resolve("x.txt"), ChatViewModel.downloadTarget(downloads, "/tmp/x.txt"));
+    }
+
+    @Test
+    void testDownloadTargetRejectsUnusableNames() {
+        assertNull(ChatViewModel.downloadTarget(downloads, null));
+        assertNull(ChatViewModel.downloadTarget(downloads, ""));
+        assertNull(ChatViewModel.downloadTarget(downloads, "  "));
+        assertNull(ChatViewModel.downloadTarget(downloads, "."));
+        assertNull(ChatViewModel.downloadTarget(downloads, ".."));
+        assertNull(ChatViewModel.downloadTarget(downloads, "/"));
+        assertNull(ChatViewModel.downloadTarget(downloads, "a\0b"));
+    }
+}